@@ -0,0 +1,73 @@
+package io.honeycomb.beeline.agent;
+
+import net.bytebuddy.agent.builder.AgentBuilder;
+
+import java.lang.instrument.Instrumentation;
+
+import static net.bytebuddy.matcher.ElementMatchers.declaresMethod;
+
+/**
+ * A Java agent that instruments methods annotated with {@code @ChildSpan} (and their {@code @SpanField} parameters)
+ * by weaving span start and close into their bytecode as classes are loaded.
+ * <p>
+ * This creates the same child spans and fields as the Spring {@code SpanAspect}, but also covers self-invocations and
+ * classes that are not Spring beans, and avoids the dispatch through AOP proxies. Start the JVM with
+ * {@code -javaagent:beeline-agent.jar}, or attach the agent at runtime, which then also instruments classes that have
+ * already been loaded.
+ * <p>
+ * The woven code creates spans with the tracer registered with {@link io.honeycomb.beeline.tracing.GlobalTracer};
+ * until one is registered, annotated methods run without spans. The Beeline Spring Boot starter registers its tracer
+ * and disables the {@code SpanAspect} when it finds the {@value #INSTALLED_PROPERTY} system property, which is set once
+ * the agent is installed.
+ */
+public final class BeelineAgent {
+    /**
+     * The system property set to {@code true} once the agent is installed.
+     */
+    public static final String INSTALLED_PROPERTY = "honeycomb.beeline.agent.installed";
+
+    private static boolean installed;
+
+    private BeelineAgent() {
+        // agent class
+    }
+
+    /**
+     * Entry point of the agent when the JVM is started with {@code -javaagent}.
+     *
+     * @param arguments       of the agent - unused.
+     * @param instrumentation to install the agent with.
+     */
+    public static void premain(final String arguments, final Instrumentation instrumentation) {
+        install(instrumentation);
+    }
+
+    /**
+     * Entry point of the agent when it is attached to a running JVM.
+     *
+     * @param arguments       of the agent - unused.
+     * @param instrumentation to install the agent with.
+     */
+    public static void agentmain(final String arguments, final Instrumentation instrumentation) {
+        install(instrumentation);
+    }
+
+    /**
+     * Installs the agent, unless it has been installed already.
+     *
+     * @param instrumentation to install the agent with.
+     */
+    public static synchronized void install(final Instrumentation instrumentation) {
+        if (installed) {
+            return;
+        }
+        new AgentBuilder.Default()
+            .disableClassFormatChanges()
+            .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+            .type(declaresMethod(ChildSpanTransformer.CHILD_SPAN_METHODS))
+            .transform(new ChildSpanTransformer())
+            .installOn(instrumentation);
+        installed = true;
+        System.setProperty(INSTALLED_PROPERTY, "true");
+    }
+}
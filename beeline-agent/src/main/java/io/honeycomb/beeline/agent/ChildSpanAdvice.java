@@ -0,0 +1,138 @@
+package io.honeycomb.beeline.agent;
+
+import io.honeycomb.beeline.tracing.GlobalTracer;
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.beeline.tracing.Tracer;
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static io.honeycomb.beeline.tracing.utils.TraceFieldConstants.TYPE_FIELD;
+
+/**
+ * The code that {@link ChildSpanTransformer} inlines into {@code @ChildSpan}-annotated methods, adding the same
+ * fields as the Spring {@code SpanAspect}.
+ * <p>
+ * As the code is copied into the instrumented classes, it may only refer to types visible to them: beeline-core, which
+ * the application provides, and {@link ChildSpanFieldNames}. The agent must not load the nested advice classes, as it
+ * cannot see beeline-core itself; {@link ChildSpanTransformer} reads them by name from their class files instead.
+ * Instrumentation failures are suppressed, so they never affect the annotated method.
+ */
+final class ChildSpanAdvice {
+    // Same as the fields of SpanAspect, see MoreTraceFieldConstants and InstrumentationConstants of the starter
+    private static final String ANNOTATED_METHOD_TYPE = "annotated_method";
+    private static final String JOIN_POINT_FIELD = "spring.method.name";
+    private static final String JOIN_POINT_ERROR_FIELD = "spring.method.error";
+    private static final String JOIN_POINT_ERROR_DETAIL = "spring.method.error_detail";
+    private static final String JOIN_POINT_RESULT_FIELD = "spring.method.result";
+
+    private ChildSpanAdvice() {
+        // advice class
+    }
+
+    /** Binds the span name of the annotated method. */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.PARAMETER)
+    @interface SpanName {
+    }
+
+    /** Binds the join point name of the annotated method, e.g. {@code MyService.doWork(..)}. */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.PARAMETER)
+    @interface JoinPointName {
+    }
+
+    /** Binds the id of the method's field names, see {@link ChildSpanFieldNames}. */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.PARAMETER)
+    @interface FieldNamesId {
+    }
+
+    static final class Enter {
+        private Enter() {
+        }
+
+        @Advice.OnMethodEnter(suppress = Throwable.class)
+        static Span enter(@SpanName final String spanName, @JoinPointName final String joinPointName) {
+            final Tracer tracer = GlobalTracer.get();
+            if (tracer == null) {
+                return null;
+            }
+            return tracer.startChildSpan(spanName)
+                .addField(TYPE_FIELD, ANNOTATED_METHOD_TYPE)
+                .addField(JOIN_POINT_FIELD, joinPointName);
+        }
+    }
+
+    static final class EnterWithFields {
+        private EnterWithFields() {
+        }
+
+        @Advice.OnMethodEnter(suppress = Throwable.class)
+        static Span enter(@SpanName final String spanName,
+                          @JoinPointName final String joinPointName,
+                          @FieldNamesId final int fieldNamesId,
+                          @Advice.AllArguments final Object[] arguments) {
+            final Tracer tracer = GlobalTracer.get();
+            if (tracer == null) {
+                return null;
+            }
+            final Span span = tracer.startChildSpan(spanName)
+                .addField(TYPE_FIELD, ANNOTATED_METHOD_TYPE)
+                .addField(JOIN_POINT_FIELD, joinPointName);
+            final String[] fieldNames = ChildSpanFieldNames.get(fieldNamesId);
+            for (int i = 0; i < fieldNames.length; i++) {
+                if (fieldNames[i] != null) {
+                    span.addField(fieldNames[i], arguments[i]);
+                }
+            }
+            return span;
+        }
+    }
+
+    static final class Exit {
+        private Exit() {
+        }
+
+        @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+        static void exit(@Advice.Enter final Span span, @Advice.Thrown final Throwable thrown) {
+            if (span == null) {
+                return;
+            }
+            if (thrown instanceof Exception) {
+                span.addField(JOIN_POINT_ERROR_FIELD, thrown.getClass().getSimpleName());
+                if (thrown.getMessage() != null) {
+                    span.addField(JOIN_POINT_ERROR_DETAIL, thrown.getMessage());
+                }
+            }
+            span.close();
+        }
+    }
+
+    static final class ExitWithResult {
+        private ExitWithResult() {
+        }
+
+        @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+        static void exit(@Advice.Enter final Span span,
+                         @Advice.Thrown final Throwable thrown,
+                         @Advice.Return(typing = Assigner.Typing.DYNAMIC) final Object result) {
+            if (span == null) {
+                return;
+            }
+            if (thrown == null) {
+                span.addField(JOIN_POINT_RESULT_FIELD, result);
+            } else if (thrown instanceof Exception) {
+                span.addField(JOIN_POINT_ERROR_FIELD, thrown.getClass().getSimpleName());
+                if (thrown.getMessage() != null) {
+                    span.addField(JOIN_POINT_ERROR_DETAIL, thrown.getMessage());
+                }
+            }
+            span.close();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.honeycomb.beeline.agent;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the {@code @SpanField} names of the woven methods, which the woven code looks up by the id it was bound with.
+ * <p>
+ * This class is public as it is referenced by the woven code, but it is not meant to be used otherwise. It only refers
+ * to JDK types, so it can be loaded from the system class path regardless of where beeline-core is.
+ *
+ * <p>Thread-safety</p>
+ * This class is thread-safe. Lookups read a volatile array without locking.
+ */
+public final class ChildSpanFieldNames {
+    @SuppressFBWarnings("VO_VOLATILE_REFERENCE_TO_ARRAY") // copy-on-write, the arrays are not modified once published
+    private static volatile String[][] fieldNames = new String[0][];
+
+    /** The ids by method, so that retransforming a class reuses its ids rather than registering the names again. */
+    private static final Map<String, Integer> idsByMethod = new HashMap<>();
+
+    private ChildSpanFieldNames() {
+        // utils class
+    }
+
+    /**
+     * @param method that the names belong to, identified by its declaring type, name and descriptor.
+     * @param names  of the fields by parameter index, with null for parameters that are not fields.
+     * @return the id to look up the names with - the same id as before if the method was registered with equal names.
+     */
+    static synchronized int register(final String method, final String[] names) {
+        final Integer id = idsByMethod.get(method);
+        if (id != null && Arrays.equals(fieldNames[id], names)) {
+            return id;
+        }
+        final String[][] registered = Arrays.copyOf(fieldNames, fieldNames.length + 1);
+        registered[registered.length - 1] = names;
+        fieldNames = registered;
+        idsByMethod.put(method, registered.length - 1);
+        return registered.length - 1;
+    }
+
+    /**
+     * @param id returned on registration of the names.
+     * @return the names of the fields by parameter index - must not be modified.
+     */
+    public static String[] get(final int id) {
+        return fieldNames[id];
+    }
+}
@@ -0,0 +1,167 @@
+package io.honeycomb.beeline.agent;
+
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.description.annotation.AnnotationDescription;
+import net.bytebuddy.description.annotation.AnnotationList;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.method.ParameterDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.matcher.ElementMatchers;
+import net.bytebuddy.pool.TypePool;
+import net.bytebuddy.utility.JavaModule;
+
+import java.security.ProtectionDomain;
+
+import static net.bytebuddy.matcher.ElementMatchers.annotationType;
+import static net.bytebuddy.matcher.ElementMatchers.is;
+import static net.bytebuddy.matcher.ElementMatchers.isAbstract;
+import static net.bytebuddy.matcher.ElementMatchers.isNative;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.not;
+
+/**
+ * Weaves the {@link ChildSpanAdvice} into the {@code @ChildSpan}-annotated methods of a type.
+ * <p>
+ * Everything the {@code SpanAspect} derives from the annotations on each call - the span name, the join point name and
+ * the field names of {@code @SpanField} parameters - is resolved here, once per method, and bound into the woven code
+ * as constants. The annotations are matched by name, so the agent does not depend on the Spring Boot starter.
+ * <p>
+ * The advice refers to beeline-core, which is not part of the agent jar: only the instrumented type's class loader can
+ * see it. So the advice classes are never loaded by the agent, but described from their class files, along with the
+ * beeline-core types they refer to, which are located through the instrumented type's class loader.
+ */
+final class ChildSpanTransformer implements AgentBuilder.Transformer {
+    static final String CHILD_SPAN_ANNOTATION = "io.honeycomb.beeline.spring.beans.aspects.ChildSpan";
+    static final String SPAN_FIELD_ANNOTATION = "io.honeycomb.beeline.spring.beans.aspects.SpanField";
+    static final ElementMatcher.Junction<MethodDescription> CHILD_SPAN_METHODS =
+        ElementMatchers.<MethodDescription>isAnnotatedWith(named(CHILD_SPAN_ANNOTATION))
+            .and(not(isAbstract()))
+            .and(not(isNative()));
+
+    private static final String JOIN_POINT_PARAM_FIELD_PREFIX = "spring.method.param.";
+    private static final String ADVICE_NAME = ChildSpanAdvice.class.getName();
+    private static final String ENTER_ADVICE = ADVICE_NAME + "$Enter";
+    private static final String ENTER_WITH_FIELDS_ADVICE = ADVICE_NAME + "$EnterWithFields";
+    private static final String EXIT_ADVICE = ADVICE_NAME + "$Exit";
+    private static final String EXIT_WITH_RESULT_ADVICE = ADVICE_NAME + "$ExitWithResult";
+
+    @Override
+    public DynamicType.Builder<?> transform(final DynamicType.Builder<?> builder,
+                                            final TypeDescription typeDescription,
+                                            final ClassLoader classLoader,
+                                            final JavaModule module,
+                                            final ProtectionDomain protectionDomain) {
+        return weave(builder, typeDescription, classLoader);
+    }
+
+    /**
+     * @param builder     of the type.
+     * @param type        to weave.
+     * @param classLoader of the type, which must be able to see beeline-core - may be null for the bootstrap loader.
+     * @return the builder, with the advice applied to each {@code @ChildSpan}-annotated method of the type.
+     */
+    static DynamicType.Builder<?> weave(final DynamicType.Builder<?> builder,
+                                        final TypeDescription type,
+                                        final ClassLoader classLoader) {
+        final ClassFileLocator classFileLocator = new ClassFileLocator.Compound(
+            ClassFileLocator.ForClassLoader.of(ChildSpanTransformer.class.getClassLoader()),
+            ClassFileLocator.ForClassLoader.of(classLoader));
+        final TypePool typePool = TypePool.Default.of(classFileLocator);
+        DynamicType.Builder<?> woven = builder;
+        for (final MethodDescription.InDefinedShape method : type.getDeclaredMethods().filter(CHILD_SPAN_METHODS)) {
+            woven = woven.visit(advice(type, method, typePool, classFileLocator).on(is(method)));
+        }
+        return woven;
+    }
+
+    private static Advice advice(final TypeDescription type,
+                                 final MethodDescription method,
+                                 final TypePool typePool,
+                                 final ClassFileLocator classFileLocator) {
+        final AnnotationDescription childSpan = findAnnotation(method.getDeclaredAnnotations(), CHILD_SPAN_ANNOTATION);
+        Advice.WithCustomMapping mapping = Advice.withCustomMapping()
+            .bind(ChildSpanAdvice.SpanName.class, determineSpanName(method, childSpan))
+            .bind(ChildSpanAdvice.JoinPointName.class, determineJoinPointName(type, method));
+
+        final String[] fieldNames = determineFieldNames(method);
+        final String enterAdvice;
+        if (fieldNames == null) {
+            enterAdvice = ENTER_ADVICE;
+        } else {
+            mapping = mapping.bind(ChildSpanAdvice.FieldNamesId.class, ChildSpanFieldNames.register(
+                type.getName() + '#' + method.getInternalName() + method.getDescriptor(), fieldNames));
+            enterAdvice = ENTER_WITH_FIELDS_ADVICE;
+        }
+        final boolean addResult = childSpan.getValue("addResult").resolve(Boolean.class)
+                                  && !method.getReturnType().represents(void.class);
+        return mapping.to(typePool.describe(enterAdvice).resolve(),
+                          typePool.describe(addResult ? EXIT_WITH_RESULT_ADVICE : EXIT_ADVICE).resolve(),
+                          classFileLocator);
+    }
+
+    /**
+     * Same as {@code SpanAspect#determineSpanName}: the annotation's value or name, or else the capitalized method name.
+     */
+    private static String determineSpanName(final MethodDescription method, final AnnotationDescription childSpan) {
+        final String value = childSpan.getValue("value").resolve(String.class);
+        if (!value.isEmpty()) {
+            return value;
+        }
+        final String name = childSpan.getValue("name").resolve(String.class);
+        if (!name.isEmpty()) {
+            return name;
+        }
+        final String methodName = method.getName();
+        return Character.toUpperCase(methodName.charAt(0)) + methodName.substring(1);
+    }
+
+    /**
+     * Same as AspectJ's short string of a method signature, e.g. {@code MyService.doWork(..)}.
+     */
+    private static String determineJoinPointName(final TypeDescription type, final MethodDescription method) {
+        return type.getSimpleName() + '.' + method.getName() + (method.getParameters().isEmpty() ? "()" : "(..)");
+    }
+
+    /**
+     * Same as {@code SpanAspect#determineParameterFieldName}, for each {@code @SpanField} parameter.
+     *
+     * @return the field names by parameter index, with null for parameters that are not fields - or null if there are
+     * no fields at all.
+     */
+    private static String[] determineFieldNames(final MethodDescription method) {
+        String[] fieldNames = null;
+        for (final ParameterDescription parameter : method.getParameters()) {
+            final AnnotationDescription spanField =
+                findAnnotation(parameter.getDeclaredAnnotations(), SPAN_FIELD_ANNOTATION);
+            if (spanField == null) {
+                continue;
+            }
+            if (fieldNames == null) {
+                fieldNames = new String[method.getParameters().size()];
+            }
+            final String value = spanField.getValue("value").resolve(String.class);
+            final String name = spanField.getValue("name").resolve(String.class);
+            final String fieldName;
+            if (!value.isEmpty()) {
+                fieldName = value;
+            } else if (!name.isEmpty()) {
+                fieldName = name;
+            } else if (parameter.isNamed()) {
+                fieldName = JOIN_POINT_PARAM_FIELD_PREFIX + parameter.getName();
+            } else {
+                fieldName = JOIN_POINT_PARAM_FIELD_PREFIX + parameter.getIndex();
+            }
+            fieldNames[parameter.getIndex()] = fieldName;
+        }
+        return fieldNames;
+    }
+
+    private static AnnotationDescription findAnnotation(final AnnotationList annotations, final String annotationName) {
+        final AnnotationList matching = annotations.filter(annotationType(named(annotationName)));
+        return matching.isEmpty() ? null : matching.getOnly();
+    }
+}
@@ -0,0 +1,285 @@
+package io.honeycomb.beeline.agent;
+
+import io.honeycomb.beeline.spring.beans.aspects.ChildSpan;
+import io.honeycomb.beeline.spring.beans.aspects.SpanField;
+import io.honeycomb.beeline.tracing.GlobalTracer;
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.beeline.tracing.Tracer;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.loading.ByteArrayClassLoader;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.matches;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+public class ChildSpanTransformerTest {
+    private Tracer tracer;
+    private Span mockSpan;
+    private Object target;
+
+    /**
+     * Woven by the test into a class of the same name, which is loaded by a child-first class loader.
+     */
+    public static class AnnotationTester {
+        @ChildSpan
+        public void plainMethod() {
+
+        }
+
+        @ChildSpan("ExplicitlyNamed")
+        public void methodWithExplicitSpanName() {
+
+        }
+
+        @ChildSpan(name = "AlsoExplicitlyNamed")
+        public void methodWithNameOnAnnotationAlias() {
+
+        }
+
+        @ChildSpan(addResult = true)
+        public Map<String, String> methodWithAddResult() {
+            return Collections.singletonMap("key", "value");
+        }
+
+        @ChildSpan(addResult = true)
+        public void voidMethodWithAddResult() {
+
+        }
+
+        @ChildSpan
+        public void methodWithNamedParameter(final String param0,
+                                             @SpanField final long param1,
+                                             @SpanField("Third-Parameter") final String param2) {
+
+        }
+
+        @ChildSpan
+        public void methodThrowingException() {
+            throw new IllegalStateException("Oops!");
+        }
+
+        @ChildSpan
+        public void outerMethod() {
+            innerMethod();
+        }
+
+        @ChildSpan
+        public void innerMethod() {
+
+        }
+
+        public void unannotatedMethod() {
+
+        }
+    }
+
+    /**
+     * Weaves a class as the agent would, when loaded by a class loader that only sees the agent and Byte Buddy.
+     */
+    public static class IsolatedWeaver implements Function<Class<?>, byte[]> {
+        @Override
+        public byte[] apply(final Class<?> type) {
+            return ChildSpanTransformer.weave(
+                new ByteBuddy().redefine(type, ClassFileLocator.ForClassLoader.of(type.getClassLoader())),
+                TypeDescription.ForLoadedType.of(type),
+                type.getClassLoader())
+                .make()
+                .getBytes();
+        }
+    }
+
+    private static URL locationOf(final Class<?> type) {
+        return type.getProtectionDomain().getCodeSource().getLocation();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        tracer = mock(Tracer.class);
+        mockSpan = mock(Span.class);
+        when(mockSpan.addField(anyString(), any())).thenReturn(mockSpan);
+        when(tracer.startChildSpan(anyString())).thenReturn(mockSpan);
+        GlobalTracer.register(tracer);
+
+        final Class<?> woven = ChildSpanTransformer.weave(new ByteBuddy().redefine(AnnotationTester.class),
+                                                          TypeDescription.ForLoadedType.of(AnnotationTester.class),
+                                                          AnnotationTester.class.getClassLoader())
+            .make()
+            .load(AnnotationTester.class.getClassLoader(), ClassLoadingStrategy.Default.CHILD_FIRST)
+            .getLoaded();
+        assertThat(woven).isNotSameAs(AnnotationTester.class);
+        target = woven.getConstructor().newInstance();
+    }
+
+    @After
+    public void tearDown() {
+        GlobalTracer.clear();
+    }
+
+    private Object call(final String methodName, final Object... args) throws Throwable {
+        for (final Method method : target.getClass().getMethods()) {
+            if (method.getName().equals(methodName)) {
+                try {
+                    return method.invoke(target, args);
+                } catch (final InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+        throw new IllegalArgumentException(methodName);
+    }
+
+    @Test
+    public void GIVEN_annotatedMethod_WHEN_callingMethod_EXPECT_spanWithDefaultName() throws Throwable {
+        call("plainMethod");
+
+        verify(tracer).startChildSpan("PlainMethod");
+        verify(mockSpan).addField("type", "annotated_method");
+        verify(mockSpan).addField("spring.method.name", "AnnotationTester.plainMethod()");
+        verify(mockSpan).close();
+        verifyNoMoreInteractions(mockSpan, tracer);
+    }
+
+    @Test
+    public void GIVEN_annotatedMethodWithExplicitName_WHEN_callingMethod_EXPECT_spanWithExplicitName() throws Throwable {
+        call("methodWithExplicitSpanName");
+        call("methodWithNameOnAnnotationAlias");
+
+        verify(tracer).startChildSpan("ExplicitlyNamed");
+        verify(tracer).startChildSpan("AlsoExplicitlyNamed");
+    }
+
+    @Test
+    public void GIVEN_annotatedMethodWithAddResult_WHEN_callingMethod_EXPECT_resultToBeAdded() throws Throwable {
+        assertThat(call("methodWithAddResult")).isEqualTo(Collections.singletonMap("key", "value"));
+
+        verify(tracer).startChildSpan("MethodWithAddResult");
+        verify(mockSpan).addField("type", "annotated_method");
+        verify(mockSpan).addField("spring.method.name", "AnnotationTester.methodWithAddResult()");
+        verify(mockSpan).addField("spring.method.result", Collections.singletonMap("key", "value"));
+        verify(mockSpan).close();
+        verifyNoMoreInteractions(mockSpan, tracer);
+    }
+
+    @Test
+    public void GIVEN_voidMethodWithAddResult_WHEN_callingMethod_EXPECT_noResultToBeAdded() throws Throwable {
+        call("voidMethodWithAddResult");
+
+        verify(tracer).startChildSpan("VoidMethodWithAddResult");
+        verify(mockSpan).addField("type", "annotated_method");
+        verify(mockSpan).addField("spring.method.name", "AnnotationTester.voidMethodWithAddResult()");
+        verify(mockSpan).close();
+        verifyNoMoreInteractions(mockSpan, tracer);
+    }
+
+    @Test
+    public void GIVEN_annotatedParameters_WHEN_callingMethod_EXPECT_parameterFieldsToBeAdded() throws Throwable {
+        call("methodWithNamedParameter", "paramZero", 1L, "paramTwo");
+
+        verify(tracer).startChildSpan("MethodWithNamedParameter");
+        verify(mockSpan).addField("type", "annotated_method");
+        verify(mockSpan).addField("spring.method.name", "AnnotationTester.methodWithNamedParameter(..)");
+        // the suffix depends on the "-parameters" compiler option, as for the SpanAspect
+        verify(mockSpan).addField(matches("spring\\.method\\.param\\.(1|param1)"), eq(1L));
+        verify(mockSpan).addField("Third-Parameter", "paramTwo");
+        verify(mockSpan).close();
+        verifyNoMoreInteractions(mockSpan, tracer);
+    }
+
+    @Test
+    public void GIVEN_annotatedMethodThatThrowsException_WHEN_callingMethod_EXPECT_errorFieldsToBeAdded() {
+        assertThatThrownBy(() -> call("methodThrowingException"))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Oops!");
+
+        verify(tracer).startChildSpan("MethodThrowingException");
+        verify(mockSpan).addField("type", "annotated_method");
+        verify(mockSpan).addField("spring.method.name", "AnnotationTester.methodThrowingException()");
+        verify(mockSpan).addField("spring.method.error", "IllegalStateException");
+        verify(mockSpan).addField("spring.method.error_detail", "Oops!");
+        verify(mockSpan).close();
+        verifyNoMoreInteractions(mockSpan, tracer);
+    }
+
+    @Test
+    public void GIVEN_selfInvocation_WHEN_callingMethod_EXPECT_spansForBothMethods() throws Throwable {
+        call("outerMethod");
+
+        verify(tracer).startChildSpan("OuterMethod");
+        verify(tracer).startChildSpan("InnerMethod");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void GIVEN_agentClassLoaderWithoutBeelineCore_WHEN_weaving_EXPECT_wovenMethodCreatesSpan() throws Throwable {
+        final URL[] agentClassPath = {
+            locationOf(ChildSpanTransformer.class), locationOf(IsolatedWeaver.class), locationOf(ByteBuddy.class)};
+        final byte[] woven;
+        try (URLClassLoader agentLoader =
+                 new URLClassLoader(agentClassPath, ClassLoader.getSystemClassLoader().getParent())) {
+            assertThatThrownBy(() -> agentLoader.loadClass(Span.class.getName()))
+                .isInstanceOf(ClassNotFoundException.class);
+            final Function<Class<?>, byte[]> weaver = (Function<Class<?>, byte[]>) agentLoader
+                .loadClass(IsolatedWeaver.class.getName()).getConstructor().newInstance();
+            woven = weaver.apply(AnnotationTester.class);
+        }
+        target = new ByteArrayClassLoader.ChildFirst(AnnotationTester.class.getClassLoader(),
+                                                     Collections.singletonMap(AnnotationTester.class.getName(), woven))
+            .loadClass(AnnotationTester.class.getName())
+            .getConstructor()
+            .newInstance();
+
+        call("plainMethod");
+
+        verify(tracer).startChildSpan("PlainMethod");
+        verify(mockSpan).close();
+    }
+
+    @Test
+    public void GIVEN_unannotatedMethod_WHEN_callingMethod_EXPECT_noSpan() throws Throwable {
+        call("unannotatedMethod");
+
+        verifyNoMoreInteractions(mockSpan, tracer);
+    }
+
+    @Test
+    public void GIVEN_noRegisteredTracer_WHEN_callingMethod_EXPECT_methodToRunWithoutSpan() throws Throwable {
+        GlobalTracer.clear();
+
+        assertThat(call("methodWithAddResult")).isEqualTo(Collections.singletonMap("key", "value"));
+
+        verifyNoMoreInteractions(mockSpan, tracer);
+    }
+
+    @Test
+    public void GIVEN_aRetransformedMethod_WHEN_registeringItsFieldNames_EXPECT_theSameIdToBeReused() {
+        final String method = AnnotationTester.class.getName() + "#registered(Ljava/lang/String;)V";
+        final int id = ChildSpanFieldNames.register(method, new String[]{"field"});
+
+        assertThat(ChildSpanFieldNames.register(method, new String[]{"field"})).isEqualTo(id);
+        final int changedId = ChildSpanFieldNames.register(method, new String[]{"renamed"});
+        assertThat(changedId).isNotEqualTo(id);
+        assertThat(ChildSpanFieldNames.get(changedId)).containsExactly("renamed");
+        assertThat(ChildSpanFieldNames.get(id)).containsExactly("field");
+    }
+}
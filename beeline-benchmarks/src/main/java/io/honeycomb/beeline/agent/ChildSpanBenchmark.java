@@ -0,0 +1,121 @@
+package io.honeycomb.beeline.agent;
+
+import io.honeycomb.beeline.spring.beans.aspects.ChildSpan;
+import io.honeycomb.beeline.spring.beans.aspects.SpanAspect;
+import io.honeycomb.beeline.spring.beans.aspects.SpanField;
+import io.honeycomb.beeline.tracing.GlobalTracer;
+import io.honeycomb.beeline.tracing.SpanBuilderFactory;
+import io.honeycomb.beeline.tracing.SpanPostProcessor;
+import io.honeycomb.beeline.tracing.Tracer;
+import io.honeycomb.beeline.tracing.Tracing;
+import io.honeycomb.beeline.tracing.propagation.PropagationContext;
+import io.honeycomb.beeline.tracing.sampling.Sampling;
+import io.honeycomb.libhoney.HoneyClient;
+import io.honeycomb.libhoney.LibHoney;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-call overhead of a {@code @ChildSpan} method woven by the agent, compared to the same method
+ * advised by the {@link SpanAspect} through a Spring AOP proxy, and to the uninstrumented method.
+ * <p>
+ * Spans are created within an active trace and sampled out when closed, so sending events is not measured. Run the
+ * {@link #main(String[])} method with the module's class path, e.g. from the IDE.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChildSpanBenchmark {
+
+    public interface Service {
+        long work(long input);
+    }
+
+    public static class AnnotatedService implements Service {
+        @ChildSpan
+        @Override
+        public long work(@SpanField final long input) {
+            return input + 1;
+        }
+    }
+
+    private HoneyClient client;
+    private Tracer tracer;
+    private Service uninstrumented;
+    private Service woven;
+    private Service aspect;
+    private long input;
+
+    @Setup
+    public void setUp() throws Exception {
+        client = LibHoney.create(LibHoney.options().setDataset("benchmark").setWriteKey("benchmark").build());
+        final SpanBuilderFactory factory = Tracing.createSpanBuilderFactory(
+            new SpanPostProcessor(client, Sampling.neverSampler()), Sampling.alwaysSampler());
+        tracer = Tracing.createTracer(factory);
+        // state setup runs on the benchmark thread, so the trace is active while measuring
+        Tracing.createBeeline(tracer, factory).startTrace("benchmark", PropagationContext.emptyContext(), "benchmark");
+        GlobalTracer.register(tracer);
+
+        uninstrumented = new AnnotatedService();
+
+        woven = (Service) ChildSpanTransformer.weave(new ByteBuddy().redefine(AnnotatedService.class),
+                                                     TypeDescription.ForLoadedType.of(AnnotatedService.class),
+                                                     AnnotatedService.class.getClassLoader())
+            .make()
+            .load(AnnotatedService.class.getClassLoader(), ClassLoadingStrategy.Default.CHILD_FIRST)
+            .getLoaded()
+            .getConstructor()
+            .newInstance();
+
+        final AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new AnnotatedService());
+        proxyFactory.addAspect(new SpanAspect(tracer));
+        aspect = proxyFactory.getProxy();
+    }
+
+    @TearDown
+    public void tearDown() {
+        tracer.endTrace();
+        GlobalTracer.clear();
+        client.close();
+    }
+
+    @Benchmark
+    public long uninstrumented() {
+        return uninstrumented.work(input++);
+    }
+
+    @Benchmark
+    public long agent() {
+        return woven.work(input++);
+    }
+
+    @Benchmark
+    public long aspect() {
+        return aspect.work(input++);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ChildSpanBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,123 @@
+package io.honeycomb.beeline.transport;
+
+import com.sun.net.httpserver.HttpServer;
+import io.honeycomb.libhoney.HoneyClient;
+import io.honeycomb.libhoney.LibHoney;
+import io.honeycomb.libhoney.Options;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the throughput of {@code sendPresampled()} through a {@link HoneyClient} with a {@link BeelineTransport},
+ * for a single queue and for several queue shards, from 1 up to 64 threads submitting events at once.
+ * <p>
+ * Batches are sent to a stub server on localhost that accepts them, and all their events, straight away. When the
+ * batchers fall behind, events are dropped rather than queued, which is cheaper - so the number of dropped events is
+ * printed at the end of each trial, and should be compared along with the throughput. Run the
+ * {@link #main(String[])} method with the module's class path, e.g. from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeelineTransportBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int BATCH_SIZE = 500;
+    private static final byte[] BATCH_RESPONSE = Collections.nCopies(BATCH_SIZE, "{\"status\":202}").stream()
+        .collect(Collectors.joining(",", "[", "]"))
+        .getBytes(StandardCharsets.UTF_8);
+
+    @Param({"1", "4", "16"})
+    public int queueShards;
+
+    private HttpServer server;
+    private BeelineTransport transport;
+    private HoneyClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "benchmark-stub-server");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.createContext("/", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                final byte[] discard = new byte[8192];
+                while (body.read(discard) != -1) {
+                    // discard
+                }
+            }
+            exchange.sendResponseHeaders(200, BATCH_RESPONSE.length);
+            try (OutputStream response = exchange.getResponseBody()) {
+                response.write(BATCH_RESPONSE);
+            }
+        });
+        server.start();
+
+        transport = BeelineTransport.builder()
+            .queueShards(queueShards)
+            .queueCapacity(100_000)
+            .batchSize(BATCH_SIZE)
+            .maxInFlightRequests(8)
+            .build();
+        final Options options = LibHoney.options()
+            .setApiHost(new URI("http://localhost:" + server.getAddress().getPort()))
+            .setDataset("benchmark")
+            .setWriteKey("benchmark")
+            .build();
+        client = new HoneyClient(options, transport);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        transport.close();
+        server.stop(0);
+        System.out.println("Sent " + transport.getEventsSent() + " events, dropped " + transport.getEventsDropped());
+    }
+
+    @Benchmark
+    public void sendPresampled() {
+        client.createEvent()
+            .addField("name", "benchmark")
+            .addField("duration_ms", 1.5)
+            .sendPresampled();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        for (final int threads : THREAD_COUNTS) {
+            new Runner(new OptionsBuilder()
+                .include(BeelineTransportBenchmark.class.getSimpleName())
+                .threads(threads)
+                .build()).run();
+        }
+    }
+}
@@ -24,6 +24,7 @@ import javax.net.ssl.SSLContext;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
 
 import static io.honeycomb.libhoney.Options.isClassic;
 
@@ -143,6 +144,25 @@ public class BeelineBuilder {
         return this;
     }
 
+    /**
+     * Same as {@link #addGlobalDynamicFields(String, ValueSupplier)}, but the value is computed at most once per
+     * {@code refreshInterval} and shared by all events in between, rather than computed for every event. Use this for
+     * values that are costly to compute but change rarely. See {@link CachedValueSupplier}.
+     * <p>
+     * Default: None
+     *
+     * @param name            the "key"
+     * @param valueSupplier   calculates value
+     * @param refreshInterval after which the value is calculated again
+     * @see CachedValueSupplier
+     */
+    public BeelineBuilder addGlobalDynamicFields(final String name,
+                                                 final ValueSupplier<?> valueSupplier,
+                                                 final Duration refreshInterval) {
+        clientBuilder.addGlobalDynamicFields(name, new CachedValueSupplier<Object>(valueSupplier, refreshInterval));
+        return this;
+    }
+
     /**
      * Use this method to configure the HTTP client to use a proxy that needs authentication.
      * <p>
@@ -516,6 +536,11 @@ public class BeelineBuilder {
     /**
      * Transport for sending events to HoneyComb. Used by the {@link io.honeycomb.libhoney.HoneyClient} internals.
      * This can also be used to disable sending events to Honeycomb by passing in a mock Transport.
+     * <p>
+     * {@link io.honeycomb.beeline.transport.BeelineTransport} is an alternative to libhoney's default transport with
+     * less overhead per event.
+     * {@link io.honeycomb.beeline.transport.FileTransport} writes events to rotating files instead, to be sent later
+     * with {@link io.honeycomb.beeline.transport.FileTransportReplayer}.
      */
     public BeelineBuilder transport(final Transport transport){
        clientBuilder.transport(transport);
@@ -0,0 +1,94 @@
+package io.honeycomb.beeline.builder;
+
+import io.honeycomb.libhoney.ValueSupplier;
+import io.honeycomb.libhoney.transport.batch.ClockProvider;
+import io.honeycomb.libhoney.transport.batch.impl.SystemClockProvider;
+import io.honeycomb.libhoney.utils.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link ValueSupplier} for global dynamic fields that refreshes its value at most once per {@code refreshInterval},
+ * and otherwise hands the same value to all events. Use it for values that are costly to compute but change rarely, so
+ * that they aren't recomputed for every event.
+ * <p>
+ * If the owner of the value knows when it changes, it can call {@link #invalidate()} so the next event gets the new
+ * value without waiting for the interval to pass.
+ * <p>
+ * As the value is shared by many events, it must not be mutated once supplied - e.g. return unmodifiable collections.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe and can be shared. Threads that find the value due for a refresh at the same
+ * time may each call the delegate supplier, and the last one to finish wins. A value whose computation started before
+ * the latest {@link #invalidate()} is handed to the thread that computed it, but is not shared with later calls.
+ *
+ * @param <T> the type of value supplied.
+ * @see BeelineBuilder#addGlobalDynamicFields(String, ValueSupplier, Duration)
+ */
+public class CachedValueSupplier<T> implements ValueSupplier<T> {
+    private final ValueSupplier<? extends T> delegate;
+    private final long refreshIntervalNanos;
+    private final ClockProvider clock;
+    /** Incremented by {@link #invalidate()}, so that values computed before that are recognised as stale. */
+    private final AtomicLong generation = new AtomicLong();
+    /** The value last supplied by the delegate - or null if none was supplied yet. */
+    private volatile Snapshot<T> snapshot;
+
+    /**
+     * @param delegate        to compute the value with - must not be null.
+     * @param refreshInterval after which the value is computed again - must not be null or negative.
+     */
+    public CachedValueSupplier(final ValueSupplier<? extends T> delegate, final Duration refreshInterval) {
+        this(delegate, refreshInterval, SystemClockProvider.getInstance());
+    }
+
+    CachedValueSupplier(final ValueSupplier<? extends T> delegate,
+                        final Duration refreshInterval,
+                        final ClockProvider clock) {
+        Assert.notNull(delegate, "Validation failed: delegate must not be null");
+        Assert.notNull(refreshInterval, "Validation failed: refreshInterval must not be null");
+        Assert.isTrue(!refreshInterval.isNegative(), "Validation failed: refreshInterval must not be negative");
+        Assert.notNull(clock, "Validation failed: clock must not be null");
+
+        this.delegate = delegate;
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        this.clock = clock;
+    }
+
+    @Override
+    public T supply() {
+        final long now = clock.getMonotonicTime();
+        // read before computing, so that an invalidation racing with the computation leaves its value stale
+        final long currentGeneration = generation.get();
+        final Snapshot<T> current = snapshot;
+        if (current != null
+            && current.generation == currentGeneration
+            && now - current.refreshedAt < refreshIntervalNanos) {
+            return current.value;
+        }
+        final T value = delegate.supply();
+        snapshot = new Snapshot<>(value, now, currentGeneration);
+        return value;
+    }
+
+    /**
+     * Marks the value as stale, so that it is computed again the next time it is supplied - also if it is being
+     * computed right now.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    private static final class Snapshot<T> {
+        private final T value;
+        private final long refreshedAt;
+        private final long generation;
+
+        private Snapshot(final T value, final long refreshedAt, final long generation) {
+            this.value = value;
+            this.refreshedAt = refreshedAt;
+            this.generation = generation;
+        }
+    }
+}
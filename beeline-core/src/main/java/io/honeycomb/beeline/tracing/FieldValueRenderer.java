@@ -0,0 +1,330 @@
+package io.honeycomb.beeline.tracing;
+
+import io.honeycomb.libhoney.utils.Assert;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders span field values into a bounded form before they are added to an event, so that arbitrary objects - such
+ * as the result of a {@code @ChildSpan(addResult = true)} method returning a list of entities - can be attached to a
+ * span without producing huge events or expensive serialization later on.
+ * <p>
+ * Numbers, booleans and characters are kept as they are, so the common case costs a type check, and strings are
+ * truncated to {@code maxStringLength}. Maps, collections and arrays are rendered into lists and maps that keep at most
+ * {@code maxCollectionLength} elements, followed by a note of how many elements were omitted.
+ * <p>
+ * Enums and JDK types, such as dates, are passed through unchanged, so that the event serializer handles them as it
+ * would without this renderer, e.g. dates as epoch milliseconds. Objects whose class is one of the
+ * {@code renderedTypes}, or a subtype, are rendered as a map of their public getter properties, or as their
+ * {@code toString()} if they have none. Getters may have side effects, such as lazy loading, so opt in only types
+ * whose getters are cheap and safe to call whenever a span is sent. Any other application object is rendered as its
+ * truncated {@code toString()}, so that the serializer never walks its object graph.
+ * <p>
+ * Nested values deeper than {@code maxDepth}, and any values beyond {@code maxValues} in total per field, are replaced
+ * with a placeholder naming their type. A value that fails to render, e.g. because iterating a collection throws, is
+ * replaced with a placeholder as well.
+ * <p>
+ * How to render values of a given class - including its getters - is determined once per class and cached with a
+ * {@link ClassValue}, which does not keep the class, or its class loader, from being unloaded.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe and can be shared.
+ */
+public class FieldValueRenderer {
+    public static final int DEFAULT_MAX_DEPTH = 3;
+    public static final int DEFAULT_MAX_COLLECTION_LENGTH = 20;
+    public static final int DEFAULT_MAX_STRING_LENGTH = 1024;
+    public static final int DEFAULT_MAX_VALUES = 500;
+
+    static final String OMITTED_ELEMENTS_KEY = "...";
+    private static final String OMITTED_ELEMENTS_FORMAT = "%d more";
+    private static final String TRUNCATED_STRING_SUFFIX = "...";
+    private static final String PLACEHOLDER_PREFIX = "<";
+    private static final String PLACEHOLDER_SUFFIX = ">";
+    private static final String JDK_PACKAGE_PREFIX = "java.";
+    private static final String GETTER_PREFIX = "get";
+    private static final String BOOLEAN_GETTER_PREFIX = "is";
+    private static final Method[] NO_GETTERS = new Method[0];
+
+    private final int maxDepth;
+    private final int maxCollectionLength;
+    private final int maxStringLength;
+    private final int maxValues;
+    private final Class<?>[] renderedTypes;
+    private final ClassValue<ClassRenderer> renderers = new ClassValue<ClassRenderer>() {
+        @Override
+        protected ClassRenderer computeValue(final Class<?> type) {
+            return createRenderer(type);
+        }
+    };
+
+    /**
+     * Creates a renderer with the default limits, which renders no types by their getters.
+     */
+    public FieldValueRenderer() {
+        this(DEFAULT_MAX_DEPTH, DEFAULT_MAX_COLLECTION_LENGTH, DEFAULT_MAX_STRING_LENGTH, DEFAULT_MAX_VALUES);
+    }
+
+    /**
+     * Creates a renderer which renders no types by their getters.
+     *
+     * @param maxDepth            the nesting depth of maps, collections and objects to render - must not be negative.
+     * @param maxCollectionLength the number of elements to render per map, collection or array - must be positive.
+     * @param maxStringLength     the length at which strings are truncated - must be positive.
+     * @param maxValues           the number of values to render per field - must be positive.
+     */
+    public FieldValueRenderer(final int maxDepth,
+                              final int maxCollectionLength,
+                              final int maxStringLength,
+                              final int maxValues) {
+        this(maxDepth, maxCollectionLength, maxStringLength, maxValues, Collections.emptySet());
+    }
+
+    /**
+     * @param maxDepth            the nesting depth of maps, collections and objects to render - must not be negative.
+     * @param maxCollectionLength the number of elements to render per map, collection or array - must be positive.
+     * @param maxStringLength     the length at which strings are truncated - must be positive.
+     * @param maxValues           the number of values to render per field - must be positive.
+     * @param renderedTypes       the types whose instances, including those of subtypes, are rendered by their getters
+     *                            - must not be null.
+     */
+    public FieldValueRenderer(final int maxDepth,
+                              final int maxCollectionLength,
+                              final int maxStringLength,
+                              final int maxValues,
+                              final Collection<Class<?>> renderedTypes) {
+        Assert.isTrue(maxDepth >= 0, "Validation failed: maxDepth must not be negative");
+        Assert.isTrue(maxCollectionLength > 0, "Validation failed: maxCollectionLength must be positive");
+        Assert.isTrue(maxStringLength > 0, "Validation failed: maxStringLength must be positive");
+        Assert.isTrue(maxValues > 0, "Validation failed: maxValues must be positive");
+        Assert.notNull(renderedTypes, "Validation failed: renderedTypes must not be null");
+
+        this.maxDepth = maxDepth;
+        this.maxCollectionLength = maxCollectionLength;
+        this.maxStringLength = maxStringLength;
+        this.maxValues = maxValues;
+        this.renderedTypes = renderedTypes.toArray(new Class<?>[0]);
+    }
+
+    /**
+     * @param value of a span field - may be null.
+     * @return the value itself if it is a number, boolean or character, or of a type that is passed through - or else
+     * its bounded rendering.
+     */
+    public Object render(final Object value) {
+        if (isScalar(value)) {
+            return value;
+        }
+        if (value instanceof String) {
+            return truncate((String) value);
+        }
+        try {
+            return render(value, 0, new int[]{maxValues});
+        } catch (final RuntimeException e) {
+            // a value that cannot be rendered must not prevent the span from being sent
+            return placeholder(value);
+        }
+    }
+
+    private static boolean isScalar(final Object value) {
+        return value == null
+               || value instanceof Number
+               || value instanceof Boolean
+               || value instanceof Character;
+    }
+
+    /**
+     * @param budget single-element array with the number of values that may still be rendered.
+     */
+    private Object render(final Object value, final int depth, final int[] budget) {
+        if (value == null) {
+            return null;
+        }
+        if (budget[0] <= 0) {
+            return placeholder(value);
+        }
+        budget[0]--;
+        if (value instanceof String) {
+            return truncate((String) value);
+        }
+        return renderers.get(value.getClass()).render(value, depth, budget);
+    }
+
+    private ClassRenderer createRenderer(final Class<?> type) {
+        if (Map.class.isAssignableFrom(type)) {
+            return (value, depth, budget) -> depth < maxDepth ?
+                renderMap((Map<?, ?>) value, depth, budget) :
+                placeholder(value);
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return (value, depth, budget) -> depth < maxDepth ?
+                renderElements(((Collection<?>) value).iterator(), ((Collection<?>) value).size(), depth, budget) :
+                placeholder(value);
+        }
+        if (type.isArray()) {
+            return (value, depth, budget) -> depth < maxDepth ?
+                renderArray(value, depth, budget) :
+                placeholder(value);
+        }
+        if (!isRenderedType(type)) {
+            if (Enum.class.isAssignableFrom(type) || type.getName().startsWith(JDK_PACKAGE_PREFIX)) {
+                return (value, depth, budget) -> value;
+            }
+            return (value, depth, budget) -> depth < maxDepth ?
+                truncate(String.valueOf(value)) :
+                placeholder(value);
+        }
+        final Method[] getters = findGetters(type);
+        if (getters.length == 0) {
+            return (value, depth, budget) -> truncate(String.valueOf(value));
+        }
+        return (value, depth, budget) -> depth < maxDepth ?
+            renderProperties(value, getters, depth, budget) :
+            placeholder(value);
+    }
+
+    private Map<String, Object> renderMap(final Map<?, ?> map, final int depth, final int[] budget) {
+        final Map<String, Object> rendered = new LinkedHashMap<>();
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            if (rendered.size() == maxCollectionLength) {
+                rendered.put(OMITTED_ELEMENTS_KEY,
+                             String.format(OMITTED_ELEMENTS_FORMAT, map.size() - maxCollectionLength));
+                break;
+            }
+            rendered.put(truncate(String.valueOf(entry.getKey())), render(entry.getValue(), depth + 1, budget));
+        }
+        return rendered;
+    }
+
+    private List<Object> renderElements(final Iterator<?> elements,
+                                        final int size,
+                                        final int depth,
+                                        final int[] budget) {
+        final List<Object> rendered = new ArrayList<>(Math.min(size, maxCollectionLength + 1));
+        while (elements.hasNext()) {
+            if (rendered.size() == maxCollectionLength) {
+                rendered.add(String.format(OMITTED_ELEMENTS_FORMAT, size - maxCollectionLength));
+                break;
+            }
+            rendered.add(render(elements.next(), depth + 1, budget));
+        }
+        return rendered;
+    }
+
+    private List<Object> renderArray(final Object array, final int depth, final int[] budget) {
+        final int length = Array.getLength(array);
+        final int rendered = Math.min(length, maxCollectionLength);
+        final List<Object> elements = new ArrayList<>(rendered + 1);
+        for (int i = 0; i < rendered; i++) {
+            elements.add(render(Array.get(array, i), depth + 1, budget));
+        }
+        if (length > rendered) {
+            elements.add(String.format(OMITTED_ELEMENTS_FORMAT, length - rendered));
+        }
+        return elements;
+    }
+
+    private Map<String, Object> renderProperties(final Object value,
+                                                 final Method[] getters,
+                                                 final int depth,
+                                                 final int[] budget) {
+        final Map<String, Object> rendered = new LinkedHashMap<>();
+        for (final Method getter : getters) {
+            final Object property;
+            try {
+                property = getter.invoke(value);
+            } catch (final ReflectiveOperationException | RuntimeException e) {
+                // a failing getter must not prevent the span from being sent, so we leave out the property
+                continue;
+            }
+            rendered.put(propertyName(getter), render(property, depth + 1, budget));
+        }
+        return rendered;
+    }
+
+    private String truncate(final String value) {
+        return value.length() <= maxStringLength ? value : value.substring(0, maxStringLength) + TRUNCATED_STRING_SUFFIX;
+    }
+
+    private static String placeholder(final Object value) {
+        return PLACEHOLDER_PREFIX + value.getClass().getSimpleName() + PLACEHOLDER_SUFFIX;
+    }
+
+    private boolean isRenderedType(final Class<?> type) {
+        for (final Class<?> renderedType : renderedTypes) {
+            if (renderedType.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the public, non-static getters without parameters declared by the type and its supertypes, sorted by
+     * property name - or an empty array if the type has none that are accessible.
+     */
+    private static Method[] findGetters(final Class<?> type) {
+        final List<Method> getters = new ArrayList<>();
+        for (final Method method : type.getMethods()) {
+            if (isGetter(method) && makeAccessible(method)) {
+                getters.add(method);
+            }
+        }
+        final Method[] sorted = getters.toArray(NO_GETTERS);
+        Arrays.sort(sorted, Comparator.comparing(FieldValueRenderer::propertyName));
+        return sorted;
+    }
+
+    private static boolean isGetter(final Method method) {
+        if (Modifier.isStatic(method.getModifiers())
+            || method.getParameterCount() != 0
+            || method.getDeclaringClass() == Object.class) {
+            return false;
+        }
+        final String name = method.getName();
+        if (name.startsWith(GETTER_PREFIX) && name.length() > GETTER_PREFIX.length()) {
+            return method.getReturnType() != void.class;
+        }
+        return name.startsWith(BOOLEAN_GETTER_PREFIX) && name.length() > BOOLEAN_GETTER_PREFIX.length()
+               && (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class);
+    }
+
+    /**
+     * Public methods of non-public classes can only be invoked reflectively once they are made accessible.
+     */
+    private static boolean makeAccessible(final Method method) {
+        if (Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            return true;
+        }
+        try {
+            method.setAccessible(true);
+            return true;
+        } catch (final RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static String propertyName(final Method getter) {
+        final String name = getter.getName();
+        final String property = name.startsWith(GETTER_PREFIX) ?
+            name.substring(GETTER_PREFIX.length()) :
+            name.substring(BOOLEAN_GETTER_PREFIX.length());
+        return Character.toLowerCase(property.charAt(0)) + property.substring(1);
+    }
+
+    @FunctionalInterface
+    private interface ClassRenderer {
+        Object render(Object value, int depth, int[] budget);
+    }
+}
@@ -0,0 +1,45 @@
+package io.honeycomb.beeline.tracing;
+
+import io.honeycomb.libhoney.utils.Assert;
+
+/**
+ * Holds a process-wide {@link Tracer} for instrumentation that cannot be handed one explicitly, such as the code that
+ * the beeline-agent weaves into {@code @ChildSpan}-annotated methods at class load.
+ * <p>
+ * Applications that use such instrumentation register their tracer on startup. The Beeline Spring Boot starter does so
+ * automatically when it detects the agent.
+ *
+ * <p>Thread-safety</p>
+ * This class is thread-safe.
+ */
+public final class GlobalTracer {
+    private static volatile Tracer tracer;
+
+    private GlobalTracer() {
+        // utils class
+    }
+
+    /**
+     * Registers the tracer, replacing any previously registered one.
+     *
+     * @param tracer to register - must not be null.
+     */
+    public static void register(final Tracer tracer) {
+        Assert.notNull(tracer, "Validation failed: tracer must not be null");
+        GlobalTracer.tracer = tracer;
+    }
+
+    /**
+     * @return the registered tracer - or null if none has been registered.
+     */
+    public static Tracer get() {
+        return tracer;
+    }
+
+    /**
+     * Removes the registered tracer, if any.
+     */
+    public static void clear() {
+        tracer = null;
+    }
+}
@@ -0,0 +1,131 @@
+package io.honeycomb.beeline.tracing;
+
+import io.honeycomb.beeline.tracing.propagation.PropagationContext;
+import io.honeycomb.libhoney.Event;
+import io.honeycomb.libhoney.utils.Assert;
+
+import java.util.Map;
+
+import static io.honeycomb.libhoney.utils.ObjectUtils.isNullOrEmpty;
+
+/**
+ * Sends spans that were recorded by another tracer, such as Brave or Micrometer Tracing, to Honeycomb. Each recorded
+ * span is converted straight into an event through the {@link SpanPostProcessor}: the Beeline's {@link Tracer} is not
+ * involved, so the context of the thread that reports the span is never touched.
+ * <p>
+ * Sampling follows that of Beeline spans: the global sampler of the {@link SpanBuilderFactory} decides on the trace ID,
+ * and the sampler hook of the {@link SpanPostProcessor} on the span. The span's annotations should only be sent as
+ * Span Events if the span itself was sent, with the same sample rate (consider them a bundle with the span).
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe and can be shared.
+ */
+public class RecordedSpanSender {
+    private static final long MICROS_IN_MILLISECOND = 1000L;
+    private static final double MICROS_TO_MILLIS_DIVISOR = 1000.0;
+    /** Same as the zipkin2 conversion, which tags the span with the error if it isn't already. */
+    private static final String ERROR_TAG = "error";
+    /** Other tracers allow spans without a name, but a Beeline span requires one. */
+    private static final String UNKNOWN_SPAN_NAME = "unknown";
+
+    private final SpanBuilderFactory factory;
+
+    /**
+     * @param factory providing the sampler, the clock and the {@link SpanPostProcessor} to send events with.
+     */
+    public RecordedSpanSender(final SpanBuilderFactory factory) {
+        Assert.notNull(factory, "Validation failed: factory must not be null");
+
+        this.factory = factory;
+    }
+
+    /**
+     * Applies the global sampler, so that spans of traces that are not sampled need not be converted at all.
+     *
+     * @param traceId of the recorded span.
+     * @return the sample rate of the trace - 0 or less if its spans should be dropped.
+     */
+    public int sampleTrace(final String traceId) {
+        return factory.getSampler().sample(traceId);
+    }
+
+    /**
+     * Converts a recorded span into a Beeline {@link Span}, which is not started or sent.
+     *
+     * @param name         of the span - "unknown" is used if it is null or empty.
+     * @param serviceName  of the span - must not be empty.
+     * @param traceId      of the span - must not be empty.
+     * @param parentSpanId of the span - null or empty for a root span.
+     * @param spanId       of the span - must not be empty.
+     * @param fields       of the span, which takes ownership of them - the error is added if it isn't already tagged.
+     * @param error        the span failed with - may be null.
+     * @param startMicros  of the span since the epoch - 0 if it is unknown.
+     * @param finishMicros of the span since the epoch - 0 if it is unknown.
+     * @return the span to send.
+     */
+    public Span toSpan(final String name,
+                       final String serviceName,
+                       final String traceId,
+                       final String parentSpanId,
+                       final String spanId,
+                       final Map<String, Object> fields,
+                       final Throwable error,
+                       final long startMicros,
+                       final long finishMicros) {
+        if (error != null && !fields.containsKey(ERROR_TAG)) {
+            fields.put(ERROR_TAG, error.getMessage() == null ? error.getClass().getSimpleName() : error.getMessage());
+        }
+
+        final PropagationContext propagationContext =
+            new PropagationContext(traceId, isNullOrEmpty(parentSpanId) ? null : parentSpanId, null, null);
+        final Span span = new Span(
+            isNullOrEmpty(name) ? UNKNOWN_SPAN_NAME : name,
+            serviceName,
+            spanId,
+            propagationContext,
+            fields,
+            factory.getClock());
+
+        if (startMicros > 0) {
+            span.markStart(startMicros / MICROS_IN_MILLISECOND, startMicros / MICROS_IN_MILLISECOND);
+            if (finishMicros >= startMicros) {
+                span.setDuration((finishMicros - startMicros) / MICROS_TO_MILLIS_DIVISOR);
+            }
+        }
+        return span;
+    }
+
+    /**
+     * Applies the sampler hook to the span and sends it, if it is sampled.
+     *
+     * @param span             converted by {@link #toSpan}.
+     * @param globalSampleRate returned by {@link #sampleTrace} for the span's trace.
+     * @return the sample rate the span was sent with - 0 or less if it was dropped.
+     */
+    public int send(final Span span, final int globalSampleRate) {
+        final SpanPostProcessor processor = factory.getProcessor();
+        final int sampleRate = globalSampleRate * processor.runSamplerHook(span);
+        if (sampleRate > 0) {
+            final Event event = processor.generateEvent(span);
+            event.setSampleRate(sampleRate);
+            event.sendPresampled();
+        }
+        return sampleRate;
+    }
+
+    /**
+     * Generates a Span Event for an annotation of a span that was sent, for the caller to send.
+     *
+     * @param span            the annotation belongs to.
+     * @param name            of the annotation.
+     * @param timestampMicros of the annotation since the epoch.
+     * @param sampleRate      returned by {@link #send} for the span.
+     * @return the Span Event, to send with {@link Event#sendPresampled()}.
+     */
+    public Event generateSpanEvent(final Span span, final String name, final long timestampMicros, final int sampleRate) {
+        final Event event = factory.getProcessor().generateSpanEvent(span, name, factory.generateId());
+        event.setTimestamp(timestampMicros / MICROS_IN_MILLISECOND);
+        event.setSampleRate(sampleRate);
+        return event;
+    }
+}
@@ -0,0 +1,207 @@
+package io.honeycomb.beeline.tracing;
+
+import io.honeycomb.libhoney.utils.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static io.honeycomb.beeline.tracing.utils.TraceFieldConstants.CLIENT_REQUEST_PATH_FIELD;
+import static io.honeycomb.beeline.tracing.utils.TraceFieldConstants.COALESCED_COUNT_FIELD;
+import static io.honeycomb.beeline.tracing.utils.TraceFieldConstants.COALESCED_MAX_DURATION_FIELD;
+import static io.honeycomb.beeline.tracing.utils.TraceFieldConstants.COALESCED_MIN_DURATION_FIELD;
+import static io.honeycomb.beeline.tracing.utils.TraceFieldConstants.COALESCED_TOTAL_DURATION_FIELD;
+import static io.honeycomb.beeline.tracing.utils.TraceFieldConstants.DATABASE_QUERY_FIELD;
+import static io.honeycomb.beeline.tracing.utils.TraceFieldConstants.DATABASE_QUERY_HASH_FIELD;
+import static io.honeycomb.beeline.tracing.utils.TraceFieldConstants.N_PLUS_ONE_FIELD;
+
+/**
+ * Detects runs of repeated calls - such as N+1 query patterns - among the spans managed by a {@link Tracer}, and
+ * coalesces them into a single span.
+ * <p>
+ * When a {@link TracerSpan} is closed, it is compared with the sibling that was closed before it under the same
+ * parent. Consecutive siblings that have the same span name and the same value for the first of the configured
+ * {@code keyFields} that is present (e.g. the normalized SQL query, or the HTTP client path) form a run. Sending the
+ * spans of a run is deferred, with their durations frozen, until the run ends - because a differing sibling was closed
+ * or the parent itself was closed, on whichever thread:
+ * <ul>
+ * <li>If the run is shorter than the {@code threshold} the deferred spans are sent unchanged.</li>
+ * <li>Otherwise only the first span of the run is sent, extended to the end of the last one, along with the count and
+ * total/min/max duration of the run's spans. The parent is flagged with the
+ * {@value io.honeycomb.beeline.tracing.utils.TraceFieldConstants#N_PLUS_ONE_FIELD} field.</li>
+ * </ul>
+ * Spans that have had children attached to the Tracer are never deferred, as dropping them would orphan their children.
+ * Neither are spans that have none of the {@code keyFields}, as their name alone does not tell whether they repeat the
+ * same call.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe and can be shared. The state of a run is held by the parent TracerSpan,
+ * and is therefore confined to the Tracer's thread.
+ */
+public class SiblingSpanCoalescer {
+    /** The key fields used by {@link #SiblingSpanCoalescer(int)}. */
+    public static final List<String> DEFAULT_KEY_FIELDS = Collections.unmodifiableList(Arrays.asList(
+        DATABASE_QUERY_HASH_FIELD, DATABASE_QUERY_FIELD, CLIENT_REQUEST_PATH_FIELD));
+
+    private static final double NANOS_TO_MILLIS_DIVISOR = 1_000_000.0;
+
+    private final int threshold;
+    private final List<String> keyFields;
+
+    /**
+     * @param threshold the number of consecutive, matching siblings at which they are coalesced - must be at least 2.
+     */
+    public SiblingSpanCoalescer(final int threshold) {
+        this(threshold, DEFAULT_KEY_FIELDS);
+    }
+
+    /**
+     * @param threshold the number of consecutive, matching siblings at which they are coalesced - must be at least 2.
+     * @param keyFields the fields, in order of preference, whose value identifies the call made by a span, in addition
+     *                  to its name - must not be null.
+     */
+    public SiblingSpanCoalescer(final int threshold, final List<String> keyFields) {
+        Assert.isTrue(threshold >= 2, "Validation failed: threshold must be at least 2");
+        Assert.notNull(keyFields, "Validation failed: keyFields must not be null");
+        this.threshold = threshold;
+        this.keyFields = new ArrayList<>(keyFields);
+    }
+
+    /**
+     * Adds a child that has just been closed to the run of its parent.
+     *
+     * @param parent of the child, that is the active span of the Tracer.
+     * @param child  that has been popped off the Tracer's context.
+     * @return true if sending the child has been deferred (or is no longer necessary).
+     */
+    boolean onClose(final TracerSpan parent, final TracerSpan child) {
+        final Span delegate = child.getDelegate();
+        final Object keyValue = child.hasChildren() ? null : keyValue(delegate);
+        if (keyValue == null) {
+            flush(parent);
+            return false;
+        }
+        final RunKey key = new RunKey(delegate.getSpanName(), keyValue);
+        Run run = parent.getSiblingRun();
+        if (run != null && !run.key.equals(key)) {
+            flush(parent);
+            run = null;
+        }
+        if (run == null) {
+            run = new Run(key);
+            parent.setSiblingRun(run);
+        }
+        // freeze the duration, as the span may be sent well after it was closed
+        final double duration = delegate.elapsedTimeMs();
+        delegate.setDuration(duration);
+        run.add(delegate, duration);
+        if (!run.coalesced && run.count >= threshold) {
+            run.coalesce();
+            parent.addField(N_PLUS_ONE_FIELD, true);
+        }
+        return true;
+    }
+
+    /**
+     * Ends the run of the parent's children, if any, and sends the resulting spans.
+     *
+     * @param parent whose run to end.
+     */
+    static void flush(final TracerSpan parent) {
+        final Run run = parent.getSiblingRun();
+        if (run == null) {
+            return;
+        }
+        parent.setSiblingRun(null);
+        if (run.coalesced) {
+            final Span representative = run.spans.get(0);
+            representative
+                .addField(COALESCED_COUNT_FIELD, run.count)
+                .addField(COALESCED_TOTAL_DURATION_FIELD, run.totalDuration)
+                .addField(COALESCED_MIN_DURATION_FIELD, run.minDuration)
+                .addField(COALESCED_MAX_DURATION_FIELD, run.maxDuration)
+                .setDuration((run.end - representative.getStartTime()) / NANOS_TO_MILLIS_DIVISOR);
+            representative.close();
+        } else {
+            for (final Span span : run.spans) {
+                span.close();
+            }
+        }
+    }
+
+    private Object keyValue(final Span span) {
+        final Map<String, Object> fields = span.getFields();
+        for (final String keyField : keyFields) {
+            final Object value = fields.get(keyField);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static final class RunKey {
+        private final String spanName;
+        private final Object value;
+
+        private RunKey(final String spanName, final Object value) {
+            this.spanName = spanName;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RunKey)) {
+                return false;
+            }
+            final RunKey other = (RunKey) o;
+            return spanName.equals(other.spanName) && value.equals(other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(spanName, value);
+        }
+    }
+
+    /**
+     * Consecutive, matching siblings. Until the run is coalesced all of its spans are held, afterwards only the first.
+     */
+    static final class Run {
+        private final RunKey key;
+        private final List<Span> spans = new ArrayList<>();
+        private boolean coalesced;
+        private int count;
+        private double totalDuration;
+        private double minDuration = Double.MAX_VALUE;
+        private double maxDuration;
+        /** The end (monotonic JVM time) of the run's last span. */
+        private long end;
+
+        private Run(final RunKey key) {
+            this.key = key;
+        }
+
+        private void add(final Span span, final double duration) {
+            if (!coalesced) {
+                spans.add(span);
+            }
+            count++;
+            totalDuration += duration;
+            minDuration = Math.min(minDuration, duration);
+            maxDuration = Math.max(maxDuration, duration);
+            end = Math.max(end, span.getStartTime() + (long) (duration * NANOS_TO_MILLIS_DIVISOR));
+        }
+
+        private void coalesce() {
+            coalesced = true;
+            spans.subList(1, spans.size()).clear();
+        }
+    }
+}
@@ -51,7 +51,7 @@ public class Span implements AutoCloseable {
      * <p>
      * - Must not be empty.
      */
-    private final String spanName;
+    private String spanName;
     /**
      * Name given to this service/application - must not be empty.
      */
@@ -76,6 +76,15 @@ public class Span implements AutoCloseable {
      * A Map that contains information that propagates down the trace.
      */
     private final Map<String, Object> traceFields;
+    /**
+     * The context that the trace fields were initialised from. As long as the trace fields remain unchanged, this
+     * Span's own trace context can be derived from it without copying or re-encoding them - null once they diverge.
+     */
+    private PropagationContext traceFieldsSource;
+    /**
+     * The result of {@link #getTraceContext()}, cached until the trace fields change.
+     */
+    private PropagationContext traceContext;
     /**
      * A Map that contains that contain information specific to the Span.
      */
@@ -129,6 +138,7 @@ public class Span implements AutoCloseable {
         this.traceFields = context.getTraceFields() == null ?
             new HashMap<>(TRACE_FIELDS_CAPACITY) :
             new HashMap<>(context.getTraceFields());
+        this.traceFieldsSource = context;
         this.dataset = context.getDataset();
         this.fields = fields == null ? new HashMap<>(FIELDS_CAPACITY) : new HashMap<>(fields);
         this.clock = clock;
@@ -208,6 +218,7 @@ public class Span implements AutoCloseable {
         if (isNoop()) return this;
 
         this.traceFields.put(key, value);
+        resetTraceContext();
         return this;
     }
 
@@ -221,6 +232,29 @@ public class Span implements AutoCloseable {
         if (isNoop()) return this;
 
         this.traceFields.putAll(traceFieldsToAdd);
+        resetTraceContext();
+        return this;
+    }
+
+    private void resetTraceContext() {
+        this.traceFieldsSource = null;
+        this.traceContext = null;
+    }
+
+    /**
+     * Rename the Span - e.g. once the operation it covers has been identified more precisely than when it started,
+     * such as a request that has been routed to its handler. This is cheaper than replacing the Span with a renamed
+     * copy, as its fields, timers and sampling decision are kept as they are.
+     *
+     * @param newSpanName must not be empty.
+     * @return this Span.
+     * @see #spanName
+     */
+    public Span setSpanName(final String newSpanName) {
+        if (isNoop()) return this;
+
+        Assert.notEmpty(newSpanName, "Validation failed: spanName is required");
+        this.spanName = newSpanName;
         return this;
     }
 
@@ -331,12 +365,20 @@ public class Span implements AutoCloseable {
     }
 
     /**
+     * The returned context is cached until the trace fields change, so that propagating this Span repeatedly
+     * (e.g. when creating many child spans or making many outbound calls) does not copy or re-encode the trace fields.
+     *
      * @return a PropagationContext with the Span's IDs and trace fields - useful for propagating traces.
      */
     public PropagationContext getTraceContext() {
         if (isNoop()) return PropagationContext.emptyContext();
 
-        return new PropagationContext(traceId, spanId, dataset, getTraceFields());
+        if (traceContext == null) {
+            traceContext = traceFieldsSource == null ?
+                new PropagationContext(traceId, spanId, dataset, traceFields) :
+                traceFieldsSource.withIds(traceId, spanId, dataset);
+        }
+        return traceContext;
     }
 
     /**
@@ -275,8 +275,9 @@ public class SpanBuilderFactory {
         }
 
         private Span createSendingSpan(final int sampleRate, final String traceId) {
-            final PropagationContext context = new PropagationContext(
-                traceId, parentContext.getSpanId(), parentContext.getDataset(), parentContext.getTraceFields()
+            // shares the parent's trace fields, see PropagationContext#withIds
+            final PropagationContext context = parentContext.withIds(
+                traceId, parentContext.getSpanId(), parentContext.getDataset()
             );
             final Span span = new SendingSpan(
                 spanName,
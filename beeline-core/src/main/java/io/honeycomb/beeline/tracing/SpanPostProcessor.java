@@ -6,6 +6,8 @@ import io.honeycomb.libhoney.Event;
 import io.honeycomb.libhoney.HoneyClient;
 import io.honeycomb.libhoney.utils.Assert;
 
+import java.util.Map;
+
 /**
  * This applies post processing to Spans that are ready to be sent. Namely, it can apply the {@code samplerHook} and
  * convert {@linkplain Span Spans} into {@link Event Events} that can be submitted to Honeycomb.
@@ -16,13 +18,27 @@ import io.honeycomb.libhoney.utils.Assert;
 public class SpanPostProcessor {
     private final HoneyClient client;
     private final TraceSampler<? super Span> samplerHook;
+    private final FieldValueRenderer renderer;
 
     public SpanPostProcessor(final HoneyClient client, final TraceSampler<? super Span> samplerHook) {
+        this(client, samplerHook, new FieldValueRenderer());
+    }
+
+    /**
+     * @param client      to create events with.
+     * @param samplerHook to apply to spans before they are sent.
+     * @param renderer    to bound the field values of spans with, when converting them into events.
+     */
+    public SpanPostProcessor(final HoneyClient client,
+                             final TraceSampler<? super Span> samplerHook,
+                             final FieldValueRenderer renderer) {
         Assert.notNull(client, "Validation failed: client is required");
         Assert.notNull(samplerHook, "Validation failed: samplerHook is required");
+        Assert.notNull(renderer, "Validation failed: renderer is required");
 
         this.client = client;
         this.samplerHook = samplerHook;
+        this.renderer = renderer;
     }
 
     /**
@@ -39,14 +55,15 @@ public class SpanPostProcessor {
 
     /**
      * Generates an Event with required tracing fields that are required for Honeycomb to recognise an Event as a Span.
+     * The Span's field values are bounded by the {@link FieldValueRenderer}.
      *
      * @param span to convert to an Event.
      * @return the generated Event.
      */
     public Event generateEvent(final Span span) {
         final Event event = client.createEvent();
-        event.addFields(span.getTraceFields());
-        event.addFields(span.getFields());
+        addRenderedFields(event, span.getTraceFields());
+        addRenderedFields(event, span.getFields());
         applySpanToEvent(span, event);
         event
             .setTimestamp(span.getTimestamp())
@@ -54,6 +71,12 @@ public class SpanPostProcessor {
         return event;
     }
 
+    private void addRenderedFields(final Event event, final Map<String, Object> fields) {
+        for (final Map.Entry<String, Object> field : fields.entrySet()) {
+            event.addField(field.getKey(), renderer.render(field.getValue()));
+        }
+    }
+
     private void applySpanToEvent(final Span span, final Event event) {
         if (span.getParentSpanId() != null) {
             event.addField(TraceFieldConstants.PARENT_ID_FIELD, span.getParentSpanId());
@@ -91,4 +114,29 @@ public class SpanPostProcessor {
         applySpanToEvent(span, event);
         return event;
     }
+
+    /**
+     * Generates a Span Event that belongs to a span, without building a Span for the Span Event itself - e.g. for the
+     * annotations of spans that were recorded by another tracer.
+     *
+     * @param parentSpan  the Span Event belongs to.
+     * @param name        of the Span Event.
+     * @param spanEventId to identify the Span Event with.
+     * @return the generated Span Event
+     */
+    public Event generateSpanEvent(final Span parentSpan, final String name, final String spanEventId) {
+        final Event event = client.createEvent();
+        event.addField(TraceFieldConstants.META_SPAN_TYPE_FIELD, TraceFieldConstants.META_TYPE_SPAN_EVENT_VALUE);
+        if (parentSpan.getDataset() != null) {
+            event.setDataset(parentSpan.getDataset());
+        }
+        event
+            .addField(TraceFieldConstants.PARENT_ID_FIELD, parentSpan.getSpanId())
+            .addField(TraceFieldConstants.SPAN_NAME_FIELD, name)
+            .addField(TraceFieldConstants.SERVICE_NAME_FIELD, parentSpan.getServiceName())
+            .addField(TraceFieldConstants.SERVICE_DOT_NAME_FIELD, parentSpan.getServiceName())
+            .addField(TraceFieldConstants.SPAN_ID_FIELD, spanEventId)
+            .addField(TraceFieldConstants.TRACE_ID_FIELD, parentSpan.getTraceId());
+        return event;
+    }
 }
@@ -73,6 +73,8 @@ public class Tracer {
 
     private final SpanBuilderFactory factory;
 
+    private final SiblingSpanCoalescer siblingSpanCoalescer;
+
     /**
      * Creates a tracer.
      * You can also use {@link Tracing}'s factory methods.
@@ -80,19 +82,31 @@ public class Tracer {
      * @param factory used to construct spans internally.
      */
     public Tracer(final SpanBuilderFactory factory) {
-        Assert.notNull(factory, "Validation failed: factory must not be null");
-
-        this.tracingContext = new ThreadLocalTracingContext();
-        this.factory = factory;
+        this(factory, new ThreadLocalTracingContext(), null);
     }
 
     public Tracer( final SpanBuilderFactory factory, final TracingContext context )
     {
+        this(factory, context, null);
+    }
+
+    /**
+     * Creates a tracer that coalesces runs of repeated sibling spans, such as N+1 query patterns.
+     *
+     * @param factory              used to construct spans internally - must not be null.
+     * @param context              to track the active spans with - must not be null.
+     * @param siblingSpanCoalescer to coalesce sibling spans with - may be null to disable coalescing.
+     * @see SiblingSpanCoalescer
+     */
+    public Tracer(final SpanBuilderFactory factory,
+                  final TracingContext context,
+                  final SiblingSpanCoalescer siblingSpanCoalescer) {
         Assert.notNull(factory, "Validation failed: factory must not be null");
         Assert.notNull(context, "Validation failed: context must not be null");
 
         this.tracingContext = context;
         this.factory = factory;
+        this.siblingSpanCoalescer = siblingSpanCoalescer;
     }
 
     /**
@@ -174,6 +188,8 @@ public class Tracer {
             boolean hasLogged = false;
             for (final TracerSpan span : tracingContext.get()) {
                 if (hasSameSpanId(spanToPop, span)) {
+                    // the returned delegate may be closed without its TracerSpan
+                    SiblingSpanCoalescer.flush(span);
                     popActiveSpan();
                     return span.getDelegate();
                 }
@@ -668,9 +684,29 @@ public class Tracer {
     private void pushActiveSpan(final TracerSpan span) {
         if (span.isNoop()) return;
 
+        final TracerSpan parentSpan = tracingContext.peekFirst();
+        if (parentSpan != null) {
+            parentSpan.markHasChildren();
+        }
         tracingContext.push(span);
     }
 
+    /**
+     * Called by a TracerSpan that has been popped on close, before it is sent.
+     *
+     * @return true if sending the span has been deferred by the {@link SiblingSpanCoalescer}.
+     */
+    boolean deferClose(final TracerSpan closedSpan) {
+        if (siblingSpanCoalescer == null) {
+            return false;
+        }
+        final TracerSpan parentSpan = tracingContext.peekFirst();
+        if (parentSpan == null || !parentSpan.getSpanId().equals(closedSpan.getParentSpanId())) {
+            return false;
+        }
+        return siblingSpanCoalescer.onClose(parentSpan, closedSpan);
+    }
+
     private void popActiveSpan() {
         tracingContext.pop();
     }
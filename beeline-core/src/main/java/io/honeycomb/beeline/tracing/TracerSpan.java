@@ -29,6 +29,12 @@ public class TracerSpan extends Span {
     private final ThreadIdentifierObject originalId;
     private final Span delegate;
     private final Tracer tracer;
+    /** Whether another span has been attached to the Tracer while this one was active. */
+    private boolean hasChildren;
+    /** Whether this span was popped off the Tracer's context when it was closed. */
+    private boolean poppedOnClose;
+    /** Recently closed children whose sending has been deferred - see {@link SiblingSpanCoalescer}. */
+    private SiblingSpanCoalescer.Run siblingRun;
 
     TracerSpan(final Span span, final Tracer tracer) {
         this.delegate = span;
@@ -44,6 +50,22 @@ public class TracerSpan extends Span {
         return delegate;
     }
 
+    boolean hasChildren() {
+        return hasChildren;
+    }
+
+    void markHasChildren() {
+        hasChildren = true;
+    }
+
+    SiblingSpanCoalescer.Run getSiblingRun() {
+        return siblingRun;
+    }
+
+    void setSiblingRun(final SiblingSpanCoalescer.Run siblingRun) {
+        this.siblingRun = siblingRun;
+    }
+
     boolean isFromCurrentTrace() {
         return getTraceId().equals(tracer.getActiveSpan().getTraceId());
     }
@@ -68,6 +90,11 @@ public class TracerSpan extends Span {
         return delegate.addTraceFields(traceFieldsToAdd);
     }
 
+    @Override
+    public Span setSpanName(final String newSpanName) {
+        return delegate.setSpanName(newSpanName);
+    }
+
     @Override
     public Span markStart() {
         return delegate.markStart();
@@ -156,6 +183,7 @@ public class TracerSpan extends Span {
 
         if (ThreadIdentifierObject.isFromCurrentThread(originalId)) {
             tracer.popSpan(this);
+            poppedOnClose = true;
         } else {
             delegate.addField(TraceFieldConstants.META_DIRTY_CONTEXT_FIELD, true);
             LOG.warn("Tracer span being closed on a different thread or trace to where it was created, " +
@@ -166,6 +194,11 @@ public class TracerSpan extends Span {
 
     @Override
     protected void closeInternal() {
+        // children deferred by the SiblingSpanCoalescer are sent before their parent, however the parent is closed
+        SiblingSpanCoalescer.flush(this);
+        if (poppedOnClose && tracer.deferClose(this)) {
+            return;
+        }
         delegate.close();
     }
 
@@ -3,6 +3,7 @@ package io.honeycomb.beeline.tracing;
 import io.honeycomb.beeline.tracing.ids.TraceIdProvider;
 import io.honeycomb.beeline.tracing.ids.W3CTraceIdProvider;
 import io.honeycomb.beeline.tracing.sampling.TraceSampler;
+import io.honeycomb.beeline.tracing.context.ThreadLocalTracingContext;
 import io.honeycomb.beeline.tracing.context.TracingContext;
 import io.honeycomb.libhoney.HoneyClient;
 import io.honeycomb.libhoney.transport.batch.ClockProvider;
@@ -68,6 +69,19 @@ public final class Tracing {
         return new Tracer(factory, context);
     }
 
+    /**
+     * Factory method to create a new {@link Tracer} instance that coalesces runs of repeated sibling spans (such as
+     * N+1 query patterns) once they reach the given threshold.
+     * See the Tracer's and {@link SiblingSpanCoalescer}'s javadoc for details.
+     *
+     * @param factory          used to create Builders of Spans.
+     * @param coalesceThreshold the number of consecutive, matching siblings at which they are coalesced.
+     * @return an instance of Tracer.
+     */
+    public static Tracer createTracer(final SpanBuilderFactory factory, final int coalesceThreshold) {
+        return new Tracer(factory, new ThreadLocalTracingContext(), new SiblingSpanCoalescer(coalesceThreshold));
+    }
+
     /**
      * Creates a {@link SpanBuilderFactory} that helps with the construction of Span instances and configures them with
      * the provided client and sampler, as well as default implementation of
@@ -95,4 +109,19 @@ public final class Tracing {
                                                         final TraceSampler<? super Span> samplingHook) {
         return new SpanPostProcessor(client, samplingHook);
     }
+
+    /**
+     * Creates a {@link SpanPostProcessor} like {@link #createSpanProcessor(HoneyClient, TraceSampler)}, which bounds the
+     * field values of Spans with the given renderer.
+     *
+     * @param client       to use to send events that it generates.
+     * @param samplingHook to use when deciding whether to sample a Span.
+     * @param renderer     to bound the field values of Spans with.
+     * @return an instance of SpanPostProcessor.
+     */
+    public static SpanPostProcessor createSpanProcessor(final HoneyClient client,
+                                                        final TraceSampler<? super Span> samplingHook,
+                                                        final FieldValueRenderer renderer) {
+        return new SpanPostProcessor(client, samplingHook, renderer);
+    }
 }
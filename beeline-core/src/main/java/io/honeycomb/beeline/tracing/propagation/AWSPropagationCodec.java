@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.regex.Pattern;
 
 import static io.honeycomb.libhoney.utils.ObjectUtils.isNullOrEmpty;
@@ -129,21 +130,46 @@ public class AWSPropagationCodec implements PropagationCodec<Map<String, String>
      */
     @Override
     public Optional<Map<String, String>> encode(PropagationContext context) {
-        if (context == null || isNullOrEmpty(context.getSpanId()) || isNullOrEmpty(context.getTraceId())) {
+        final String headerValue = encodeHeaderValue(context);
+        if (headerValue == null) {
             return Optional.empty();
         }
+        return Optional.of(Collections.singletonMap(AWS_TRACE_HEADER, headerValue));
+    }
+
+    @Override
+    public boolean encodeInto(PropagationContext context, BiConsumer<String, String> headerSink) {
+        final String headerValue = encodeHeaderValue(context);
+        if (headerValue == null) {
+            return false;
+        }
+        headerSink.accept(AWS_TRACE_HEADER, headerValue);
+        return true;
+    }
+
+    private String encodeHeaderValue(PropagationContext context) {
+        if (context == null || isNullOrEmpty(context.getSpanId()) || isNullOrEmpty(context.getTraceId())) {
+            return null;
+        }
 
         final StringBuilder builder = new StringBuilder(DEFAULT_STRINGBUILDER_CAPACITY)
             .append(ROOT_KEY).append(KV_SEPARATOR).append(context.getTraceId()).append(SEGMENT_SEPARATOR)
             .append(PARENT_KEY).append(KV_SEPARATOR).append(context.getSpanId());
 
-        if (!context.getTraceFields().isEmpty()) {
-            builder.append(SEGMENT_SEPARATOR);
-            for (Map.Entry<String, Object> entry : context.getTraceFields().entrySet()) {
-                builder.append(entry.getKey()).append(KV_SEPARATOR).append(entry.getValue().toString());
-            }
+        // trace fields rarely change between spans, so their encoded segment is memoized on the context
+        final String traceFieldsSegment = context.getEncodedTraceFields(this, AWSPropagationCodec::encodeTraceFields);
+        if (traceFieldsSegment != null) {
+            builder.append(SEGMENT_SEPARATOR).append(traceFieldsSegment);
         }
 
-        return Optional.of(Collections.singletonMap(AWS_TRACE_HEADER, builder.toString()));
+        return builder.toString();
+    }
+
+    private static String encodeTraceFields(final Map<String, Object> traceFields) {
+        final StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Object> entry : traceFields.entrySet()) {
+            builder.append(entry.getKey()).append(KV_SEPARATOR).append(entry.getValue().toString());
+        }
+        return builder.toString();
     }
 }
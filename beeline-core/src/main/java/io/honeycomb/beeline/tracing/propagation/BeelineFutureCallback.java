@@ -0,0 +1,62 @@
+package io.honeycomb.beeline.tracing.propagation;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * A {@link FutureCallback} that closes the client span of an {@code HttpAsyncClient} request if the request did not
+ * complete with a response, before notifying the delegate callback. Instances are created via
+ * {@link BeelineHttpAsyncClientInterceptor#wrap(HttpRequest, HttpContext, FutureCallback)}.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe, provided the delegate is.
+ *
+ * @param <T> the result type of the request execution.
+ */
+public class BeelineFutureCallback<T> implements FutureCallback<T> {
+    private final BeelineHttpAsyncClientInterceptor interceptor;
+    private final HttpRequest request;
+    private final HttpContext context;
+    private final FutureCallback<T> delegate;
+
+    BeelineFutureCallback(final BeelineHttpAsyncClientInterceptor interceptor,
+                          final HttpRequest request,
+                          final HttpContext context,
+                          final FutureCallback<T> delegate) {
+        this.interceptor = interceptor;
+        this.request = request;
+        this.context = context;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void completed(final T result) {
+        if (result instanceof HttpResponse) {
+            // the response interceptor has already closed the span, unless the client bypassed it
+            interceptor.process((HttpResponse) result, context);
+        } else {
+            interceptor.endExceptionally(request, context, null);
+        }
+        if (delegate != null) {
+            delegate.completed(result);
+        }
+    }
+
+    @Override
+    public void failed(final Exception ex) {
+        interceptor.endExceptionally(request, context, ex);
+        if (delegate != null) {
+            delegate.failed(ex);
+        }
+    }
+
+    @Override
+    public void cancelled() {
+        interceptor.endExceptionally(request, context, null);
+        if (delegate != null) {
+            delegate.cancelled();
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package io.honeycomb.beeline.tracing.propagation;
+
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.beeline.tracing.Tracer;
+import io.honeycomb.libhoney.utils.Assert;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Request and response interceptor for the Apache {@code HttpAsyncClient} (4.1), which traces requests using
+ * {@link HttpClientPropagator}.
+ * <p>
+ * The async client runs the request interceptors when the request is prepared, before it requests a connection, and
+ * the response interceptors on its I/O reactor threads. Neither can rely on the Tracer's thread-local context, as
+ * redirects and retries are prepared on the reactor threads too. Instead,
+ * {@link #wrap(HttpRequest, HttpContext, FutureCallback)} captures the active span when the request is executed and
+ * passes it to the interceptors via the request's {@link HttpContext}:
+ * <ol>
+ * <li>The request interceptor creates the client span as a child of the captured span, and adds the standard request
+ * fields and propagation headers.</li>
+ * <li>If the client's connection manager was wrapped with {@link #instrument(NHttpClientConnectionManager)}, the time
+ * from requesting a connection until it is leased - including the time to connect, if a new connection is opened - is
+ * recorded in the {@value io.honeycomb.beeline.tracing.utils.TraceFieldConstants#CLIENT_CONNECTION_LEASE_WAIT_FIELD}
+ * field.</li>
+ * <li>The response interceptor adds the response fields and closes the span.</li>
+ * <li>The wrapped {@link FutureCallback} closes the span with the error if the request fails or is cancelled. If the
+ * request fails before it could be sent (e.g. because no connection could be leased) the span is created at this
+ * point.</li>
+ * </ol>
+ * None of these steps block; the span is closed on whichever thread completes the exchange.
+ * <p>
+ * The client span covers a single execution, including any redirects or retries that the client performs.
+ *
+ * <p>Example</p>
+ * <pre>
+ * BeelineHttpAsyncClientInterceptor interceptor = new BeelineHttpAsyncClientInterceptor(beeline.getTracer());
+ * PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(ioReactor);
+ * CloseableHttpAsyncClient client = interceptor.addTo(HttpAsyncClients.custom())
+ *     .setConnectionManager(interceptor.instrument(connectionManager))
+ *     .build();
+ * ...
+ * HttpClientContext context = HttpClientContext.create();
+ * client.execute(request, context, interceptor.wrap(request, context, callback));
+ * </pre>
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe and can be shared.
+ */
+public class BeelineHttpAsyncClientInterceptor implements HttpRequestInterceptor, HttpResponseInterceptor {
+    /** Span name used by {@link #BeelineHttpAsyncClientInterceptor(Tracer, PropagationCodec)}. */
+    public static final String DEFAULT_SPAN_NAME = "http_client_request";
+    /** {@link HttpContext} attribute holding the parent of the client span. */
+    public static final String PARENT_SPAN_ATTRIBUTE = "io.honeycomb.beeline.parent_span";
+    /** {@link HttpContext} attribute holding the client span, until it is closed. */
+    public static final String SPAN_ATTRIBUTE = "io.honeycomb.beeline.span";
+
+    private final Tracer tracer;
+    private final HttpClientPropagator httpClientPropagator;
+    /** Hands the span created by the request interceptor over to the {@link LeaseTimingConnectionManager}. */
+    private final ThreadLocal<Span> leasingSpan = new ThreadLocal<>();
+    private volatile boolean leaseTimed;
+
+    /**
+     * Create an interceptor that propagates traces using {@link Propagation#defaultHeader()}.
+     *
+     * @param tracer to create child spans with - must not be null.
+     */
+    public BeelineHttpAsyncClientInterceptor(final Tracer tracer) {
+        this(tracer, Propagation.defaultHeader());
+    }
+
+    /**
+     * @param tracer           to create child spans with - must not be null.
+     * @param propagationCodec to propagate the trace context with - must not be null.
+     */
+    public BeelineHttpAsyncClientInterceptor(final Tracer tracer,
+                                             final PropagationCodec<Map<String, String>> propagationCodec) {
+        this(tracer, createPropagator(tracer, propagationCodec));
+    }
+
+    /**
+     * @param tracer               the tracer used by the {@code httpClientPropagator} - must not be null.
+     * @param httpClientPropagator to create, propagate and close the client spans with - must not be null.
+     */
+    public BeelineHttpAsyncClientInterceptor(final Tracer tracer, final HttpClientPropagator httpClientPropagator) {
+        Assert.notNull(tracer, "Validation failed: tracer must not be null");
+        Assert.notNull(httpClientPropagator, "Validation failed: httpClientPropagator must not be null");
+        this.tracer = tracer;
+        this.httpClientPropagator = httpClientPropagator;
+    }
+
+    private static HttpClientPropagator createPropagator(final Tracer tracer,
+                                                         final PropagationCodec<Map<String, String>> propagationCodec) {
+        Assert.notNull(propagationCodec, "Validation failed: propagationCodec must not be null");
+        return new HttpClientPropagator.Builder(tracer, r -> DEFAULT_SPAN_NAME)
+            .setPropagationCodec(propagationCodec)
+            .build();
+    }
+
+    /**
+     * Registers this instance as the first request interceptor and the last response interceptor of the client.
+     *
+     * @param builder of the client to instrument.
+     * @return the builder.
+     */
+    public HttpAsyncClientBuilder addTo(final HttpAsyncClientBuilder builder) {
+        return builder
+            .addInterceptorFirst((HttpRequestInterceptor) this)
+            .addInterceptorLast((HttpResponseInterceptor) this);
+    }
+
+    /**
+     * Wraps the client's connection manager, so that the time each request waits for a connection lease is recorded in
+     * its client span.
+     *
+     * @param connectionManager to pass to {@link HttpAsyncClientBuilder#setConnectionManager} - must not be null.
+     * @return the wrapped connection manager.
+     */
+    public NHttpClientConnectionManager instrument(final NHttpClientConnectionManager connectionManager) {
+        Assert.notNull(connectionManager, "Validation failed: connectionManager must not be null");
+        leaseTimed = true;
+        return new LeaseTimingConnectionManager(connectionManager, leasingSpan);
+    }
+
+    /**
+     * Captures the Tracer's active span in the {@code context} as the parent of the request's client span, and wraps
+     * the {@code callback} so that the span is closed if the request fails or is cancelled. This must be called on the
+     * thread that executes the request, and the same context must be passed to the client.
+     *
+     * @param request  that is about to be executed - must not be null.
+     * @param context  that will be passed to the client along with the request - must not be null.
+     * @param callback to wrap - may be null.
+     * @param <T>      the result type of the request execution.
+     * @return the wrapped callback.
+     */
+    public <T> FutureCallback<T> wrap(final HttpRequest request,
+                                      final HttpContext context,
+                                      final FutureCallback<T> callback) {
+        Assert.notNull(request, "Validation failed: request must not be null");
+        Assert.notNull(context, "Validation failed: context must not be null");
+        context.setAttribute(PARENT_SPAN_ATTRIBUTE, tracer.getActiveSpan());
+        return new BeelineFutureCallback<>(this, request, context, callback);
+    }
+
+    @Override
+    public void process(final HttpRequest request, final HttpContext context) {
+        final Span span = context.getAttribute(SPAN_ATTRIBUTE) == null ? startSpan(request, context) : null;
+        if (leaseTimed) {
+            // set even if null, so that a span left over by a request that never requested a connection is replaced
+            leasingSpan.set(span);
+        }
+    }
+
+    @Override
+    public void process(final HttpResponse response, final HttpContext context) {
+        final Span span = (Span) context.removeAttribute(SPAN_ATTRIBUTE);
+        if (span != null) {
+            httpClientPropagator.endPropagation(new HttpClientResponseAdapter(response), null, span);
+        }
+    }
+
+    /**
+     * Closes the span of a request that did not complete with a response, creating it first if the request failed
+     * before it was sent.
+     */
+    void endExceptionally(final HttpRequest request, final HttpContext context, final Throwable error) {
+        Span span = (Span) context.removeAttribute(SPAN_ATTRIBUTE);
+        if (span == null && error != null) {
+            span = startSpan(request, context);
+            context.removeAttribute(SPAN_ATTRIBUTE);
+        }
+        if (span != null) {
+            httpClientPropagator.endPropagation(null, error, span);
+        }
+    }
+
+    private Span startSpan(final HttpRequest request, final HttpContext context) {
+        final Span parentSpan = getParentSpan(context);
+        if (parentSpan.isNoop()) {
+            return null;
+        }
+        final HttpClientRequestAdapter requestAdapter = new HttpClientRequestAdapter(request);
+        // the parent is pushed, since HttpClientPropagator creates the child from the active span
+        tracer.pushSpan(parentSpan);
+        final Span childSpan;
+        try {
+            childSpan = tracer.popSpan(httpClientPropagator.startPropagation(requestAdapter));
+        } finally {
+            tracer.popSpan(parentSpan);
+        }
+        context.setAttribute(SPAN_ATTRIBUTE, childSpan);
+        return childSpan;
+    }
+
+    /**
+     * Falls back to the active span of the current thread, e.g. if {@link #wrap} was not used.
+     */
+    private Span getParentSpan(final HttpContext context) {
+        final Object parentSpan = context.getAttribute(PARENT_SPAN_ATTRIBUTE);
+        return parentSpan instanceof Span ? (Span) parentSpan : tracer.getActiveSpan();
+    }
+
+    static final class HttpClientRequestAdapter implements io.honeycomb.beeline.tracing.propagation.HttpClientRequestAdapter {
+        private final HttpRequest request;
+
+        HttpClientRequestAdapter(final HttpRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public String getMethod() {
+            return request.getRequestLine().getMethod();
+        }
+
+        @Override
+        public Optional<String> getPath() {
+            try {
+                return Optional.ofNullable(URI.create(request.getRequestLine().getUri()).getPath());
+            } catch (final IllegalArgumentException e) {
+                return Optional.empty();
+            }
+        }
+
+        @Override
+        public int getContentLength() {
+            if (request instanceof HttpEntityEnclosingRequest) {
+                final HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+                if (entity != null && entity.getContentLength() <= Integer.MAX_VALUE) {
+                    return (int) entity.getContentLength();
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public void addHeader(final String name, final String value) {
+            request.setHeader(name, value);
+        }
+
+        @Override
+        public Optional<String> getFirstHeader(final String name) {
+            return Optional.ofNullable(request.getFirstHeader(name)).map(Header::getValue);
+        }
+
+        @Override
+        public Map<String, String> getHeaders() {
+            return new HttpHeaderCarrier(name -> getFirstHeader(name).orElse(null), () -> {
+                final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                for (final Header header : request.getAllHeaders()) {
+                    headers.putIfAbsent(header.getName(), header.getValue());
+                }
+                return headers;
+            });
+        }
+    }
+
+    static final class HttpClientResponseAdapter implements io.honeycomb.beeline.tracing.propagation.HttpClientResponseAdapter {
+        private final HttpResponse response;
+
+        HttpClientResponseAdapter(final HttpResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getStatus() {
+            return response.getStatusLine().getStatusCode();
+        }
+
+        @Override
+        public Optional<String> getFirstHeader(final String name) {
+            return Optional.ofNullable(response.getFirstHeader(name)).map(Header::getValue);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package io.honeycomb.beeline.tracing.propagation;
 import io.honeycomb.beeline.tracing.Beeline;
 import io.honeycomb.beeline.tracing.Span;
 import io.honeycomb.beeline.tracing.utils.AntPathMatcher;
+import io.honeycomb.beeline.tracing.utils.CompiledPathMatcher;
 import io.honeycomb.beeline.tracing.utils.PathMatcher;
 import io.honeycomb.beeline.tracing.utils.StringUtils;
 import io.honeycomb.libhoney.shaded.org.apache.http.NameValuePair;
@@ -21,7 +22,6 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import static io.honeycomb.beeline.tracing.utils.TraceFieldConstants.REQUEST_ERROR_DETAIL_FIELD;
 import static io.honeycomb.beeline.tracing.utils.TraceFieldConstants.REQUEST_ERROR_FIELD;
@@ -49,7 +49,8 @@ import static java.util.stream.Collectors.toList;
  * included. If no exclude patterns are specified then, by default, no requests are excluded.
  * <p>
  * Optionally, the default path matching algorithm can be overridden by supplying your own instance of a {@link PathMatcher}
- * in the constructor.
+ * in the constructor. By default a {@link CompiledPathMatcher} is used, which compiles the include and exclude patterns
+ * into a single matcher.
  * <p>
  * Use {@link Builder} to construct an instance of the filter.
  * <p>
@@ -78,6 +79,7 @@ public class BeelineServletFilter implements Filter {
     private final List<String> includePaths;
     private final List<String> excludePaths;
     private final PathMatcher pathMatcher;
+    private final CompiledPathMatcher.PathPatterns compiledPaths;
     private final HttpServerPropagator httpServerPropagator;
     private final HttpServerRequestSpanCustomizer spanRequestFieldsCustomizer;
     private final Beeline beeline;
@@ -99,6 +101,8 @@ public class BeelineServletFilter implements Filter {
         this.includePaths = includePaths;
         this.excludePaths = excludePaths;
         this.pathMatcher = pathMatcher;
+        this.compiledPaths = pathMatcher instanceof CompiledPathMatcher ?
+            ((CompiledPathMatcher) pathMatcher).compile(includePaths, excludePaths) : null;
         this.spanRequestFieldsCustomizer = new HttpServerRequestSpanCustomizer();
         this.requestToRedispatchSpanName = requestToRedispatchSpanName;
         this.httpServerPropagator = new HttpServerPropagator.Builder(beeline, serviceName, requestToSpanName)
@@ -115,11 +119,14 @@ public class BeelineServletFilter implements Filter {
         final HttpServletResponse httpServletResponse = (HttpServletResponse) response;
 
         switch (request.getDispatcherType()) {
-            case REQUEST:
-                if (pathMatches(httpServletRequest)) {
-                    initializeRootSpan(httpServletRequest);
+            case REQUEST: {
+                // shared so that the request URI is only parsed once, and only if needed
+                final HttpServerRequestAdapter requestAdapter = new HttpServerRequestAdapter(httpServletRequest);
+                if (pathMatches(requestAdapter)) {
+                    initializeRootSpan(httpServletRequest, requestAdapter);
                 }
                 break;
+            }
             case FORWARD:
             case ERROR:
             case INCLUDE: {
@@ -154,18 +161,17 @@ public class BeelineServletFilter implements Filter {
         return ASYNC_DISPATCH_FIELD;
     }
 
-    private boolean pathMatches(final HttpServletRequest request) {
-        final URI uri;
-        try {
-            uri = new URI(request.getRequestURL().toString());
-        } catch (final URISyntaxException e) {
-            LOG.debug(
-                "Exception parsing URI for allow/denylist check, so not tracing request - URI: '{}', Exception reason: '{}'",
-                request.getRequestURL(), e.getReason());
+    private boolean pathMatches(final HttpServerRequestAdapter request) {
+        final URI uri = request.getURI();
+        if (uri == null) {
+            LOG.debug("Unable to parse URI for allow/denylist check, so not tracing request");
             return false;
         }
         final String maybePath = uri.getPath();
         final String path = maybePath == null ? "/" : maybePath;
+        if (compiledPaths != null) {
+            return compiledPaths.isIncluded(path);
+        }
         if (!this.excludePaths.isEmpty()) {
             for (final String pattern : this.excludePaths) {
                 if (pathMatcher.match(pattern, path)) {
@@ -188,7 +194,9 @@ public class BeelineServletFilter implements Filter {
         final String spanName = requestToRedispatchSpanName.apply(request);
         final Span childSpan = beeline.getTracer().startChildSpan(spanName);
         childSpan.addField(getDispatcherTypeSpanFieldName(), request.getDispatcherType().name());
-        spanRequestFieldsCustomizer.customize(childSpan, new HttpServerRequestAdapter(request));
+        if (!childSpan.isNoop()) {
+            spanRequestFieldsCustomizer.customize(childSpan, new HttpServerRequestAdapter(request));
+        }
     }
 
     protected String getDispatcherTypeSpanFieldName() {
@@ -201,8 +209,8 @@ public class BeelineServletFilter implements Filter {
         finishSpan(httpServerPropagator, httpServletResponse, throwable, currentSpan);
     }
 
-    private void initializeRootSpan(final HttpServletRequest request) {
-        final Span rootSpan = httpServerPropagator.startPropagation(new HttpServerRequestAdapter(request));
+    private void initializeRootSpan(final HttpServletRequest request, final HttpServerRequestAdapter requestAdapter) {
+        final Span rootSpan = httpServerPropagator.startPropagation(requestAdapter);
         rootSpan.addField(getDispatcherTypeSpanFieldName(), request.getDispatcherType().name());
     }
 
@@ -329,7 +337,7 @@ public class BeelineServletFilter implements Filter {
         private Beeline beeline;
         private List<String> includePaths = Collections.emptyList();
         private List<String> excludePaths = Collections.emptyList();
-        private PathMatcher pathMatcher = new AntPathMatcher();
+        private PathMatcher pathMatcher = new CompiledPathMatcher();
         private Function<HttpServletRequest, String>
             requestToRedispatchSpanName = DEFAULT_REDISPATCH_SPAN_NAMING_FUNCTION;
         private Function<io.honeycomb.beeline.tracing.propagation.HttpServerRequestAdapter,
@@ -383,7 +391,8 @@ public class BeelineServletFilter implements Filter {
         /**
          * Set the path matcher to use when matching on request paths.
          * <p>
-         * Optional. Defaults to {@link AntPathMatcher}.
+         * Optional. Defaults to {@link CompiledPathMatcher}, which implements {@link AntPathMatcher} semantics.
+         * Other implementations are matched against each include and exclude pattern in turn.
          * @param pathMatcher the path matcher
          * @return this
          */
@@ -434,23 +443,41 @@ public class BeelineServletFilter implements Filter {
         }
     }
 
+    /**
+     * Lazily evaluated view of a servlet request. The request URL and query string are parsed at most once, on first
+     * access, and the result is reused by path matching, span naming, span customization and propagation.
+     * <p>
+     * Not thread-safe; it is confined to the thread dispatching the request.
+     */
     protected static class HttpServerRequestAdapter
         implements io.honeycomb.beeline.tracing.propagation.HttpServerRequestAdapter {
 
         private final HttpServletRequest request;
-        private final URIBuilder uriBuilder;
-        private final  Map<String, List<String>> queryParams;
+        private boolean uriParsed;
+        private URI uri;
+        private URIBuilder uriBuilder;
+        private Map<String, List<String>> queryParams;
 
         protected HttpServerRequestAdapter(final HttpServletRequest request) {
             this.request = request;
-            this.uriBuilder = getURI(request).map(URIBuilder::new).orElse(null);
-            if (this.uriBuilder != null) {
-                this.queryParams = uriBuilder.getQueryParams().stream()
-                    .collect(groupingBy(NameValuePair::getName,
-                        mapping(NameValuePair::getValue, toList())));
-            } else {
-                this.queryParams = Collections.emptyMap();
+        }
+
+        /**
+         * @return the request URI including any query string - null if it could not be parsed.
+         */
+        protected URI getURI() {
+            if (!uriParsed) {
+                uri = BeelineServletFilter.getURI(request).orElse(null);
+                uriParsed = true;
+            }
+            return uri;
+        }
+
+        private URIBuilder getUriBuilder() {
+            if (uriBuilder == null && getURI() != null) {
+                uriBuilder = new URIBuilder(uri);
             }
+            return uriBuilder;
         }
 
         @Override
@@ -460,7 +487,7 @@ public class BeelineServletFilter implements Filter {
 
         @Override
         public Optional<String> getPath() {
-            return Optional.ofNullable(uriBuilder).map(URIBuilder::getPath);
+            return Optional.ofNullable(getUriBuilder()).map(URIBuilder::getPath);
         }
 
         @Override
@@ -470,12 +497,12 @@ public class BeelineServletFilter implements Filter {
 
         @Override
         public Optional<String> getScheme() {
-            return Optional.ofNullable(uriBuilder).map(URIBuilder::getScheme);
+            return Optional.ofNullable(getUriBuilder()).map(URIBuilder::getScheme);
         }
 
         @Override
         public Optional<String> getHost() {
-            return Optional.ofNullable(uriBuilder).map(URIBuilder::getHost);
+            return Optional.ofNullable(getUriBuilder()).map(URIBuilder::getHost);
         }
 
         @Override
@@ -495,6 +522,16 @@ public class BeelineServletFilter implements Filter {
 
         @Override
         public Map<String, List<String>> getQueryParams() {
+            if (queryParams == null) {
+                final URIBuilder builder = getUriBuilder();
+                if (builder == null || builder.isQueryEmpty()) {
+                    queryParams = Collections.emptyMap();
+                } else {
+                    queryParams = builder.getQueryParams().stream()
+                        .collect(groupingBy(NameValuePair::getName,
+                            mapping(NameValuePair::getValue, toList())));
+                }
+            }
             return queryParams;
         }
 
@@ -503,20 +540,26 @@ public class BeelineServletFilter implements Filter {
             return request.getContentLength();
         }
 
+        /**
+         * Returns a view that looks up headers via {@link HttpServletRequest#getHeader(String)}, so that codecs only
+         * touch the headers they need. All headers are only collected if the view is iterated.
+         */
         @Override
         public Map<String, String> getHeaders() {
-            Map<String, String> headers = Collections.emptyMap();
-            Enumeration<String> headerNames = request.getHeaderNames();
-
-            if (headerNames != null) {
-                return Collections.list(request.getHeaderNames())
-                    .stream()
-                    .collect(Collectors.toMap(
-                        Function.identity(),
-                        h -> request.getHeader(h)
-                    ));
-            }
+            return new HttpHeaderCarrier(request::getHeader, this::collectHeaders);
+        }
 
+        private Map<String, String> collectHeaders() {
+            final Enumeration<String> headerNames = request.getHeaderNames();
+            if (headerNames == null) {
+                return Collections.emptyMap();
+            }
+            // servlet header names are case-insensitive, and duplicates keep the first value like getHeader
+            final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            while (headerNames.hasMoreElements()) {
+                final String name = headerNames.nextElement();
+                headers.putIfAbsent(name, request.getHeader(name));
+            }
             return headers;
         }
     }
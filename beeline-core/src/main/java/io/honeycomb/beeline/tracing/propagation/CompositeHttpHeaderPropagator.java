@@ -4,6 +4,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
 /**
  * Codec that encompasses one or more codec implementations and applies each codec on
@@ -76,12 +77,7 @@ public class CompositeHttpHeaderPropagator implements PropagationCodec<Map<Strin
     @Override
     public Optional<Map<String, String>> encode(final PropagationContext context) {
         final Map<String, String> headers = new HashMap<>();
-        for (final PropagationCodec<Map<String, String>> codec : codecs) {
-            final Optional<Map<String, String>> codecheaders = codec.encode(context);
-            if (codecheaders.isPresent()) {
-                headers.putAll(codecheaders.get());
-            }
-        }
+        encodeInto(context, headers::put);
 
         // if no headrs were created, return nothing
         if (headers.isEmpty()) {
@@ -90,4 +86,23 @@ public class CompositeHttpHeaderPropagator implements PropagationCodec<Map<Strin
 
         return Optional.of(headers);
     }
+
+    /**
+     * Calls each inner codec's {@link PropagationCodec#encodeInto(PropagationContext, BiConsumer)} with the given sink.
+     * <p>
+     * Unlike {@link #encode(PropagationContext)}, duplicate headers are passed to the sink once per codec.
+     * </p>
+     *
+     * @param context    to encode.
+     * @param headerSink to receive each header name and value.
+     * @return true if any of the codecs emitted headers.
+     */
+    @Override
+    public boolean encodeInto(final PropagationContext context, final BiConsumer<String, String> headerSink) {
+        boolean encoded = false;
+        for (final PropagationCodec<Map<String, String>> codec : codecs) {
+            encoded |= codec.encodeInto(context, headerSink);
+        }
+        return encoded;
+    }
 }
@@ -2,6 +2,7 @@ package io.honeycomb.beeline.tracing.propagation;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
 public class DefaultPropagationCodec implements PropagationCodec<Map<String, String>> {
 
@@ -36,4 +37,9 @@ public class DefaultPropagationCodec implements PropagationCodec<Map<String, Str
         return HttpHeaderV1PropagationCodec.getInstance().encode(context);
     }
 
+    @Override
+    public boolean encodeInto(PropagationContext context, BiConsumer<String, String> headerSink) {
+        return HttpHeaderV1PropagationCodec.getInstance().encodeInto(context, headerSink);
+    }
+
 }
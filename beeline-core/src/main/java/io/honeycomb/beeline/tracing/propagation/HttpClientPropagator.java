@@ -115,10 +115,7 @@ public class HttpClientPropagator {
 
     private void propagateTrace(final HttpClientRequestAdapter httpRequest, final Span childSpan) {
         if (tracePropagationHook == null) {
-            propagationCodec.encode(childSpan.getTraceContext())
-                .ifPresent(headers ->
-                    headers.forEach((k,v) -> httpRequest.addHeader(k, v))
-                );
+            propagationCodec.encodeInto(childSpan.getTraceContext(), httpRequest::addHeader);
         } else {
             tracePropagationHook.apply(httpRequest, childSpan.getTraceContext())
                 .ifPresent(headers ->
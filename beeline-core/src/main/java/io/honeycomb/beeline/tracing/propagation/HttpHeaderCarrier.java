@@ -0,0 +1,69 @@
+package io.honeycomb.beeline.tracing.propagation;
+
+import io.honeycomb.libhoney.utils.Assert;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A read-only view of HTTP headers that looks up individual header names on demand, rather than materializing
+ * all headers up front. This is intended to be passed to {@link PropagationCodec#decode(Object)}, which only needs
+ * to ask for the one or two header names it understands, so that decoding does not scale with the number of headers
+ * on the request.
+ * <p>
+ * {@link #get(Object)}, {@link #containsKey(Object)} and {@link #getOrDefault(Object, Object)} are delegated to the
+ * {@code headerLookup} function. All other operations (e.g. iteration) fall back to the map provided by
+ * {@code allHeaders}, which is only invoked on first use.
+ * <p>
+ * Lookups are as case-sensitive as the underlying {@code headerLookup}; both {@code HttpServletRequest#getHeader}
+ * and Spring's {@code HttpHeaders#getFirst} are case-insensitive.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are not thread-safe and should be confined to the thread handling the request.
+ */
+public class HttpHeaderCarrier extends AbstractMap<String, String> {
+    private final Function<String, String> headerLookup;
+    private final Supplier<? extends Map<String, String>> allHeaders;
+    private Map<String, String> materialized;
+
+    /**
+     * @param headerLookup returns the (first) value of the given header name - null if absent.
+     * @param allHeaders   supplies all headers as a map, only used if the carrier is iterated.
+     */
+    public HttpHeaderCarrier(final Function<String, String> headerLookup,
+                             final Supplier<? extends Map<String, String>> allHeaders) {
+        Assert.notNull(headerLookup, "Validation failed: headerLookup must not be null");
+        Assert.notNull(allHeaders, "Validation failed: allHeaders must not be null");
+        this.headerLookup = headerLookup;
+        this.allHeaders = allHeaders;
+    }
+
+    @Override
+    public String get(final Object name) {
+        return name instanceof String ? headerLookup.apply((String) name) : null;
+    }
+
+    @Override
+    public boolean containsKey(final Object name) {
+        return get(name) != null;
+    }
+
+    @Override
+    public String getOrDefault(final Object name, final String defaultValue) {
+        final String value = get(name);
+        return value == null ? defaultValue : value;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        if (materialized == null) {
+            final Map<String, String> headers = allHeaders.get();
+            materialized = headers == null ? Collections.emptyMap() : Collections.unmodifiableMap(headers);
+        }
+        return materialized.entrySet();
+    }
+}
@@ -18,6 +18,7 @@ import java.util.Base64;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.regex.Pattern;
 
 import static io.honeycomb.libhoney.utils.ObjectUtils.isNullOrEmpty;
@@ -181,17 +182,32 @@ public class HttpHeaderV1PropagationCodec implements PropagationCodec<Map<String
      */
     @Override
     public Optional<Map<String, String>> encode(final PropagationContext context) {
-        if (context == null || isNullOrEmpty(context.getSpanId()) || isNullOrEmpty(context.getTraceId())) {
+        final String headerValue = encodeHeaderValue(context);
+        if (headerValue == null) {
             return Optional.empty();
         }
+        return Optional.of(Collections.singletonMap(HONEYCOMB_TRACE_HEADER, headerValue));
+    }
 
-        String contextAsB64 = null;
-        if (!context.getTraceFields().isEmpty()) {
-            contextAsB64 = encodeContext(context.getTraceFields());
+    @Override
+    public boolean encodeInto(final PropagationContext context, final BiConsumer<String, String> headerSink) {
+        final String headerValue = encodeHeaderValue(context);
+        if (headerValue == null) {
+            return false;
         }
+        headerSink.accept(HONEYCOMB_TRACE_HEADER, headerValue);
+        return true;
+    }
+
+    private String encodeHeaderValue(final PropagationContext context) {
+        if (context == null || isNullOrEmpty(context.getSpanId()) || isNullOrEmpty(context.getTraceId())) {
+            return null;
+        }
+
+        // trace fields rarely change between spans, so the serialized form is memoized on the context
+        final String contextAsB64 = context.getEncodedTraceFields(this, this::encodeContext);
 
-        final StringBuilder stringBuilder = buildString(context, contextAsB64);
-        return Optional.of(Collections.singletonMap(HONEYCOMB_TRACE_HEADER, stringBuilder.toString()));
+        return buildString(context, contextAsB64).toString();
     }
 
     /**
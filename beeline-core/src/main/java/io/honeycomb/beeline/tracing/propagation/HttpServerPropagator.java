@@ -104,7 +104,10 @@ public class HttpServerPropagator {
 
         final Span rootSpan = beeline.startTrace(spanName, decoded, serviceName);
 
-        spanCustomizer.customize(rootSpan, httpRequest);
+        // avoid evaluating request fields that an unsampled span would discard anyway
+        if (!rootSpan.isNoop()) {
+            spanCustomizer.customize(rootSpan, httpRequest);
+        }
         return rootSpan;
     }
 
@@ -0,0 +1,145 @@
+package io.honeycomb.beeline.tracing.propagation;
+
+import io.honeycomb.beeline.tracing.Span;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.apache.http.nio.reactor.IOEventDispatch;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.honeycomb.beeline.tracing.utils.TraceFieldConstants.CLIENT_CONNECTION_LEASE_WAIT_FIELD;
+
+/**
+ * Records the time each connection request waits for its connection in the client span of the request. Instances are
+ * created via {@link BeelineHttpAsyncClientInterceptor#instrument(NHttpClientConnectionManager)}.
+ * <p>
+ * The connection manager is not given the request's {@link HttpContext}. Instead, the client requests the connection
+ * on the thread that ran the request interceptors just before, so the span is handed over by the interceptor through
+ * a thread-local.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe, provided the delegate is.
+ */
+final class LeaseTimingConnectionManager implements NHttpClientConnectionManager {
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final NHttpClientConnectionManager delegate;
+    private final ThreadLocal<Span> leasingSpan;
+
+    LeaseTimingConnectionManager(final NHttpClientConnectionManager delegate, final ThreadLocal<Span> leasingSpan) {
+        this.delegate = delegate;
+        this.leasingSpan = leasingSpan;
+    }
+
+    @Override
+    public Future<NHttpClientConnection> requestConnection(final HttpRoute route,
+                                                           final Object state,
+                                                           final long connectTimeout,
+                                                           final long connectionRequestTimeout,
+                                                           final TimeUnit timeUnit,
+                                                           final FutureCallback<NHttpClientConnection> callback) {
+        final Span span = leasingSpan.get();
+        leasingSpan.remove();
+        if (span == null) {
+            return delegate.requestConnection(route, state, connectTimeout, connectionRequestTimeout, timeUnit,
+                                              callback);
+        }
+        return delegate.requestConnection(route, state, connectTimeout, connectionRequestTimeout, timeUnit,
+                                          new LeaseCallback(span, System.nanoTime(), callback));
+    }
+
+    @Override
+    public void releaseConnection(final NHttpClientConnection connection,
+                                  final Object newState,
+                                  final long validDuration,
+                                  final TimeUnit timeUnit) {
+        delegate.releaseConnection(connection, newState, validDuration, timeUnit);
+    }
+
+    @Override
+    public void startRoute(final NHttpClientConnection connection,
+                           final HttpRoute route,
+                           final HttpContext context) throws IOException {
+        delegate.startRoute(connection, route, context);
+    }
+
+    @Override
+    public void upgrade(final NHttpClientConnection connection,
+                        final HttpRoute route,
+                        final HttpContext context) throws IOException {
+        delegate.upgrade(connection, route, context);
+    }
+
+    @Override
+    public void routeComplete(final NHttpClientConnection connection,
+                              final HttpRoute route,
+                              final HttpContext context) {
+        delegate.routeComplete(connection, route, context);
+    }
+
+    @Override
+    public boolean isRouteComplete(final NHttpClientConnection connection) {
+        return delegate.isRouteComplete(connection);
+    }
+
+    @Override
+    public void closeIdleConnections(final long idleTime, final TimeUnit timeUnit) {
+        delegate.closeIdleConnections(idleTime, timeUnit);
+    }
+
+    @Override
+    public void closeExpiredConnections() {
+        delegate.closeExpiredConnections();
+    }
+
+    @Override
+    public void execute(final IOEventDispatch eventDispatch) throws IOException {
+        delegate.execute(eventDispatch);
+    }
+
+    @Override
+    public void shutdown() throws IOException {
+        delegate.shutdown();
+    }
+
+    private static final class LeaseCallback implements FutureCallback<NHttpClientConnection> {
+        private final Span span;
+        private final long leaseStart;
+        private final FutureCallback<NHttpClientConnection> delegate;
+
+        private LeaseCallback(final Span span,
+                              final long leaseStart,
+                              final FutureCallback<NHttpClientConnection> delegate) {
+            this.span = span;
+            this.leaseStart = leaseStart;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void completed(final NHttpClientConnection connection) {
+            span.addField(CLIENT_CONNECTION_LEASE_WAIT_FIELD, (System.nanoTime() - leaseStart) / NANOS_PER_MILLI);
+            if (delegate != null) {
+                delegate.completed(connection);
+            }
+        }
+
+        @Override
+        public void failed(final Exception ex) {
+            if (delegate != null) {
+                delegate.failed(ex);
+            }
+        }
+
+        @Override
+        public void cancelled() {
+            if (delegate != null) {
+                delegate.cancelled();
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package io.honeycomb.beeline.tracing.propagation;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
 /**
  * Interface that allows conversion between in-memory {@link PropagationContext} and some transmission format of
@@ -39,4 +41,26 @@ public interface PropagationCodec<E> {
      * @return encoded context - "empty" optional if invalid or not currently on a trace.
      */
     Optional<E> encode(PropagationContext context);
+
+    /**
+     * Encode the propagation context as headers, passing each header name and value directly to the {@code headerSink}
+     * (e.g. {@code httpRequest::addHeader}) rather than collecting them in an intermediate map.
+     * <p>
+     * The default implementation delegates to {@link #encode(PropagationContext)} and emits the entries of the
+     * resulting map, so it only emits headers for codecs whose transmission format is a {@link Map}.
+     * Header-based codecs should override this to avoid the intermediate allocations.
+     *
+     * @param context    to encode.
+     * @param headerSink to receive each header name and value.
+     * @return true if any headers were emitted - false if invalid or not currently on a trace.
+     */
+    default boolean encodeInto(final PropagationContext context, final BiConsumer<String, String> headerSink) {
+        final Optional<E> encoded = encode(context);
+        if (!encoded.isPresent() || !(encoded.get() instanceof Map)) {
+            return false;
+        }
+        final Map<?, ?> headers = (Map<?, ?>) encoded.get();
+        headers.forEach((name, value) -> headerSink.accept(String.valueOf(name), String.valueOf(value)));
+        return !headers.isEmpty();
+    }
 }
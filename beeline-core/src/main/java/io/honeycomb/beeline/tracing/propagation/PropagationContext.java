@@ -7,6 +7,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 
 import static io.honeycomb.libhoney.utils.ObjectUtils.isNullOrEmpty;
 
@@ -24,12 +27,18 @@ import static io.honeycomb.libhoney.utils.ObjectUtils.isNullOrEmpty;
  * Instances of this class are thread-safe.
  */
 public class PropagationContext {
-    private static final PropagationContext EMPTY_CONTEXT = new PropagationContext(null, null, null, null);
+    private static final PropagationContext EMPTY_CONTEXT = new PropagationContext(null, null, null, Collections.emptyMap());
 
     private final String spanId;
     private final String traceId;
     private final String dataset;
     private final Map<String, Object> traceFields;
+    /**
+     * Memoized encodings of {@link #traceFields}, keyed by the codec that produced them. Shared between all contexts
+     * derived via {@link #withIds(String, String, String)} since they share the same (immutable) trace fields.
+     * Null if there are no trace fields to encode.
+     */
+    private final ConcurrentMap<Object, String> encodedTraceFields;
 
     /**
      * Create a trace context with provided IDs and map of trace fields.
@@ -49,6 +58,21 @@ public class PropagationContext {
             "Context must also be initialised with a traceId if passed a spanId");
         this.traceFields = traceFields == null ?
             Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(traceFields));
+        this.encodedTraceFields = this.traceFields.isEmpty() ? null : new ConcurrentHashMap<>(2);
+        this.spanId = spanId;
+        this.traceId = traceId;
+        this.dataset = dataset;
+    }
+
+    private PropagationContext(final PropagationContext traceFieldsSource,
+                               final String traceId,
+                               final String spanId,
+                               final String dataset) {
+        Assert.isTrue(
+            isNullOrEmpty(spanId) || !isNullOrEmpty(traceId),
+            "Context must also be initialised with a traceId if passed a spanId");
+        this.traceFields = traceFieldsSource.traceFields;
+        this.encodedTraceFields = traceFieldsSource.encodedTraceFields;
         this.spanId = spanId;
         this.traceId = traceId;
         this.dataset = dataset;
@@ -58,6 +82,44 @@ public class PropagationContext {
         return EMPTY_CONTEXT;
     }
 
+    /**
+     * Creates a context with the provided IDs that shares this context's trace fields, rather than copying them.
+     * <p>
+     * Any trace field encodings memoized by {@link #getEncodedTraceFields(Object, Function)} are shared as well, so
+     * that codecs only have to encode the IDs when propagating many spans that carry the same trace fields.
+     *
+     * @param newTraceId that identifies the trace - may be null.
+     * @param newSpanId  that identifies the latest span - may only be null if span ID is also null.
+     * @param newDataset that identifies an explicit dataset that spans should be sent to - may be null.
+     * @return a new context.
+     */
+    public PropagationContext withIds(final String newTraceId, final String newSpanId, final String newDataset) {
+        return new PropagationContext(this, newTraceId, newSpanId, newDataset);
+    }
+
+    /**
+     * Returns the encoded form of this context's trace fields as produced by the {@code encoder}, computing it only
+     * once for a given {@code encodingKey}. The result is shared by all contexts that carry the same trace fields
+     * (see {@link #withIds(String, String, String)}).
+     * <p>
+     * If the encoder returns null then nothing is memoized, so it will be invoked again on the next call.
+     *
+     * @param encodingKey identifies the encoding, typically the codec instance.
+     * @param encoder     to apply to the trace fields if no memoized encoding exists.
+     * @return the encoded trace fields - null if there are no trace fields or the encoder returned null.
+     */
+    public String getEncodedTraceFields(final Object encodingKey,
+                                        final Function<? super Map<String, Object>, String> encoder) {
+        if (encodedTraceFields == null) {
+            return null;
+        }
+        final String encoded = encodedTraceFields.get(encodingKey);
+        if (encoded != null) {
+            return encoded;
+        }
+        return encodedTraceFields.computeIfAbsent(encodingKey, k -> encoder.apply(traceFields));
+    }
+
     /**
      * @return immutable map of fields being propagated across the trace - may be empty.
      */
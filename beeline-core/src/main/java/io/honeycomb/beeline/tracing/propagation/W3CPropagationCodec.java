@@ -1,10 +1,10 @@
 package io.honeycomb.beeline.tracing.propagation;
 
 import java.util.Base64;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
@@ -157,35 +157,47 @@ public class W3CPropagationCodec implements PropagationCodec<Map<String, String>
      */
     @Override
     public Optional<Map<String, String>> encode(PropagationContext context) {
+        final Map<String, String> headers = new HashMap<>();
+        if (!encodeInto(context, headers::put)) {
+            return Optional.empty();
+        }
+        return Optional.of(headers);
+    }
+
+    @Override
+    public boolean encodeInto(PropagationContext context, BiConsumer<String, String> headerSink) {
         // Check context is valid
         if (context == null) {
-            return Optional.empty();
+            return false;
         }
 
         if (!W3CTraceIdProvider.isValidTraceId(context.getTraceId())) {
             LOG.warn("Unable to encode TraceId to W3C format: {}", context.getTraceId());
-            return Optional.empty();
+            return false;
         }
 
         if (!W3CTraceIdProvider.isValidSpanId(context.getSpanId())) {
             LOG.warn("Unable to encode SpanId to W3C format: {}", context.getSpanId());
-            return Optional.empty();
+            return false;
         }
 
-        final String traceParent = String.join(SEGMENT_SEPARATOR, DEFAULT_VERSION, context.getTraceId(), context.getSpanId(), SAMPLED_TRACEFLAGS);
+        headerSink.accept(W3C_TRACEPARENT_HEADER,
+            String.join(SEGMENT_SEPARATOR, DEFAULT_VERSION, context.getTraceId(), context.getSpanId(), SAMPLED_TRACEFLAGS));
 
-        // If no tracefields, just return trace parent header
-        if (context.getTraceFields().isEmpty()) {
-            return Optional.of(
-                Collections.singletonMap(W3C_TRACEPARENT_HEADER, traceParent)
-            );
+        // trace fields rarely change between spans, so the encoded tracestate is memoized on the context
+        final String traceState = context.getEncodedTraceFields(this, W3CPropagationCodec::encodeTraceState);
+        if (traceState != null) {
+            headerSink.accept(W3C_TRACESTATE_HEADER, traceState);
         }
+        return true;
+    }
 
+    private static String encodeTraceState(final Map<String, Object> traceFields) {
         final boolean[] first = {true}; // trick for allowing scoped variables to be accessed inside lambda functions
         final StringBuilder builder = new StringBuilder();
 
         // Sort the fields by key and append
-        context.getTraceFields().entrySet().stream()
+        traceFields.entrySet().stream()
             .sorted(Map.Entry.<String, Object>comparingByKey())
             .forEach(field -> {
                 if (!first[0]) {
@@ -195,10 +207,6 @@ public class W3CPropagationCodec implements PropagationCodec<Map<String, String>
                 first[0] = false;
             });
 
-        final String traceState = HONEYCOMB_VENDOR_PREFIX + Base64.getEncoder().encodeToString(builder.toString().getBytes(UTF_8));
-        final Map<String, String> headers = new HashMap<>();
-        headers.put(W3C_TRACEPARENT_HEADER, traceParent);
-        headers.put(W3C_TRACESTATE_HEADER, traceState);
-        return Optional.of(headers);
+        return HONEYCOMB_VENDOR_PREFIX + Base64.getEncoder().encodeToString(builder.toString().getBytes(UTF_8));
     }
 }
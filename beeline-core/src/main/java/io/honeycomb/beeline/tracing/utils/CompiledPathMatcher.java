@@ -0,0 +1,267 @@
+package io.honeycomb.beeline.tracing.utils;
+
+import io.honeycomb.libhoney.utils.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link PathMatcher} implementation for Ant-style path patterns that can compile a set of include and exclude
+ * patterns into a single matcher, see {@link #compile(Collection, Collection)}.
+ * <p>
+ * Matching a path against a list of patterns with {@link AntPathMatcher} tokenizes the path and walks it once per
+ * pattern. The compiled form instead arranges all patterns into a trie of path segments, so that the path is only
+ * tokenized once and literal segments shared between patterns are only compared once. The decision for each path is
+ * also cached, up to a maximum number of paths.
+ * <p>
+ * Matching semantics are the same as those of {@link AntPathMatcher} with its default settings, which
+ * {@link #match(String, String)} delegates to.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class, and the {@link PathPatterns} it compiles, are thread-safe and can be shared.
+ */
+public class CompiledPathMatcher implements PathMatcher {
+    /** Default maximum number of paths for which the include/exclude decision is cached. */
+    public static final int DEFAULT_MAX_CACHED_PATHS = 1024;
+
+    private static final String PATH_SEPARATOR = AntPathMatcher.DEFAULT_PATH_SEPARATOR;
+    private static final String DOUBLE_WILDCARD = "**";
+    private static final String WILDCARD = "*";
+
+    private final AntPathMatcher delegate = new AntPathMatcher();
+    private final int maxCachedPaths;
+
+    /**
+     * Create a new instance which caches up to {@link #DEFAULT_MAX_CACHED_PATHS} decisions per compiled pattern set.
+     */
+    public CompiledPathMatcher() {
+        this(DEFAULT_MAX_CACHED_PATHS);
+    }
+
+    /**
+     * @param maxCachedPaths maximum number of paths for which compiled pattern sets cache their decision - 0 disables
+     *                       caching. When the limit is reached the cache is cleared, so that high-cardinality paths
+     *                       (e.g. containing IDs) cannot grow it without bound.
+     */
+    public CompiledPathMatcher(final int maxCachedPaths) {
+        Assert.isTrue(maxCachedPaths >= 0, "Validation failed: maxCachedPaths must not be negative");
+        this.maxCachedPaths = maxCachedPaths;
+    }
+
+    @Override
+    public boolean match(final String pattern, final String path) {
+        return delegate.match(pattern, path);
+    }
+
+    /**
+     * Compile the include and exclude patterns into a single matcher.
+     *
+     * @param includePatterns patterns of paths to include - if empty then all paths are included.
+     * @param excludePatterns patterns of paths to exclude, which take precedence over the includes.
+     * @return the compiled patterns.
+     */
+    public PathPatterns compile(final Collection<String> includePatterns, final Collection<String> excludePatterns) {
+        Assert.notNull(includePatterns, "Validation failed: includePatterns must not be null");
+        Assert.notNull(excludePatterns, "Validation failed: excludePatterns must not be null");
+        return new PathPatterns(includePatterns, excludePatterns, maxCachedPaths);
+    }
+
+    /**
+     * A set of include and exclude patterns, compiled into a trie of path segments.
+     */
+    public static final class PathPatterns {
+        private final Node absoluteRoot = new Node();
+        private final Node relativeRoot = new Node();
+        private final boolean includeAll;
+        private final boolean excludeNone;
+        private final int maxCachedPaths;
+        private final Map<String, Boolean> decisionCache;
+
+        private PathPatterns(final Collection<String> includePatterns,
+                             final Collection<String> excludePatterns,
+                             final int maxCachedPaths) {
+            this.includeAll = includePatterns.isEmpty();
+            this.excludeNone = excludePatterns.isEmpty();
+            this.maxCachedPaths = maxCachedPaths;
+            this.decisionCache = maxCachedPaths == 0 ? null : new ConcurrentHashMap<>(Math.min(maxCachedPaths, 256));
+            for (final String pattern : includePatterns) {
+                add(pattern, false);
+            }
+            for (final String pattern : excludePatterns) {
+                add(pattern, true);
+            }
+        }
+
+        /**
+         * @param path to check.
+         * @return true if the path matches none of the exclude patterns and, if there are any include patterns,
+         * at least one of them.
+         */
+        public boolean isIncluded(final String path) {
+            if (includeAll && excludeNone) {
+                return true;
+            }
+            if (path == null) {
+                return false;
+            }
+            if (decisionCache == null) {
+                return decide(path);
+            }
+            final Boolean cached = decisionCache.get(path);
+            if (cached != null) {
+                return cached;
+            }
+            final boolean decision = decide(path);
+            if (decisionCache.size() >= maxCachedPaths) {
+                decisionCache.clear();
+            }
+            decisionCache.put(path, decision);
+            return decision;
+        }
+
+        private void add(final String pattern, final boolean exclude) {
+            Node node = pattern.startsWith(PATH_SEPARATOR) ? absoluteRoot : relativeRoot;
+            boolean hasDoubleWildcard = false;
+            for (final String token : tokenize(pattern)) {
+                if (DOUBLE_WILDCARD.equals(token)) {
+                    hasDoubleWildcard = true;
+                }
+                node = node.child(token);
+            }
+            node.terminals.add(new Terminal(exclude, hasDoubleWildcard, pattern.endsWith(PATH_SEPARATOR)));
+        }
+
+        private boolean decide(final String path) {
+            final List<Node> finalNodes = walk(path);
+            final boolean pathEndsWithSeparator = path.endsWith(PATH_SEPARATOR);
+            boolean included = includeAll;
+            for (final Node node : finalNodes) {
+                for (final Terminal terminal : node.terminals) {
+                    if (terminal.matchesEndOfPath(pathEndsWithSeparator)) {
+                        if (terminal.exclude) {
+                            return false;
+                        }
+                        included = true;
+                    }
+                }
+                // Ant-style special case: "/a/*" matches "/a/", i.e. a trailing "*" matches the empty last segment
+                final Node wildcardChild = pathEndsWithSeparator ? node.patternChildren.get(WILDCARD) : null;
+                if (wildcardChild != null) {
+                    for (final Terminal terminal : wildcardChild.terminals) {
+                        if (!terminal.hasDoubleWildcard) {
+                            if (terminal.exclude) {
+                                return false;
+                            }
+                            included = true;
+                        }
+                    }
+                }
+            }
+            return included;
+        }
+
+        /**
+         * Walks the trie along the path's segments, tracking all nodes that patterns may have reached so far.
+         */
+        private List<Node> walk(final String path) {
+            List<Node> current = new ArrayList<>();
+            addWithClosure(current, path.startsWith(PATH_SEPARATOR) ? absoluteRoot : relativeRoot);
+            for (final String segment : tokenize(path)) {
+                if (current.isEmpty()) {
+                    break;
+                }
+                final List<Node> next = new ArrayList<>();
+                for (final Node node : current) {
+                    if (node.isDoubleWildcard) {
+                        addWithClosure(next, node);
+                    }
+                    final Node literal = node.literalChildren.get(segment);
+                    if (literal != null) {
+                        addWithClosure(next, literal);
+                    }
+                    for (final Node child : node.patternChildren.values()) {
+                        if (child.segmentMatcher.matchStrings(segment, null)) {
+                            addWithClosure(next, child);
+                        }
+                    }
+                }
+                current = next;
+            }
+            return current;
+        }
+
+        /**
+         * Adds the node as well as any "**" descendants, since these also match zero segments.
+         */
+        private static void addWithClosure(final List<Node> nodes, final Node node) {
+            if (nodes.contains(node)) {
+                return;
+            }
+            nodes.add(node);
+            if (node.doubleWildcardChild != null) {
+                addWithClosure(nodes, node.doubleWildcardChild);
+            }
+        }
+
+        private static String[] tokenize(final String path) {
+            return StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, false, true);
+        }
+    }
+
+    private static final class Node {
+        private final Map<String, Node> literalChildren = new HashMap<>(4);
+        private final Map<String, Node> patternChildren = new HashMap<>(4);
+        private final List<Terminal> terminals = new ArrayList<>(1);
+        private final boolean isDoubleWildcard;
+        private final AntPathMatcher.AntPathStringMatcher segmentMatcher;
+        private Node doubleWildcardChild;
+
+        private Node() {
+            this(null);
+        }
+
+        private Node(final String token) {
+            this.isDoubleWildcard = DOUBLE_WILDCARD.equals(token);
+            this.segmentMatcher = token == null || isDoubleWildcard || !hasWildcard(token) ?
+                null : new AntPathMatcher.AntPathStringMatcher(token);
+        }
+
+        private Node child(final String token) {
+            if (DOUBLE_WILDCARD.equals(token)) {
+                if (doubleWildcardChild == null) {
+                    doubleWildcardChild = new Node(token);
+                }
+                return doubleWildcardChild;
+            }
+            final Map<String, Node> children = hasWildcard(token) ? patternChildren : literalChildren;
+            return children.computeIfAbsent(token, Node::new);
+        }
+
+        private static boolean hasWildcard(final String token) {
+            return token.indexOf('*') >= 0 || token.indexOf('?') >= 0 || token.indexOf('{') >= 0;
+        }
+    }
+
+    private static final class Terminal {
+        private final boolean exclude;
+        private final boolean hasDoubleWildcard;
+        private final boolean endsWithSeparator;
+
+        private Terminal(final boolean exclude, final boolean hasDoubleWildcard, final boolean endsWithSeparator) {
+            this.exclude = exclude;
+            this.hasDoubleWildcard = hasDoubleWildcard;
+            this.endsWithSeparator = endsWithSeparator;
+        }
+
+        /**
+         * Ant-style matching only compares trailing separators for patterns without "**".
+         */
+        private boolean matchesEndOfPath(final boolean pathEndsWithSeparator) {
+            return hasDoubleWildcard || endsWithSeparator == pathEndsWithSeparator;
+        }
+    }
+}
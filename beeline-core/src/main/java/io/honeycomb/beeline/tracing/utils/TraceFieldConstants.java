@@ -105,6 +105,8 @@ public final class TraceFieldConstants {
     public static final String CLIENT_RESPONSE_STATUS_CODE_FIELD    = "client.response.status_code";
     /** */
     public static final String CLIENT_RESPONSE_CONTENT_LENGTH       = "client.response.content_length";
+    /** Time spent waiting to lease a connection from the client's connection pool, in milliseconds. */
+    public static final String CLIENT_CONNECTION_LEASE_WAIT_FIELD   = "client.connection.lease_wait_ms";
 
     // ========= response namespace =========
     /** The response status code. */
@@ -115,8 +117,12 @@ public final class TraceFieldConstants {
     // ========= database namespace =========
     /** The database query being run */
     public static final String DATABASE_QUERY_FIELD = "db.query";
+    /** A hash of the normalized database query, identifying queries that only differ in their literal values */
+    public static final String DATABASE_QUERY_HASH_FIELD = "db.query_hash";
     /** The database query parameters */
     public static final String DATABASE_QUERY_PARAMETERS_FIELD = "db.query_params";
+    /** Whether the database query parameters were truncated */
+    public static final String DATABASE_QUERY_PARAMETERS_TRUNCATED_FIELD = "db.query_params_truncated";
     public static final String DATABASE_CONNECTION_ID_FIELD = "db.connection_id";
     /** The size of database batch being executed */
     public static final String DATABASE_BATCH_SIZE_FIELD = "db.batch_size";
@@ -129,12 +135,34 @@ public final class TraceFieldConstants {
     public static final String DATABASE_ERROR = "db.error";
     /** Detail about the error (e.g. the exception's message). */
     public static final String DATABASE_ERROR_DETAILS = "db.error_details";
+    /** The number of database queries run while a span was active */
+    public static final String DATABASE_QUERY_COUNT_FIELD = "db.query_count";
+    /** The total duration (ms) of database queries run while a span was active */
+    public static final String DATABASE_TOTAL_DURATION_FIELD = "db.total_duration_ms";
+    /** The number of database connections acquired while a span was active */
+    public static final String DATABASE_CONNECTION_ACQUIRE_COUNT_FIELD = "db.connection_acquire_count";
+    /** The total time (ms, as a double) spent acquiring database connections, e.g. from a pool, while a span was active */
+    public static final String DATABASE_CONNECTION_ACQUIRE_DURATION_FIELD = "db.connection_acquire_ms";
+    /** The number of rows read from database result sets while a span was active */
+    public static final String DATABASE_RESULT_SET_ROWS_FIELD = "db.result_set_rows";
+    /** The total time (ms, as a double) spent consuming database result sets while a span was active */
+    public static final String DATABASE_RESULT_SET_DURATION_FIELD = "db.result_set_duration_ms";
 
     //// ========= indicators of problems =========
     /** A child span sent as result of its parent being closed before it was closed. */
     public static final String META_SENT_BY_PARENT_FIELD    = "meta.sent_by_parent";
     /** A span sent during cleanup, indicating a public API misuse (e.g. a trace was not properly closed). */
     public static final String META_DIRTY_CONTEXT_FIELD     = "meta.dirty_context";
+    /** A span whose children contained a run of repeated calls (e.g. an N+1 query pattern) that was coalesced. */
+    public static final String N_PLUS_ONE_FIELD             = "meta.n_plus_one";
+    /** The number of repeated sibling spans coalesced into this span. */
+    public static final String COALESCED_COUNT_FIELD        = "meta.coalesced.count";
+    /** The total duration (ms) of the repeated sibling spans coalesced into this span. */
+    public static final String COALESCED_TOTAL_DURATION_FIELD = "meta.coalesced.total_duration_ms";
+    /** The shortest duration (ms) of the repeated sibling spans coalesced into this span. */
+    public static final String COALESCED_MIN_DURATION_FIELD = "meta.coalesced.min_duration_ms";
+    /** The longest duration (ms) of the repeated sibling spans coalesced into this span. */
+    public static final String COALESCED_MAX_DURATION_FIELD = "meta.coalesced.max_duration_ms";
     // @formatter:on
 
     private TraceFieldConstants() {
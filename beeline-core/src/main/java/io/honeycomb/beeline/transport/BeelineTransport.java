@@ -0,0 +1,836 @@
+package io.honeycomb.beeline.transport;
+
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.ResponseObservable;
+import io.honeycomb.libhoney.shaded.com.fasterxml.jackson.databind.JsonNode;
+import io.honeycomb.libhoney.shaded.com.fasterxml.jackson.databind.node.MissingNode;
+import io.honeycomb.libhoney.transport.Transport;
+import io.honeycomb.libhoney.utils.Assert;
+import io.honeycomb.libhoney.utils.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link Transport} that sends events to Honeycomb's batch API without libhoney's batching, JSON mapping and HTTP
+ * client. Plug it in with {@link io.honeycomb.beeline.builder.BeelineBuilder#transport(Transport)}.
+ * <p>
+ * Events are queued by {@link #submit(ResolvedEvent)} and picked up by a batcher thread, which serializes each one
+ * straight into a reusable buffer (see {@link JsonEventWriter}) and compresses it into a pooled gzip buffer for its
+ * batch - there is one batch per API host, write key and dataset. A batch is sent when it holds {@code batchSize}
+ * events, or {@code batchTimeoutMillis} after its first event was added. At most {@code maxInFlightRequests} batches
+ * are sent at once: when that many requests are pending, the batcher waits, the queue fills up, and further events are
+ * dropped rather than blocking the threads that submit them.
+ * <p>
+ * With many threads submitting events, the single queue can become a point of contention. {@code queueShards} splits
+ * it into several queues, each with its own batcher thread, and each thread submits to the same queue every time, so
+ * events submitted by one thread are still sent in order. The queue capacity is divided between the shards, while the
+ * senders and the limit on in-flight requests are shared by all of them.
+ * <p>
+ * Static global fields can be given to the builder, so that they're encoded once rather than for every event; they
+ * must have the same values as the global fields the {@link io.honeycomb.libhoney.HoneyClient} adds to events.
+ * <p>
+ * Optionally, batches can be spilled to disk rather than waiting for in-flight requests to complete (see
+ * {@link Builder#spillDirectory(Path)}), so that events aren't dropped while the API is slow.
+ * <p>
+ * Responses are not published per event to the {@link #getResponseObservable() ResponseObservable}. Instead, the number
+ * of events that were sent, failed to be sent, dropped, spilled, replayed and discarded is counted, and failures are
+ * logged. An event only counts as sent if its own status in the batch response is a success, as the API can reject
+ * single events of a batch it accepts.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe and can be shared.
+ */
+public class BeelineTransport implements Transport {
+    private static final Logger LOG = LoggerFactory.getLogger(BeelineTransport.class);
+    private static final String BATCH_PATH = "/1/batch/";
+    private static final String WRITE_KEY_HEADER = "X-Honeycomb-Team";
+    private static final String USER_AGENT = "beeline-java-transport";
+    private static final byte[] BATCH_START = {'['};
+    private static final byte[] BATCH_SEPARATOR = {','};
+    private static final byte[] BATCH_END = {']'};
+    private static final byte[] EMPTY_RESPONSE = new byte[0];
+    /** Buffers that grew beyond this size while compressing an unusually large batch are not pooled. */
+    private static final int MAX_POOLED_BUFFER_CAPACITY = 4 * 1024 * 1024;
+    private static final int MAX_CACHED_KEYS = 10_000;
+
+    private final ResponseObservable responseObservable = new ResponseObservable();
+    private final Shard[] shards;
+    private final BlockingQueue<GzipBuffer> bufferPool;
+    private final Semaphore inFlightRequests;
+    private final ExecutorService senders;
+    private final int batchSize;
+    private final long batchTimeoutNanos;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final long closeTimeoutMillis;
+
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder eventsFailed = new LongAdder();
+    private final LongAdder eventsDropped = new LongAdder();
+    private final LongAdder eventsSpilled = new LongAdder();
+    private final LongAdder eventsReplayed = new LongAdder();
+    private final LongAdder eventsDiscarded = new LongAdder();
+    /** Null unless a spill directory is configured. */
+    private final SpillBuffer spill;
+    private final Thread replayer;
+    private volatile boolean closed;
+
+    BeelineTransport(final Builder builder) {
+        this.bufferPool = new ArrayBlockingQueue<>(builder.maxInFlightRequests + builder.queueShards);
+        this.inFlightRequests = new Semaphore(builder.maxInFlightRequests);
+        this.batchSize = builder.batchSize;
+        this.batchTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(builder.batchTimeoutMillis);
+        this.connectTimeoutMillis = builder.connectTimeoutMillis;
+        this.readTimeoutMillis = builder.readTimeoutMillis;
+        this.closeTimeoutMillis = builder.closeTimeoutMillis;
+        this.spill = openSpillBuffer(builder);
+        final AtomicInteger senderCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(builder.maxInFlightRequests, runnable -> {
+            final Thread thread = new Thread(runnable, "beeline-transport-sender-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final int shardCapacity = Math.max(1, builder.queueCapacity / builder.queueShards);
+        this.shards = new Shard[builder.queueShards];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, shardCapacity, builder.globalFields);
+        }
+        for (final Shard shard : shards) {
+            shard.batcher.start();
+        }
+        if (spill != null) {
+            this.replayer = new Thread(this::runReplayer, "beeline-transport-replayer");
+            this.replayer.setDaemon(true);
+            this.replayer.start();
+        } else {
+            this.replayer = null;
+        }
+    }
+
+    private static SpillBuffer openSpillBuffer(final Builder builder) {
+        if (builder.spillDirectory == null) {
+            return null;
+        }
+        try {
+            return new SpillBuffer(builder.spillDirectory, builder.spillMaxBytes, builder.spillSegmentBytes);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to open spill directory " + builder.spillDirectory, e);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Queues the event to be sent with the next batch for its API host, write key and dataset.
+     *
+     * @return false if the event was dropped, because the queue is full or the transport is closed.
+     */
+    @Override
+    public boolean submit(final ResolvedEvent event) {
+        if (closed || !shardOfCurrentThread().queue.offer(event)) {
+            eventsDropped.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private Shard shardOfCurrentThread() {
+        return shards.length == 1 ? shards[0] : shards[(int) (Thread.currentThread().getId() % shards.length)];
+    }
+
+    @Override
+    public ResponseObservable getResponseObservable() {
+        return responseObservable;
+    }
+
+    /**
+     * @return the number of events the server accepted a batch of.
+     */
+    public long getEventsSent() {
+        return eventsSent.sum();
+    }
+
+    /**
+     * @return the number of events that could not be serialized, whose batch could not be sent or was rejected, or that
+     * were rejected on their own.
+     */
+    public long getEventsFailed() {
+        return eventsFailed.sum();
+    }
+
+    /**
+     * @return the number of events that were not accepted by {@link #submit(ResolvedEvent)}.
+     */
+    public long getEventsDropped() {
+        return eventsDropped.sum();
+    }
+
+    /**
+     * @return the number of events whose batch was written to the spill directory.
+     */
+    public long getEventsSpilled() {
+        return eventsSpilled.sum();
+    }
+
+    /**
+     * @return the number of events whose batch was read back from the spill directory to be sent.
+     */
+    public long getEventsReplayed() {
+        return eventsReplayed.sum();
+    }
+
+    /**
+     * @return the number of events whose batch could not be spilled, because the spill directory was full.
+     */
+    public long getEventsDiscarded() {
+        return eventsDiscarded.sum();
+    }
+
+    /**
+     * Stops accepting events, sends the queued events and waits for pending requests to complete - up to the close
+     * timeout each. Batches that are still in the spill directory are kept there, and sent by the next transport that
+     * uses the directory.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (final Shard shard : shards) {
+            shard.batcher.interrupt();
+        }
+        try {
+            for (final Shard shard : shards) {
+                shard.batcher.join(closeTimeoutMillis);
+            }
+            if (replayer != null) {
+                replayer.interrupt();
+                replayer.join(closeTimeoutMillis);
+            }
+            senders.shutdown();
+            if (!senders.awaitTermination(closeTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                LOG.warn("Closed transport before all pending batches were sent");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        GzipBuffer buffer;
+        while ((buffer = bufferPool.poll()) != null) {
+            buffer.end();
+        }
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    /**
+     * Hands the batch to a sender, waiting for one of the in-flight requests to complete if necessary - or, if spilling
+     * is enabled, spills it instead of waiting. Once a batch is spilled, the following batches are spilled too until
+     * the spilled batches have been replayed, so that batches are sent in order.
+     */
+    private void dispatch(final OpenBatch batch) {
+        batch.buffer.write(BATCH_END, 0, BATCH_END.length);
+        batch.buffer.finish();
+        if (spill == null) {
+            inFlightRequests.acquireUninterruptibly();
+        } else if (spill.hasPending() || !inFlightRequests.tryAcquire()) {
+            spill(batch);
+            return;
+        }
+        try {
+            senders.execute(() -> {
+                try {
+                    send(batch.url, batch.key.writeKey, batch.eventCount, batch.buffer.array(), batch.buffer.size());
+                } finally {
+                    recycleBuffer(batch.buffer);
+                    inFlightRequests.release();
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            LOG.warn("Transport closed before batch could be sent, dropping {} events", batch.eventCount);
+            eventsFailed.add(batch.eventCount);
+            recycleBuffer(batch.buffer);
+            inFlightRequests.release();
+        }
+    }
+
+    private void spill(final OpenBatch batch) {
+        try {
+            if (spill.append(batch.url.toString(), batch.key.writeKey, batch.eventCount,
+                             batch.buffer.array(), batch.buffer.size())) {
+                eventsSpilled.add(batch.eventCount);
+            } else {
+                LOG.warn("Spill directory full, discarding batch of {} events", batch.eventCount);
+                eventsDiscarded.add(batch.eventCount);
+            }
+        } finally {
+            recycleBuffer(batch.buffer);
+        }
+    }
+
+    /**
+     * Sends spilled batches, oldest first, whenever there is room for another request in flight.
+     */
+    private void runReplayer() {
+        try {
+            while (!closed) {
+                if (!spill.awaitPending(TimeUnit.NANOSECONDS.toMillis(batchTimeoutNanos) + 1)) {
+                    continue;
+                }
+                inFlightRequests.acquire();
+                final SpillBuffer.SpilledBatch batch = spill.poll();
+                if (batch == null) {
+                    inFlightRequests.release();
+                    continue;
+                }
+                eventsReplayed.add(batch.getEventCount());
+                try {
+                    senders.execute(() -> {
+                        try {
+                            replay(batch);
+                        } finally {
+                            inFlightRequests.release();
+                        }
+                    });
+                } catch (final RejectedExecutionException e) {
+                    eventsFailed.add(batch.getEventCount());
+                    inFlightRequests.release();
+                }
+            }
+        } catch (final InterruptedException e) {
+            // woken up by close()
+        }
+    }
+
+    private void replay(final SpillBuffer.SpilledBatch batch) {
+        final URL url;
+        try {
+            url = new URL(batch.getUrl());
+        } catch (final MalformedURLException e) {
+            LOG.warn("Discarding spilled batch of {} events with invalid URL {}", batch.getEventCount(), batch.getUrl());
+            eventsFailed.add(batch.getEventCount());
+            return;
+        }
+        send(url, batch.getWriteKey(), batch.getEventCount(), batch.getPayload(), batch.getPayload().length);
+    }
+
+    private void send(final URL url, final String writeKey, final int eventCount, final byte[] body, final int length) {
+        final BatchResponse response;
+        try {
+            response = post(url, writeKey, body, length);
+        } catch (final IOException | RuntimeException e) {
+            LOG.warn("Failed to send batch of {} events to {}", eventCount, url, e);
+            eventsFailed.add(eventCount);
+            return;
+        }
+        if (response.status == HttpURLConnection.HTTP_OK) {
+            countEventStatuses(url, eventCount, response.body);
+        } else {
+            LOG.warn("Batch of {} events rejected by {} with status {}", eventCount, url, response.status);
+            eventsFailed.add(eventCount);
+        }
+    }
+
+    /**
+     * Counts the events of a batch that was accepted as a whole by their own status in the response - an array with
+     * an object per event, in the order of the batch. Events without a status are counted as failed.
+     */
+    private void countEventStatuses(final URL url, final int eventCount, final byte[] responseBody) {
+        final JsonNode statuses;
+        try {
+            statuses = JsonUtils.OBJECT_MAPPER.readTree(responseBody);
+        } catch (final IOException | RuntimeException e) {
+            LOG.warn("Failed to read event statuses of batch of {} events sent to {}", eventCount, url, e);
+            eventsFailed.add(eventCount);
+            return;
+        }
+        int accepted = 0;
+        JsonNode firstRejected = null;
+        for (int i = 0; i < eventCount; i++) {
+            final JsonNode eventStatus = statuses == null ? null : statuses.get(i);
+            final int status = eventStatus == null ? 0 : eventStatus.path("status").asInt();
+            if (status >= HttpURLConnection.HTTP_OK && status < HttpURLConnection.HTTP_MULT_CHOICE) {
+                accepted++;
+            } else if (firstRejected == null) {
+                firstRejected = eventStatus == null ? MissingNode.getInstance() : eventStatus;
+            }
+        }
+        eventsSent.add(accepted);
+        if (firstRejected != null) {
+            final Object firstStatus = firstRejected.isMissingNode() ? "no status" : firstRejected;
+            LOG.warn("{} of {} events rejected by {}, the first one with {}",
+                     eventCount - accepted, eventCount, url, firstStatus);
+            eventsFailed.add(eventCount - accepted);
+        }
+    }
+
+    private BatchResponse post(final URL url, final String writeKey, final byte[] body, final int length)
+        throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setConnectTimeout(connectTimeoutMillis);
+            connection.setReadTimeout(readTimeoutMillis);
+            connection.setFixedLengthStreamingMode(length);
+            connection.setRequestProperty(WRITE_KEY_HEADER, writeKey);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setRequestProperty("Content-Encoding", "gzip");
+            connection.setRequestProperty("User-Agent", USER_AGENT);
+            // not try-with-resources, as SpotBugs reports its null check as redundant on JDK 11+ (spotbugs#756)
+            final OutputStream out = connection.getOutputStream();
+            try {
+                out.write(body, 0, length);
+            } finally {
+                out.close();
+            }
+            final int status = connection.getResponseCode();
+            // read the response fully, so that the connection can be reused
+            if (status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                return new BatchResponse(status, drain(connection.getErrorStream()));
+            }
+            final InputStream response = connection.getInputStream();
+            final byte[] responseBody = status == HttpURLConnection.HTTP_OK ? readFully(response) : drain(response);
+            return new BatchResponse(status, responseBody);
+        } catch (final IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    private static byte[] drain(final InputStream in) throws IOException {
+        if (in != null) {
+            try {
+                final byte[] discard = new byte[1024];
+                while (in.read(discard) != -1) {
+                    // discard
+                }
+            } finally {
+                in.close();
+            }
+        }
+        return EMPTY_RESPONSE;
+    }
+
+    private static byte[] readFully(final InputStream in) throws IOException {
+        if (in == null) {
+            return EMPTY_RESPONSE;
+        }
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] chunk = new byte[1024];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private GzipBuffer takeBuffer() {
+        final GzipBuffer buffer = bufferPool.poll();
+        final GzipBuffer started = buffer != null ? buffer : new GzipBuffer();
+        started.start();
+        return started;
+    }
+
+    private void recycleBuffer(final GzipBuffer buffer) {
+        if (closed || buffer.capacity() > MAX_POOLED_BUFFER_CAPACITY || !bufferPool.offer(buffer)) {
+            buffer.end();
+        }
+    }
+
+    /**
+     * A queue with its own batcher thread. Only the batcher thread touches the writer and the open batches.
+     */
+    private final class Shard implements Runnable {
+        private final BlockingQueue<ResolvedEvent> queue;
+        private final JsonEventWriter writer;
+        private final Thread batcher;
+        private final List<OpenBatch> openBatches = new ArrayList<>();
+        private final Map<BatchKey, URL> urls = new HashMap<>();
+
+        private Shard(final int index, final int queueCapacity, final Map<String, ?> globalFields) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.writer = new JsonEventWriter(globalFields, MAX_CACHED_KEYS);
+            this.batcher = new Thread(this, "beeline-transport-batcher-" + index);
+            this.batcher.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    final ResolvedEvent event = queue.poll(nanosUntilNextDeadline(), TimeUnit.NANOSECONDS);
+                    if (event != null) {
+                        append(event);
+                    }
+                    dispatchExpired();
+                }
+            } catch (final InterruptedException e) {
+                // woken up by close()
+            }
+            ResolvedEvent event;
+            while ((event = queue.poll()) != null) {
+                append(event);
+            }
+            for (final OpenBatch batch : openBatches) {
+                dispatch(batch);
+            }
+        }
+
+        private long nanosUntilNextDeadline() {
+            long timeout = batchTimeoutNanos;
+            final long now = System.nanoTime();
+            for (final OpenBatch batch : openBatches) {
+                timeout = Math.min(timeout, batch.deadlineNanos - now);
+            }
+            return Math.max(timeout, 0L);
+        }
+
+        private void append(final ResolvedEvent event) {
+            try {
+                writer.reset();
+                writer.writeEvent(event.getTimestamp(), event.getSampleRate(), event.getFields());
+            } catch (final RuntimeException e) {
+                LOG.warn("Failed to serialize event, dropping it", e);
+                eventsFailed.increment();
+                return;
+            }
+
+            OpenBatch batch = findOpenBatch(event);
+            if (batch == null) {
+                final BatchKey key = new BatchKey(event.getApiHost(), event.getWriteKey(), event.getDataset());
+                final URL url = urls.computeIfAbsent(key, BatchKey::toBatchUrl);
+                if (url == null) {
+                    eventsFailed.increment();
+                    return;
+                }
+                batch = new OpenBatch(key, url, takeBuffer(), System.nanoTime() + batchTimeoutNanos);
+                batch.buffer.write(BATCH_START, 0, BATCH_START.length);
+                openBatches.add(batch);
+            } else {
+                batch.buffer.write(BATCH_SEPARATOR, 0, BATCH_SEPARATOR.length);
+            }
+            batch.buffer.write(writer.array(), 0, writer.size());
+            if (++batch.eventCount >= batchSize) {
+                openBatches.remove(batch);
+                dispatch(batch);
+            }
+        }
+
+        private OpenBatch findOpenBatch(final ResolvedEvent event) {
+            for (final OpenBatch batch : openBatches) {
+                if (batch.key.matches(event)) {
+                    return batch;
+                }
+            }
+            return null;
+        }
+
+        private void dispatchExpired() {
+            final long now = System.nanoTime();
+            for (int i = openBatches.size() - 1; i >= 0; i--) {
+                final OpenBatch batch = openBatches.get(i);
+                if (batch.deadlineNanos - now <= 0) {
+                    openBatches.remove(i);
+                    dispatch(batch);
+                }
+            }
+        }
+    }
+
+    private static final class OpenBatch {
+        private final BatchKey key;
+        private final URL url;
+        private final GzipBuffer buffer;
+        private final long deadlineNanos;
+        private int eventCount;
+
+        private OpenBatch(final BatchKey key, final URL url, final GzipBuffer buffer, final long deadlineNanos) {
+            this.key = key;
+            this.url = url;
+            this.buffer = buffer;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    private static final class BatchKey {
+        private final URI apiHost;
+        private final String writeKey;
+        private final String dataset;
+
+        private BatchKey(final URI apiHost, final String writeKey, final String dataset) {
+            this.apiHost = apiHost;
+            this.writeKey = writeKey;
+            this.dataset = dataset;
+        }
+
+        private boolean matches(final ResolvedEvent event) {
+            return Objects.equals(dataset, event.getDataset())
+                && Objects.equals(writeKey, event.getWriteKey())
+                && Objects.equals(apiHost, event.getApiHost());
+        }
+
+        private URL toBatchUrl() {
+            try {
+                final String encodedDataset = URLEncoder.encode(dataset, "UTF-8").replace("+", "%20");
+                return apiHost.resolve(BATCH_PATH + encodedDataset).toURL();
+            } catch (final UnsupportedEncodingException | IllegalArgumentException | MalformedURLException e) {
+                LOG.warn("Cannot send events for dataset {} to API host {}", dataset, apiHost, e);
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final BatchKey other = (BatchKey) o;
+            return Objects.equals(apiHost, other.apiHost)
+                && Objects.equals(writeKey, other.writeKey)
+                && Objects.equals(dataset, other.dataset);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(apiHost, writeKey, dataset);
+        }
+    }
+
+    private static final class BatchResponse {
+        private final int status;
+        private final byte[] body;
+
+        private BatchResponse(final int status, final byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Configures a {@link BeelineTransport}.
+     */
+    public static final class Builder {
+        private Map<String, ?> globalFields = Collections.emptyMap();
+        private int batchSize = 50;
+        private long batchTimeoutMillis = 100L;
+        private int queueCapacity = 10_000;
+        private int maxInFlightRequests = 4;
+        private int queueShards = 1;
+        private int connectTimeoutMillis = 5_000;
+        private int readTimeoutMillis = 10_000;
+        private long closeTimeoutMillis = 10_000L;
+        private Path spillDirectory;
+        private long spillMaxBytes = 256L * 1024 * 1024;
+        private int spillSegmentBytes = 16 * 1024 * 1024;
+
+        private Builder() {
+        }
+
+        /**
+         * Static global fields, which are encoded once instead of for every event.
+         * <p>
+         * Default: None
+         *
+         * @param globalFields the same fields as given to the {@code HoneyClient} - must not be null.
+         * @return this.
+         */
+        public Builder globalFields(final Map<String, ?> globalFields) {
+            Assert.notNull(globalFields, "Validation failed: globalFields must not be null");
+            this.globalFields = globalFields;
+            return this;
+        }
+
+        /**
+         * Default: 50
+         *
+         * @param batchSize max number of events to send in a single request - must be positive.
+         * @return this.
+         */
+        public Builder batchSize(final int batchSize) {
+            Assert.isTrue(batchSize > 0, "Validation failed: batchSize must be positive");
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Default: 100
+         *
+         * @param batchTimeoutMillis max milliseconds to wait before sending a batch that is not full - must be
+         *                           positive.
+         * @return this.
+         */
+        public Builder batchTimeoutMillis(final long batchTimeoutMillis) {
+            Assert.isTrue(batchTimeoutMillis > 0, "Validation failed: batchTimeoutMillis must be positive");
+            this.batchTimeoutMillis = batchTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * Default: 10000
+         *
+         * @param queueCapacity max number of events waiting to be batched, beyond which events are dropped - must be
+         *                      positive. It is divided between the queue shards.
+         * @return this.
+         */
+        public Builder queueCapacity(final int queueCapacity) {
+            Assert.isTrue(queueCapacity > 0, "Validation failed: queueCapacity must be positive");
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Default: 1
+         *
+         * @param queueShards number of queues, each with its own batcher thread, that submitting threads are spread
+         *                    across - must be positive. The number of available processors is a good start for
+         *                    applications that submit events from many threads.
+         * @return this.
+         */
+        public Builder queueShards(final int queueShards) {
+            Assert.isTrue(queueShards > 0, "Validation failed: queueShards must be positive");
+            this.queueShards = queueShards;
+            return this;
+        }
+
+        /**
+         * Default: 4
+         *
+         * @param maxInFlightRequests max number of batches being sent at once - must be positive.
+         * @return this.
+         */
+        public Builder maxInFlightRequests(final int maxInFlightRequests) {
+            Assert.isTrue(maxInFlightRequests > 0, "Validation failed: maxInFlightRequests must be positive");
+            this.maxInFlightRequests = maxInFlightRequests;
+            return this;
+        }
+
+        /**
+         * Default: 5000
+         *
+         * @param connectTimeoutMillis to establish a connection with - must not be negative, where 0 means no timeout.
+         * @return this.
+         */
+        public Builder connectTimeoutMillis(final int connectTimeoutMillis) {
+            Assert.isTrue(connectTimeoutMillis >= 0, "Validation failed: connectTimeoutMillis must not be negative");
+            this.connectTimeoutMillis = connectTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * Default: 10000
+         *
+         * @param readTimeoutMillis to wait for the response with - must not be negative, where 0 means no timeout.
+         * @return this.
+         */
+        public Builder readTimeoutMillis(final int readTimeoutMillis) {
+            Assert.isTrue(readTimeoutMillis >= 0, "Validation failed: readTimeoutMillis must not be negative");
+            this.readTimeoutMillis = readTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * Default: 10000
+         *
+         * @param closeTimeoutMillis max milliseconds {@link BeelineTransport#close()} waits for queued events to be
+         *                           batched, and then again for pending requests - must be positive.
+         * @return this.
+         */
+        public Builder closeTimeoutMillis(final long closeTimeoutMillis) {
+            Assert.isTrue(closeTimeoutMillis > 0, "Validation failed: closeTimeoutMillis must be positive");
+            this.closeTimeoutMillis = closeTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * Enables spilling: when {@code maxInFlightRequests} batches are being sent already, further batches are
+         * written to memory-mapped segment files in this directory, instead of waiting and letting the queue fill up.
+         * They are sent in order once requests complete, and batches left there by a previous process are sent too.
+         * <p>
+         * The segment files hold the write key of each batch, so that it can be sent after a restart. They are created
+         * readable by their owner only where the file system supports POSIX permissions; elsewhere, restrict access
+         * to the directory itself.
+         * <p>
+         * Default: None, i.e. spilling is disabled.
+         *
+         * @param spillDirectory to keep the segment files in - must not be used by another transport at the same time.
+         * @return this.
+         */
+        public Builder spillDirectory(final Path spillDirectory) {
+            Assert.notNull(spillDirectory, "Validation failed: spillDirectory must not be null");
+            this.spillDirectory = spillDirectory;
+            return this;
+        }
+
+        /**
+         * Default: 256 MiB
+         *
+         * @param spillMaxBytes the disk budget for spilled batches, beyond which batches are discarded - must be at
+         *                      least the segment size.
+         * @return this.
+         */
+        public Builder spillMaxBytes(final long spillMaxBytes) {
+            Assert.isTrue(spillMaxBytes > 0, "Validation failed: spillMaxBytes must be positive");
+            this.spillMaxBytes = spillMaxBytes;
+            return this;
+        }
+
+        /**
+         * Default: 16 MiB
+         *
+         * @param spillSegmentBytes the size of each segment file, which limits the compressed size of a batch that can
+         *                          be spilled - must be positive.
+         * @return this.
+         */
+        public Builder spillSegmentBytes(final int spillSegmentBytes) {
+            Assert.isTrue(spillSegmentBytes > 0, "Validation failed: spillSegmentBytes must be positive");
+            this.spillSegmentBytes = spillSegmentBytes;
+            return this;
+        }
+
+        /**
+         * @throws UncheckedIOException if the spill directory cannot be opened.
+         */
+        public BeelineTransport build() {
+            return new BeelineTransport(this);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package io.honeycomb.beeline.transport;
+
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.ResponseObservable;
+import io.honeycomb.libhoney.transport.Transport;
+import io.honeycomb.libhoney.utils.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link Transport} that writes events to rotating NDJSON files instead of sending them, for applications that
+ * cannot reach Honeycomb while they run, e.g. batch jobs in a network-isolated environment. The files can be sent
+ * later with {@link FileTransportReplayer}. Plug it in with
+ * {@link io.honeycomb.beeline.builder.BeelineBuilder#transport(Transport)}.
+ * <p>
+ * Events are queued by {@link #submit(ResolvedEvent)} and picked up by a writer thread, which serializes each one
+ * (see {@link JsonEventWriter}) as a line holding its time, sample rate, dataset and data, and appends it to a
+ * memory-mapped segment file (see {@link NdjsonSegmentWriter}). Segments are rolled over once they reach
+ * {@code segmentBytes}, or once they are {@code rolloverMillis} old. Threads submitting events never wait for the
+ * disk: when the writer falls behind and the queue is full, events are dropped.
+ * <p>
+ * The write key and API host of events are not written to the files, so that no credentials are left on disk. They
+ * are taken from the {@link io.honeycomb.libhoney.HoneyClient} that replays the files instead.
+ * <p>
+ * Responses are not published to the {@link #getResponseObservable() ResponseObservable}. Instead, the number of
+ * events that were written, failed to be written and dropped is counted, and failures are logged. Segments are forced
+ * to disk when they are completed, so the active segment survives the process dying, but not necessarily the
+ * operating system.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe and can be shared.
+ */
+public class FileTransport implements Transport {
+    private static final Logger LOG = LoggerFactory.getLogger(FileTransport.class);
+    private static final int MAX_CACHED_KEYS = 10_000;
+    /** The writer thread checks for {@link #close()} at least this often. */
+    private static final long MAX_POLL_MILLIS = 100L;
+
+    private final ResponseObservable responseObservable = new ResponseObservable();
+    private final BlockingQueue<ResolvedEvent> queue;
+    private final JsonEventWriter writer;
+    private final NdjsonSegmentWriter segments;
+    private final Thread writerThread;
+    private final long closeTimeoutMillis;
+
+    private final LongAdder eventsWritten = new LongAdder();
+    private final LongAdder eventsFailed = new LongAdder();
+    private final LongAdder eventsDropped = new LongAdder();
+    private volatile boolean closed;
+
+    FileTransport(final Builder builder) {
+        this.queue = new ArrayBlockingQueue<>(builder.queueCapacity);
+        this.writer = new JsonEventWriter(builder.globalFields, MAX_CACHED_KEYS);
+        this.closeTimeoutMillis = builder.closeTimeoutMillis;
+        try {
+            this.segments = new NdjsonSegmentWriter(builder.directory, builder.segmentBytes, builder.rolloverMillis);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to open directory " + builder.directory, e);
+        }
+        // not interrupted by close(), as that would close the file channel the writer thread might be using
+        this.writerThread = new Thread(this::runWriter, "beeline-file-transport-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Queues the event to be written to the active segment.
+     *
+     * @return false if the event was dropped, because the queue is full or the transport is closed.
+     */
+    @Override
+    public boolean submit(final ResolvedEvent event) {
+        if (closed || !queue.offer(event)) {
+            eventsDropped.increment();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public ResponseObservable getResponseObservable() {
+        return responseObservable;
+    }
+
+    /**
+     * @return the number of events appended to a segment.
+     */
+    public long getEventsWritten() {
+        return eventsWritten.sum();
+    }
+
+    /**
+     * @return the number of events that could not be serialized, were larger than a segment, or could not be written.
+     */
+    public long getEventsFailed() {
+        return eventsFailed.sum();
+    }
+
+    /**
+     * @return the number of events that were not accepted by {@link #submit(ResolvedEvent)}.
+     */
+    public long getEventsDropped() {
+        return eventsDropped.sum();
+    }
+
+    /**
+     * Stops accepting events, writes the queued events and completes the active segment - waiting up to the close
+     * timeout.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writerThread.join(closeTimeoutMillis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            LOG.warn("Closed transport before all queued events were written");
+        }
+    }
+
+    private void runWriter() {
+        try {
+            while (!closed) {
+                final long untilRollover = segments.millisUntilRollover(System.currentTimeMillis());
+                final ResolvedEvent event = queue.poll(Math.min(untilRollover, MAX_POLL_MILLIS), TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    write(event);
+                }
+                segments.rollOverIfDue(System.currentTimeMillis());
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ResolvedEvent event;
+        while ((event = queue.poll()) != null) {
+            write(event);
+        }
+        segments.close();
+    }
+
+    private void write(final ResolvedEvent event) {
+        try {
+            writer.reset();
+            writer.writeEvent(event.getTimestamp(), event.getSampleRate(), event.getDataset(), event.getFields());
+        } catch (final RuntimeException e) {
+            LOG.warn("Failed to serialize event, dropping it", e);
+            eventsFailed.increment();
+            return;
+        }
+        try {
+            if (segments.append(writer.array(), writer.size())) {
+                eventsWritten.increment();
+            } else {
+                LOG.warn("Dropping event of {} bytes, which does not fit into a segment", writer.size());
+                eventsFailed.increment();
+            }
+        } catch (final IOException e) {
+            LOG.warn("Failed to create segment, dropping event", e);
+            eventsFailed.increment();
+        }
+    }
+
+    /**
+     * Configures a {@link FileTransport}.
+     */
+    public static final class Builder {
+        private Path directory;
+        private Map<String, ?> globalFields = Collections.emptyMap();
+        private int segmentBytes = 64 * 1024 * 1024;
+        private long rolloverMillis = 10 * 60 * 1000L;
+        private int queueCapacity = 10_000;
+        private long closeTimeoutMillis = 10_000L;
+
+        private Builder() {
+        }
+
+        /**
+         * Default: None - must be set.
+         *
+         * @param directory to write the segment files to - must not be used by another transport at the same time.
+         * @return this.
+         */
+        public Builder directory(final Path directory) {
+            Assert.notNull(directory, "Validation failed: directory must not be null");
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Static global fields, which are encoded once instead of for every event.
+         * <p>
+         * Default: None
+         *
+         * @param globalFields the same fields as given to the {@code HoneyClient} - must not be null.
+         * @return this.
+         */
+        public Builder globalFields(final Map<String, ?> globalFields) {
+            Assert.notNull(globalFields, "Validation failed: globalFields must not be null");
+            this.globalFields = globalFields;
+            return this;
+        }
+
+        /**
+         * Default: 64 MiB
+         *
+         * @param segmentBytes the size a segment is rolled over at, which also limits the size of a single event -
+         *                     must be positive.
+         * @return this.
+         */
+        public Builder segmentBytes(final int segmentBytes) {
+            Assert.isTrue(segmentBytes > 0, "Validation failed: segmentBytes must be positive");
+            this.segmentBytes = segmentBytes;
+            return this;
+        }
+
+        /**
+         * Default: 600000 (10 minutes)
+         *
+         * @param rolloverMillis the age a segment is rolled over at, which bounds how long written events wait
+         *                       before they can be replayed - must be positive.
+         * @return this.
+         */
+        public Builder rolloverMillis(final long rolloverMillis) {
+            Assert.isTrue(rolloverMillis > 0, "Validation failed: rolloverMillis must be positive");
+            this.rolloverMillis = rolloverMillis;
+            return this;
+        }
+
+        /**
+         * Default: 10000
+         *
+         * @param queueCapacity max number of events waiting to be written, beyond which events are dropped - must be
+         *                      positive.
+         * @return this.
+         */
+        public Builder queueCapacity(final int queueCapacity) {
+            Assert.isTrue(queueCapacity > 0, "Validation failed: queueCapacity must be positive");
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Default: 10000
+         *
+         * @param closeTimeoutMillis max milliseconds {@link FileTransport#close()} waits for queued events to be
+         *                           written - must be positive.
+         * @return this.
+         */
+        public Builder closeTimeoutMillis(final long closeTimeoutMillis) {
+            Assert.isTrue(closeTimeoutMillis > 0, "Validation failed: closeTimeoutMillis must be positive");
+            this.closeTimeoutMillis = closeTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if no directory was set.
+         * @throws UncheckedIOException     if the directory cannot be created or read.
+         */
+        public FileTransport build() {
+            Assert.notNull(directory, "Validation failed: directory must be set");
+            return new FileTransport(this);
+        }
+    }
+}
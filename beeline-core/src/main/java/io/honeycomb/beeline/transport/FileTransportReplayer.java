@@ -0,0 +1,273 @@
+package io.honeycomb.beeline.transport;
+
+import io.honeycomb.beeline.tracing.propagation.HttpHeaderV1PropagationCodec;
+import io.honeycomb.libhoney.Event;
+import io.honeycomb.libhoney.HoneyClient;
+import io.honeycomb.libhoney.LibHoney;
+import io.honeycomb.libhoney.Options;
+import io.honeycomb.libhoney.ResponseObserver;
+import io.honeycomb.libhoney.responses.ClientRejected;
+import io.honeycomb.libhoney.responses.ServerAccepted;
+import io.honeycomb.libhoney.responses.ServerRejected;
+import io.honeycomb.libhoney.responses.Unknown;
+import io.honeycomb.libhoney.utils.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends the events written by a {@link FileTransport} through a {@link HoneyClient}, with their original time, sample
+ * rate and dataset. The client's write key and API host are used, and its global fields are added to the events. The
+ * events are sent presampled, as they were sampled when they were first sent.
+ * <p>
+ * Segments are read a line at a time, so files of any size can be replayed. Lines that cannot be parsed are logged and
+ * skipped. Once all events of a segment have been handed to the client - and answered, if there is a limit on pending
+ * events - the segment is renamed to end with {@value #REPLAYED_SUFFIX}, so that replaying the directory again skips
+ * it. A segment whose replay was cut short is replayed in full the next time, so its events may be sent twice.
+ * <p>
+ * A {@code HoneyClient} with libhoney's default transport drops events when its queue is full. To replay more events
+ * than its queue holds, give a limit on the number of pending events: the replayer then waits for responses before
+ * sending more events. This requires a transport that publishes a response for every event, as libhoney's does.
+ * <p>
+ * {@link #main(String[])} replays the given files and directories, taking the write key from the
+ * {@code HONEYCOMB_API_KEY} environment variable, and optionally the API host from {@code HONEYCOMB_API_HOST} and the
+ * default dataset from {@code HONEYCOMB_DATASET}.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are not thread-safe and must be confined to one thread at a time.
+ */
+public class FileTransportReplayer {
+    private static final Logger LOG = LoggerFactory.getLogger(FileTransportReplayer.class);
+    private static final HttpHeaderV1PropagationCodec.DefaultJsonConverter JSON =
+        new HttpHeaderV1PropagationCodec.DefaultJsonConverter();
+    private static final int DEFAULT_MAX_PENDING_EVENTS = 5_000;
+    static final String REPLAYED_SUFFIX = NdjsonSegmentWriter.SEGMENT_SUFFIX + ".replayed";
+
+    private final HoneyClient client;
+    private final int maxPendingEvents;
+    private final Object lock = new Object();
+    /** Guarded by {@link #lock}. */
+    private long pendingEvents;
+
+    /**
+     * Creates a replayer that sends events as fast as the files are read.
+     *
+     * @param client to send events through - must not be null.
+     */
+    public FileTransportReplayer(final HoneyClient client) {
+        Assert.notNull(client, "Validation failed: client must not be null");
+
+        this.client = client;
+        this.maxPendingEvents = 0;
+    }
+
+    /**
+     * Creates a replayer that waits for responses whenever {@code maxPendingEvents} events are pending.
+     *
+     * @param client           to send events through - must not be null, and must publish a response for every event.
+     * @param maxPendingEvents max number of events sent without a response yet - must be positive, and should not
+     *                         exceed the capacity of the client's queue.
+     */
+    public FileTransportReplayer(final HoneyClient client, final int maxPendingEvents) {
+        Assert.notNull(client, "Validation failed: client must not be null");
+        Assert.isTrue(maxPendingEvents > 0, "Validation failed: maxPendingEvents must be positive");
+
+        this.client = client;
+        this.maxPendingEvents = maxPendingEvents;
+        client.addResponseObserver(new PendingEventsObserver());
+    }
+
+    /**
+     * Replays a segment file, or all completed segment files in a directory, oldest first, and marks each one as
+     * replayed once it has been sent.
+     *
+     * @param path of a segment file or a directory of them.
+     * @return the number of events sent.
+     * @throws IOException if a file cannot be read or renamed, or the thread was interrupted while waiting for
+     *                     responses.
+     */
+    public long replay(final Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return replaySegment(path);
+        }
+        final List<Path> files = new ArrayList<>();
+        final String pattern = "*" + NdjsonSegmentWriter.SEGMENT_SUFFIX;
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(path, pattern)) {
+            for (final Path segment : segments) {
+                files.add(segment);
+            }
+        }
+        Collections.sort(files);
+        long events = 0;
+        for (final Path file : files) {
+            events += replaySegment(file);
+        }
+        return events;
+    }
+
+    private long replaySegment(final Path file) throws IOException {
+        final long events = replayFile(file);
+        final String path = file.toString();
+        if (path.endsWith(NdjsonSegmentWriter.SEGMENT_SUFFIX)) {
+            awaitPendingEventsAtMost(0);
+            final String replayed = path.substring(0, path.length() - NdjsonSegmentWriter.SEGMENT_SUFFIX.length())
+                + REPLAYED_SUFFIX;
+            Files.move(file, file.getFileSystem().getPath(replayed), StandardCopyOption.ATOMIC_MOVE);
+        }
+        return events;
+    }
+
+    private long replayFile(final Path file) throws IOException {
+        long events = 0;
+        int lineNumber = 0;
+        // not try-with-resources, as SpotBugs reports its null check as redundant on JDK 11+ (spotbugs#756)
+        final BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (line.charAt(0) == '\0') {
+                    // trailing zero bytes of a segment that could not be truncated
+                    break;
+                }
+                final Event event;
+                try {
+                    event = toEvent(JSON.deserialize(line.getBytes(StandardCharsets.UTF_8)));
+                } catch (final IOException | RuntimeException e) {
+                    LOG.warn("Skipping invalid line {} of {}", lineNumber, file, e);
+                    continue;
+                }
+                awaitCapacity();
+                event.sendPresampled();
+                events++;
+            }
+        } finally {
+            reader.close();
+        }
+        LOG.debug("Replayed {} events from {}", events, file);
+        return events;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Event toEvent(final Map<String, Object> line) {
+        final Map<String, ?> data = (Map<String, ?>) line.get("data");
+        Assert.notNull(data, "Validation failed: data must not be null");
+        final Event event = client.createEvent().addFields(data);
+        event.setTimestamp(Instant.parse((String) line.get("time")).toEpochMilli());
+        event.setSampleRate(((Number) line.get("samplerate")).intValue());
+        final String dataset = (String) line.get("dataset");
+        if (dataset != null) {
+            event.setDataset(dataset);
+        }
+        return event;
+    }
+
+    private void awaitCapacity() throws InterruptedIOException {
+        if (maxPendingEvents == 0) {
+            return;
+        }
+        synchronized (lock) {
+            awaitPendingEventsAtMost(maxPendingEvents - 1);
+            pendingEvents++;
+        }
+    }
+
+    private void awaitPendingEventsAtMost(final long limit) throws InterruptedIOException {
+        if (maxPendingEvents == 0) {
+            return;
+        }
+        synchronized (lock) {
+            try {
+                while (pendingEvents > limit) {
+                    lock.wait();
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for responses");
+            }
+        }
+    }
+
+    private void onResponse() {
+        synchronized (lock) {
+            pendingEvents--;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Replays the given segment files and directories through a {@link HoneyClient} configured from environment
+     * variables.
+     *
+     * @param args paths of segment files or directories.
+     * @throws IOException if a file cannot be read.
+     */
+    public static void main(final String[] args) throws IOException {
+        final String writeKey = System.getenv("HONEYCOMB_API_KEY");
+        if (args.length == 0 || writeKey == null) {
+            System.err.println("Usage: HONEYCOMB_API_KEY=<key> [HONEYCOMB_API_HOST=<url>] [HONEYCOMB_DATASET=<name>] "
+                + "java " + FileTransportReplayer.class.getName() + " <file or directory>...");
+            System.exit(2);
+        }
+        final Options.Builder options = LibHoney.options().setWriteKey(writeKey);
+        final String apiHost = System.getenv("HONEYCOMB_API_HOST");
+        if (apiHost != null) {
+            options.setApiHost(URI.create(apiHost));
+        }
+        final String dataset = System.getenv("HONEYCOMB_DATASET");
+        if (dataset != null) {
+            options.setDataset(dataset);
+        }
+        final HoneyClient client = LibHoney.create(options.build());
+        long events = 0;
+        try {
+            final FileTransportReplayer replayer = new FileTransportReplayer(client, DEFAULT_MAX_PENDING_EVENTS);
+            for (final String arg : args) {
+                events += replayer.replay(Paths.get(arg));
+            }
+        } finally {
+            client.close();
+        }
+        System.out.println("Replayed " + events + " events");
+    }
+
+    private final class PendingEventsObserver implements ResponseObserver {
+        @Override
+        public void onServerAccepted(final ServerAccepted serverAccepted) {
+            onResponse();
+        }
+
+        @Override
+        public void onServerRejected(final ServerRejected serverRejected) {
+            onResponse();
+        }
+
+        @Override
+        public void onClientRejected(final ClientRejected clientRejected) {
+            onResponse();
+        }
+
+        @Override
+        public void onUnknown(final Unknown unknown) {
+            onResponse();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.honeycomb.beeline.transport;
+
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A reusable buffer that holds a gzip member compressed from the bytes written to it. Unlike a
+ * {@link java.util.zip.GZIPOutputStream}, it keeps its {@link Deflater} and its byte array between uses, so pooled
+ * instances compress batch after batch without allocating.
+ * <p>
+ * Use {@link #start()}, then any number of {@link #write(byte[], int, int)} calls, and finally {@link #finish()}; the
+ * compressed bytes are then available from {@link #array()}. Once the buffer is no longer needed, {@link #end()} must
+ * be called to release the native resources of the {@link Deflater}.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are not thread-safe and must be confined to one thread at a time.
+ */
+final class GzipBuffer {
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+    /** Minimum space to offer the deflater on each call. */
+    private static final int DEFLATE_CHUNK = 4096;
+    private static final int TRAILER_LENGTH = 8;
+    /** Magic number, deflate compression, no flags, no modification time, no extra flags, unknown OS. */
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final CRC32 crc = new CRC32();
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int count;
+
+    /**
+     * Discards the previous content and starts a new gzip member.
+     */
+    void start() {
+        deflater.reset();
+        crc.reset();
+        System.arraycopy(HEADER, 0, buffer, 0, HEADER.length);
+        count = HEADER.length;
+    }
+
+    /**
+     * Compresses the given bytes into the buffer. The array may be reused as soon as this method returns.
+     */
+    void write(final byte[] bytes, final int offset, final int length) {
+        crc.update(bytes, offset, length);
+        deflater.setInput(bytes, offset, length);
+        while (!deflater.needsInput()) {
+            deflate();
+        }
+    }
+
+    /**
+     * Completes the gzip member, after which no more bytes may be written until the next {@link #start()}.
+     */
+    void finish() {
+        deflater.finish();
+        while (!deflater.finished()) {
+            deflate();
+        }
+        ensureCapacity(TRAILER_LENGTH);
+        writeIntLittleEndian(crc.getValue());
+        writeIntLittleEndian(deflater.getBytesRead());
+    }
+
+    /**
+     * @return the array holding the compressed bytes - only the first {@link #size()} bytes are valid.
+     */
+    byte[] array() {
+        return buffer;
+    }
+
+    /**
+     * @return the number of compressed bytes.
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * @return the length of the underlying array, i.e. the memory retained by this buffer.
+     */
+    int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Releases the {@link Deflater}; the buffer cannot be used afterwards.
+     */
+    void end() {
+        deflater.end();
+    }
+
+    private void deflate() {
+        ensureCapacity(DEFLATE_CHUNK);
+        count += deflater.deflate(buffer, count, buffer.length - count);
+    }
+
+    private void writeIntLittleEndian(final long value) {
+        buffer[count++] = (byte) value;
+        buffer[count++] = (byte) (value >> 8);
+        buffer[count++] = (byte) (value >> 16);
+        buffer[count++] = (byte) (value >> 24);
+    }
+
+    private void ensureCapacity(final int additional) {
+        if (count + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(count + additional, buffer.length * 2));
+        }
+    }
+}
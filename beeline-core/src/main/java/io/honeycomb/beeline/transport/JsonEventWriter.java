@@ -0,0 +1,392 @@
+package io.honeycomb.beeline.transport;
+
+import io.honeycomb.libhoney.shaded.com.fasterxml.jackson.core.JsonProcessingException;
+import io.honeycomb.libhoney.utils.Assert;
+import io.honeycomb.libhoney.utils.JsonUtils;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serializes events into the JSON representation of Honeycomb's batch API, encoding UTF-8 straight into a reusable
+ * byte array instead of going through an intermediate tree or String.
+ * <p>
+ * Field keys are encoded once and cached, up to {@code maxCachedKeys} of them. Static global fields, whose key and
+ * value are the same for every event, are encoded once up front, and their bytes are copied into every event whose
+ * field still holds that value.
+ * <p>
+ * Values are written as JSON strings, numbers, booleans, objects (maps) and arrays (collections and arrays). Instants,
+ * offset and zoned date-times are written as epoch milliseconds. Anything else is written by libhoney's Jackson
+ * {@code ObjectMapper}, so that events look the same as with libhoney's own transport - e.g. dates and calendars as
+ * epoch milliseconds too - or as the string of its {@code toString()} if the {@code ObjectMapper} fails to write it. Non-finite floating point numbers are written as null, as is anything nested deeper
+ * than {@value #MAX_DEPTH} levels.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are not thread-safe and must be confined to one thread at a time.
+ */
+final class JsonEventWriter {
+    static final int MAX_DEPTH = 32;
+    private static final int INITIAL_CAPACITY = 4096;
+    /** Worst case number of bytes a char is encoded as: a {@code \u0000} escape. */
+    private static final int MAX_BYTES_PER_CHAR = 6;
+    private static final int MAX_LONG_LENGTH = 20;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TIME_PREFIX = "{\"time\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SAMPLE_RATE_PREFIX = "\",\"samplerate\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DATASET_PREFIX = ",\"dataset\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DATA_PREFIX = ",\"data\":{".getBytes(StandardCharsets.US_ASCII);
+
+    private final Map<String, Object> staticFields;
+    private final Map<String, byte[]> encodedStaticFields;
+    private final Map<String, byte[]> encodedKeys = new HashMap<>();
+    private final int maxCachedKeys;
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int count;
+
+    /**
+     * @param staticFields  fields added to every event with the same value - must not be null.
+     * @param maxCachedKeys the maximum number of encoded field keys to cache - must not be negative.
+     */
+    JsonEventWriter(final Map<String, ?> staticFields, final int maxCachedKeys) {
+        Assert.notNull(staticFields, "Validation failed: staticFields must not be null");
+        Assert.isTrue(maxCachedKeys >= 0, "Validation failed: maxCachedKeys must not be negative");
+
+        this.maxCachedKeys = maxCachedKeys;
+        this.staticFields = Collections.unmodifiableMap(new HashMap<>(staticFields));
+        final Map<String, byte[]> encoded = new HashMap<>();
+        for (final Map.Entry<String, Object> field : this.staticFields.entrySet()) {
+            if (field.getKey() != null) {
+                reset();
+                writeString(field.getKey());
+                writeByte(':');
+                writeValue(field.getValue(), 0);
+                encoded.put(field.getKey(), Arrays.copyOf(buffer, count));
+            }
+        }
+        this.encodedStaticFields = encoded;
+        reset();
+    }
+
+    /**
+     * Discards everything written so far, keeping the underlying array for reuse.
+     */
+    void reset() {
+        count = 0;
+    }
+
+    /**
+     * @return the array holding the bytes written so far - only the first {@link #size()} bytes are valid, and only
+     * until the next write.
+     */
+    byte[] array() {
+        return buffer;
+    }
+
+    /**
+     * @return the number of bytes written so far.
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Appends an event of Honeycomb's batch API: an object with its time, sample rate and data. Null keys are skipped.
+     *
+     * @param timestampMillis of the event, in milliseconds since the epoch.
+     * @param sampleRate      of the event.
+     * @param fields          of the event - must not be null.
+     */
+    void writeEvent(final long timestampMillis, final int sampleRate, final Map<String, ?> fields) {
+        writeEvent(timestampMillis, sampleRate, null, fields);
+    }
+
+    /**
+     * Appends an event like {@link #writeEvent(long, int, Map)}, with its dataset between the sample rate and the data.
+     *
+     * @param timestampMillis of the event, in milliseconds since the epoch.
+     * @param sampleRate      of the event.
+     * @param dataset         of the event - omitted if null.
+     * @param fields          of the event - must not be null.
+     */
+    void writeEvent(final long timestampMillis, final int sampleRate, final String dataset, final Map<String, ?> fields) {
+        writeBytes(TIME_PREFIX);
+        writeAscii(Instant.ofEpochMilli(timestampMillis).toString());
+        writeBytes(SAMPLE_RATE_PREFIX);
+        writeLong(sampleRate);
+        if (dataset != null) {
+            writeBytes(DATASET_PREFIX);
+            writeString(dataset);
+        }
+        writeBytes(DATA_PREFIX);
+        boolean first = true;
+        for (final Map.Entry<String, ?> field : fields.entrySet()) {
+            final String key = field.getKey();
+            if (key == null) {
+                continue;
+            }
+            if (!first) {
+                writeByte(',');
+            }
+            first = false;
+            final byte[] staticField = encodedStaticFields.get(key);
+            if (staticField != null && isStaticValue(key, field.getValue())) {
+                writeBytes(staticField);
+            } else {
+                writeKey(key);
+                writeValue(field.getValue(), 0);
+            }
+        }
+        writeByte('}');
+        writeByte('}');
+    }
+
+    private boolean isStaticValue(final String key, final Object value) {
+        final Object staticValue = staticFields.get(key);
+        return staticValue == value || Objects.equals(staticValue, value);
+    }
+
+    private void writeKey(final String key) {
+        final byte[] encoded = encodedKeys.get(key);
+        if (encoded != null) {
+            writeBytes(encoded);
+            return;
+        }
+        final int start = count;
+        writeString(key);
+        writeByte(':');
+        if (encodedKeys.size() < maxCachedKeys) {
+            encodedKeys.put(key, Arrays.copyOfRange(buffer, start, count));
+        }
+    }
+
+    private void writeValue(final Object value, final int depth) {
+        if (value == null || depth > MAX_DEPTH) {
+            writeBytes(NULL);
+        } else if (value instanceof CharSequence) {
+            writeString((CharSequence) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+            || value instanceof AtomicInteger || value instanceof AtomicLong) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            final double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                writeBytes(NULL);
+            } else {
+                writeAscii(value.toString());
+            }
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            writeAscii(value.toString());
+        } else if (value instanceof Boolean) {
+            writeBytes((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Map) {
+            writeMap((Map<?, ?>) value, depth);
+        } else if (value instanceof Iterable) {
+            writeIterable((Iterable<?>) value, depth);
+        } else if (value.getClass().isArray()) {
+            writeArray(value, depth);
+        } else if (value instanceof Enum) {
+            writeString(((Enum<?>) value).name());
+        } else if (value instanceof Instant) {
+            writeLong(((Instant) value).toEpochMilli());
+        } else if (value instanceof OffsetDateTime) {
+            writeLong(((OffsetDateTime) value).toInstant().toEpochMilli());
+        } else if (value instanceof ZonedDateTime) {
+            writeLong(((ZonedDateTime) value).toInstant().toEpochMilli());
+        } else {
+            writeWithObjectMapper(value);
+        }
+    }
+
+    private void writeWithObjectMapper(final Object value) {
+        final byte[] json;
+        try {
+            json = JsonUtils.OBJECT_MAPPER.writeValueAsBytes(value);
+        } catch (final JsonProcessingException | RuntimeException e) {
+            writeString(String.valueOf(value));
+            return;
+        }
+        writeBytes(json);
+    }
+
+    private void writeMap(final Map<?, ?> map, final int depth) {
+        writeByte('{');
+        boolean first = true;
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!first) {
+                writeByte(',');
+            }
+            first = false;
+            writeString(String.valueOf(entry.getKey()));
+            writeByte(':');
+            writeValue(entry.getValue(), depth + 1);
+        }
+        writeByte('}');
+    }
+
+    private void writeIterable(final Iterable<?> iterable, final int depth) {
+        writeByte('[');
+        boolean first = true;
+        for (final Object element : iterable) {
+            if (!first) {
+                writeByte(',');
+            }
+            first = false;
+            writeValue(element, depth + 1);
+        }
+        writeByte(']');
+    }
+
+    private void writeArray(final Object array, final int depth) {
+        writeByte('[');
+        final int length = Array.getLength(array);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                writeByte(',');
+            }
+            writeValue(Array.get(array, i), depth + 1);
+        }
+        writeByte(']');
+    }
+
+    private void writeString(final CharSequence value) {
+        final int length = value.length();
+        ensureCapacity(2 + (long) length * MAX_BYTES_PER_CHAR);
+        final byte[] buf = buffer;
+        int pos = count;
+        buf[pos++] = '"';
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c < 0x20 || c == '"' || c == '\\') {
+                    pos = writeEscaped(buf, pos, c);
+                } else {
+                    buf[pos++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xc0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buf[pos++] = (byte) (0xf0 | (codePoint >> 18));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate - replaced the same way as by String.getBytes(UTF_8)
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xe0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        buf[pos++] = '"';
+        count = pos;
+    }
+
+    private static int writeEscaped(final byte[] buf, final int start, final char c) {
+        int pos = start;
+        buf[pos++] = '\\';
+        switch (c) {
+            case '"':
+                buf[pos++] = '"';
+                break;
+            case '\\':
+                buf[pos++] = '\\';
+                break;
+            case '\n':
+                buf[pos++] = 'n';
+                break;
+            case '\r':
+                buf[pos++] = 'r';
+                break;
+            case '\t':
+                buf[pos++] = 't';
+                break;
+            case '\b':
+                buf[pos++] = 'b';
+                break;
+            case '\f':
+                buf[pos++] = 'f';
+                break;
+            default:
+                buf[pos++] = 'u';
+                buf[pos++] = '0';
+                buf[pos++] = '0';
+                buf[pos++] = HEX_DIGITS[c >> 4];
+                buf[pos++] = HEX_DIGITS[c & 0xf];
+        }
+        return pos;
+    }
+
+    private void writeLong(final long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        ensureCapacity(MAX_LONG_LENGTH);
+        long remaining = value;
+        if (remaining < 0) {
+            buffer[count++] = '-';
+            remaining = -remaining;
+        }
+        final int start = count;
+        do {
+            buffer[count++] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        for (int i = start, j = count - 1; i < j; i++, j--) {
+            final byte digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+    }
+
+    /**
+     * Only for values known to consist of ASCII characters that need no escaping.
+     */
+    private void writeAscii(final String value) {
+        final int length = value.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            buffer[count++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeBytes(final byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+    }
+
+    private void writeByte(final char c) {
+        ensureCapacity(1);
+        buffer[count++] = (byte) c;
+    }
+
+    private void ensureCapacity(final long additional) {
+        final long required = count + additional;
+        if (required <= buffer.length) {
+            return;
+        }
+        if (required > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Event too large to serialize: " + required + " bytes");
+        }
+        buffer = Arrays.copyOf(buffer, (int) Math.max(required, Math.min((long) buffer.length * 2, Integer.MAX_VALUE - 8)));
+    }
+}
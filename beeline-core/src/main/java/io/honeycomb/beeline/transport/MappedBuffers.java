@@ -0,0 +1,72 @@
+package io.honeycomb.beeline.transport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Unmaps memory-mapped files eagerly, rather than when their buffer happens to be garbage collected. Until then, the
+ * pages of a deleted file keep taking up disk space, and on Windows the file cannot be deleted at all.
+ * <p>
+ * The JDK has no public API for this, so it uses {@code sun.misc.Unsafe#invokeCleaner} on Java 9 and later, and the
+ * buffer's {@code sun.misc.Cleaner} on Java 8. On JVMs that have neither, buffers are left to the garbage collector.
+ *
+ * <p>Thread-safety</p>
+ * This class is thread-safe, but a buffer must not be accessed - by any thread - once it has been unmapped.
+ */
+final class MappedBuffers {
+    private static final Logger LOG = LoggerFactory.getLogger(MappedBuffers.class);
+    /** Null if buffers cannot be unmapped on this JVM. */
+    private static final Unmapper UNMAPPER = findUnmapper();
+
+    private MappedBuffers() {
+        // utils class
+    }
+
+    /**
+     * Unmaps the buffer, if the JVM allows it.
+     *
+     * @param buffer to unmap - must not be accessed afterwards.
+     */
+    static void unmap(final MappedByteBuffer buffer) {
+        if (UNMAPPER == null) {
+            return;
+        }
+        try {
+            UNMAPPER.unmap(buffer);
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            LOG.debug("Failed to unmap buffer, leaving it to the garbage collector", e);
+        }
+    }
+
+    private static Unmapper findUnmapper() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            try {
+                final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                final Object unsafe = theUnsafe.get(null);
+                return buffer -> invokeCleaner.invoke(unsafe, buffer);
+            } catch (final NoSuchMethodException e) {
+                // Java 8
+                final Method cleaner = Class.forName("java.nio.DirectByteBuffer").getMethod("cleaner");
+                cleaner.setAccessible(true);
+                final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+                return buffer -> clean.invoke(cleaner.invoke(buffer));
+            }
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            LOG.debug("Mapped buffers cannot be unmapped on this JVM, leaving them to the garbage collector", e);
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Unmapper {
+        void unmap(MappedByteBuffer buffer) throws ReflectiveOperationException;
+    }
+}
@@ -0,0 +1,220 @@
+package io.honeycomb.beeline.transport;
+
+import io.honeycomb.libhoney.utils.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends lines to rotating, memory-mapped NDJSON segment files.
+ * <p>
+ * A segment is created when the first line is appended to it, named after its creation time - so that segments sort
+ * by name in the order they were written - and with an {@value #ACTIVE_SUFFIX} suffix while it is being written. The
+ * segment is mapped at its full size up front, and rolled over when the next line does not fit, or once it is
+ * {@code rolloverMillis} old. Rolling over forces the segment to disk, truncates it to the lines written and renames
+ * it to end with {@value #SEGMENT_SUFFIX}: only segments with that suffix are complete.
+ * <p>
+ * If the platform does not allow truncating a file that is still mapped, the completed segment keeps its trailing zero
+ * bytes; {@link FileTransportReplayer} stops reading a segment at the first line that starts with one. Active segments
+ * left behind by a process that died are completed when the next writer is opened on the directory, dropping any line
+ * that was only partially written.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are not thread-safe and must be confined to one thread at a time.
+ */
+final class NdjsonSegmentWriter implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(NdjsonSegmentWriter.class);
+    static final String SEGMENT_PREFIX = "beeline-";
+    static final String SEGMENT_SUFFIX = ".ndjson";
+    static final String ACTIVE_SUFFIX = SEGMENT_SUFFIX + ".active";
+    private static final byte NEWLINE = '\n';
+    private static final int RECOVERY_CHUNK_SIZE = 8192;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long rolloverMillis;
+    private Segment segment;
+    private int sequence;
+
+    /**
+     * Creates the directory if needed, and completes the active segments found in it.
+     *
+     * @param directory      to write the segments to - must not be used by another writer at the same time.
+     * @param segmentBytes   the maximum size of a segment - must be positive.
+     * @param rolloverMillis the maximum age of a segment - must be positive.
+     * @throws IOException if the directory cannot be created or read.
+     */
+    NdjsonSegmentWriter(final Path directory, final int segmentBytes, final long rolloverMillis) throws IOException {
+        Assert.notNull(directory, "Validation failed: directory must not be null");
+        Assert.isTrue(segmentBytes > 0, "Validation failed: segmentBytes must be positive");
+        Assert.isTrue(rolloverMillis > 0, "Validation failed: rolloverMillis must be positive");
+
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.rolloverMillis = rolloverMillis;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + ACTIVE_SUFFIX)) {
+            for (final Path path : files) {
+                recover(path);
+            }
+        }
+    }
+
+    /**
+     * Appends the line, followed by a newline, rolling over to a new segment first if it does not fit.
+     *
+     * @param line   holding the line's UTF-8 bytes, without a newline.
+     * @param length of the line.
+     * @return false if the line was not appended, because it is larger than a segment.
+     * @throws IOException if a new segment cannot be created.
+     */
+    boolean append(final byte[] line, final int length) throws IOException {
+        if (length + 1 > segmentBytes) {
+            return false;
+        }
+        if (segment != null && segment.buffer.remaining() < length + 1) {
+            rollOver();
+        }
+        if (segment == null) {
+            segment = createSegment();
+        }
+        segment.buffer.put(line, 0, length).put(NEWLINE);
+        return true;
+    }
+
+    /**
+     * @param nowMillis the current time.
+     * @return the number of milliseconds until the active segment is due to be rolled over - or {@code rolloverMillis}
+     * if there is no active segment.
+     */
+    long millisUntilRollover(final long nowMillis) {
+        return segment == null ? rolloverMillis : Math.max(0L, segment.createdMillis + rolloverMillis - nowMillis);
+    }
+
+    /**
+     * Completes the active segment if it is {@code rolloverMillis} old.
+     *
+     * @param nowMillis the current time.
+     */
+    void rollOverIfDue(final long nowMillis) {
+        if (segment != null && millisUntilRollover(nowMillis) == 0) {
+            rollOver();
+        }
+    }
+
+    /**
+     * Completes the active segment, if there is one.
+     */
+    void rollOver() {
+        if (segment == null) {
+            return;
+        }
+        final Segment completed = segment;
+        segment = null;
+        completed.buffer.force();
+        try {
+            try {
+                completed.channel.truncate(completed.buffer.position());
+            } catch (final IOException e) {
+                LOG.debug("Could not truncate mapped segment {}, leaving its trailing zero bytes", completed.path, e);
+            }
+            completed.channel.close();
+            Files.move(completed.path, completedPath(completed.path), StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            LOG.warn("Failed to complete segment {}", completed.path, e);
+        }
+    }
+
+    /**
+     * Completes the active segment.
+     */
+    @Override
+    public void close() {
+        rollOver();
+    }
+
+    private Segment createSegment() throws IOException {
+        final long createdMillis = System.currentTimeMillis();
+        while (true) {
+            final Path path = directory.resolve(
+                String.format("%s%013d-%06d%s", SEGMENT_PREFIX, createdMillis, sequence++, ACTIVE_SUFFIX));
+            final FileChannel channel;
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                                           StandardOpenOption.WRITE);
+            } catch (final FileAlreadyExistsException e) {
+                continue;
+            }
+            try {
+                return new Segment(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes),
+                                   createdMillis);
+            } catch (final IOException e) {
+                channel.close();
+                Files.deleteIfExists(path);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Truncates the segment after its last complete line - before the first zero byte - and completes it.
+     */
+    private static void recover(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final ByteBuffer chunk = ByteBuffer.allocate(RECOVERY_CHUNK_SIZE);
+            long position = 0;
+            long endOfLines = 0;
+            scan:
+            while (channel.read(chunk, position) > 0) {
+                chunk.flip();
+                while (chunk.hasRemaining()) {
+                    final byte b = chunk.get();
+                    if (b == 0) {
+                        break scan;
+                    }
+                    position++;
+                    if (b == NEWLINE) {
+                        endOfLines = position;
+                    }
+                }
+                chunk.clear();
+            }
+            channel.truncate(endOfLines);
+        }
+        LOG.info("Completing segment {} left behind by a previous process", path);
+        Files.move(path, completedPath(path), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Path completedPath(final Path activePath) {
+        // from the whole path rather than the file name, which Path allows to be null
+        final String path = activePath.toString();
+        final String completed = path.substring(0, path.length() - ACTIVE_SUFFIX.length()) + SEGMENT_SUFFIX;
+        return activePath.getFileSystem().getPath(completed);
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final long createdMillis;
+
+        private Segment(final Path path, final FileChannel channel, final MappedByteBuffer buffer,
+                        final long createdMillis) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.createdMillis = createdMillis;
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package io.honeycomb.beeline.transport;
+
+import io.honeycomb.libhoney.utils.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * A bounded, on-disk FIFO of serialized batches, kept in memory-mapped segment files of a fixed size.
+ * <p>
+ * Each segment starts with a header holding a magic number, a format version, the segment's sequence number (which
+ * orders segments across restarts) and the position of the first record that has not been read yet. Records follow
+ * the header, each with its length and a CRC32 of its content. A record is written before its length, and a new
+ * segment's header is written before its magic number, so that a process that dies half-way through leaves nothing
+ * that looks valid: on start, segments without a valid header are deleted, and a segment's records are read up to the
+ * first one that is incomplete or fails its checksum. Records left unread by a previous process are read first.
+ * <p>
+ * Reading a record is recorded in the header straight away, so a batch is never read twice, unless the process dies
+ * between reading it and updating the header. Segments are unmapped and deleted once all their records have been
+ * read, so that they stop taking up disk space straight away (see {@link MappedBuffers}).
+ * <p>
+ * Data written to a mapped file survives the process, but not necessarily the operating system, as the segments are
+ * not forced to disk on every write.
+ * <p>
+ * Records hold the write key of their batch in plain text, as it is needed to send the batch after a restart. Where
+ * the file system supports POSIX permissions, segment files are therefore readable and writable by their owner only
+ * (0600). Elsewhere, e.g. on Windows, they inherit the permissions of the directory, which should be restricted
+ * accordingly.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe and can be shared.
+ */
+final class SpillBuffer implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(SpillBuffer.class);
+    private static final String FILE_SUFFIX = ".spill";
+    /** "BSP1" - Beeline spill. */
+    private static final int MAGIC = 0x42535031;
+    private static final int VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int SEQUENCE_OFFSET = 8;
+    private static final int READ_POSITION_OFFSET = 16;
+    static final int HEADER_SIZE = 32;
+    /** Length and checksum of the record's body. */
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_STRING_LENGTH = 0xffff;
+    private static final String POSIX_ATTRIBUTE_VIEW = "posix";
+    private static final Set<PosixFilePermission> OWNER_READ_WRITE =
+        EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE);
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+    private long nextSequence;
+    private int pendingEvents;
+
+    /**
+     * Opens the buffer, recovering any batches a previous process left in the directory.
+     *
+     * @param directory    to keep the segment files in - created if it doesn't exist.
+     * @param maxBytes     the disk budget, i.e. the most that all segment files may take up together - must be at least
+     *                     {@code segmentBytes}.
+     * @param segmentBytes the size of each segment file, which is also the limit for the size of a single batch.
+     * @throws IOException if the directory or one of the files in it cannot be accessed.
+     */
+    SpillBuffer(final Path directory, final long maxBytes, final int segmentBytes) throws IOException {
+        Assert.notNull(directory, "Validation failed: directory must not be null");
+        Assert.isTrue(segmentBytes > HEADER_SIZE + RECORD_HEADER_SIZE,
+                      "Validation failed: segmentBytes must be larger than " + (HEADER_SIZE + RECORD_HEADER_SIZE));
+        Assert.isTrue(maxBytes >= segmentBytes, "Validation failed: maxBytes must be at least segmentBytes");
+
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = (int) Math.min(Integer.MAX_VALUE, maxBytes / segmentBytes);
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    /**
+     * Appends a batch, unless that would exceed the disk budget.
+     *
+     * @return false if the batch was discarded, because it doesn't fit within the budget or cannot be written.
+     */
+    synchronized boolean append(final String url,
+                                final String writeKey,
+                                final int eventCount,
+                                final byte[] payload,
+                                final int length) {
+        final byte[] urlBytes = url.getBytes(StandardCharsets.UTF_8);
+        final byte[] writeKeyBytes = writeKey == null ? new byte[0] : writeKey.getBytes(StandardCharsets.UTF_8);
+        if (urlBytes.length > MAX_STRING_LENGTH || writeKeyBytes.length > MAX_STRING_LENGTH) {
+            return false;
+        }
+        final int bodyLength = 4 + 2 + urlBytes.length + 2 + writeKeyBytes.length + length;
+        final int recordLength = RECORD_HEADER_SIZE + bodyLength;
+        Segment segment = segments.peekLast();
+        if (segment == null || segment.writePosition + recordLength > segment.capacity()) {
+            if (recordLength > segmentBytes - HEADER_SIZE || segments.size() >= maxSegments) {
+                return false;
+            }
+            try {
+                segment = createSegment();
+            } catch (final IOException e) {
+                LOG.warn("Failed to create spill segment in {}", directory, e);
+                return false;
+            }
+            segments.addLast(segment);
+        }
+
+        final int position = segment.writePosition;
+        final ByteBuffer body = segment.buffer.duplicate();
+        body.position(position + RECORD_HEADER_SIZE);
+        body.putInt(eventCount)
+            .putShort((short) urlBytes.length).put(urlBytes)
+            .putShort((short) writeKeyBytes.length).put(writeKeyBytes)
+            .put(payload, 0, length);
+        body.flip().position(position + RECORD_HEADER_SIZE);
+        crc.reset();
+        crc.update(body);
+        segment.buffer.putInt(position + 4, (int) crc.getValue());
+        // the length commits the record
+        segment.buffer.putInt(position, bodyLength);
+        segment.writePosition = position + recordLength;
+        pendingEvents += eventCount;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Removes the oldest batch.
+     *
+     * @return the batch, or null if there is none.
+     */
+    synchronized SpilledBatch poll() {
+        final Segment segment = segments.peekFirst();
+        if (segment == null) {
+            return null;
+        }
+        final int position = segment.readPosition;
+        final int bodyLength = segment.buffer.getInt(position);
+        final ByteBuffer body = segment.buffer.duplicate();
+        body.limit(position + RECORD_HEADER_SIZE + bodyLength).position(position + RECORD_HEADER_SIZE);
+        final int eventCount = body.getInt();
+        final String url = readString(body);
+        final String writeKey = readString(body);
+        final byte[] payload = new byte[body.remaining()];
+        body.get(payload);
+
+        segment.readPosition = body.limit();
+        segment.buffer.putInt(READ_POSITION_OFFSET, segment.readPosition);
+        if (segment.readPosition >= segment.writePosition) {
+            segments.removeFirst();
+            delete(segment);
+        }
+        pendingEvents -= eventCount;
+        return new SpilledBatch(url, writeKey, eventCount, payload);
+    }
+
+    /**
+     * @return true if there are batches to read.
+     */
+    synchronized boolean hasPending() {
+        return !segments.isEmpty();
+    }
+
+    /**
+     * Waits until there are batches to read, or until the timeout elapses.
+     *
+     * @return true if there are batches to read.
+     */
+    synchronized boolean awaitPending(final long timeoutMillis) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        long remaining = timeoutMillis;
+        while (segments.isEmpty() && remaining > 0) {
+            wait(remaining);
+            remaining = (deadline - System.nanoTime()) / 1_000_000L;
+        }
+        return !segments.isEmpty();
+    }
+
+    /**
+     * @return the number of events in the batches that have not been read yet.
+     */
+    synchronized int getPendingEvents() {
+        return pendingEvents;
+    }
+
+    /**
+     * Flushes the segments to disk and unmaps them. Unread batches are kept, to be read when the buffer is opened again.
+     */
+    @Override
+    public synchronized void close() {
+        for (final Segment segment : segments) {
+            segment.buffer.force();
+            MappedBuffers.unmap(segment.buffer);
+        }
+        segments.clear();
+    }
+
+    private Segment createSegment() throws IOException {
+        final long sequence = nextSequence++;
+        final Path path = directory.resolve(String.format("%020d%s", sequence, FILE_SUFFIX));
+        final MappedByteBuffer buffer = map(path, segmentBytes);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putLong(SEQUENCE_OFFSET, sequence);
+        buffer.putInt(READ_POSITION_OFFSET, HEADER_SIZE);
+        // the magic number commits the header
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        return new Segment(path, sequence, buffer, HEADER_SIZE, HEADER_SIZE);
+    }
+
+    private void recover() throws IOException {
+        final List<Segment> recovered = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (final Path path : files) {
+                final Segment segment = recoverSegment(path);
+                if (segment != null) {
+                    recovered.add(segment);
+                }
+            }
+        }
+        recovered.sort(Comparator.comparingLong(segment -> segment.sequence));
+        int recoveredEvents = 0;
+        for (final Segment segment : recovered) {
+            nextSequence = Math.max(nextSequence, segment.sequence + 1);
+            if (segment.readPosition >= segment.writePosition) {
+                delete(segment);
+            } else {
+                segments.addLast(segment);
+                recoveredEvents += unreadEvents(segment);
+            }
+        }
+        synchronized (this) {
+            pendingEvents = recoveredEvents;
+        }
+    }
+
+    /**
+     * Sums the event counts of the segment's unread records, which have been checked by recovery already.
+     */
+    private static int unreadEvents(final Segment segment) {
+        int events = 0;
+        int position = segment.readPosition;
+        while (position < segment.writePosition) {
+            events += segment.buffer.getInt(position + RECORD_HEADER_SIZE);
+            position += RECORD_HEADER_SIZE + segment.buffer.getInt(position);
+        }
+        return events;
+    }
+
+    private Segment recoverSegment(final Path path) throws IOException {
+        final long size = Files.size(path);
+        if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+            LOG.warn("Deleting spill segment {} of invalid size {}", path, size);
+            Files.deleteIfExists(path);
+            return null;
+        }
+        final MappedByteBuffer buffer = map(path, (int) size);
+        if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(VERSION_OFFSET) != VERSION) {
+            LOG.warn("Deleting spill segment {} without a valid header", path);
+            MappedBuffers.unmap(buffer);
+            Files.deleteIfExists(path);
+            return null;
+        }
+        final long sequence = buffer.getLong(SEQUENCE_OFFSET);
+        final int committedReadPosition = buffer.getInt(READ_POSITION_OFFSET);
+        int writePosition = HEADER_SIZE;
+        while (writePosition + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            final int bodyLength = buffer.getInt(writePosition);
+            if (bodyLength <= 0 || bodyLength > buffer.capacity() - writePosition - RECORD_HEADER_SIZE) {
+                break;
+            }
+            final ByteBuffer body = buffer.duplicate();
+            body.limit(writePosition + RECORD_HEADER_SIZE + bodyLength).position(writePosition + RECORD_HEADER_SIZE);
+            crc.reset();
+            crc.update(body);
+            if ((int) crc.getValue() != buffer.getInt(writePosition + 4)) {
+                LOG.warn("Ignoring the rest of spill segment {} from position {}, which is incomplete or corrupted",
+                         path, writePosition);
+                break;
+            }
+            writePosition += RECORD_HEADER_SIZE + bodyLength;
+        }
+        final int readPosition = Math.max(HEADER_SIZE, Math.min(committedReadPosition, writePosition));
+        return new Segment(path, sequence, buffer, readPosition, writePosition);
+    }
+
+    private static MappedByteBuffer map(final Path path, final int size) throws IOException {
+        restrictToOwner(path);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(size);
+            // the mapping stays valid after the channel is closed
+            return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * Creates the file, or restricts an existing one, so that only its owner can read and write it - if the file system
+     * supports POSIX permissions.
+     */
+    private static void restrictToOwner(final Path path) throws IOException {
+        if (!path.getFileSystem().supportedFileAttributeViews().contains(POSIX_ATTRIBUTE_VIEW)) {
+            return;
+        }
+        if (Files.exists(path)) {
+            Files.setPosixFilePermissions(path, OWNER_READ_WRITE);
+        } else {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(OWNER_READ_WRITE));
+        }
+    }
+
+    /**
+     * Unmaps the segment before deleting its file, so the segment's buffer must not be accessed afterwards.
+     */
+    private static void delete(final Segment segment) {
+        MappedBuffers.unmap(segment.buffer);
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (final IOException e) {
+            LOG.warn("Failed to delete spill segment {}", segment.path, e);
+        }
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getShort() & MAX_STRING_LENGTH];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final long sequence;
+        private final MappedByteBuffer buffer;
+        private int readPosition;
+        private int writePosition;
+
+        private Segment(final Path path,
+                        final long sequence,
+                        final MappedByteBuffer buffer,
+                        final int readPosition,
+                        final int writePosition) {
+            this.path = path;
+            this.sequence = sequence;
+            this.buffer = buffer;
+            this.readPosition = readPosition;
+            this.writePosition = writePosition;
+        }
+
+        private int capacity() {
+            return buffer.capacity();
+        }
+    }
+
+    /**
+     * A batch read back from the buffer.
+     */
+    static final class SpilledBatch {
+        private final String url;
+        private final String writeKey;
+        private final int eventCount;
+        private final byte[] payload;
+
+        private SpilledBatch(final String url, final String writeKey, final int eventCount, final byte[] payload) {
+            this.url = url;
+            this.writeKey = writeKey;
+            this.eventCount = eventCount;
+            this.payload = payload;
+        }
+
+        String getUrl() {
+            return url;
+        }
+
+        String getWriteKey() {
+            return writeKey;
+        }
+
+        int getEventCount() {
+            return eventCount;
+        }
+
+        byte[] getPayload() {
+            return payload;
+        }
+    }
+}
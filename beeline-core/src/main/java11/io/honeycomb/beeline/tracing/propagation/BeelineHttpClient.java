@@ -0,0 +1,302 @@
+package io.honeycomb.beeline.tracing.propagation;
+
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.beeline.tracing.Tracer;
+import io.honeycomb.libhoney.utils.Assert;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * A decorator of the JDK's {@link HttpClient} (Java 11+) that traces requests using {@link HttpClientPropagator}.
+ * <p>
+ * Each request creates a child span of the Tracer's active span, adds the standard client span fields and propagates
+ * the trace context via request headers. For {@link #send(HttpRequest, HttpResponse.BodyHandler)} the span covers the
+ * blocking call. For the {@code sendAsync} methods the span is detached from the calling thread as soon as the request
+ * has been handed to the delegate, and is closed when the returned {@link CompletableFuture} completes - so the calling
+ * thread is neither blocked nor left with the child span active.
+ * <p>
+ * This class is only available on Java 11 and above; it is shipped in the versioned section of the multi-release jar
+ * so that the rest of the Beeline remains compatible with Java 8.
+ *
+ * <p>Example</p>
+ * <pre>
+ * HttpClient client = new BeelineHttpClient(HttpClient.newHttpClient(), beeline.getTracer());
+ * client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+ *     .thenAccept(response{@code ->} ...);
+ * </pre>
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe, provided the delegate is.
+ */
+public class BeelineHttpClient extends HttpClient {
+    /** Span name used by {@link #BeelineHttpClient(HttpClient, Tracer, PropagationCodec)}. */
+    public static final String DEFAULT_SPAN_NAME = "http_client_request";
+
+    private final HttpClient delegate;
+    private final Tracer tracer;
+    private final HttpClientPropagator httpClientPropagator;
+
+    /**
+     * Create a client that propagates traces using {@link Propagation#defaultHeader()}.
+     *
+     * @param delegate to send requests with - must not be null.
+     * @param tracer   to create child spans with - must not be null.
+     */
+    public BeelineHttpClient(final HttpClient delegate, final Tracer tracer) {
+        this(delegate, tracer, Propagation.defaultHeader());
+    }
+
+    /**
+     * @param delegate         to send requests with - must not be null.
+     * @param tracer           to create child spans with - must not be null.
+     * @param propagationCodec to propagate the trace context with - must not be null.
+     */
+    public BeelineHttpClient(final HttpClient delegate,
+                             final Tracer tracer,
+                             final PropagationCodec<Map<String, String>> propagationCodec) {
+        this(delegate, tracer, createPropagator(tracer, propagationCodec));
+    }
+
+    /**
+     * @param delegate             to send requests with - must not be null.
+     * @param tracer               the tracer used by the {@code httpClientPropagator} - must not be null.
+     * @param httpClientPropagator to create, propagate and close the client spans with - must not be null.
+     */
+    public BeelineHttpClient(final HttpClient delegate,
+                             final Tracer tracer,
+                             final HttpClientPropagator httpClientPropagator) {
+        Assert.notNull(delegate, "Validation failed: delegate must not be null");
+        Assert.notNull(tracer, "Validation failed: tracer must not be null");
+        Assert.notNull(httpClientPropagator, "Validation failed: httpClientPropagator must not be null");
+        this.delegate = delegate;
+        this.tracer = tracer;
+        this.httpClientPropagator = httpClientPropagator;
+    }
+
+    private static HttpClientPropagator createPropagator(final Tracer tracer,
+                                                         final PropagationCodec<Map<String, String>> propagationCodec) {
+        Assert.notNull(propagationCodec, "Validation failed: propagationCodec must not be null");
+        return new HttpClientPropagator.Builder(tracer, r -> DEFAULT_SPAN_NAME)
+            .setPropagationCodec(propagationCodec)
+            .build();
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(final HttpRequest request,
+                                    final HttpResponse.BodyHandler<T> responseBodyHandler)
+        throws IOException, InterruptedException {
+        final HttpClientRequestAdapter requestAdapter = new HttpClientRequestAdapter(request);
+        final Span childSpan = httpClientPropagator.startPropagation(requestAdapter);
+        HttpClientResponseAdapter responseAdapter = null;
+        Throwable error = null;
+        try {
+            final HttpResponse<T> response = delegate.send(requestAdapter.build(), responseBodyHandler);
+            responseAdapter = new HttpClientResponseAdapter(response);
+            return response;
+        } catch (final IOException | InterruptedException | RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            httpClientPropagator.endPropagation(responseAdapter, error, childSpan);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(final HttpRequest request,
+                                                            final HttpResponse.BodyHandler<T> responseBodyHandler) {
+        return sendAsync(request, responseBodyHandler, null);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(final HttpRequest request,
+                                                            final HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            final HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        final HttpClientRequestAdapter requestAdapter = new HttpClientRequestAdapter(request);
+        // the response completes on another thread, so restore the caller's active span right away
+        final Span childSpan = tracer.popSpan(httpClientPropagator.startPropagation(requestAdapter));
+        final CompletableFuture<HttpResponse<T>> future;
+        try {
+            future = delegate.sendAsync(requestAdapter.build(), responseBodyHandler, pushPromiseHandler);
+        } catch (final RuntimeException e) {
+            httpClientPropagator.endPropagation(null, e, childSpan);
+            throw e;
+        }
+        return future.whenComplete((response, error) -> httpClientPropagator.endPropagation(
+            response == null ? null : new HttpClientResponseAdapter(response), unwrap(error), childSpan));
+    }
+
+    private static Throwable unwrap(final Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() {
+        return delegate.cookieHandler();
+    }
+
+    @Override
+    public Optional<Duration> connectTimeout() {
+        return delegate.connectTimeout();
+    }
+
+    @Override
+    public Redirect followRedirects() {
+        return delegate.followRedirects();
+    }
+
+    @Override
+    public Optional<ProxySelector> proxy() {
+        return delegate.proxy();
+    }
+
+    @Override
+    public SSLContext sslContext() {
+        return delegate.sslContext();
+    }
+
+    @Override
+    public SSLParameters sslParameters() {
+        return delegate.sslParameters();
+    }
+
+    @Override
+    public Optional<Authenticator> authenticator() {
+        return delegate.authenticator();
+    }
+
+    @Override
+    public Version version() {
+        return delegate.version();
+    }
+
+    @Override
+    public Optional<Executor> executor() {
+        return delegate.executor();
+    }
+
+    @Override
+    public WebSocket.Builder newWebSocketBuilder() {
+        return delegate.newWebSocketBuilder();
+    }
+
+    /**
+     * Adapts an {@link HttpRequest}. Since requests are immutable, any added headers are set on a copy of the request
+     * in the form of an {@link HttpRequest.Builder}, which is only created if there is something to add.
+     */
+    static final class HttpClientRequestAdapter implements io.honeycomb.beeline.tracing.propagation.HttpClientRequestAdapter {
+        private final HttpRequest request;
+        private HttpRequest.Builder builder;
+
+        HttpClientRequestAdapter(final HttpRequest request) {
+            Assert.notNull(request, "Validation failed: request must not be null");
+            this.request = request;
+        }
+
+        @Override
+        public String getMethod() {
+            return request.method();
+        }
+
+        @Override
+        public Optional<String> getPath() {
+            return Optional.ofNullable(request.uri().getPath());
+        }
+
+        @Override
+        public int getContentLength() {
+            return request.bodyPublisher()
+                .map(HttpRequest.BodyPublisher::contentLength)
+                .filter(length -> length <= Integer.MAX_VALUE)
+                .map(Long::intValue)
+                .orElse(-1);
+        }
+
+        @Override
+        public void addHeader(final String name, final String value) {
+            if (builder == null) {
+                builder = copyOf(request);
+            }
+            builder.header(name, value);
+        }
+
+        @Override
+        public Optional<String> getFirstHeader(final String name) {
+            return request.headers().firstValue(name);
+        }
+
+        @Override
+        public Map<String, String> getHeaders() {
+            final HttpHeaders headers = request.headers();
+            return new HttpHeaderCarrier(name -> headers.firstValue(name).orElse(null), () -> firstValues(headers));
+        }
+
+        /**
+         * @return the request including any added headers.
+         */
+        HttpRequest build() {
+            return builder == null ? request : builder.build();
+        }
+
+        private static Map<String, String> firstValues(final HttpHeaders headers) {
+            final Map<String, String> firstValues = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            headers.map().forEach((name, values) -> {
+                if (!values.isEmpty()) {
+                    firstValues.putIfAbsent(name, values.get(0));
+                }
+            });
+            return firstValues;
+        }
+
+        /**
+         * Equivalent to {@code HttpRequest.newBuilder(HttpRequest, BiPredicate)}, which was only added in Java 16.
+         */
+        private static HttpRequest.Builder copyOf(final HttpRequest request) {
+            final HttpRequest.Builder copy = HttpRequest.newBuilder(request.uri())
+                .expectContinue(request.expectContinue())
+                .method(request.method(), request.bodyPublisher().orElseGet(HttpRequest.BodyPublishers::noBody));
+            request.timeout().ifPresent(copy::timeout);
+            request.version().ifPresent(copy::version);
+            request.headers().map().forEach((name, values) -> {
+                for (final String value : values) {
+                    copy.header(name, value);
+                }
+            });
+            return copy;
+        }
+    }
+
+    static final class HttpClientResponseAdapter implements io.honeycomb.beeline.tracing.propagation.HttpClientResponseAdapter {
+        private final HttpResponse<?> response;
+
+        HttpClientResponseAdapter(final HttpResponse<?> response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getStatus() {
+            return response.statusCode();
+        }
+
+        @Override
+        public Optional<String> getFirstHeader(final String name) {
+            return response.headers().firstValue(name);
+        }
+    }
+}
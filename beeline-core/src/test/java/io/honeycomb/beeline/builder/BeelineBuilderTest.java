@@ -15,6 +15,7 @@ import javax.net.ssl.SSLContext;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -60,6 +61,14 @@ public class BeelineBuilderTest {
         completeNegativeVerification();
     }
 
+    @Test
+    public void addCachedGlobalDynamicFields() {
+        final Beeline beeline = builder.addGlobalDynamicFields("name", mock(ValueSupplier.class), Duration.ofSeconds(1)).build();
+        verify(mockBuilder, times(1)).addGlobalDynamicFields(eq("name"), any(CachedValueSupplier.class));
+        verify(mockBuilder, times(1)).dataSet("beeline-java");
+        completeNegativeVerification();
+    }
+
     @Test
     public void addProxyCredential() {
         final Beeline beeline = builder.addProxy("proxy.domain.com:8443", "user", "secret").build();
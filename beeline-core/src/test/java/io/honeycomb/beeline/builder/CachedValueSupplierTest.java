@@ -0,0 +1,94 @@
+package io.honeycomb.beeline.builder;
+
+import io.honeycomb.libhoney.ValueSupplier;
+import io.honeycomb.libhoney.transport.batch.ClockProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachedValueSupplierTest {
+    private static final long INTERVAL_NANOS = Duration.ofSeconds(10).toNanos();
+
+    @Mock
+    private ValueSupplier<String> delegate;
+    @Mock
+    private ClockProvider clock;
+
+    private CachedValueSupplier<String> supplier;
+
+    @Before
+    public void setUp() {
+        when(delegate.supply()).thenReturn("first", "second");
+        when(clock.getMonotonicTime()).thenReturn(100L);
+        supplier = new CachedValueSupplier<>(delegate, Duration.ofSeconds(10), clock);
+    }
+
+    @Test
+    public void GIVEN_intervalNotElapsed_EXPECT_valueToBeSharedBetweenCalls() {
+        assertThat(supplier.supply()).isEqualTo("first");
+        when(clock.getMonotonicTime()).thenReturn(100L + INTERVAL_NANOS - 1);
+        assertThat(supplier.supply()).isEqualTo("first");
+
+        verify(delegate, times(1)).supply();
+    }
+
+    @Test
+    public void GIVEN_intervalElapsed_EXPECT_valueToBeRefreshed() {
+        assertThat(supplier.supply()).isEqualTo("first");
+        when(clock.getMonotonicTime()).thenReturn(100L + INTERVAL_NANOS);
+        assertThat(supplier.supply()).isEqualTo("second");
+        assertThat(supplier.supply()).isEqualTo("second");
+
+        verify(delegate, times(2)).supply();
+    }
+
+    @Test
+    public void GIVEN_invalidated_EXPECT_valueToBeRefreshedBeforeIntervalElapsed() {
+        assertThat(supplier.supply()).isEqualTo("first");
+        supplier.invalidate();
+        assertThat(supplier.supply()).isEqualTo("second");
+
+        verify(delegate, times(2)).supply();
+    }
+
+    @Test
+    public void GIVEN_invalidatedWhileValueIsComputed_EXPECT_valueNotToBeCached() {
+        when(delegate.supply()).thenAnswer(invocation -> {
+            supplier.invalidate();
+            return "first";
+        }).thenReturn("second");
+
+        assertThat(supplier.supply()).isEqualTo("first");
+        assertThat(supplier.supply()).isEqualTo("second");
+        assertThat(supplier.supply()).isEqualTo("second");
+
+        verify(delegate, times(2)).supply();
+    }
+
+    @Test
+    public void GIVEN_nullValue_EXPECT_nullToBeCachedToo() {
+        when(delegate.supply()).thenReturn(null);
+
+        assertThat(supplier.supply()).isNull();
+        assertThat(supplier.supply()).isNull();
+
+        verify(delegate, times(1)).supply();
+    }
+
+    @Test
+    public void GIVEN_negativeInterval_EXPECT_exception() {
+        assertThatThrownBy(() -> new CachedValueSupplier<>(delegate, Duration.ofSeconds(-1)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
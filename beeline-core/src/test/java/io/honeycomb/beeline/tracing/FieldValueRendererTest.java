@@ -0,0 +1,219 @@
+package io.honeycomb.beeline.tracing;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+public class FieldValueRendererTest {
+    private final FieldValueRenderer renderer =
+        new FieldValueRenderer(2, 3, 5, 100, Arrays.asList(Entity.class, NoGetters.class));
+
+    public enum Status {
+        ACTIVE {
+            @Override
+            public String toString() {
+                return "active";
+            }
+        }
+    }
+
+    public static class Entity {
+        private final long id;
+        private final String name;
+        private final Entity parent;
+
+        public Entity(final long id, final String name, final Entity parent) {
+            this.id = id;
+            this.name = name;
+            this.parent = parent;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Entity getParent() {
+            return parent;
+        }
+
+        public boolean isRoot() {
+            return parent == null;
+        }
+
+        public String getBroken() {
+            throw new IllegalStateException("lazy loading failed");
+        }
+
+        public static String getStaticValue() {
+            return "static";
+        }
+    }
+
+    public static class NoGetters {
+        @Override
+        public String toString() {
+            return "NoGetters";
+        }
+    }
+
+    public static class Described {
+        @Override
+        public String toString() {
+            return "Described";
+        }
+    }
+
+    public static class UninitializedList extends ArrayList<Object> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Iterator<Object> iterator() {
+            throw new IllegalStateException("lazy loading failed");
+        }
+    }
+
+    @Test
+    public void GIVEN_scalarValues_EXPECT_valuesToBeReturnedAsTheyAre() {
+        final String shortString = "short";
+
+        assertThat(renderer.render(null)).isNull();
+        assertThat(renderer.render(shortString)).isSameAs(shortString);
+        assertThat(renderer.render(42L)).isEqualTo(42L);
+        assertThat(renderer.render(true)).isEqualTo(true);
+        assertThat(renderer.render('c')).isEqualTo('c');
+    }
+
+    @Test
+    public void GIVEN_longString_EXPECT_truncated() {
+        assertThat(renderer.render("a string longer than the limit")).isEqualTo("a str...");
+    }
+
+    @Test
+    public void GIVEN_enumAndJdkTypes_EXPECT_valuesToBePassedThrough() {
+        final UUID uuid = UUID.randomUUID();
+        final URI uri = URI.create("http://example.com");
+        final Date date = new Date();
+
+        assertThat(renderer.render(Status.ACTIVE)).isSameAs(Status.ACTIVE);
+        assertThat(renderer.render(uuid)).isSameAs(uuid);
+        assertThat(renderer.render(uri)).isSameAs(uri);
+        assertThat(renderer.render(date)).isSameAs(date);
+        assertThat(renderer.render(Arrays.asList(date, Status.ACTIVE))).isEqualTo(Arrays.asList(date, Status.ACTIVE));
+    }
+
+    @Test
+    public void GIVEN_typesThatWereNotOptedIn_EXPECT_renderedAsTruncatedStringWithoutCallingGetters() {
+        final FieldValueRenderer defaultRenderer = new FieldValueRenderer();
+        final Entity entity = new Entity(1, "name", null);
+
+        assertThat(defaultRenderer.render(entity)).isEqualTo(entity.toString());
+        assertThat(defaultRenderer.render(Collections.singletonList(entity)))
+            .isEqualTo(Collections.singletonList(entity.toString()));
+        assertThat(renderer.render(new Described())).isEqualTo("Descr...");
+    }
+
+    @Test
+    public void GIVEN_typesThatWereNotOptedInBeyondMaxDepth_EXPECT_placeholder() {
+        final Object rendered = renderer.render(Collections.singletonList(Collections.singletonList(new Described())));
+
+        assertThat(rendered).isEqualTo(Collections.singletonList(Collections.singletonList("<Described>")));
+    }
+
+    @Test
+    public void GIVEN_optedInTypeWithoutGetters_EXPECT_renderedAsTruncatedString() {
+        assertThat(renderer.render(new NoGetters())).isEqualTo("NoGet...");
+    }
+
+    @Test
+    public void GIVEN_collectionFailingToIterate_EXPECT_placeholder() {
+        assertThat(renderer.render(new UninitializedList())).isEqualTo("<UninitializedList>");
+    }
+
+    @Test
+    public void GIVEN_longCollection_EXPECT_elementsToBeLimitedAndNestedStringsTruncated() {
+        final Object rendered = renderer.render(Arrays.asList("one", "three", "seventeen", "four", "five"));
+
+        assertThat(rendered).isEqualTo(Arrays.asList("one", "three", "seven...", "2 more"));
+    }
+
+    @Test
+    public void GIVEN_array_EXPECT_renderedAsLimitedList() {
+        assertThat(renderer.render(new int[]{1, 2, 3, 4})).isEqualTo(Arrays.asList(1, 2, 3, "1 more"));
+        assertThat(renderer.render(new int[0])).isEqualTo(Collections.emptyList());
+    }
+
+    @Test
+    public void GIVEN_longMap_EXPECT_entriesToBeLimited() {
+        final Map<Object, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            map.put(i, "v" + i);
+        }
+
+        @SuppressWarnings("unchecked") final Map<String, Object> rendered = (Map<String, Object>) renderer.render(map);
+
+        assertThat(rendered).containsExactly(
+            entry("0", "v0"), entry("1", "v1"), entry("2", "v2"), entry(FieldValueRenderer.OMITTED_ELEMENTS_KEY, "2 more"));
+    }
+
+    @Test
+    public void GIVEN_object_EXPECT_renderedAsMapOfGetterPropertiesUpToMaxDepth() {
+        final Entity entity = new Entity(2, "child", new Entity(1, "root", new Entity(0, "hidden", null)));
+
+        @SuppressWarnings("unchecked") final Map<String, Object> rendered = (Map<String, Object>) renderer.render(entity);
+
+        assertThat(rendered).containsExactly(
+            entry("id", 2L), entry("name", "child"), entry("parent", rendered.get("parent")), entry("root", false));
+        @SuppressWarnings("unchecked") final Map<String, Object> parent = (Map<String, Object>) rendered.get("parent");
+        assertThat(parent).containsExactly(
+            entry("id", 1L), entry("name", "root"), entry("parent", "<Entity>"), entry("root", false));
+    }
+
+    @Test
+    public void GIVEN_cyclicCollection_EXPECT_depthToBeBounded() {
+        final List<Object> cyclic = new ArrayList<>();
+        cyclic.add(cyclic);
+
+        assertThat(renderer.render(cyclic)).isEqualTo(
+            Collections.singletonList(Collections.singletonList("<ArrayList>")));
+    }
+
+    @Test
+    public void GIVEN_moreValuesThanTheBudget_EXPECT_remainingValuesToBeReplacedWithPlaceholders() {
+        final FieldValueRenderer smallBudget = new FieldValueRenderer(2, 10, 10, 3);
+
+        assertThat(smallBudget.render(Arrays.asList(1, 2, 3, 4))).isEqualTo(Arrays.asList(1, 2, "<Integer>", "<Integer>"));
+    }
+
+    @Test
+    public void GIVEN_sameClassRenderedRepeatedly_EXPECT_sameResult() {
+        final Entity entity = new Entity(1, "name", null);
+
+        assertThat(renderer.render(entity)).isEqualTo(renderer.render(entity));
+    }
+
+    @Test
+    public void GIVEN_invalidLimits_EXPECT_exception() {
+        assertThatThrownBy(() -> new FieldValueRenderer(-1, 1, 1, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FieldValueRenderer(1, 0, 1, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FieldValueRenderer(1, 1, 0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FieldValueRenderer(1, 1, 1, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FieldValueRenderer(1, 1, 1, 1, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,100 @@
+package io.honeycomb.beeline.tracing;
+
+import io.honeycomb.beeline.builder.BeelineBuilder;
+import io.honeycomb.beeline.tracing.utils.TraceFieldConstants;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.transport.Transport;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+public class RecordedSpanSenderTest {
+    private static final long START_MICROS = 1_000_000_000L;
+
+    private final Transport mockTransport = mock(Transport.class);
+    private RecordedSpanSender sender;
+
+    @Before
+    public void setUp() {
+        when(mockTransport.submit(any())).thenReturn(true);
+        final Beeline beeline = new BeelineBuilder()
+            .transport(mockTransport).writeKey("testKey").dataSet("testSet").serviceName("testServiceName").build();
+        sender = new RecordedSpanSender(beeline.getSpanBuilderFactory());
+    }
+
+    private List<ResolvedEvent> captureEvents(final int count) {
+        final ArgumentCaptor<ResolvedEvent> captor = ArgumentCaptor.forClass(ResolvedEvent.class);
+        verify(mockTransport, times(count)).submit(captor.capture());
+        verifyNoMoreInteractions(mockTransport);
+        return captor.getAllValues();
+    }
+
+    private Span toSpan(final String name, final String parentSpanId, final Throwable error) {
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put("field", "value");
+        return sender.toSpan(name, "service", "traceId", parentSpanId, "spanId", fields, error,
+                             START_MICROS, START_MICROS + 494L);
+    }
+
+    @Test
+    public void GIVEN_recordedSpan_WHEN_sending_EXPECT_eventWithIdsTimesAndFields() {
+        final int sampleRate = sender.send(toSpan("spanName", "parentSpanId", null), sender.sampleTrace("traceId"));
+
+        assertThat(sampleRate).isEqualTo(1);
+        final ResolvedEvent event = captureEvents(1).get(0);
+        assertThat(event.getTimestamp()).isEqualTo(START_MICROS / 1000);
+        assertThat(event.getFields())
+            .containsEntry(TraceFieldConstants.SPAN_NAME_FIELD, "spanName")
+            .containsEntry(TraceFieldConstants.SERVICE_NAME_FIELD, "service")
+            .containsEntry(TraceFieldConstants.TRACE_ID_FIELD, "traceId")
+            .containsEntry(TraceFieldConstants.SPAN_ID_FIELD, "spanId")
+            .containsEntry(TraceFieldConstants.PARENT_ID_FIELD, "parentSpanId")
+            .containsEntry(TraceFieldConstants.DURATION_FIELD, 0.494)
+            .containsEntry("field", "value");
+    }
+
+    @Test
+    public void GIVEN_spanWithoutNameOrParentAndWithError_WHEN_sending_EXPECT_unknownNameNoParentAndErrorField() {
+        sender.send(toSpan("", "", new IllegalStateException()), 1);
+
+        assertThat(captureEvents(1).get(0).getFields())
+            .containsEntry(TraceFieldConstants.SPAN_NAME_FIELD, "unknown")
+            .containsEntry("error", "IllegalStateException")
+            .doesNotContainKey(TraceFieldConstants.PARENT_ID_FIELD);
+    }
+
+    @Test
+    public void GIVEN_traceNotSampled_WHEN_sending_EXPECT_nothingToBeSent() {
+        assertThat(sender.send(toSpan("spanName", null, null), 0)).isZero();
+
+        verifyNoMoreInteractions(mockTransport);
+    }
+
+    @Test
+    public void GIVEN_sentSpan_WHEN_generatingSpanEvent_EXPECT_spanEventOfTheSpan() {
+        final Span span = toSpan("spanName", null, null);
+        final int sampleRate = sender.send(span, 1);
+
+        sender.generateSpanEvent(span, "annotation", START_MICROS + 2000L, sampleRate).sendPresampled();
+
+        final ResolvedEvent spanEvent = captureEvents(2).get(1);
+        assertThat(spanEvent.getTimestamp()).isEqualTo(START_MICROS / 1000 + 2);
+        assertThat(spanEvent.getFields())
+            .containsEntry(TraceFieldConstants.META_SPAN_TYPE_FIELD, TraceFieldConstants.META_TYPE_SPAN_EVENT_VALUE)
+            .containsEntry(TraceFieldConstants.SPAN_NAME_FIELD, "annotation")
+            .containsEntry(TraceFieldConstants.PARENT_ID_FIELD, "spanId")
+            .containsEntry(TraceFieldConstants.TRACE_ID_FIELD, "traceId");
+    }
+}
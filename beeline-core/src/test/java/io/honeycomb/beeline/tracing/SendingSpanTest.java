@@ -18,6 +18,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
@@ -56,6 +57,28 @@ public class SendingSpanTest {
         assertThat(span.getProcessor()).isEqualTo(processor);
     }
 
+    @Test
+    public void WHEN_renamingASpan_THEN_onlyTheNameShouldChange() {
+        final PropagationContext context = new PropagationContext("abc", "123", "myDataset", traceFields);
+        final SendingSpan span = new SendingSpan("span1", "service1", "$$$",  fields, context, processor, clock, 1);
+        span.addField("key", "value");
+
+        assertThat(span.setSpanName("renamed")).isSameAs(span);
+
+        assertThat(span.getSpanName()).isEqualTo("renamed");
+        assertThat(span.getSpanId()).isEqualTo("$$$");
+        assertThat(span.getFields()).containsEntry("key", "value");
+    }
+
+    @Test
+    public void WHEN_renamingASpanWithAnEmptyName_THEN_throwException() {
+        final PropagationContext context = new PropagationContext("abc", "123", "myDataset", traceFields);
+        final SendingSpan span = new SendingSpan("span1", "service1", "$$$",  fields, context, processor, clock, 1);
+
+        assertThatThrownBy(() -> span.setSpanName("")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(span.getSpanName()).isEqualTo("span1");
+    }
+
     @Test
     public void WHEN_constructingASpan_THEN_traceContextShouldContainTraceAndSpanIDs() {
         final PropagationContext context = new PropagationContext("abc", "123", null, traceFields);
@@ -95,6 +118,27 @@ public class SendingSpanTest {
         assertThat(span.getTraceContext().getTraceFields()).containsOnly(entry("key", "value"), entry("anotherKey", "anotherValue"));
     }
 
+    @Test
+    public void WHEN_gettingTheTraceContextTwice_THEN_sameInstanceShouldBeReturned() {
+        traceFields.put("key", "value");
+        final PropagationContext context = new PropagationContext("abc", "123", null, traceFields);
+        final SendingSpan span = new SendingSpan("span1", "service1", "$$$",  fields, context, processor, clock, 1);
+
+        assertThat(span.getTraceContext()).isSameAs(span.getTraceContext());
+    }
+
+    @Test
+    public void WHEN_addingTraceFieldsAfterGettingTheTraceContext_THEN_traceContextShouldBeRebuilt() {
+        final PropagationContext context = new PropagationContext("abc", "123", null, traceFields);
+        final SendingSpan span = new SendingSpan("span1", "service1", "$$$",  fields, context, processor, clock, 1);
+        final PropagationContext before = span.getTraceContext();
+
+        span.addTraceField("key", "value");
+
+        assertThat(before.getTraceFields()).isEmpty();
+        assertThat(span.getTraceContext().getTraceFields()).containsOnly(entry("key", "value"));
+    }
+
     @Test
     public void WHEN_constructingASpan_THEN_spanFieldsShouldBeEmpty() {
         final PropagationContext context = new PropagationContext("abc", "123", null, traceFields);
@@ -0,0 +1,174 @@
+package io.honeycomb.beeline.tracing;
+
+import io.honeycomb.beeline.tracing.context.ThreadLocalTracingContext;
+import io.honeycomb.beeline.tracing.propagation.PropagationContext;
+import io.honeycomb.beeline.tracing.sampling.Sampling;
+import io.honeycomb.beeline.tracing.utils.TraceFieldConstants;
+import io.honeycomb.libhoney.Event;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SiblingSpanCoalescerTest {
+
+    @Mock
+    private SpanPostProcessor mockProcessor;
+    @Mock
+    private Event mockEvent;
+
+    private Tracer tracer;
+    private SpanBuilderFactory factory;
+    private Span root;
+
+    @Before
+    public void setUp() {
+        when(mockProcessor.runSamplerHook(any())).thenReturn(1);
+        when(mockProcessor.generateEvent(any())).thenReturn(mockEvent);
+        factory = Tracing.createSpanBuilderFactory(mockProcessor, Sampling.alwaysSampler());
+        tracer = new Tracer(factory, new ThreadLocalTracingContext(), new SiblingSpanCoalescer(3));
+        root = tracer.startTrace(factory.createBuilder()
+            .setSpanName("root")
+            .setServiceName("service")
+            .setParentContext(PropagationContext.emptyContext())
+            .build());
+    }
+
+    private void runQuery(final String query) {
+        try (Span span = tracer.startChildSpan("query")) {
+            span.addField(TraceFieldConstants.DATABASE_QUERY_FIELD, query);
+        }
+    }
+
+    private List<Span> sentSpans() {
+        final ArgumentCaptor<Span> captor = ArgumentCaptor.forClass(Span.class);
+        verify(mockProcessor, atLeastOnce()).generateEvent(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    public void GIVEN_aRunAtTheThreshold_WHEN_parentCloses_EXPECT_runCoalescedAndParentFlagged() {
+        for (int i = 0; i < 4; i++) {
+            runQuery("SELECT * FROM item WHERE order_id = ?");
+        }
+        verify(mockProcessor, never()).generateEvent(any());
+
+        root.close();
+
+        final List<Span> sent = sentSpans();
+        assertThat(sent).extracting(Span::getSpanName).containsExactly("query", "root");
+        final Span coalesced = sent.get(0);
+        assertThat(coalesced.getFields())
+            .containsEntry(TraceFieldConstants.COALESCED_COUNT_FIELD, 4)
+            .containsKeys(TraceFieldConstants.COALESCED_TOTAL_DURATION_FIELD,
+                TraceFieldConstants.COALESCED_MIN_DURATION_FIELD,
+                TraceFieldConstants.COALESCED_MAX_DURATION_FIELD);
+        assertThat(coalesced.elapsedTimeMs())
+            .isGreaterThanOrEqualTo((Double) coalesced.getFields().get(TraceFieldConstants.COALESCED_TOTAL_DURATION_FIELD));
+        assertThat(sent.get(1).getFields()).containsEntry(TraceFieldConstants.N_PLUS_ONE_FIELD, true);
+    }
+
+    @Test
+    public void GIVEN_aRunBelowTheThreshold_WHEN_differentSiblingCloses_EXPECT_spansSentUnchanged() {
+        runQuery("SELECT 1");
+        runQuery("SELECT 1");
+        runQuery("SELECT 2");
+
+        assertThat(sentSpans()).hasSize(2)
+            .allSatisfy(span -> assertThat(span.getFields()).doesNotContainKey(TraceFieldConstants.COALESCED_COUNT_FIELD));
+
+        root.close();
+
+        final List<Span> sent = sentSpans();
+        assertThat(sent.stream().map(span -> span.getFields().get(TraceFieldConstants.DATABASE_QUERY_FIELD))
+            .collect(Collectors.toList())).containsExactly("SELECT 1", "SELECT 1", "SELECT 2", null);
+        assertThat(sent.get(3).getFields()).doesNotContainKey(TraceFieldConstants.N_PLUS_ONE_FIELD);
+    }
+
+    @Test
+    public void GIVEN_siblingsWithChildren_WHEN_closing_EXPECT_notDeferred() {
+        for (int i = 0; i < 3; i++) {
+            try (Span span = tracer.startChildSpan("handler")) {
+                runQuery("SELECT " + i);
+            }
+        }
+
+        assertThat(sentSpans()).extracting(Span::getSpanName)
+            .containsExactly("query", "handler", "query", "handler", "query", "handler");
+    }
+
+    @Test
+    public void GIVEN_siblingsWithoutKeyFields_WHEN_closing_EXPECT_notDeferredAndParentNotFlagged() {
+        for (int i = 0; i < 4; i++) {
+            tracer.startChildSpan("handler").close();
+        }
+
+        assertThat(sentSpans()).hasSize(4);
+
+        root.close();
+
+        final List<Span> sent = sentSpans();
+        assertThat(sent).extracting(Span::getSpanName).containsExactly("handler", "handler", "handler", "handler", "root");
+        assertThat(sent.get(4).getFields()).doesNotContainKey(TraceFieldConstants.N_PLUS_ONE_FIELD);
+    }
+
+    @Test
+    public void GIVEN_aRunAtTheThreshold_WHEN_parentClosedOnAnotherThread_EXPECT_runSentBeforeParent() throws Exception {
+        final Span parent = tracer.startChildSpan("parent");
+        for (int i = 0; i < 4; i++) {
+            runQuery("SELECT 1");
+        }
+
+        final Thread thread = new Thread(parent::close);
+        thread.start();
+        thread.join();
+
+        final List<Span> sent = sentSpans();
+        assertThat(sent).extracting(Span::getSpanName).containsExactly("query", "parent");
+        assertThat(sent.get(0).getFields()).containsEntry(TraceFieldConstants.COALESCED_COUNT_FIELD, 4);
+        assertThat(sent.get(1).getFields()).containsEntry(TraceFieldConstants.N_PLUS_ONE_FIELD, true);
+    }
+
+    @Test
+    public void GIVEN_aRunAtTheThreshold_WHEN_parentForceClosedByItsParent_EXPECT_runSentBeforeParent() {
+        tracer.startChildSpan("parent");
+        for (int i = 0; i < 4; i++) {
+            runQuery("SELECT 1");
+        }
+
+        root.close();
+
+        final List<Span> sent = sentSpans();
+        assertThat(sent).extracting(Span::getSpanName).containsExactly("query", "parent", "root");
+        assertThat(sent.get(0).getFields()).containsEntry(TraceFieldConstants.COALESCED_COUNT_FIELD, 4);
+    }
+
+    @Test
+    public void GIVEN_noCoalescer_WHEN_closingRepeatedSiblings_EXPECT_eachSentImmediately() {
+        tracer = Tracing.createTracer(factory);
+        tracer.startTrace(factory.createBuilder()
+            .setSpanName("root")
+            .setServiceName("service")
+            .setParentContext(PropagationContext.emptyContext())
+            .build());
+
+        for (int i = 0; i < 4; i++) {
+            runQuery("SELECT 1");
+        }
+
+        assertThat(sentSpans()).hasSize(4);
+    }
+}
@@ -8,6 +8,7 @@ import io.honeycomb.libhoney.transport.batch.ClockProvider;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -50,8 +51,9 @@ public class SpanPostProcessorTest {
 
         final Event event = spanPostProcessor.generateEvent(mockSpan);
 
-        verify(event).addFields(mockSpan.getFields());
-        verify(event).addFields(mockSpan.getTraceFields());
+        verify(event).addField("key", "value");
+        verify(event).addField("anotherKey", "anotherValue");
+        verify(event).addField("traceKey", "traceValue");
         verify(event).addField("trace.parent_id", "parentSpanId");
         verify(event).setDataset("myDataset");
         verify(event).setTimestamp(anyLong());
@@ -64,6 +66,18 @@ public class SpanPostProcessorTest {
         verifyNoMoreInteractions(mockEvent, mockSampler);
     }
 
+    @Test
+    public void WHEN_generatingEventWithACollectionField_THEN_fieldValueShouldBeRendered() {
+        spanPostProcessor = new SpanPostProcessor(mockClient, mockSampler, new FieldValueRenderer(3, 2, 100, 100));
+        final PropagationContext context = new PropagationContext("traceId", "parentSpanId", "myDataset", null);
+        mockSpan = new Span("spanName", "serviceName", "spanId", context, null, mock(ClockProvider.class));
+        mockSpan.addField("result", Arrays.asList(1, 2, 3));
+
+        final Event event = spanPostProcessor.generateEvent(mockSpan);
+
+        verify(event).addField("result", Arrays.asList(1, 2, "1 more"));
+    }
+
     @Test
     public void WHEN_generatingEvent_THEN_shouldGetEventFromClient() {
         spanPostProcessor.generateEvent(mockSpan);
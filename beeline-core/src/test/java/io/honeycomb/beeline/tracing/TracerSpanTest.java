@@ -98,6 +98,16 @@ public class TracerSpanTest {
         verifyNoMoreInteractions(mockSpan, mockTracer);
     }
 
+    @Test
+    public void WHEN_settingSpanName_EXPECT_delegateToBeRenamed() {
+        final TracerSpan tracerSpan = new TracerSpan(mockSpan, mockTracer);
+
+        tracerSpan.setSpanName("newName");
+
+        verify(mockSpan).setSpanName("newName");
+        verifyNoMoreInteractions(mockSpan, mockTracer);
+    }
+
     @Test
     public void WHEN_gettingFields_EXPECT_delegateToReturnFields() {
         final TracerSpan tracerSpan = new TracerSpan(mockSpan, mockTracer);
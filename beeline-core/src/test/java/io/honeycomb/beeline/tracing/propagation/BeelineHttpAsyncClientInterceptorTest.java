@@ -0,0 +1,175 @@
+package io.honeycomb.beeline.tracing.propagation;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import io.honeycomb.beeline.tracing.Beeline;
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.beeline.tracing.utils.TraceFieldConstants;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.transport.Transport;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.net.ConnectException;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static io.honeycomb.beeline.tracing.propagation.ServletTestingUtils.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BeelineHttpAsyncClientInterceptorTest {
+
+    @Rule
+    public WireMockRule wireMock = new WireMockRule(wireMockConfig().dynamicPort());
+
+    @Mock
+    private Transport mockTransport;
+    @Mock
+    private FutureCallback<HttpResponse> mockCallback;
+
+    private Beeline beeline;
+    private BeelineHttpAsyncClientInterceptor interceptor;
+    private PoolingNHttpClientConnectionManager connectionManager;
+    private CloseableHttpAsyncClient client;
+    private Span rootSpan;
+
+    @Before
+    public void setUp() throws Exception {
+        stubMockTransport(mockTransport);
+        beeline = createBeeline(createHoneyClient(mockTransport));
+        interceptor = new BeelineHttpAsyncClientInterceptor(beeline.getTracer(), Propagation.honeycombHeaderV1());
+        connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor());
+        client = interceptor.addTo(HttpAsyncClients.custom())
+            .setConnectionManager(interceptor.instrument(connectionManager))
+            .build();
+        client.start();
+        rootSpan = beeline.startTrace("root", PropagationContext.emptyContext(), SERVICE_NAME);
+        wireMock.stubFor(post(urlEqualTo("/orders"))
+            .willReturn(aResponse().withStatus(201).withHeader("content-type", "application/json").withBody("{}")));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        beeline.getTracer().endTrace();
+        client.close();
+    }
+
+    private HttpPost request() {
+        final HttpPost request = new HttpPost("http://localhost:" + wireMock.port() + "/orders");
+        request.setEntity(new StringEntity("{\"id\":1}", ContentType.APPLICATION_JSON));
+        return request;
+    }
+
+    private ResolvedEvent verifyClientSpanSent() {
+        final ArgumentCaptor<ResolvedEvent> captor = ArgumentCaptor.forClass(ResolvedEvent.class);
+        verify(mockTransport, timeout(5000)).submit(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    public void GIVEN_anActiveSpan_WHEN_executing_EXPECT_childSpanSentAndTraceHeaderPropagated() throws Exception {
+        final HttpPost request = request();
+        final HttpClientContext context = HttpClientContext.create();
+
+        final Future<HttpResponse> future = client.execute(request, context, interceptor.wrap(request, context, mockCallback));
+
+        assertThat(beeline.getTracer().getActiveSpan().getSpanId()).isEqualTo(rootSpan.getSpanId());
+        assertThat(future.get(5, TimeUnit.SECONDS).getStatusLine().getStatusCode()).isEqualTo(201);
+
+        final ResolvedEvent event = verifyClientSpanSent();
+        assertThat(event.getFields())
+            .containsEntry(TraceFieldConstants.SPAN_NAME_FIELD, BeelineHttpAsyncClientInterceptor.DEFAULT_SPAN_NAME)
+            .containsEntry(TraceFieldConstants.PARENT_ID_FIELD, rootSpan.getSpanId())
+            .containsEntry(TraceFieldConstants.CLIENT_REQUEST_METHOD_FIELD, "POST")
+            .containsEntry(TraceFieldConstants.CLIENT_REQUEST_PATH_FIELD, "/orders")
+            .containsEntry(TraceFieldConstants.CLIENT_REQUEST_CONTENT_LENGTH_FIELD, 8)
+            .containsEntry(TraceFieldConstants.CLIENT_RESPONSE_STATUS_CODE_FIELD, 201)
+            .containsEntry(TraceFieldConstants.CLIENT_RESPONSE_CONTENT_TYPE_FIELD, "application/json");
+        assertThat((Double) event.getFields().get(TraceFieldConstants.CLIENT_CONNECTION_LEASE_WAIT_FIELD))
+            .isGreaterThanOrEqualTo(0.0);
+        assertThat(context.getAttribute(BeelineHttpAsyncClientInterceptor.SPAN_ATTRIBUTE)).isNull();
+        wireMock.verify(postRequestedFor(urlEqualTo("/orders"))
+            .withHeader(HttpHeaderV1PropagationCodec.HONEYCOMB_TRACE_HEADER,
+                containing("parent_id=" + event.getFields().get(TraceFieldConstants.SPAN_ID_FIELD))));
+        verify(mockCallback, timeout(5000)).completed(any());
+        verify(mockTransport, times(1)).submit(any());
+    }
+
+    @Test
+    public void GIVEN_onePooledConnection_WHEN_executingTwoRequests_EXPECT_secondRequestRecordsLeaseWait() throws Exception {
+        connectionManager.setMaxTotal(1);
+        connectionManager.setDefaultMaxPerRoute(1);
+        wireMock.stubFor(post(urlEqualTo("/orders")).willReturn(aResponse().withStatus(201).withFixedDelay(300)));
+        final HttpPost firstRequest = request();
+        final HttpClientContext firstContext = HttpClientContext.create();
+        final HttpPost secondRequest = request();
+        final HttpClientContext secondContext = HttpClientContext.create();
+
+        final Future<HttpResponse> first =
+            client.execute(firstRequest, firstContext, interceptor.wrap(firstRequest, firstContext, null));
+        final Future<HttpResponse> second =
+            client.execute(secondRequest, secondContext, interceptor.wrap(secondRequest, secondContext, null));
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        final ArgumentCaptor<ResolvedEvent> captor = ArgumentCaptor.forClass(ResolvedEvent.class);
+        verify(mockTransport, timeout(5000).times(2)).submit(captor.capture());
+        final List<ResolvedEvent> events = captor.getAllValues();
+        assertThat(events).extracting(event -> event.getFields().get(TraceFieldConstants.CLIENT_CONNECTION_LEASE_WAIT_FIELD))
+            .allMatch(Double.class::isInstance);
+        // the second request waits for the first one's response before it can lease the only connection
+        assertThat((Double) events.get(1).getFields().get(TraceFieldConstants.CLIENT_CONNECTION_LEASE_WAIT_FIELD))
+            .isGreaterThanOrEqualTo(250.0);
+    }
+
+    @Test
+    public void GIVEN_anUnreachableServer_WHEN_executing_EXPECT_errorFieldsAddedAndCallbackNotified() {
+        final HttpPost request = request();
+        final HttpClientContext context = HttpClientContext.create();
+        wireMock.stop();
+
+        final Future<HttpResponse> future = client.execute(request, context, interceptor.wrap(request, context, mockCallback));
+
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(ConnectException.class);
+        assertThat(verifyClientSpanSent().getFields())
+            .containsEntry(TraceFieldConstants.CLIENT_REQUEST_PATH_FIELD, "/orders")
+            .containsEntry(TraceFieldConstants.CLIENT_REQUEST_ERROR_FIELD, ConnectException.class.getSimpleName());
+        verify(mockCallback, timeout(5000)).failed(any(ConnectException.class));
+    }
+
+    @Test
+    public void GIVEN_noActiveSpan_WHEN_executing_EXPECT_noSpanAndNoHeader() throws Exception {
+        beeline.getTracer().endTrace();
+        clearInvocations(mockTransport);
+        final HttpPost request = request();
+        final HttpClientContext context = HttpClientContext.create();
+
+        client.execute(request, context, interceptor.wrap(request, context, null)).get(5, TimeUnit.SECONDS);
+
+        wireMock.verify(postRequestedFor(urlEqualTo("/orders"))
+            .withoutHeader(HttpHeaderV1PropagationCodec.HONEYCOMB_TRACE_HEADER));
+        verify(mockTransport, after(200).never()).submit(any());
+    }
+}
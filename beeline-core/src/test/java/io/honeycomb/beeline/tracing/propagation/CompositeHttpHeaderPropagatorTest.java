@@ -2,12 +2,15 @@ package io.honeycomb.beeline.tracing.propagation;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
@@ -33,7 +36,7 @@ public class CompositeHttpHeaderPropagatorTest {
     public void GIVEN_codecList_EXPECT_returnsContextFromCodec() {
 
         PropagationContext mockContext = mock(PropagationContext.class);
-        PropagationCodec<Map<String, String>> mockCodec = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class);
+        PropagationCodec<Map<String, String>> mockCodec = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class, CALLS_REAL_METHODS);
         when(mockCodec.decode(Mockito.anyMap())).thenReturn(mockContext);
 
         CompositeHttpHeaderPropagator propagator = new CompositeHttpHeaderPropagator(Collections.singletonList(mockCodec));
@@ -49,16 +52,16 @@ public class CompositeHttpHeaderPropagatorTest {
     public void GIVEN_listOfCodecs_EXPECT_tryEachOnceUntilSuccess() {
 
         // first one fails (returns empty context)
-        PropagationCodec<Map<String, String>> mockCodec1 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class);
+        PropagationCodec<Map<String, String>> mockCodec1 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class, CALLS_REAL_METHODS);
         when(mockCodec1.decode(anyMap())).thenReturn(PropagationContext.emptyContext());
 
         // second one succeeds (returns non-empty)
         PropagationContext mockContext = mock(PropagationContext.class);
-        PropagationCodec<Map<String, String>> mockCodec2 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class);
+        PropagationCodec<Map<String, String>> mockCodec2 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class, CALLS_REAL_METHODS);
         when(mockCodec2.decode(anyMap())).thenReturn(mockContext);
 
         // third codec is not called (codec 2 succeeded)
-        PropagationCodec<Map<String, String>> mockCodec3 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class);
+        PropagationCodec<Map<String, String>> mockCodec3 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class, CALLS_REAL_METHODS);
         when(mockCodec3.decode(anyMap())).thenReturn(PropagationContext.emptyContext());
 
         CompositeHttpHeaderPropagator propagtor = new CompositeHttpHeaderPropagator(Arrays.asList(mockCodec1, mockCodec2, mockCodec3));
@@ -74,7 +77,7 @@ public class CompositeHttpHeaderPropagatorTest {
     @SuppressWarnings("unchecked")
     public void GIVEN_listOfCodecsAndNoneSucceed_EXPECT_emptyContext() {
 
-        PropagationCodec<Map<String, String>> mockCodec1 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class);
+        PropagationCodec<Map<String, String>> mockCodec1 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class, CALLS_REAL_METHODS);
         when(mockCodec1.decode(anyMap())).thenReturn(PropagationContext.emptyContext());
 
         CompositeHttpHeaderPropagator propagtor = new CompositeHttpHeaderPropagator(Collections.singletonList(mockCodec1));
@@ -92,7 +95,7 @@ public class CompositeHttpHeaderPropagatorTest {
     public void GIVEN_singleCodec_EXPECT_encodeReturnsValidHeaders() {
 
         Optional<Map<String, String>> codecHeaders = Optional.of(Collections.singletonMap("codec1", "value"));
-        PropagationCodec<Map<String, String>> mockCodec1 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class);
+        PropagationCodec<Map<String, String>> mockCodec1 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class, CALLS_REAL_METHODS);
         when(mockCodec1.encode(any(PropagationContext.class))).thenReturn(codecHeaders);
 
         PropagationContext mockContext = new PropagationContext(null, null, null, null);
@@ -110,11 +113,11 @@ public class CompositeHttpHeaderPropagatorTest {
     public void GIVEN_multipleCodecs_EXPECT_encodeReturnsValidHeadersFromAllCodecs() {
 
         Optional<Map<String, String>> codec1Headers = Optional.of(Collections.singletonMap("codec1", "value1"));
-        PropagationCodec<Map<String, String>> mockCodec1 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class);
+        PropagationCodec<Map<String, String>> mockCodec1 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class, CALLS_REAL_METHODS);
         when(mockCodec1.encode(any(PropagationContext.class))).thenReturn(codec1Headers);
 
         Optional<Map<String, String>> codec2Headers = Optional.of(Collections.singletonMap("codec2", "value2"));
-        PropagationCodec<Map<String, String>> mockCodec2 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class);
+        PropagationCodec<Map<String, String>> mockCodec2 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class, CALLS_REAL_METHODS);
         when(mockCodec2.encode(any(PropagationContext.class))).thenReturn(codec2Headers);
 
         PropagationContext mockContext = new PropagationContext(null, null, null, null);
@@ -134,11 +137,11 @@ public class CompositeHttpHeaderPropagatorTest {
     @SuppressWarnings("unchecked")
     public void GIVEN_multipleCodecsWhenOneReturnsEmptyOptional_EXPECT_emptyOptionalIsIgnored() {
 
-        PropagationCodec<Map<String, String>> mockCodec1 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class);
+        PropagationCodec<Map<String, String>> mockCodec1 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class, CALLS_REAL_METHODS);
         when(mockCodec1.encode(any(PropagationContext.class))).thenReturn(Optional.empty());
 
         Optional<Map<String, String>> codec2Headers = Optional.of(Collections.singletonMap("codec2", "value2"));
-        PropagationCodec<Map<String, String>> mockCodec2 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class);
+        PropagationCodec<Map<String, String>> mockCodec2 = (PropagationCodec<Map<String, String>>) mock(PropagationCodec.class, CALLS_REAL_METHODS);
         when(mockCodec2.encode(any(PropagationContext.class))).thenReturn(codec2Headers);
 
         PropagationContext mockContext = new PropagationContext(null, null, null, null);
@@ -151,4 +154,26 @@ public class CompositeHttpHeaderPropagatorTest {
         verify(mockCodec2, times(1)).encode(mockContext);
         assertTrue(headers.get().get("codec2") == "value2");
     }
+
+    @Test
+    public void GIVEN_multipleCodecs_WHEN_encodingIntoASink_EXPECT_headersFromAllCodecs() {
+        final PropagationContext context = new PropagationContext("4cbc8d50f02449e887e8bc2aa8020d26", "ace1ecab581fc069", null, null);
+        final CompositeHttpHeaderPropagator propagator = new CompositeHttpHeaderPropagator(
+            Arrays.asList(HttpHeaderV1PropagationCodec.getInstance(), W3CPropagationCodec.getInstance()));
+        final Map<String, String> headers = new HashMap<>();
+
+        assertTrue(propagator.encodeInto(context, headers::put));
+        assertEquals(propagator.encode(context).get(), headers);
+        assertEquals(2, headers.size());
+    }
+
+    @Test
+    public void GIVEN_noCodecsEmitHeaders_WHEN_encodingIntoASink_EXPECT_false() {
+        final CompositeHttpHeaderPropagator propagator = new CompositeHttpHeaderPropagator(
+            Arrays.asList(HttpHeaderV1PropagationCodec.getInstance(), W3CPropagationCodec.getInstance()));
+        final Map<String, String> headers = new HashMap<>();
+
+        assertFalse(propagator.encodeInto(PropagationContext.emptyContext(), headers::put));
+        assertTrue(headers.isEmpty());
+    }
 }
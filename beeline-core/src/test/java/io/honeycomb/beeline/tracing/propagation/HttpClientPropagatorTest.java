@@ -6,6 +6,7 @@ import io.honeycomb.libhoney.shaded.org.apache.http.HttpHeaders;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
@@ -31,7 +32,7 @@ public class HttpClientPropagatorTest {
     private HttpClientRequestAdapter mockHttpRequest;
     @Mock
     private HttpClientResponseAdapter mockHttpResponse;
-    @Mock
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
     private PropagationCodec<Map<String, String>> mockPropagationCodec;
     @Mock
     private BiFunction<HttpClientRequestAdapter, PropagationContext, Optional<Map<String, String>>> mockTracePropagationHook;
@@ -0,0 +1,72 @@
+package io.honeycomb.beeline.tracing.propagation;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+public class HttpHeaderCarrierTest {
+
+    private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final AtomicInteger allHeadersInvocations = new AtomicInteger();
+    private final Supplier<Map<String, String>> allHeaders = () -> {
+        allHeadersInvocations.incrementAndGet();
+        return headers;
+    };
+
+    @Test
+    public void GIVEN_aHeaderLookup_WHEN_gettingHeaders_EXPECT_lookupUsedWithoutCollectingAllHeaders() {
+        headers.put("X-Honeycomb-Trace", "value");
+        final HttpHeaderCarrier carrier = new HttpHeaderCarrier(headers::get, allHeaders);
+
+        assertThat(carrier.get("x-honeycomb-trace")).isEqualTo("value");
+        assertThat(carrier.containsKey("x-honeycomb-trace")).isTrue();
+        assertThat(carrier.containsKey("traceparent")).isFalse();
+        assertThat(carrier.getOrDefault("traceparent", "default")).isEqualTo("default");
+        assertThat(carrier.get(1)).isNull();
+        assertThat(allHeadersInvocations).hasValue(0);
+    }
+
+    @Test
+    public void GIVEN_aHeaderLookup_WHEN_iterating_EXPECT_allHeadersCollectedOnce() {
+        headers.put("a", "1");
+        headers.put("b", "2");
+        final HttpHeaderCarrier carrier = new HttpHeaderCarrier(headers::get, allHeaders);
+
+        assertThat(carrier).containsOnly(entry("a", "1"), entry("b", "2"));
+        assertThat(carrier.size()).isEqualTo(2);
+        assertThat(allHeadersInvocations).hasValue(1);
+    }
+
+    @Test
+    public void GIVEN_aCarrier_WHEN_modifying_EXPECT_unsupportedOperation() {
+        final HttpHeaderCarrier carrier = new HttpHeaderCarrier(headers::get, allHeaders);
+
+        assertThatThrownBy(() -> carrier.put("a", "1")).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void GIVEN_aNullAllHeadersMap_WHEN_iterating_EXPECT_empty() {
+        final HttpHeaderCarrier carrier = new HttpHeaderCarrier(name -> null, () -> null);
+
+        assertThat(carrier).isEmpty();
+    }
+
+    @Test
+    public void GIVEN_aCarrierWithATraceHeader_WHEN_decoding_EXPECT_contextToBeDecoded() {
+        headers.put("X-Honeycomb-Trace", "1;trace_id=abc,parent_id=123");
+        final HttpHeaderCarrier carrier = new HttpHeaderCarrier(headers::get, allHeaders);
+
+        final PropagationContext context = Propagation.honeycombHeaderV1().decode(carrier);
+
+        assertThat(context).isEqualTo(new PropagationContext("abc", "123", null, Collections.emptyMap()));
+        assertThat(allHeadersInvocations).hasValue(0);
+    }
+}
@@ -10,6 +10,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -331,4 +332,22 @@ public class HttpHeaderV1PropagationCodecTest {
     public static class Unserializable {
         private String field = "value";
     }
+
+    @Test
+    public void GIVEN_aMissingIds_WHEN_encodingIntoASink_EXPECT_noHeaders() {
+        final Map<String, String> headers = new HashMap<>();
+
+        assertThat(codec.encodeInto(new PropagationContext("", "", "", Collections.singletonMap("key", "value")), headers::put)).isFalse();
+        assertThat(headers).isEmpty();
+    }
+
+    @Test
+    public void GIVEN_aPopulatedContext_WHEN_encodingIntoASink_EXPECT_aValidHeaderValue() {
+        final Map<String, String> headers = new HashMap<>();
+
+        assertThat(codec.encodeInto(new PropagationContext("abc", "123", null, Collections.singletonMap("key", "value")), headers::put)).isTrue();
+        assertThat(headers).isEqualTo(
+            Collections.singletonMap(HttpHeaderV1PropagationCodec.HONEYCOMB_TRACE_HEADER, "1;trace_id=abc,parent_id=123,context=" + Base64.encodeBase64String("{\"key\":\"value\"}".getBytes(UTF_8)))
+        );
+    }
 }
@@ -73,6 +73,16 @@ public class HttpServerPropagatorTest {
         verify(mockSpanCustomizer).customize(span, mockHttpRequest);
     }
 
+    @Test
+    public void whenStartPropagation_andSpanIsNoop_httpFieldsAreNotApplied() {
+        when(mockPropagationCodec.decode(Collections.emptyMap())).thenReturn(mockPropagationContext);
+        when(mockBeeline.startTrace(EXPECTED_SPAN_NAME, mockPropagationContext, EXPECTED_SERVICE_NAME)).thenReturn(mockSpan);
+        when(mockSpan.isNoop()).thenReturn(true);
+
+        httpServerPropagator.startPropagation(mockHttpRequest);
+        verify(mockSpanCustomizer, never()).customize(any(), any());
+    }
+
     @Test
     public void whenEndPropagation_andOnlyErrorIsPresent_thenAddErrorFields() {
         final String expectedErrorMessage = "expectedErrorMessage";
@@ -3,6 +3,7 @@ package io.honeycomb.beeline.tracing.propagation;
 import org.junit.Test;
 
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -62,4 +63,48 @@ public class PropagationContextTest {
     public void checkEmptyContextHashCode() {
         assertThat(PropagationContext.emptyContext().hashCode()).isEqualTo(new PropagationContext(null, null, null, Collections.emptyMap()).hashCode());
     }
+
+    @Test
+    public void GIVEN_aContextWithTraceFields_WHEN_creatingWithNewIds_EXPECT_sameTraceFieldsAndNewIds() {
+        final PropagationContext context = new PropagationContext("123", "abc", "myDataset", Collections.singletonMap("key", "value"));
+
+        final PropagationContext derived = context.withIds("456", "def", null);
+
+        assertThat(derived.getTraceId()).isEqualTo("456");
+        assertThat(derived.getSpanId()).isEqualTo("def");
+        assertThat(derived.getDataset()).isNull();
+        assertThat(derived.getTraceFields()).isSameAs(context.getTraceFields());
+    }
+
+    @Test
+    public void GIVEN_derivedContexts_WHEN_encodingTraceFields_EXPECT_encoderToBeInvokedOnlyOnce() {
+        final PropagationContext context = new PropagationContext("123", "abc", null, Collections.singletonMap("key", "value"));
+        final PropagationContext derived = context.withIds("123", "def", null);
+        final AtomicInteger invocations = new AtomicInteger();
+        final Object key = new Object();
+
+        final String first = context.getEncodedTraceFields(key, fields -> "encoded-" + invocations.incrementAndGet());
+        final String second = derived.getEncodedTraceFields(key, fields -> "encoded-" + invocations.incrementAndGet());
+
+        assertThat(first).isEqualTo("encoded-1");
+        assertThat(second).isEqualTo("encoded-1");
+        assertThat(invocations).hasValue(1);
+    }
+
+    @Test
+    public void GIVEN_differentEncodingKeys_WHEN_encodingTraceFields_EXPECT_separateEncodings() {
+        final PropagationContext context = new PropagationContext("123", "abc", null, Collections.singletonMap("key", "value"));
+
+        assertThat(context.getEncodedTraceFields("a", fields -> "first")).isEqualTo("first");
+        assertThat(context.getEncodedTraceFields("b", fields -> "second")).isEqualTo("second");
+    }
+
+    @Test
+    public void GIVEN_aContextWithoutTraceFields_WHEN_encodingTraceFields_EXPECT_nullAndEncoderNotInvoked() {
+        final PropagationContext context = new PropagationContext("123", "abc", null, Collections.emptyMap());
+
+        assertThat(context.getEncodedTraceFields("a", fields -> {
+            throw new AssertionError("should not be invoked");
+        })).isNull();
+    }
 }
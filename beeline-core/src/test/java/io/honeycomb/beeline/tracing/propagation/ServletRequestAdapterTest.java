@@ -0,0 +1,70 @@
+package io.honeycomb.beeline.tracing.propagation;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ServletRequestAdapterTest {
+
+    @Mock
+    private HttpServletRequest mockRequest;
+
+    private BeelineServletFilter.HttpServerRequestAdapter adapter;
+
+    @Before
+    public void setUp() {
+        adapter = new BeelineServletFilter.HttpServerRequestAdapter(mockRequest);
+    }
+
+    @Test
+    public void whenConstructed_thenRequestIsNotParsed() {
+        verifyNoInteractions(mockRequest);
+    }
+
+    @Test
+    public void whenAccessingUriFieldsRepeatedly_thenUrlIsOnlyParsedOnce() {
+        when(mockRequest.getRequestURL()).thenReturn(new StringBuffer("http://example.com/a/b"));
+        when(mockRequest.getQueryString()).thenReturn("x=1&y=2&x=3");
+
+        assertThat(adapter.getURI().getPath()).isEqualTo("/a/b");
+        assertThat(adapter.getPath()).contains("/a/b");
+        assertThat(adapter.getHost()).contains("example.com");
+        assertThat(adapter.getScheme()).contains("http");
+        assertThat(adapter.getQueryParams())
+            .containsOnly(entry("x", Arrays.asList("1", "3")), entry("y", Collections.singletonList("2")))
+            .isSameAs(adapter.getQueryParams());
+
+        verify(mockRequest, times(1)).getRequestURL();
+    }
+
+    @Test
+    public void whenUrlIsInvalid_thenUriFieldsAreEmpty() {
+        when(mockRequest.getRequestURL()).thenReturn(new StringBuffer("http://example.com/a b"), new StringBuffer("http://example.com/a b"));
+
+        assertThat(adapter.getURI()).isNull();
+        assertThat(adapter.getPath()).isEmpty();
+        assertThat(adapter.getQueryParams()).isEmpty();
+
+        verify(mockRequest, times(2)).getRequestURL();
+    }
+
+    @Test
+    public void whenQueryStringIsInvalid_thenUrlWithoutQueryIsUsed() {
+        when(mockRequest.getRequestURL()).thenReturn(new StringBuffer("http://example.com/a"), new StringBuffer("http://example.com/a"));
+        when(mockRequest.getQueryString()).thenReturn("x=^");
+
+        assertThat(adapter.getPath()).contains("/a");
+        assertThat(adapter.getQueryParams()).isEmpty();
+    }
+}
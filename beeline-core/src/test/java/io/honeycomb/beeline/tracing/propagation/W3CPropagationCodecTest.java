@@ -292,4 +292,26 @@ public class W3CPropagationCodecTest {
         final Map<String, String> encoded = codec.encode(new PropagationContext(traceId, spanId, dataset, fields)).get();
         assertThat(encoded).isEqualTo(headers);
     }
+
+    @Test
+    public void GIVEN_anEmptyContext_WHEN_encodingIntoASink_EXPECT_noHeaders() {
+        final Map<String, String> headers = new HashMap<>();
+
+        assertThat(codec.encodeInto(PropagationContext.emptyContext(), headers::put)).isFalse();
+        assertThat(headers).isEmpty();
+    }
+
+    @Test
+    public void GIVEN_aPopulatedContextWithFields_WHEN_encodingIntoASink_EXPECT_sameHeadersAsEncode() {
+        String traceId = "4cbc8d50f02449e887e8bc2aa8020d26";
+        String spanId = "ace1ecab581fc069";
+        Map<String, Object> fields = new HashMap<String, Object>();
+        fields.put("foo", "bar");
+        fields.put("one", "two");
+        final PropagationContext context = new PropagationContext(traceId, spanId, null, fields);
+        final Map<String, String> headers = new HashMap<>();
+
+        assertThat(codec.encodeInto(context, headers::put)).isTrue();
+        assertThat(headers).isEqualTo(codec.encode(context).get());
+    }
 }
@@ -0,0 +1,214 @@
+package io.honeycomb.beeline.tracing.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CompiledPathMatcherTest {
+
+    /**
+     * Pattern and path pairs, mostly taken from {@link AntPathMatcherTest}, used to check that compiled patterns
+     * behave like {@link AntPathMatcher}.
+     */
+    private static final String[][] PATTERNS_AND_PATHS = {
+        {"test", "test"},
+        {"/test", "/test"},
+        {"https://example.org", "https://example.org"},
+        {"/test.jpg", "test.jpg"},
+        {"test", "/test"},
+        {"/test", "test"},
+        {"t?st", "test"},
+        {"??st", "test"},
+        {"tes?", "test"},
+        {"te??", "test"},
+        {"?es?", "test"},
+        {"tes?", "tes"},
+        {"tes?", "testt"},
+        {"tes?", "tsst"},
+        {"*", "test"},
+        {"test*", "test"},
+        {"test*", "testTest"},
+        {"test/*", "test/Test"},
+        {"test/*", "test/t"},
+        {"test/*", "test/"},
+        {"*test*", "AnothertestTest"},
+        {"*test", "Anothertest"},
+        {"*.*", "test."},
+        {"*.*", "test.test"},
+        {"*.*", "test.test.test"},
+        {"test*aaa", "testblaaaa"},
+        {"test*", "tst"},
+        {"test*", "tsttest"},
+        {"test*", "test/"},
+        {"test*", "test/t"},
+        {"test/*", "test"},
+        {"*test*", "tsttst"},
+        {"*test", "tsttst"},
+        {"*.*", "tsttst"},
+        {"test*aaa", "test"},
+        {"test*aaa", "testblaaab"},
+        {"/?", "/a"},
+        {"/?/a", "/a/a"},
+        {"/a/?", "/a/b"},
+        {"/??/a", "/aa/a"},
+        {"/a/??", "/a/bb"},
+        {"/**", "/testing/testing"},
+        {"/*/**", "/testing/testing"},
+        {"/**/*", "/testing/testing"},
+        {"/bla/**/bla", "/bla/testing/testing/bla"},
+        {"/bla/**/bla", "/bla/testing/testing/bla/bla"},
+        {"/**/test", "/bla/bla/test"},
+        {"/bla/**/**/bla", "/bla/bla/bla/bla/bla/bla"},
+        {"/bla*bla/test", "/blaXXXbla/test"},
+        {"/*bla/test", "/XXXbla/test"},
+        {"/bla*bla/test", "/blaXXXbl/test"},
+        {"/*bla/test", "XXXblab/test"},
+        {"/*bla/test", "XXXbl/test"},
+        {"/????", "/bala/bla"},
+        {"/**/*bla", "/bla/bla/bla/bbb"},
+        {"/*bla*/**/bla/**", "/XXXblaXXXX/testing/testing/bla/testing/testing/"},
+        {"/*bla*/**/bla/*", "/XXXblaXXXX/testing/testing/bla/testing"},
+        {"/*bla*/**/bla/**", "/XXXblaXXXX/testing/testing/bla/testing/testing"},
+        {"/*bla*/**/bla/**", "/XXXblaXXXX/testing/testing/bla/testing/testing.jpg"},
+        {"*bla*/**/bla/**", "XXXblaXXXX/testing/testing/bla/testing/testing/"},
+        {"*bla*/**/bla/*", "XXXblaXXXX/testing/testing/bla/testing"},
+        {"*bla*/**/bla/**", "XXXblaXXXX/testing/testing/bla/testing/testing"},
+        {"*bla*/**/bla/*", "XXXblaXXXX/testing/testing/bla/testing/testing"},
+        {"/x/x/**/bla", "/x/x/x/"},
+        {"/foo/bar/**", "/foo/bar"},
+        {"", ""},
+        {"/{bla}.*", "/testing.html"},
+        {"test?", "test"},
+        {"test?", "best"},
+        {"test/*", "view/test.jpg"},
+        {"test/**/test.jpg", "view/test.jpg"},
+        {"test/{name}.jpg", "view/test.jpg"},
+        {"test", "testian"},
+        {"test?", "testFf"},
+        {"test/*", "test/dir/name.jpg"},
+        {"test/{name}.jpg", "test/lorem.jpg"},
+        {"bla/**/test.jpg", "bla/test.jpg"},
+        {"**/{name}.jpg", "test/lorem.jpg"},
+        {"/**/{name}.jpg", "/test/lorem.jpg"},
+        {"/*/dir/{name}.jpg", "/*/dir/lorem.jpg"},
+        {"/a/*", "/a/"},
+        {"/*", "/"},
+        {"/", "/"},
+        {"/**", "/"},
+        {"/a/b", "/a/b/"},
+        {"/a/b/", "/a/b/"},
+        {"/**/a/*", "/x/a/"},
+        {"/a/**", "/a"},
+        {"/a/**", "/a/"},
+        {"//a", "/a"},
+        {"/a", "//a"},
+        {"/**/b", "/b/"},
+        {"/api/**/health", "/api/health"},
+        {"/api/*/users/{id:[0-9]+}", "/api/v1/users/42"},
+        {"/api/*/users/{id:[0-9]+}", "/api/v1/users/abc"},
+        {"/a/**/**/b", "/a/b"}
+    };
+
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+    private final CompiledPathMatcher compiledPathMatcher = new CompiledPathMatcher();
+
+    @Test
+    public void GIVEN_singleIncludePattern_EXPECT_sameResultAsAntPathMatcher() {
+        for (final String[] patternAndPath : PATTERNS_AND_PATHS) {
+            final String pattern = patternAndPath[0];
+            final String path = patternAndPath[1];
+            final CompiledPathMatcher.PathPatterns patterns =
+                compiledPathMatcher.compile(Collections.singletonList(pattern), Collections.emptyList());
+
+            assertThat(patterns.isIncluded(path))
+                .as("pattern '%s' and path '%s'", pattern, path)
+                .isEqualTo(antPathMatcher.match(pattern, path));
+        }
+    }
+
+    @Test
+    public void GIVEN_singleExcludePattern_EXPECT_oppositeResultOfAntPathMatcher() {
+        for (final String[] patternAndPath : PATTERNS_AND_PATHS) {
+            final String pattern = patternAndPath[0];
+            final String path = patternAndPath[1];
+            final CompiledPathMatcher.PathPatterns patterns =
+                compiledPathMatcher.compile(Collections.emptyList(), Collections.singletonList(pattern));
+
+            assertThat(patterns.isIncluded(path))
+                .as("pattern '%s' and path '%s'", pattern, path)
+                .isEqualTo(!antPathMatcher.match(pattern, path));
+        }
+    }
+
+    @Test
+    public void GIVEN_allPatternsAsIncludes_EXPECT_includedIfAnyAntPatternMatches() {
+        final String[] patterns = Arrays.stream(PATTERNS_AND_PATHS).map(p -> p[0]).toArray(String[]::new);
+        final CompiledPathMatcher.PathPatterns compiled =
+            compiledPathMatcher.compile(Arrays.asList(patterns), Collections.emptyList());
+
+        for (final String[] patternAndPath : PATTERNS_AND_PATHS) {
+            final String path = patternAndPath[1];
+            final boolean expected = Arrays.stream(patterns).anyMatch(p -> antPathMatcher.match(p, path));
+
+            assertThat(compiled.isIncluded(path)).as("path '%s'", path).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void GIVEN_includeAndExcludePatterns_EXPECT_excludesToTakePrecedence() {
+        final CompiledPathMatcher.PathPatterns patterns = compiledPathMatcher.compile(
+            Arrays.asList("/api/**", "/health"),
+            Arrays.asList("/api/internal/**", "/**/*.css"));
+
+        assertThat(patterns.isIncluded("/api/users/1")).isTrue();
+        assertThat(patterns.isIncluded("/health")).isTrue();
+        assertThat(patterns.isIncluded("/api/internal/metrics")).isFalse();
+        assertThat(patterns.isIncluded("/api/style.css")).isFalse();
+        assertThat(patterns.isIncluded("/other")).isFalse();
+    }
+
+    @Test
+    public void GIVEN_noPatterns_EXPECT_allPathsIncluded() {
+        final CompiledPathMatcher.PathPatterns patterns =
+            compiledPathMatcher.compile(Collections.emptyList(), Collections.emptyList());
+
+        assertThat(patterns.isIncluded("/anything")).isTrue();
+        assertThat(patterns.isIncluded("relative")).isTrue();
+    }
+
+    @Test
+    public void GIVEN_cachedDecisions_EXPECT_sameDecisionOnRepeatedCalls() {
+        final CompiledPathMatcher.PathPatterns patterns = new CompiledPathMatcher(2)
+            .compile(Collections.singletonList("/a/*"), Collections.emptyList());
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(patterns.isIncluded("/a/1")).isTrue();
+            assertThat(patterns.isIncluded("/b/1")).isFalse();
+            assertThat(patterns.isIncluded("/a/2")).isTrue();
+        }
+    }
+
+    @Test
+    public void GIVEN_cachingDisabled_EXPECT_decisionsStillCorrect() {
+        final CompiledPathMatcher.PathPatterns patterns = new CompiledPathMatcher(0)
+            .compile(Collections.singletonList("/a/*"), Collections.emptyList());
+
+        assertThat(patterns.isIncluded("/a/1")).isTrue();
+        assertThat(patterns.isIncluded("/b/1")).isFalse();
+    }
+
+    @Test
+    public void GIVEN_aNegativeCacheSize_EXPECT_IAE() {
+        assertThatThrownBy(() -> new CompiledPathMatcher(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void GIVEN_aSinglePattern_EXPECT_matchToDelegateToAntPathMatcher() {
+        assertThat(compiledPathMatcher.match("/a/**", "/a/b/c")).isTrue();
+        assertThat(compiledPathMatcher.match("/a/*", "/a/b/c")).isFalse();
+    }
+}
@@ -0,0 +1,289 @@
+package io.honeycomb.beeline.transport;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import io.honeycomb.beeline.builder.BeelineBuilder;
+import io.honeycomb.beeline.tracing.Beeline;
+import io.honeycomb.beeline.tracing.propagation.PropagationContext;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BeelineTransportTest {
+    private static final String BATCH_URL = "/1/batch/testSet";
+
+    @Rule
+    public WireMockRule wireMock = new WireMockRule(wireMockConfig().dynamicPort());
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private BeelineTransport transport;
+
+    @After
+    public void tearDown() {
+        if (transport != null) {
+            transport.close();
+        }
+    }
+
+    private void stubBatchResponse(final int status) {
+        stubBatchResponse(status, eventStatuses(Collections.nCopies(50, 202)));
+    }
+
+    private void stubBatchResponse(final int status, final String body) {
+        wireMock.stubFor(post(urlEqualTo(BATCH_URL))
+            .willReturn(aResponse().withStatus(status).withHeader("content-type", "application/json").withBody(body)));
+    }
+
+    /**
+     * A batch response with the given status for each event.
+     */
+    private static String eventStatuses(final List<Integer> statuses) {
+        return statuses.stream()
+            .map(status -> "{\"status\":" + status + "}")
+            .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private ResolvedEvent event(final String name) {
+        final ResolvedEvent event = mock(ResolvedEvent.class);
+        when(event.getApiHost()).thenReturn(URI.create("http://localhost:" + wireMock.port()));
+        when(event.getWriteKey()).thenReturn("testKey");
+        when(event.getDataset()).thenReturn("testSet");
+        when(event.getTimestamp()).thenReturn(1000L);
+        when(event.getSampleRate()).thenReturn(1);
+        when(event.getFields()).thenReturn(Collections.singletonMap("name", name));
+        return event;
+    }
+
+    private List<LoggedRequest> awaitBatchRequests(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        List<LoggedRequest> requests = wireMock.findAll(postRequestedFor(urlEqualTo(BATCH_URL)));
+        while (requests.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            requests = wireMock.findAll(postRequestedFor(urlEqualTo(BATCH_URL)));
+        }
+        return requests;
+    }
+
+    /**
+     * WireMock may already have decompressed the body of a gzip encoded request.
+     */
+    private static String bodyOf(final LoggedRequest request) throws IOException {
+        final byte[] body = request.getBody();
+        if (body.length < 2 || body[0] != (byte) 0x1f || body[1] != (byte) 0x8b) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] chunk = new byte[1024];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void GIVEN_spansSentThroughBeeline_EXPECT_gzipBatchWithSpansAndGlobalFields() throws Exception {
+        stubBatchResponse(200);
+        transport = BeelineTransport.builder()
+            .globalFields(Collections.singletonMap("global", "static"))
+            .build();
+        final Beeline beeline = new BeelineBuilder()
+            .transport(transport)
+            .apiHost("http://localhost:" + wireMock.port())
+            .writeKey("testKey")
+            .serviceName("testSet")
+            .addGlobalField("global", "static")
+            .build();
+
+        beeline.startTrace("root", PropagationContext.emptyContext());
+        beeline.startChildSpan("child").close();
+        beeline.getTracer().endTrace();
+        transport.close();
+
+        final List<LoggedRequest> requests = awaitBatchRequests(1);
+        assertThat(requests).hasSize(1);
+        final LoggedRequest request = requests.get(0);
+        assertThat(request.getHeader("X-Honeycomb-Team")).isEqualTo("testKey");
+        assertThat(request.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(bodyOf(request))
+            .startsWith("[{\"time\":")
+            .contains("\"name\":\"child\"", "\"name\":\"root\"", "\"global\":\"static\"")
+            .endsWith("}]");
+        assertThat(transport.getEventsSent()).isEqualTo(2);
+    }
+
+    @Test
+    public void GIVEN_batchSizeReached_EXPECT_batchToBeSentBeforeTimeout() throws Exception {
+        stubBatchResponse(200);
+        transport = BeelineTransport.builder().batchSize(2).batchTimeoutMillis(60_000).build();
+
+        assertThat(transport.submit(event("first"))).isTrue();
+        assertThat(transport.submit(event("second"))).isTrue();
+        assertThat(transport.submit(event("third"))).isTrue();
+
+        final List<LoggedRequest> requests = awaitBatchRequests(1);
+        assertThat(requests).hasSize(1);
+        assertThat(bodyOf(requests.get(0)))
+            .isEqualTo("[{\"time\":\"1970-01-01T00:00:01Z\",\"samplerate\":1,\"data\":{\"name\":\"first\"}},"
+                + "{\"time\":\"1970-01-01T00:00:01Z\",\"samplerate\":1,\"data\":{\"name\":\"second\"}}]");
+    }
+
+    @Test
+    public void GIVEN_batchTimeoutElapsed_EXPECT_partialBatchToBeSent() throws Exception {
+        stubBatchResponse(200);
+        transport = BeelineTransport.builder().batchSize(10).batchTimeoutMillis(10).build();
+
+        transport.submit(event("only"));
+
+        final List<LoggedRequest> requests = awaitBatchRequests(1);
+        assertThat(requests).hasSize(1);
+        assertThat(bodyOf(requests.get(0))).contains("\"name\":\"only\"");
+    }
+
+    @Test
+    public void GIVEN_closedTransport_EXPECT_queuedEventsToBeSentAndNewEventsDropped() throws Exception {
+        stubBatchResponse(200);
+        transport = BeelineTransport.builder().batchTimeoutMillis(60_000).build();
+        transport.submit(event("queued"));
+
+        transport.close();
+
+        assertThat(wireMock.findAll(postRequestedFor(urlEqualTo(BATCH_URL)))).hasSize(1);
+        assertThat(transport.getEventsSent()).isEqualTo(1);
+        assertThat(transport.submit(event("late"))).isFalse();
+        assertThat(transport.getEventsDropped()).isEqualTo(1);
+    }
+
+    @Test
+    public void GIVEN_serverError_EXPECT_eventsCountedAsFailed() {
+        stubBatchResponse(500);
+        transport = BeelineTransport.builder().build();
+        transport.submit(event("first"));
+        transport.submit(event("second"));
+
+        transport.close();
+
+        wireMock.verify(1, postRequestedFor(urlEqualTo(BATCH_URL)).withHeader("Content-Type", equalTo("application/json")));
+        assertThat(transport.getEventsSent()).isZero();
+        assertThat(transport.getEventsFailed()).isEqualTo(2);
+    }
+
+    @Test
+    public void GIVEN_eventsRejectedInAcceptedBatch_EXPECT_onlyAcceptedEventsCountedAsSent() {
+        stubBatchResponse(200, "[{\"status\":202},{\"status\":400,\"error\":\"invalid\"}]");
+        transport = BeelineTransport.builder().build();
+        transport.submit(event("accepted"));
+        transport.submit(event("rejected"));
+        transport.submit(event("unanswered"));
+
+        transport.close();
+
+        assertThat(transport.getEventsSent()).isEqualTo(1);
+        assertThat(transport.getEventsFailed()).isEqualTo(2);
+    }
+
+    @Test
+    public void GIVEN_responseWithoutEventStatuses_EXPECT_eventsCountedAsFailed() {
+        stubBatchResponse(200, "not json");
+        transport = BeelineTransport.builder().build();
+        transport.submit(event("first"));
+
+        transport.close();
+
+        assertThat(transport.getEventsSent()).isZero();
+        assertThat(transport.getEventsFailed()).isEqualTo(1);
+    }
+
+    @Test
+    public void GIVEN_queueShards_EXPECT_eventsFromAllThreadsToBeSent() throws Exception {
+        stubBatchResponse(200);
+        transport = BeelineTransport.builder().queueShards(4).batchSize(10).build();
+        final ResolvedEvent event = event("sharded");
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 25; j++) {
+                    transport.submit(event);
+                }
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        transport.close();
+
+        assertThat(transport.getEventsSent()).isEqualTo(200);
+        int sentEvents = 0;
+        for (final LoggedRequest request : wireMock.findAll(postRequestedFor(urlEqualTo(BATCH_URL)))) {
+            sentEvents += bodyOf(request).split("\"name\":\"sharded\"", -1).length - 1;
+        }
+        assertThat(sentEvents).isEqualTo(200);
+    }
+
+    @Test
+    public void GIVEN_slowServerAndSpillDirectory_EXPECT_batchesToBeSpilledAndReplayedInOrder() throws Exception {
+        wireMock.stubFor(post(urlEqualTo(BATCH_URL)).willReturn(aResponse()
+            .withStatus(200)
+            .withBody(eventStatuses(Collections.singletonList(202)))
+            .withFixedDelay(100)));
+        transport = BeelineTransport.builder()
+            .batchSize(1)
+            .maxInFlightRequests(1)
+            .spillDirectory(folder.getRoot().toPath())
+            .build();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(transport.submit(event("event" + i))).isTrue();
+        }
+        final List<LoggedRequest> requests = awaitBatchRequests(5);
+        transport.close();
+
+        assertThat(requests).hasSize(5);
+        for (int i = 0; i < 5; i++) {
+            assertThat(bodyOf(requests.get(i))).contains("\"name\":\"event" + i + "\"");
+        }
+        assertThat(transport.getEventsSent()).isEqualTo(5);
+        assertThat(transport.getEventsSpilled()).isPositive();
+        assertThat(transport.getEventsReplayed()).isEqualTo(transport.getEventsSpilled());
+        assertThat(transport.getEventsDiscarded()).isZero();
+    }
+
+    @Test
+    public void GIVEN_invalidOptions_EXPECT_exceptions() {
+        assertThatThrownBy(() -> BeelineTransport.builder().batchSize(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BeelineTransport.builder().maxInFlightRequests(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BeelineTransport.builder().queueCapacity(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BeelineTransport.builder().queueShards(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BeelineTransport.builder().globalFields(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BeelineTransport.builder().spillDirectory(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,139 @@
+package io.honeycomb.beeline.transport;
+
+import io.honeycomb.libhoney.HoneyClient;
+import io.honeycomb.libhoney.LibHoney;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.responses.ResponseObservable;
+import io.honeycomb.libhoney.transport.Transport;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FileTransportReplayerTest {
+    private static final String LINE = "{\"time\":\"1970-01-01T00:00:01Z\",\"samplerate\":1,\"data\":{\"name\":\"event\"}}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Transport mockTransport;
+    private FileTransportReplayer replayer;
+
+    @Before
+    public void setUp() {
+        mockTransport = mock(Transport.class);
+        when(mockTransport.submit(any(ResolvedEvent.class))).thenReturn(true);
+        when(mockTransport.getResponseObservable()).thenReturn(new ResponseObservable());
+        final HoneyClient client = new HoneyClient(LibHoney.options()
+            .setDataset("replayDataset")
+            .setWriteKey("replayKey")
+            .build(), mockTransport);
+        replayer = new FileTransportReplayer(client);
+    }
+
+    private static ResolvedEvent event(final String name, final String dataset, final long timestamp) {
+        final ResolvedEvent event = mock(ResolvedEvent.class);
+        when(event.getApiHost()).thenReturn(URI.create("http://localhost"));
+        when(event.getWriteKey()).thenReturn("originalKey");
+        when(event.getDataset()).thenReturn(dataset);
+        when(event.getTimestamp()).thenReturn(timestamp);
+        when(event.getSampleRate()).thenReturn(4);
+        when(event.getFields()).thenReturn(Collections.singletonMap("name", name));
+        return event;
+    }
+
+    private List<ResolvedEvent> replayedEvents(final int count) {
+        final ArgumentCaptor<ResolvedEvent> captor = ArgumentCaptor.forClass(ResolvedEvent.class);
+        verify(mockTransport, times(count)).submit(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private Path segment(final String name, final byte[] content) throws Exception {
+        return Files.write(folder.getRoot().toPath().resolve(name), content);
+    }
+
+    @Test
+    public void GIVEN_segmentsWrittenByFileTransport_EXPECT_eventsReplayedInOrder() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        final FileTransport transport = FileTransport.builder().directory(directory).segmentBytes(200).build();
+        transport.submit(event("first", "datasetA", 1000L));
+        transport.submit(event("second", "datasetB", 2000L));
+        transport.submit(event("third", "datasetA", 3000L));
+        transport.close();
+
+        assertThat(replayer.replay(directory)).isEqualTo(3);
+
+        final List<ResolvedEvent> events = replayedEvents(3);
+        assertThat(events).extracting(ResolvedEvent::getDataset).containsExactly("datasetA", "datasetB", "datasetA");
+        assertThat(events).extracting(ResolvedEvent::getTimestamp).containsExactly(1000L, 2000L, 3000L);
+        assertThat(events.get(0).getFields()).containsOnly(entry("name", "first"));
+        assertThat(events.get(0).getSampleRate()).isEqualTo(4);
+        assertThat(events.get(0).getWriteKey()).isEqualTo("replayKey");
+    }
+
+    @Test
+    public void GIVEN_directoryReplayedTwice_EXPECT_eventsSentOnceAndSegmentsMarkedAsReplayed() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        final FileTransport transport = FileTransport.builder().directory(directory).segmentBytes(200).build();
+        transport.submit(event("first", "datasetA", 1000L));
+        transport.submit(event("second", "datasetA", 2000L));
+        transport.submit(event("third", "datasetA", 3000L));
+        transport.close();
+
+        assertThat(replayer.replay(directory)).isEqualTo(3);
+        assertThat(replayer.replay(directory)).isZero();
+
+        assertThat(replayedEvents(3)).extracting(event -> event.getFields().get("name"))
+            .containsExactly("first", "second", "third");
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(Path::toString))
+                .hasSize(2)
+                .allMatch(file -> file.endsWith(FileTransportReplayer.REPLAYED_SUFFIX));
+        }
+    }
+
+    @Test
+    public void GIVEN_invalidLinesAndTrailingZeroBytes_EXPECT_onlyValidLinesReplayed() throws Exception {
+        final byte[] lines = (LINE + "\nnot json\n\n{\"data\":{}}\n" + LINE + "\n").getBytes(StandardCharsets.UTF_8);
+        final byte[] content = new byte[lines.length + 32];
+        System.arraycopy(lines, 0, content, 0, lines.length);
+        final Path segment = segment("beeline-0000000000001-000000.ndjson", content);
+
+        assertThat(replayer.replay(segment)).isEqualTo(2);
+
+        assertThat(replayedEvents(2)).extracting(ResolvedEvent::getDataset).containsOnly("replayDataset");
+    }
+
+    @Test
+    public void GIVEN_directoryWithActiveSegment_EXPECT_onlyCompletedSegmentsReplayed() throws Exception {
+        segment("beeline-0000000000001-000000.ndjson", (LINE + "\n").getBytes(StandardCharsets.UTF_8));
+        segment("beeline-0000000000002-000000.ndjson.active", (LINE + "\n").getBytes(StandardCharsets.UTF_8));
+
+        assertThat(replayer.replay(folder.getRoot().toPath())).isEqualTo(1);
+    }
+
+    @Test
+    public void GIVEN_invalidOptions_EXPECT_exceptions() {
+        assertThatThrownBy(() -> new FileTransportReplayer(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FileTransportReplayer(mock(HoneyClient.class), 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
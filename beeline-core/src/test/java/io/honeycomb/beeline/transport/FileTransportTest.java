@@ -0,0 +1,151 @@
+package io.honeycomb.beeline.transport;
+
+import io.honeycomb.beeline.builder.BeelineBuilder;
+import io.honeycomb.beeline.tracing.Beeline;
+import io.honeycomb.beeline.tracing.propagation.PropagationContext;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FileTransportTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileTransport transport;
+
+    @After
+    public void tearDown() {
+        if (transport != null) {
+            transport.close();
+        }
+    }
+
+    private static ResolvedEvent event(final String name) {
+        final ResolvedEvent event = mock(ResolvedEvent.class);
+        when(event.getApiHost()).thenReturn(URI.create("http://localhost"));
+        when(event.getWriteKey()).thenReturn("testKey");
+        when(event.getDataset()).thenReturn("testSet");
+        when(event.getTimestamp()).thenReturn(1000L);
+        when(event.getSampleRate()).thenReturn(1);
+        when(event.getFields()).thenReturn(Collections.singletonMap("name", name));
+        return event;
+    }
+
+    private List<Path> completedSegments() throws IOException {
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            return files.filter(path -> path.toString().endsWith(NdjsonSegmentWriter.SEGMENT_SUFFIX))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private List<String> completedLines() throws IOException {
+        final List<String> lines = new ArrayList<>();
+        for (final Path segment : completedSegments()) {
+            lines.addAll(Files.readAllLines(segment, StandardCharsets.UTF_8));
+        }
+        return lines;
+    }
+
+    @Test
+    public void GIVEN_spansSentThroughBeeline_EXPECT_spansWrittenAsLinesOnClose() throws Exception {
+        transport = FileTransport.builder().directory(folder.getRoot().toPath()).build();
+        final Beeline beeline = new BeelineBuilder()
+            .transport(transport)
+            .writeKey("testKey")
+            .serviceName("testSet")
+            .build();
+
+        beeline.startTrace("root", PropagationContext.emptyContext());
+        beeline.startChildSpan("child").close();
+        beeline.getTracer().endTrace();
+        transport.close();
+
+        final List<String> lines = completedLines();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).startsWith("{\"time\":").contains("\"dataset\":\"testSet\"", "\"name\":\"child\"");
+        assertThat(lines.get(1)).contains("\"name\":\"root\"").doesNotContain("testKey");
+        assertThat(transport.getEventsWritten()).isEqualTo(2);
+    }
+
+    @Test
+    public void GIVEN_segmentSizeReached_EXPECT_rolloverToNewSegment() throws Exception {
+        final String line = "{\"time\":\"1970-01-01T00:00:01Z\",\"samplerate\":1,\"dataset\":\"testSet\","
+            + "\"data\":{\"name\":\"event\"}}";
+        transport = FileTransport.builder()
+            .directory(folder.getRoot().toPath())
+            .segmentBytes(2 * (line.length() + 1))
+            .build();
+
+        for (int i = 0; i < 3; i++) {
+            transport.submit(event("event"));
+        }
+        transport.close();
+
+        assertThat(completedSegments()).hasSize(2);
+        assertThat(completedLines()).containsExactly(line, line, line);
+    }
+
+    @Test
+    public void GIVEN_rolloverTimeElapsed_EXPECT_segmentCompletedBeforeClose() throws Exception {
+        transport = FileTransport.builder().directory(folder.getRoot().toPath()).rolloverMillis(10).build();
+
+        transport.submit(event("early"));
+
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (completedSegments().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(completedLines()).hasSize(1).allMatch(line -> line.contains("\"name\":\"early\""));
+    }
+
+    @Test
+    public void GIVEN_eventLargerThanSegment_EXPECT_eventCountedAsFailed() throws Exception {
+        transport = FileTransport.builder().directory(folder.getRoot().toPath()).segmentBytes(50).build();
+
+        transport.submit(event("a name that makes this event larger than a segment"));
+        transport.close();
+
+        assertThat(transport.getEventsFailed()).isEqualTo(1);
+        assertThat(completedSegments()).isEmpty();
+    }
+
+    @Test
+    public void GIVEN_closedTransport_EXPECT_queuedEventsWrittenAndNewEventsDropped() throws Exception {
+        transport = FileTransport.builder().directory(folder.getRoot().toPath()).build();
+        transport.submit(event("queued"));
+
+        transport.close();
+
+        assertThat(completedLines()).hasSize(1);
+        assertThat(transport.submit(event("late"))).isFalse();
+        assertThat(transport.getEventsDropped()).isEqualTo(1);
+    }
+
+    @Test
+    public void GIVEN_invalidOptions_EXPECT_exceptions() {
+        assertThatThrownBy(() -> FileTransport.builder().build()).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FileTransport.builder().directory(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FileTransport.builder().segmentBytes(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FileTransport.builder().rolloverMillis(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FileTransport.builder().queueCapacity(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
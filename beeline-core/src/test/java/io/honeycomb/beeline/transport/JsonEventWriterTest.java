@@ -0,0 +1,176 @@
+package io.honeycomb.beeline.transport;
+
+import io.honeycomb.libhoney.utils.JsonUtils;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JsonEventWriterTest {
+    private static final String EVENT_PREFIX = "{\"time\":\"1970-01-01T00:00:01.234Z\",\"samplerate\":3,\"data\":";
+
+    private static String write(final JsonEventWriter writer, final Map<String, ?> fields) {
+        writer.reset();
+        writer.writeEvent(1234L, 3, fields);
+        return new String(writer.array(), 0, writer.size(), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Object> fields(final Object... keysAndValues) {
+        final Map<String, Object> fields = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            fields.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return fields;
+    }
+
+    @Test
+    public void GIVEN_scalarFields_EXPECT_batchApiEventWithJsonValues() {
+        final JsonEventWriter writer = new JsonEventWriter(Collections.emptyMap(), 10);
+
+        final String json = write(writer, fields(
+            "string", "value", "int", 42, "long", -9_000_000_000L, "double", 1.5, "bool", true,
+            "decimal", new BigDecimal("0.10"), "null", null));
+
+        assertThat(json).isEqualTo(EVENT_PREFIX + "{\"string\":\"value\",\"int\":42,\"long\":-9000000000,"
+            + "\"double\":1.5,\"bool\":true,\"decimal\":0.10,\"null\":null}}");
+    }
+
+    @Test
+    public void GIVEN_dataset_EXPECT_datasetBetweenSampleRateAndData() {
+        final JsonEventWriter writer = new JsonEventWriter(Collections.emptyMap(), 10);
+
+        writer.writeEvent(1234L, 3, "my \"dataset\"", fields("key", "value"));
+
+        assertThat(new String(writer.array(), 0, writer.size(), StandardCharsets.UTF_8)).isEqualTo(
+            "{\"time\":\"1970-01-01T00:00:01.234Z\",\"samplerate\":3,\"dataset\":\"my \\\"dataset\\\"\","
+                + "\"data\":{\"key\":\"value\"}}");
+    }
+
+    @Test
+    public void GIVEN_specialCharacters_EXPECT_escapedUtf8() {
+        final JsonEventWriter writer = new JsonEventWriter(Collections.emptyMap(), 10);
+
+        final String json = write(writer, fields("quote\"key", "a\\b\n\t\u0001 é € 😀"));
+
+        assertThat(json).isEqualTo(EVENT_PREFIX + "{\"quote\\\"key\":\"a\\\\b\\n\\t\\u0001 é € 😀\"}}");
+    }
+
+    @Test
+    public void GIVEN_nestedValues_EXPECT_objectsAndArrays() {
+        final JsonEventWriter writer = new JsonEventWriter(Collections.emptyMap(), 10);
+
+        final String json = write(writer, fields(
+            "map", Collections.singletonMap(1, Arrays.asList("a", null)), "array", new int[]{1, 2}, "empty", new Object[0]));
+
+        assertThat(json).isEqualTo(EVENT_PREFIX + "{\"map\":{\"1\":[\"a\",null]},\"array\":[1,2],\"empty\":[]}}");
+    }
+
+    @Test
+    public void GIVEN_nonFiniteNumbersAndOtherObjects_EXPECT_nullAndToString() {
+        final JsonEventWriter writer = new JsonEventWriter(Collections.emptyMap(), 10);
+
+        final String json = write(writer, fields(
+            "nan", Double.NaN, "infinity", Float.POSITIVE_INFINITY, "enum", Thread.State.NEW, "object", new StringBuilder("sb")));
+
+        assertThat(json).isEqualTo(EVENT_PREFIX + "{\"nan\":null,\"infinity\":null,\"enum\":\"NEW\",\"object\":\"sb\"}}");
+    }
+
+    @Test
+    public void GIVEN_datesAndOtherJdkTypes_EXPECT_epochMillisAndSameJsonAsLibhoneysObjectMapper() throws Exception {
+        final JsonEventWriter writer = new JsonEventWriter(Collections.emptyMap(), 10);
+        final Date date = new Date(1234L);
+        final Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(5678L);
+        final URI uri = URI.create("http://example.com/path");
+
+        final String json = write(writer, fields(
+            "date", date, "calendar", calendar, "uri", uri, "instant", Instant.ofEpochMilli(9012L),
+            "zoned", Instant.ofEpochMilli(3456L).atZone(ZoneId.of("Europe/London")),
+            "offset", Instant.ofEpochMilli(7890L).atOffset(ZoneOffset.ofHours(2))));
+
+        assertThat(json).isEqualTo(EVENT_PREFIX + "{\"date\":1234,\"calendar\":5678,\"uri\":\"http://example.com/path\","
+            + "\"instant\":9012,\"zoned\":3456,\"offset\":7890}}");
+        assertThat(json).contains("\"date\":" + JsonUtils.OBJECT_MAPPER.writeValueAsString(date) + ",")
+            .contains("\"calendar\":" + JsonUtils.OBJECT_MAPPER.writeValueAsString(calendar) + ",")
+            .contains("\"uri\":" + JsonUtils.OBJECT_MAPPER.writeValueAsString(uri) + ",");
+    }
+
+    public static class BrokenGetter {
+        public String getValue() {
+            throw new IllegalStateException("lazy loading failed");
+        }
+
+        @Override
+        public String toString() {
+            return "broken";
+        }
+    }
+
+    @Test
+    public void GIVEN_objectTheObjectMapperFailsToWrite_EXPECT_toString() {
+        final JsonEventWriter writer = new JsonEventWriter(Collections.emptyMap(), 10);
+
+        final String json = write(writer, fields("object", new BrokenGetter(), "next", 1));
+
+        assertThat(json).isEqualTo(EVENT_PREFIX + "{\"object\":\"broken\",\"next\":1}}");
+    }
+
+    @Test
+    public void GIVEN_selfReferencingMap_EXPECT_nestingToBeCutOffWithNull() {
+        final JsonEventWriter writer = new JsonEventWriter(Collections.emptyMap(), 10);
+        final Map<String, Object> cyclic = new LinkedHashMap<>();
+        cyclic.put("self", cyclic);
+
+        final String json = write(writer, fields("cyclic", cyclic));
+
+        assertThat(json).endsWith("{\"self\":null}" + String.join("", Collections.nCopies(JsonEventWriter.MAX_DEPTH, "}")) + "}}");
+    }
+
+    @Test
+    public void GIVEN_staticFields_EXPECT_sameOutputAsWithoutPreEncoding() {
+        final Map<String, Object> staticFields = fields("service", "my-service", "version", 2);
+        final JsonEventWriter preEncoding = new JsonEventWriter(staticFields, 10);
+        final JsonEventWriter plain = new JsonEventWriter(Collections.emptyMap(), 10);
+        final Map<String, Object> event = fields("service", "my-service", "version", 3, "name", "span");
+
+        assertThat(write(preEncoding, event))
+            .isEqualTo(write(plain, event))
+            .isEqualTo(EVENT_PREFIX + "{\"service\":\"my-service\",\"version\":3,\"name\":\"span\"}}");
+    }
+
+    @Test
+    public void GIVEN_moreKeysThanCached_EXPECT_uncachedKeysToBeEncodedEveryTime() {
+        final JsonEventWriter writer = new JsonEventWriter(Collections.emptyMap(), 1);
+        final Map<String, Object> event = fields("cached", 1, "uncached", 2);
+
+        assertThat(write(writer, event)).isEqualTo(EVENT_PREFIX + "{\"cached\":1,\"uncached\":2}}");
+        assertThat(write(writer, event)).isEqualTo(EVENT_PREFIX + "{\"cached\":1,\"uncached\":2}}");
+    }
+
+    @Test
+    public void GIVEN_largeEvent_EXPECT_bufferToGrow() {
+        final JsonEventWriter writer = new JsonEventWriter(Collections.emptyMap(), 10);
+        final String large = String.join("", Collections.nCopies(10_000, "x"));
+
+        assertThat(write(writer, fields("large", large))).isEqualTo(EVENT_PREFIX + "{\"large\":\"" + large + "\"}}");
+    }
+
+    @Test
+    public void GIVEN_negativeMaxCachedKeys_EXPECT_exception() {
+        assertThatThrownBy(() -> new JsonEventWriter(Collections.emptyMap(), -1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,101 @@
+package io.honeycomb.beeline.transport;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class NdjsonSegmentWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] line(final String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Path directory() {
+        return folder.getRoot().toPath().resolve("segments");
+    }
+
+    private List<String> segmentContents() throws IOException {
+        try (Stream<Path> files = Files.list(directory())) {
+            return files.sorted().map(NdjsonSegmentWriterTest::read).collect(Collectors.toList());
+        }
+    }
+
+    private static String read(final Path path) {
+        try {
+            return path.getFileName().toString().replaceAll(".*\\.", "") + ":"
+                + new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void GIVEN_lineNotFittingIntoSegment_EXPECT_rolloverToNewSegment() throws Exception {
+        final NdjsonSegmentWriter writer = new NdjsonSegmentWriter(directory(), 10, 60_000);
+
+        assertThat(writer.append(line("abcd"), 4)).isTrue();
+        assertThat(writer.append(line("efgh"), 4)).isTrue();
+        assertThat(writer.append(line("ijkl"), 4)).isTrue();
+        writer.close();
+
+        assertThat(segmentContents()).containsExactly("ndjson:abcd\nefgh\n", "ndjson:ijkl\n");
+    }
+
+    @Test
+    public void GIVEN_lineLargerThanSegment_EXPECT_lineToBeRejected() throws Exception {
+        final NdjsonSegmentWriter writer = new NdjsonSegmentWriter(directory(), 10, 60_000);
+
+        assertThat(writer.append(line("0123456789"), 10)).isFalse();
+        writer.close();
+
+        assertThat(segmentContents()).isEmpty();
+    }
+
+    @Test
+    public void GIVEN_segmentOlderThanRolloverTime_EXPECT_segmentToBeCompleted() throws Exception {
+        final NdjsonSegmentWriter writer = new NdjsonSegmentWriter(directory(), 1000, 60_000);
+        assertThat(writer.millisUntilRollover(System.currentTimeMillis())).isEqualTo(60_000);
+        writer.append(line("abcd"), 4);
+
+        writer.rollOverIfDue(System.currentTimeMillis());
+        assertThat(segmentContents()).hasSize(1).allMatch(content -> content.startsWith("active:"));
+        writer.rollOverIfDue(System.currentTimeMillis() + 60_000);
+
+        assertThat(segmentContents()).containsExactly("ndjson:abcd\n");
+        assertThat(writer.millisUntilRollover(System.currentTimeMillis())).isEqualTo(60_000);
+    }
+
+    @Test
+    public void GIVEN_activeSegmentLeftBehind_EXPECT_completedWithoutPartialLine() throws Exception {
+        Files.createDirectories(directory());
+        final byte[] content = new byte[64];
+        final byte[] lines = line("first\nsecond\nthi");
+        System.arraycopy(lines, 0, content, 0, lines.length);
+        Files.write(directory().resolve("beeline-0000000000001-000000" + NdjsonSegmentWriter.ACTIVE_SUFFIX), content);
+
+        new NdjsonSegmentWriter(directory(), 1000, 60_000).close();
+
+        assertThat(segmentContents()).containsExactly("ndjson:first\nsecond\n");
+    }
+
+    @Test
+    public void GIVEN_invalidOptions_EXPECT_exceptions() {
+        assertThatThrownBy(() -> new NdjsonSegmentWriter(directory(), 0, 60_000))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new NdjsonSegmentWriter(directory(), 1000, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,177 @@
+package io.honeycomb.beeline.transport;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assume.assumeTrue;
+
+public class SpillBufferTest {
+    private static final String URL = "http://localhost/1/batch/ds";
+    private static final String WRITE_KEY = "key";
+    /** Record header, event count, URL and write key, followed by a 5 byte payload. */
+    private static final int RECORD_LENGTH = 8 + 4 + 2 + URL.length() + 2 + WRITE_KEY.length() + 5;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] payload(final String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String pollPayload(final SpillBuffer buffer) {
+        final SpillBuffer.SpilledBatch batch = buffer.poll();
+        return batch == null ? null : new String(batch.getPayload(), StandardCharsets.UTF_8);
+    }
+
+    private Path directory() {
+        return folder.getRoot().toPath().resolve("spill");
+    }
+
+    private long segmentFiles() throws IOException {
+        return Files.list(directory()).count();
+    }
+
+    @Test
+    public void GIVEN_appendedBatches_EXPECT_toBePolledInOrderAcrossSegments() throws Exception {
+        final SpillBuffer buffer = new SpillBuffer(directory(), 10_000, SpillBuffer.HEADER_SIZE + 2 * RECORD_LENGTH);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(buffer.append(URL, WRITE_KEY, i + 1, payload("batc" + i), 5)).isTrue();
+        }
+
+        assertThat(segmentFiles()).isEqualTo(3);
+        assertThat(buffer.getPendingEvents()).isEqualTo(15);
+        final SpillBuffer.SpilledBatch first = buffer.poll();
+        assertThat(first.getUrl()).isEqualTo(URL);
+        assertThat(first.getWriteKey()).isEqualTo(WRITE_KEY);
+        assertThat(first.getEventCount()).isEqualTo(1);
+        assertThat(new String(first.getPayload(), StandardCharsets.UTF_8)).isEqualTo("batc0");
+        for (int i = 1; i < 5; i++) {
+            assertThat(pollPayload(buffer)).isEqualTo("batc" + i);
+        }
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.hasPending()).isFalse();
+        assertThat(buffer.getPendingEvents()).isZero();
+        assertThat(segmentFiles()).isZero();
+    }
+
+    @Test
+    public void GIVEN_diskBudgetReached_EXPECT_batchesToBeDiscarded() throws Exception {
+        final int segmentBytes = SpillBuffer.HEADER_SIZE + RECORD_LENGTH;
+        final SpillBuffer buffer = new SpillBuffer(directory(), 2L * segmentBytes, segmentBytes);
+
+        assertThat(buffer.append(URL, WRITE_KEY, 1, payload("batc0"), 5)).isTrue();
+        assertThat(buffer.append(URL, WRITE_KEY, 1, payload("batc1"), 5)).isTrue();
+        assertThat(buffer.append(URL, WRITE_KEY, 1, payload("batc2"), 5)).isFalse();
+
+        assertThat(pollPayload(buffer)).isEqualTo("batc0");
+        assertThat(buffer.append(URL, WRITE_KEY, 1, payload("batc3"), 5)).isTrue();
+        assertThat(pollPayload(buffer)).isEqualTo("batc1");
+        assertThat(pollPayload(buffer)).isEqualTo("batc3");
+    }
+
+    @Test
+    public void GIVEN_batchLargerThanSegment_EXPECT_batchToBeDiscarded() throws Exception {
+        final SpillBuffer buffer = new SpillBuffer(directory(), 10_000, SpillBuffer.HEADER_SIZE + RECORD_LENGTH);
+
+        assertThat(buffer.append(URL, WRITE_KEY, 1, payload("batch0"), 6)).isFalse();
+        assertThat(buffer.hasPending()).isFalse();
+    }
+
+    @Test
+    public void GIVEN_bufferReopenedWithoutClosing_EXPECT_unreadBatchesToBeRecoveredInOrder() throws Exception {
+        final SpillBuffer crashed = new SpillBuffer(directory(), 10_000, SpillBuffer.HEADER_SIZE + 2 * RECORD_LENGTH);
+        for (int i = 0; i < 3; i++) {
+            crashed.append(URL, WRITE_KEY, 2, payload("batc" + i), 5);
+        }
+        assertThat(pollPayload(crashed)).isEqualTo("batc0");
+
+        final SpillBuffer recovered = new SpillBuffer(directory(), 10_000, SpillBuffer.HEADER_SIZE + 2 * RECORD_LENGTH);
+
+        assertThat(recovered.getPendingEvents()).isEqualTo(4);
+        assertThat(pollPayload(recovered)).isEqualTo("batc1");
+        assertThat(recovered.append(URL, WRITE_KEY, 2, payload("batc3"), 5)).isTrue();
+        assertThat(pollPayload(recovered)).isEqualTo("batc2");
+        assertThat(pollPayload(recovered)).isEqualTo("batc3");
+        assertThat(recovered.poll()).isNull();
+    }
+
+    @Test
+    public void GIVEN_corruptedRecord_EXPECT_recordsFromThereToBeIgnored() throws Exception {
+        final SpillBuffer crashed = new SpillBuffer(directory(), 10_000, 10_000);
+        for (int i = 0; i < 3; i++) {
+            crashed.append(URL, WRITE_KEY, 1, payload("batc" + i), 5);
+        }
+        crashed.close();
+        final Path segment = Files.list(directory()).findFirst().get();
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            // last payload byte of the second record
+            file.seek(SpillBuffer.HEADER_SIZE + 2L * RECORD_LENGTH - 1);
+            file.write('X');
+        }
+
+        final SpillBuffer recovered = new SpillBuffer(directory(), 10_000, 10_000);
+
+        assertThat(recovered.getPendingEvents()).isEqualTo(1);
+        assertThat(pollPayload(recovered)).isEqualTo("batc0");
+        assertThat(recovered.poll()).isNull();
+    }
+
+    @Test
+    public void GIVEN_segmentWithoutValidHeader_EXPECT_segmentToBeDeleted() throws Exception {
+        Files.createDirectories(directory());
+        Files.write(directory().resolve("00000000000000000000.spill"), new byte[SpillBuffer.HEADER_SIZE + RECORD_LENGTH]);
+
+        final SpillBuffer recovered = new SpillBuffer(directory(), 10_000, 10_000);
+
+        assertThat(recovered.hasPending()).isFalse();
+        assertThat(segmentFiles()).isZero();
+    }
+
+    @Test
+    public void GIVEN_posixFileSystem_EXPECT_segmentsHoldingWriteKeysToBeReadableByTheirOwnerOnly() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        final SpillBuffer buffer = new SpillBuffer(directory(), 10_000, SpillBuffer.HEADER_SIZE + RECORD_LENGTH);
+
+        assertThat(buffer.append(URL, WRITE_KEY, 1, payload("batc0"), 5)).isTrue();
+
+        try (Stream<Path> files = Files.list(directory())) {
+            assertThat(files).allSatisfy(file -> assertThat(Files.getPosixFilePermissions(file))
+                .containsExactlyInAnyOrder(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE));
+        }
+    }
+
+    @Test
+    public void GIVEN_closedBuffer_EXPECT_unreadBatchesToBeReadAfterReopening() throws Exception {
+        final SpillBuffer buffer = new SpillBuffer(directory(), 10_000, SpillBuffer.HEADER_SIZE + RECORD_LENGTH);
+        assertThat(buffer.append(URL, WRITE_KEY, 1, payload("batc0"), 5)).isTrue();
+        assertThat(buffer.append(URL, WRITE_KEY, 1, payload("batc1"), 5)).isTrue();
+        assertThat(pollPayload(buffer)).isEqualTo("batc0");
+
+        buffer.close();
+        final SpillBuffer reopened = new SpillBuffer(directory(), 10_000, SpillBuffer.HEADER_SIZE + RECORD_LENGTH);
+
+        assertThat(segmentFiles()).isEqualTo(1);
+        assertThat(pollPayload(reopened)).isEqualTo("batc1");
+        assertThat(reopened.poll()).isNull();
+        assertThat(segmentFiles()).isZero();
+    }
+
+    @Test
+    public void GIVEN_budgetSmallerThanSegment_EXPECT_exception() {
+        assertThatThrownBy(() -> new SpillBuffer(directory(), 1_000, 10_000))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,137 @@
+package io.honeycomb.beeline.tracing.propagation;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import io.honeycomb.beeline.tracing.Beeline;
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.beeline.tracing.utils.TraceFieldConstants;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.transport.Transport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static io.honeycomb.beeline.tracing.propagation.ServletTestingUtils.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BeelineHttpClientTest {
+
+    @Rule
+    public WireMockRule wireMock = new WireMockRule(wireMockConfig().dynamicPort());
+
+    @Mock
+    private Transport mockTransport;
+
+    private Beeline beeline;
+    private BeelineHttpClient client;
+    private Span rootSpan;
+
+    @Before
+    public void setUp() throws Exception {
+        stubMockTransport(mockTransport);
+        beeline = createBeeline(createHoneyClient(mockTransport));
+        client = new BeelineHttpClient(HttpClient.newHttpClient(), beeline.getTracer(), Propagation.honeycombHeaderV1());
+        rootSpan = beeline.startTrace("root", PropagationContext.emptyContext(), SERVICE_NAME);
+        wireMock.stubFor(post(urlEqualTo("/orders"))
+            .willReturn(aResponse().withStatus(201).withHeader("content-type", "application/json").withBody("{}")));
+    }
+
+    @After
+    public void tearDown() {
+        beeline.getTracer().endTrace();
+    }
+
+    private HttpRequest request() {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + wireMock.port() + "/orders"))
+            .header("content-type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"id\":1}"))
+            .build();
+    }
+
+    private ResolvedEvent verifyClientSpanSent() {
+        final ArgumentCaptor<ResolvedEvent> captor = ArgumentCaptor.forClass(ResolvedEvent.class);
+        verify(mockTransport, timeout(5000)).submit(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    public void GIVEN_anActiveSpan_WHEN_sendingAsync_EXPECT_spanClosedOnCompletionAndTraceHeaderPropagated() throws Exception {
+        final CompletableFuture<HttpResponse<String>> future = client.sendAsync(request(), HttpResponse.BodyHandlers.ofString());
+
+        assertThat(beeline.getTracer().getActiveSpan().getSpanId()).isEqualTo(rootSpan.getSpanId());
+        assertThat(future.get(5, TimeUnit.SECONDS).statusCode()).isEqualTo(201);
+
+        final ResolvedEvent event = verifyClientSpanSent();
+        assertThat(event.getFields())
+            .containsEntry(TraceFieldConstants.SPAN_NAME_FIELD, BeelineHttpClient.DEFAULT_SPAN_NAME)
+            .containsEntry(TraceFieldConstants.PARENT_ID_FIELD, rootSpan.getSpanId())
+            .containsEntry(TraceFieldConstants.CLIENT_REQUEST_METHOD_FIELD, "POST")
+            .containsEntry(TraceFieldConstants.CLIENT_REQUEST_PATH_FIELD, "/orders")
+            .containsEntry(TraceFieldConstants.CLIENT_REQUEST_CONTENT_LENGTH_FIELD, 8)
+            .containsEntry(TraceFieldConstants.CLIENT_REQUEST_CONTENT_TYPE_FIELD, "application/json")
+            .containsEntry(TraceFieldConstants.CLIENT_RESPONSE_STATUS_CODE_FIELD, 201)
+            .containsEntry(TraceFieldConstants.CLIENT_RESPONSE_CONTENT_TYPE_FIELD, "application/json");
+        wireMock.verify(postRequestedFor(urlEqualTo("/orders"))
+            .withHeader("content-type", equalTo("application/json"))
+            .withHeader(HttpHeaderV1PropagationCodec.HONEYCOMB_TRACE_HEADER,
+                containing("parent_id=" + event.getFields().get(TraceFieldConstants.SPAN_ID_FIELD))));
+    }
+
+    @Test
+    public void GIVEN_anActiveSpan_WHEN_sending_EXPECT_spanClosedAndParentRestored() throws Exception {
+        final HttpResponse<String> response = client.send(request(), HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.body()).isEqualTo("{}");
+        assertThat(beeline.getTracer().getActiveSpan().getSpanId()).isEqualTo(rootSpan.getSpanId());
+        assertThat(verifyClientSpanSent().getFields())
+            .containsEntry(TraceFieldConstants.CLIENT_RESPONSE_STATUS_CODE_FIELD, 201);
+    }
+
+    @Test
+    public void GIVEN_anUnreachableServer_WHEN_sendingAsync_EXPECT_errorFieldsAdded() {
+        final HttpRequest request = request();
+        wireMock.stop();
+
+        final CompletableFuture<HttpResponse<String>> future = client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(ConnectException.class);
+        assertThat(verifyClientSpanSent().getFields())
+            .containsEntry(TraceFieldConstants.CLIENT_REQUEST_ERROR_FIELD, ConnectException.class.getSimpleName());
+    }
+
+    @Test
+    public void GIVEN_aRequestAdapter_WHEN_addingHeaders_EXPECT_requestOnlyCopiedWhenModified() {
+        final HttpRequest request = request();
+        final BeelineHttpClient.HttpClientRequestAdapter adapter = new BeelineHttpClient.HttpClientRequestAdapter(request);
+
+        assertThat(adapter.build()).isSameAs(request);
+        assertThat(adapter.getHeaders()).containsOnly(entry("content-type", "application/json"));
+
+        adapter.addHeader("x-test", "1");
+
+        final HttpRequest copy = adapter.build();
+        assertThat(copy.headers().firstValue("x-test")).contains("1");
+        assertThat(copy.headers().firstValue("content-type")).contains("application/json");
+        assertThat(copy.method()).isEqualTo("POST");
+        assertThat(copy.bodyPublisher()).isEqualTo(request.bodyPublisher());
+        assertThat(request.headers().firstValue("x-test")).isEmpty();
+    }
+}
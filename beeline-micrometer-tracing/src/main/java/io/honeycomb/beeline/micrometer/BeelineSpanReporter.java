@@ -0,0 +1,83 @@
+package io.honeycomb.beeline.micrometer;
+
+import io.honeycomb.beeline.tracing.RecordedSpanSender;
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.beeline.tracing.SpanBuilderFactory;
+import io.honeycomb.beeline.tracing.SpanPostProcessor;
+import io.honeycomb.libhoney.utils.Assert;
+import io.micrometer.tracing.exporter.FinishedSpan;
+import io.micrometer.tracing.exporter.SpanReporter;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.honeycomb.libhoney.utils.ObjectUtils.isNullOrEmpty;
+
+/**
+ * This class bridges Micrometer Tracing and the Beeline Framework. Register it as a {@link SpanReporter} bean and the
+ * Brave or OpenTelemetry bridge of Micrometer Tracing passes every finished span to it, to be sent by a
+ * {@link RecordedSpanSender}. The application is instrumented once, by Micrometer, and no Beeline spans are created.
+ * The span's events are sent as Span Events along with it.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe and can be shared.
+ */
+public class BeelineSpanReporter implements SpanReporter {
+    private final RecordedSpanSender sender;
+    private final String serviceName;
+
+    /**
+     * @param factory     providing the sampler, the clock and the {@link SpanPostProcessor} to send events with.
+     * @param serviceName to use for spans that don't have a local service name - must not be empty.
+     */
+    public BeelineSpanReporter(final SpanBuilderFactory factory, final String serviceName) {
+        Assert.notNull(factory, "Validation failed: factory must not be null");
+        Assert.notEmpty(serviceName, "Validation failed: serviceName must not be empty");
+
+        this.sender = new RecordedSpanSender(factory);
+        this.serviceName = serviceName;
+    }
+
+    @Override
+    public void report(final FinishedSpan span) {
+        final int globalSampleRate = sender.sampleTrace(span.getTraceId());
+        if (globalSampleRate <= 0) {
+            return;
+        }
+        final Span hcSpan = sender.toSpan(
+            span.getName(),
+            isNullOrEmpty(span.getLocalServiceName()) ? serviceName : span.getLocalServiceName(),
+            span.getTraceId(),
+            span.getParentId(),
+            span.getSpanId(),
+            new HashMap<>(span.getTags()),
+            span.getError(),
+            toEpochMicros(span.getStartTimestamp()),
+            toEpochMicros(span.getEndTimestamp()));
+        final int sampleRate = sender.send(hcSpan, globalSampleRate);
+        if (sampleRate <= 0) {
+            return;
+        }
+
+        // event timestamps are in microseconds since the epoch
+        for (final Map.Entry<Long, String> spanEvent : span.getEvents()) {
+            sender.generateSpanEvent(hcSpan, spanEvent.getValue(), spanEvent.getKey(), sampleRate).sendPresampled();
+        }
+    }
+
+    private static long toEpochMicros(final Instant instant) {
+        return instant == null ?
+            0L :
+            TimeUnit.SECONDS.toMicros(instant.getEpochSecond()) + TimeUnit.NANOSECONDS.toMicros(instant.getNano());
+    }
+
+    /**
+     * Does nothing, as the {@link SpanPostProcessor} is owned by the Beeline, which closes it on shutdown.
+     */
+    @Override
+    public void close() {
+        // nothing to release
+    }
+}
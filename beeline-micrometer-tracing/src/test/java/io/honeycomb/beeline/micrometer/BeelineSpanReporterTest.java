@@ -0,0 +1,143 @@
+package io.honeycomb.beeline.micrometer;
+
+import io.honeycomb.beeline.builder.BeelineBuilder;
+import io.honeycomb.beeline.tracing.Beeline;
+import io.honeycomb.beeline.tracing.propagation.PropagationContext;
+import io.honeycomb.beeline.tracing.utils.TraceFieldConstants;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.transport.Transport;
+import io.micrometer.tracing.exporter.FinishedSpan;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class BeelineSpanReporterTest {
+    private static final Instant START = Instant.ofEpochMilli(1_000_000L);
+
+    @Mock
+    private Transport mockTransport;
+    @Mock
+    private FinishedSpan span;
+
+    private Beeline beeline;
+    private BeelineSpanReporter reporter;
+
+    @Before
+    public void setUp() {
+        when(mockTransport.submit(any())).thenReturn(true);
+        beeline = new BeelineBuilder().transport(mockTransport).writeKey("testKey").dataSet("testSet").serviceName("testServiceName").build();
+        reporter = new BeelineSpanReporter(beeline.getSpanBuilderFactory(), "BeelineSpanReporterTest");
+
+        when(span.getName()).thenReturn("testSpan");
+        when(span.getTraceId()).thenReturn("000000abcdef0123");
+        when(span.getSpanId()).thenReturn("00000000000004d2");
+        when(span.getParentId()).thenReturn("000000000000162e");
+        when(span.getStartTimestamp()).thenReturn(START);
+        when(span.getEndTimestamp()).thenReturn(START.plusNanos(494_000L));
+        when(span.getTags()).thenReturn(Collections.singletonMap("field", "value"));
+        when(span.getEvents()).thenReturn(Collections.emptyList());
+    }
+
+    private List<ResolvedEvent> captureEvents(final int count) {
+        final ArgumentCaptor<ResolvedEvent> captor = ArgumentCaptor.forClass(ResolvedEvent.class);
+        verify(mockTransport, times(count)).submit(captor.capture());
+        verifyNoMoreInteractions(mockTransport);
+        return captor.getAllValues();
+    }
+
+    @Test
+    public void GIVEN_finishedSpan_EXPECT_eventWithIdsTimesAndTags() {
+        reporter.report(span);
+
+        final ResolvedEvent event = captureEvents(1).get(0);
+        final Map<String, Object> fields = event.getFields();
+        assertThat(event.getWriteKey()).isEqualTo("testKey");
+        assertThat(event.getTimestamp()).isEqualTo(START.toEpochMilli());
+        assertThat(fields.get(TraceFieldConstants.SPAN_NAME_FIELD)).isEqualTo("testSpan");
+        assertThat(fields.get(TraceFieldConstants.SERVICE_NAME_FIELD)).isEqualTo("BeelineSpanReporterTest");
+        assertThat(fields.get(TraceFieldConstants.TRACE_ID_FIELD)).isEqualTo("000000abcdef0123");
+        assertThat(fields.get(TraceFieldConstants.SPAN_ID_FIELD)).isEqualTo("00000000000004d2");
+        assertThat(fields.get(TraceFieldConstants.PARENT_ID_FIELD)).isEqualTo("000000000000162e");
+        assertThat(fields.get(TraceFieldConstants.DURATION_FIELD)).isEqualTo(0.494);
+        assertThat(fields.get("field")).isEqualTo("value");
+    }
+
+    @Test
+    public void GIVEN_spanWithLocalServiceNameAndNoParent_EXPECT_localServiceNameAndNoParentId() {
+        when(span.getLocalServiceName()).thenReturn("localService");
+        when(span.getParentId()).thenReturn("");
+
+        reporter.report(span);
+
+        final Map<String, Object> fields = captureEvents(1).get(0).getFields();
+        assertThat(fields.get(TraceFieldConstants.SERVICE_NAME_FIELD)).isEqualTo("localService");
+        assertThat(fields).doesNotContainKey(TraceFieldConstants.PARENT_ID_FIELD);
+    }
+
+    @Test
+    public void GIVEN_spanWithError_EXPECT_errorTag() {
+        when(span.getError()).thenReturn(new IllegalStateException("Oops!"));
+
+        reporter.report(span);
+
+        assertThat(captureEvents(1).get(0).getFields().get("error")).isEqualTo("Oops!");
+    }
+
+    @Test
+    public void GIVEN_spanWithEvents_EXPECT_spanEventPerEvent() {
+        final long startMicros = START.toEpochMilli() * 1000;
+        when(span.getEvents()).thenReturn(Arrays.asList(
+            new AbstractMap.SimpleEntry<>(startMicros + 1000L, "value"),
+            new AbstractMap.SimpleEntry<>(startMicros + 2000L, "value2")));
+
+        reporter.report(span);
+
+        final List<ResolvedEvent> events = captureEvents(3);
+        assertThat(events.get(1).getFields())
+            .containsEntry(TraceFieldConstants.META_SPAN_TYPE_FIELD, TraceFieldConstants.META_TYPE_SPAN_EVENT_VALUE)
+            .containsEntry(TraceFieldConstants.SPAN_NAME_FIELD, "value")
+            .containsEntry(TraceFieldConstants.PARENT_ID_FIELD, "00000000000004d2")
+            .containsEntry(TraceFieldConstants.TRACE_ID_FIELD, "000000abcdef0123");
+        assertThat(events.get(1).getTimestamp()).isEqualTo(START.toEpochMilli() + 1);
+        assertThat(events.get(2).getFields()).containsEntry(TraceFieldConstants.SPAN_NAME_FIELD, "value2");
+        assertThat(events.get(2).getTimestamp()).isEqualTo(START.toEpochMilli() + 2);
+    }
+
+    @Test
+    public void GIVEN_activeBeelineTrace_EXPECT_tracerContextToBeLeftAlone() {
+        final io.honeycomb.beeline.tracing.Span active = beeline.startTrace("active", PropagationContext.emptyContext());
+        try {
+            reporter.report(span);
+
+            assertThat(beeline.getActiveSpan()).isSameAs(active);
+            captureEvents(1);
+        } finally {
+            beeline.getTracer().endTrace();
+        }
+    }
+
+    @Test
+    public void GIVEN_emptyServiceName_EXPECT_exception() {
+        assertThatThrownBy(() -> new BeelineSpanReporter(beeline.getSpanBuilderFactory(), ""))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,70 @@
+package io.honeycomb.beeline.spring.beans;
+
+import brave.handler.FinishedSpanHandler;
+import brave.handler.MutableSpan;
+import brave.propagation.ExtraFieldPropagation;
+import brave.propagation.TraceContext;
+import io.honeycomb.beeline.spring.autoconfig.BeelineProperties;
+import io.honeycomb.beeline.tracing.RecordedSpanSender;
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.beeline.tracing.SpanBuilderFactory;
+import io.honeycomb.libhoney.Event;
+import io.honeycomb.libhoney.utils.Assert;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class bridges the Brave Framework and the Beeline Framework at the level of Brave's finished spans, as an
+ * alternative to the {@link BraveBeelineReporter}: each finished {@link MutableSpan} is sent by a
+ * {@link RecordedSpanSender}, without converting it into the zipkin2 model first. The span's annotations are sent as
+ * Span Events, generated in a batch once the span itself has been sampled.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe and can be shared.
+ */
+public class BraveBeelineSpanHandler extends FinishedSpanHandler {
+    private final RecordedSpanSender sender;
+    private final BeelineProperties properties;
+
+    public BraveBeelineSpanHandler(final SpanBuilderFactory factory, final BeelineProperties properties) {
+        Assert.notNull(factory, "Validation failed: factory must not be null");
+        Assert.notNull(properties, "Validation failed: properties must not be null");
+
+        this.sender = new RecordedSpanSender(factory);
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean handle(final TraceContext context, final MutableSpan span) {
+        final int globalSampleRate = sender.sampleTrace(context.traceIdString());
+        if (globalSampleRate <= 0) {
+            return true;
+        }
+        final Map<String, Object> fields = new HashMap<>(ExtraFieldPropagation.getAll(context));
+        span.forEachTag(Map::put, fields);
+        // Brave uses zero for no timestamp
+        final Span hcSpan = sender.toSpan(
+            span.name(),
+            properties.getServiceName(),
+            context.traceIdString(),
+            context.parentIdString(),
+            context.spanIdString(),
+            fields,
+            span.error(),
+            span.startTimestamp(),
+            span.finishTimestamp());
+        final int sampleRate = sender.send(hcSpan, globalSampleRate);
+        if (sampleRate <= 0) {
+            return true;
+        }
+
+        final List<Event> spanEvents = new ArrayList<>();
+        span.forEachAnnotation((target, timestamp, value) ->
+            target.add(sender.generateSpanEvent(hcSpan, value, timestamp, sampleRate)), spanEvents);
+        spanEvents.forEach(Event::sendPresampled);
+        return true;
+    }
+}
@@ -1,8 +1,11 @@
 package io.honeycomb.beeline.spring.sleuth.autoconfig;
 
+import brave.handler.FinishedSpanHandler;
 import io.honeycomb.beeline.spring.autoconfig.BeelineProperties;
 import io.honeycomb.beeline.spring.beans.BraveBeelineReporter;
+import io.honeycomb.beeline.spring.beans.BraveBeelineSpanHandler;
 import io.honeycomb.beeline.tracing.Beeline;
+import io.honeycomb.beeline.tracing.SpanBuilderFactory;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -17,9 +20,22 @@ import zipkin2.reporter.Reporter;
 @AutoConfigureBefore(TraceAutoConfiguration.class)
 public class BeelineSleuthAutoconfig {
 
-    @Bean
-    @ConditionalOnProperty(name = "honeycomb.beeline.sleuth.reporter-enabled", matchIfMissing = true, havingValue = "true")
-    public Reporter<?> beelineReporter(BeelineProperties properties, Beeline beeline) {
-        return new BraveBeelineReporter(beeline, properties);
+    @Configuration
+    @ConditionalOnProperty(name = "honeycomb.beeline.sleuth.span-handler-enabled", matchIfMissing = true, havingValue = "false")
+    static class BeelineReporterConfig {
+        @Bean
+        @ConditionalOnProperty(name = "honeycomb.beeline.sleuth.reporter-enabled", matchIfMissing = true, havingValue = "true")
+        public Reporter<?> beelineReporter(BeelineProperties properties, Beeline beeline) {
+            return new BraveBeelineReporter(beeline, properties);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "honeycomb.beeline.sleuth.span-handler-enabled", havingValue = "true")
+    static class BeelineSpanHandlerConfig {
+        @Bean
+        public FinishedSpanHandler beelineSpanHandler(BeelineProperties properties, SpanBuilderFactory factory) {
+            return new BraveBeelineSpanHandler(factory, properties);
+        }
     }
 }
@@ -13,6 +13,11 @@ public class BeelineSleuthProperties {
      * When set to false, this will prevent creation of a sleuth reporter to send tracing data to Honeycomb. Set to false if the application has a customized Reporter (to avoid duplicate events sent to Honeycomb).
      */
     private boolean enableReporter = true;
+    /**
+     * When set to true, finished Sleuth spans are sent to Honeycomb by a span handler, which converts them straight
+     * into events without going through the Beeline's Tracer, instead of by the reporter.
+     */
+    private boolean spanHandlerEnabled = false;
 
     public boolean isEnabled() {
         return enabled;
@@ -31,4 +36,13 @@ public class BeelineSleuthProperties {
         this.enableReporter = enableReporter;
         return this;
     }
+
+    public boolean isSpanHandlerEnabled() {
+        return spanHandlerEnabled;
+    }
+
+    public BeelineSleuthProperties setSpanHandlerEnabled(final boolean spanHandlerEnabled) {
+        this.spanHandlerEnabled = spanHandlerEnabled;
+        return this;
+    }
 }
@@ -0,0 +1,123 @@
+package io.honeycomb.beeline.spring.beans;
+
+import brave.handler.MutableSpan;
+import brave.propagation.TraceContext;
+import io.honeycomb.beeline.builder.BeelineBuilder;
+import io.honeycomb.beeline.spring.autoconfig.BeelineProperties;
+import io.honeycomb.beeline.tracing.Beeline;
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.beeline.tracing.propagation.PropagationContext;
+import io.honeycomb.beeline.tracing.utils.TraceFieldConstants;
+import io.honeycomb.libhoney.eventdata.ResolvedEvent;
+import io.honeycomb.libhoney.transport.Transport;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BraveBeelineSpanHandlerTest {
+    private static final long START_MICROS = 1_000_000L;
+
+    @Mock
+    private BeelineProperties properties;
+    @Mock
+    private Transport mockTransport;
+
+    private Beeline beeline;
+    private BraveBeelineSpanHandler handler;
+    private TraceContext context;
+    private MutableSpan span;
+
+    @Before
+    public void setUp() {
+        when(properties.getServiceName()).thenReturn("BraveBeelineSpanHandlerTest");
+        when(mockTransport.submit(any())).thenReturn(true);
+        beeline = new BeelineBuilder().transport(mockTransport).writeKey("testKey").dataSet("testSet").serviceName("testServiceName").build();
+        handler = new BraveBeelineSpanHandler(beeline.getSpanBuilderFactory(), properties);
+        context = TraceContext.newBuilder().traceId(0xabcdef0123L).spanId(1234L).parentId(5678L).sampled(true).build();
+        span = new MutableSpan();
+        span.name("testSpan");
+        span.startTimestamp(START_MICROS);
+        span.finishTimestamp(START_MICROS + 494L);
+    }
+
+    private List<ResolvedEvent> captureEvents(final int count) {
+        final ArgumentCaptor<ResolvedEvent> captor = ArgumentCaptor.forClass(ResolvedEvent.class);
+        verify(mockTransport, times(count)).submit(captor.capture());
+        verifyNoMoreInteractions(mockTransport);
+        return captor.getAllValues();
+    }
+
+    @Test
+    public void GIVEN_finishedSpan_EXPECT_eventWithIdsTimesAndTags() {
+        span.tag("field", "value");
+
+        assertThat(handler.handle(context, span)).isTrue();
+
+        final ResolvedEvent event = captureEvents(1).get(0);
+        final Map<String, Object> fields = event.getFields();
+        assertThat(event.getWriteKey()).isEqualTo("testKey");
+        assertThat(event.getTimestamp()).isEqualTo(START_MICROS / 1000);
+        assertThat(fields.get(TraceFieldConstants.SPAN_NAME_FIELD)).isEqualTo("testSpan");
+        assertThat(fields.get(TraceFieldConstants.SERVICE_NAME_FIELD)).isEqualTo("BraveBeelineSpanHandlerTest");
+        assertThat(fields.get(TraceFieldConstants.TRACE_ID_FIELD)).isEqualTo("000000abcdef0123");
+        assertThat(fields.get(TraceFieldConstants.SPAN_ID_FIELD)).isEqualTo("00000000000004d2");
+        assertThat(fields.get(TraceFieldConstants.PARENT_ID_FIELD)).isEqualTo("000000000000162e");
+        assertThat(fields.get(TraceFieldConstants.DURATION_FIELD)).isEqualTo(0.494);
+        assertThat(fields.get("field")).isEqualTo("value");
+    }
+
+    @Test
+    public void GIVEN_spanWithError_EXPECT_errorTag() {
+        span.error(new IllegalStateException("Oops!"));
+
+        handler.handle(context, span);
+
+        assertThat(captureEvents(1).get(0).getFields().get("error")).isEqualTo("Oops!");
+    }
+
+    @Test
+    public void GIVEN_spanWithAnnotations_EXPECT_spanEventPerAnnotation() {
+        span.annotate(START_MICROS + 1000L, "value");
+        span.annotate(START_MICROS + 2000L, "value2");
+
+        handler.handle(context, span);
+
+        final List<ResolvedEvent> events = captureEvents(3);
+        assertThat(events.get(1).getFields())
+            .containsEntry(TraceFieldConstants.META_SPAN_TYPE_FIELD, TraceFieldConstants.META_TYPE_SPAN_EVENT_VALUE)
+            .containsEntry(TraceFieldConstants.SPAN_NAME_FIELD, "value")
+            .containsEntry(TraceFieldConstants.PARENT_ID_FIELD, "00000000000004d2")
+            .containsEntry(TraceFieldConstants.TRACE_ID_FIELD, "000000abcdef0123");
+        assertThat(events.get(1).getTimestamp()).isEqualTo(START_MICROS / 1000 + 1);
+        assertThat(events.get(2).getFields()).containsEntry(TraceFieldConstants.SPAN_NAME_FIELD, "value2");
+        assertThat(events.get(2).getTimestamp()).isEqualTo(START_MICROS / 1000 + 2);
+    }
+
+    @Test
+    public void GIVEN_activeBeelineTrace_EXPECT_tracerContextToBeLeftAlone() {
+        final Span active = beeline.startTrace("active", PropagationContext.emptyContext());
+        try {
+            handler.handle(context, span);
+
+            assertThat(beeline.getActiveSpan()).isSameAs(active);
+            assertThat(captureEvents(1).get(0).getFields().get(TraceFieldConstants.TRACE_ID_FIELD))
+                .isEqualTo("000000abcdef0123");
+        } finally {
+            beeline.getTracer().endTrace();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package io.honeycomb.beeline.spring.sleuth.autoconfig;
 
+import brave.handler.FinishedSpanHandler;
 import io.honeycomb.beeline.spring.autoconfig.BeelineAutoconfig;
+import io.honeycomb.beeline.spring.beans.BraveBeelineSpanHandler;
 import org.junit.Test;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
@@ -44,4 +46,22 @@ public class BeelineSleuthAutoconfigTest {
             .withPropertyValues("honeycomb.beeline.sleuth.reporter-enabled=false")
             .run(context -> assertThat(context).doesNotHaveBean(Reporter.class));
     }
+
+    @Test
+    public void GIVEN_defaultProperties_EXPECT_NoSpanHandler() {
+        webApplicationContextRunner.withConfiguration(AutoConfigurations.of(BeelineSleuthAutoconfig.class, BeelineAutoconfig.class))
+            .withPropertyValues(defaultProps)
+            .run(context -> assertThat(context).doesNotHaveBean(FinishedSpanHandler.class));
+    }
+
+    @Test
+    public void GIVEN_sleuthSpanHandlerEnabledViaProperty_EXPECT_SpanHandlerAndNoReporter() {
+        webApplicationContextRunner.withConfiguration(AutoConfigurations.of(BeelineSleuthAutoconfig.class, BeelineAutoconfig.class))
+            .withPropertyValues(defaultProps)
+            .withPropertyValues("honeycomb.beeline.sleuth.span-handler-enabled=true")
+            .run(context -> {
+                assertThat(context).hasSingleBean(BraveBeelineSpanHandler.class);
+                assertThat(context).doesNotHaveBean(Reporter.class);
+            });
+    }
 }
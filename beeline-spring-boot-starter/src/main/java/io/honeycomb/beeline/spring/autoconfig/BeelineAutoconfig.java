@@ -20,7 +20,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @EnableConfigurationProperties(BeelineProperties.class)
 @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @ConditionalOnProperty(name = "honeycomb.beeline.enabled", matchIfMissing = true)
-@Import(BeelineConfig.class)
+@Import({BeelineConfig.class, BeelineServletConfig.class})
 public class BeelineAutoconfig implements WebMvcConfigurer {
 
     @SuppressWarnings("SpringJavaAutowiredFieldsWarningInspection")
@@ -1,14 +1,16 @@
 package io.honeycomb.beeline.spring.autoconfig;
 
-import io.honeycomb.beeline.spring.beans.BeelineHandlerInterceptor;
+import io.honeycomb.beeline.spring.beans.BeelineDataSourceBeanPostProcessor;
 import io.honeycomb.beeline.spring.beans.BeelineInstrumentation;
 import io.honeycomb.beeline.spring.beans.BeelineQueryListenerForJDBC;
 import io.honeycomb.beeline.spring.beans.BeelineRestTemplateInterceptor;
-import io.honeycomb.beeline.spring.beans.DataSourceProxyBeanPostProcessor;
 import io.honeycomb.beeline.spring.beans.DebugResponseObserver;
-import io.honeycomb.beeline.spring.beans.SpringServletFilter;
+import io.honeycomb.beeline.spring.beans.GlobalTracerBeanPostProcessor;
+import io.honeycomb.beeline.spring.beans.OrphanQueryAggregator;
+import io.honeycomb.beeline.spring.beans.SqlNormalizer;
 import io.honeycomb.beeline.spring.beans.aspects.SpanAspect;
 import io.honeycomb.beeline.tracing.Beeline;
+import io.honeycomb.beeline.tracing.FieldValueRenderer;
 import io.honeycomb.beeline.tracing.Span;
 import io.honeycomb.beeline.tracing.SpanBuilderFactory;
 import io.honeycomb.beeline.tracing.SpanPostProcessor;
@@ -31,19 +33,23 @@ import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import javax.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.AllNestedConditions;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.web.client.RestTemplateCustomizer;
-import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Lazy;
 
 import static io.honeycomb.libhoney.Options.isClassic;
 
+@Import(BeelineWebClientConfig.class)
 public class BeelineConfig {
     private static final String BEELINE_USER_AGENT_PREFIX = "beeline/";
+    // set as a system property by the beeline-agent, see BeelineAgent#INSTALLED_PROPERTY
+    private static final String BEELINE_AGENT_INSTALLED_PROPERTY = "honeycomb.beeline.agent.installed";
 
     @SuppressWarnings("SpringJavaAutowiredMembersInspection")
     @Autowired
@@ -57,8 +63,11 @@ public class BeelineConfig {
 
     @Bean
     @ConditionalOnMissingBean
-    public Tracer defaultBeelineTracer(final SpanBuilderFactory factory) {
-        return Tracing.createTracer(factory);
+    public Tracer defaultBeelineTracer(final SpanBuilderFactory factory, final BeelineProperties beelineProperties) {
+        final Integer coalesceThreshold = beelineProperties.getCoalesceSiblingSpansThreshold();
+        return coalesceThreshold == null ?
+            Tracing.createTracer(factory) :
+            Tracing.createTracer(factory, coalesceThreshold);
     }
 
     @SuppressWarnings({"OptionalUsedAsFieldOrParameterType", "BoundedWildcard"})
@@ -162,19 +171,6 @@ public class BeelineConfig {
         return BatchingHttpTransport.init(transportOptions);
     }
 
-    @Bean
-    @ConditionalOnMissingBean
-    public SpringServletFilter defaultBeelineFilter(final BeelineProperties beelineProperties,
-                                                    final Beeline beeline) {
-        return new SpringServletFilter(
-            beelineProperties.getServiceName(),
-            beelineProperties.getIncludePathPatterns(),
-            beelineProperties.getExcludePathPatterns(),
-            beeline,
-            HttpHeaderPropagationCodecFactory.create(properties.getPropagators())
-        );
-    }
-
     @Bean
     public TraceSampler<String> defaultBeelineGlobalSampler(final BeelineProperties beelineProps) {
         return Sampling.deterministicSampler(beelineProps.getSampleRate());
@@ -192,11 +188,24 @@ public class BeelineConfig {
     @Bean
     @ConditionalOnMissingBean
     public SpanPostProcessor defaultBeelineSpanProcessor(final HoneyClient client,
-                                                         final Optional<TraceSampler<Span>> maybeSamplingHook) {
+                                                         final Optional<TraceSampler<Span>> maybeSamplingHook,
+                                                         final FieldValueRenderer renderer) {
         final TraceSampler<? super Span> samplingHook = maybeSamplingHook.isPresent() ?
             maybeSamplingHook.get() :
             Sampling.alwaysSampler();
-        return Tracing.createSpanProcessor(client, samplingHook);
+        return Tracing.createSpanProcessor(client, samplingHook, renderer);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public FieldValueRenderer defaultBeelineFieldValueRenderer(final BeelineProperties beelineProperties) {
+        final BeelineProperties.FieldValueProperties fieldValues = beelineProperties.getFieldValues();
+        return new FieldValueRenderer(
+            fieldValues.getMaxDepth(),
+            fieldValues.getMaxCollectionLength(),
+            fieldValues.getMaxStringLength(),
+            fieldValues.getMaxValues(),
+            fieldValues.getRenderedTypes());
     }
 
     @Bean
@@ -210,29 +219,6 @@ public class BeelineConfig {
             instrumentations);
     }
 
-    @Bean
-    @ConditionalOnMissingBean
-    public BeelineHandlerInterceptor defaultBeelineInterceptor(final Tracer tracer, final SpanBuilderFactory factory) {
-        return new BeelineHandlerInterceptor(tracer, factory);
-    }
-
-    @Bean
-    public FilterRegistrationBean<SpringServletFilter> beelineFilterRegistration(
-        final SpringServletFilter filter,
-        final BeelineProperties properties
-    ) {
-        // SpringServletContainerInitializer
-        final FilterRegistrationBean<SpringServletFilter> registration = new FilterRegistrationBean<>(filter);
-        registration.setDispatcherTypes(
-            DispatcherType.REQUEST,
-            DispatcherType.ASYNC,
-            DispatcherType.ERROR,
-            DispatcherType.FORWARD,
-            DispatcherType.INCLUDE);
-        registration.setOrder(properties.getFilterOrder());
-        return registration;
-    }
-
     @Bean
     @ConditionalOnProperty(name = "honeycomb.beeline.rest-template.enabled", matchIfMissing = true)
     public BeelineRestTemplateInterceptor defaultBeelineRestTemplateInterceptor(final Tracer tracer) {
@@ -249,19 +235,68 @@ public class BeelineConfig {
     }
 
     @Bean
+    @ConditionalOnProperty(name = BEELINE_AGENT_INSTALLED_PROPERTY, havingValue = "false", matchIfMissing = true)
     public SpanAspect defaultBeelineSpanAspect(final Tracer tracer) {
         return new SpanAspect(tracer);
     }
 
+    /**
+     * When the beeline-agent is installed, it weaves {@code @ChildSpan} methods in place of the {@link SpanAspect},
+     * using the tracer that this registers with the {@link io.honeycomb.beeline.tracing.GlobalTracer}.
+     * <p>
+     * Static, so that it does not initialize this configuration before the other bean post processors are registered.
+     *
+     * @return the post processor registering the {@link Tracer} bean once it is initialized.
+     */
+    @Bean
+    @ConditionalOnProperty(name = BEELINE_AGENT_INSTALLED_PROPERTY, havingValue = "true")
+    public static GlobalTracerBeanPostProcessor beelineAgentTracerRegistration() {
+        return new GlobalTracerBeanPostProcessor();
+    }
+
+    @Bean
+    @Conditional(OrphanQueryAggregationCondition.class)
+    public OrphanQueryAggregator beelineOrphanQueryAggregator(Beeline beeline){
+        final BeelineProperties.JdbcProperties jdbc = properties.getJdbc();
+        return new OrphanQueryAggregator(
+            beeline, jdbc.getOrphanQuerySummaryInterval().toMillis(), jdbc.getOrphanQuerySummaryMaxQueries());
+    }
+
     @Bean
     @ConditionalOnProperty(name = "honeycomb.beeline.jdbc.enabled", havingValue = "true", matchIfMissing = true)
-    public BeelineQueryListenerForJDBC beelineQueryListenerForJDBC(Beeline beeline){
-        return new BeelineQueryListenerForJDBC(beeline);
+    public BeelineQueryListenerForJDBC beelineQueryListenerForJDBC(Beeline beeline,
+                                                                   Optional<OrphanQueryAggregator> orphanQueryAggregator){
+        final BeelineProperties.JdbcProperties jdbc = properties.getJdbc();
+        return new BeelineQueryListenerForJDBC.Builder(beeline)
+            .setSqlNormalizer(jdbc.isNormalizeQueries() ? new SqlNormalizer(jdbc.getQueryCacheSize()) : null)
+            .setQueryParameterMode(jdbc.getQueryParameters())
+            .setMaxQueryParameters(jdbc.getMaxQueryParameters())
+            .setSlowQueryThresholdMs(jdbc.getSlowQueryThreshold() == null ? null : jdbc.getSlowQueryThreshold().toMillis())
+            .setOrphanQueryPolicy(jdbc.getOrphanQueries())
+            .setOrphanQueryAggregator(orphanQueryAggregator.orElse(null))
+            .build();
     }
 
     @Bean
     @ConditionalOnProperty(name = "honeycomb.beeline.jdbc.enabled", havingValue = "true", matchIfMissing = true)
-    public DataSourceProxyBeanPostProcessor proxyBeanPostProcessor(BeelineQueryListenerForJDBC listener){
-        return new DataSourceProxyBeanPostProcessor(listener);
+    public BeelineDataSourceBeanPostProcessor beelineDataSourceBeanPostProcessor(BeelineQueryListenerForJDBC listener){
+        return new BeelineDataSourceBeanPostProcessor(listener);
+    }
+
+    /**
+     * Matches if JDBC instrumentation is enabled and orphan queries are aggregated, which are both the defaults.
+     */
+    static class OrphanQueryAggregationCondition extends AllNestedConditions {
+        OrphanQueryAggregationCondition() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty(name = "honeycomb.beeline.jdbc.enabled", havingValue = "true", matchIfMissing = true)
+        static class JdbcEnabled {
+        }
+
+        @ConditionalOnProperty(name = "honeycomb.beeline.jdbc.orphan-queries", havingValue = "aggregate", matchIfMissing = true)
+        static class OrphanQueriesAggregated {
+        }
     }
 }
@@ -1,5 +1,6 @@
 package io.honeycomb.beeline.spring.autoconfig;
 
+import io.honeycomb.beeline.builder.CachedValueSupplier;
 import io.honeycomb.beeline.spring.beans.BeelineInstrumentation;
 import io.honeycomb.libhoney.ValueSupplier;
 import org.springframework.context.ApplicationListener;
@@ -7,6 +8,7 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.lang.Nullable;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -31,8 +33,15 @@ import static io.honeycomb.beeline.tracing.utils.TraceFieldConstants.*;
  * <p>
  * In order to make invocations of this class safe even before the context is ready, we use the {@code isInit} flag
  * as a guard. It flips when we get the {@code ContextRefreshedEvent}.
+ *
+ * <p>Dynamic fields</p>
+ * The instrumentation fields only change when the context is refreshed, so the {@linkplain #getDynamicFields() dynamic
+ * fields} are cached rather than computed for every event - see {@link CachedValueSupplier}. They are invalidated on
+ * {@code ContextRefreshedEvent}, and otherwise refreshed every {@link #DYNAMIC_FIELDS_REFRESH_INTERVAL}.
  */
 public class BeelineMetaFieldProvider implements ApplicationListener<ContextRefreshedEvent> {
+    public static final Duration DYNAMIC_FIELDS_REFRESH_INTERVAL = Duration.ofMinutes(1);
+
     private final String packageName;
     private final String packageVersion;
     private final String beelineVersion;
@@ -40,6 +49,10 @@ public class BeelineMetaFieldProvider implements ApplicationListener<ContextRefr
     private final String localHostname;
     private final List<BeelineInstrumentation> instrumentations;
     private volatile boolean isInit;
+    private final CachedValueSupplier<Set<String>> cachedInstrumentations =
+        new CachedValueSupplier<>(this::getInstrumentations, DYNAMIC_FIELDS_REFRESH_INTERVAL);
+    private final CachedValueSupplier<Integer> cachedInstrumentationCount =
+        new CachedValueSupplier<>(this::getInstrumentationCount, DYNAMIC_FIELDS_REFRESH_INTERVAL);
 
     @SuppressWarnings("BoundedWildcard")
     public BeelineMetaFieldProvider(
@@ -81,7 +94,7 @@ public class BeelineMetaFieldProvider implements ApplicationListener<ContextRefr
                 final String name = instrumentation.getName();
                 set.add(name);
             }
-            return set;
+            return Collections.unmodifiableSet(set);
         } else {
             return Collections.emptySet();
         }
@@ -93,8 +106,8 @@ public class BeelineMetaFieldProvider implements ApplicationListener<ContextRefr
 
     public Map<String, ValueSupplier<?>> getDynamicFields() {
         final Map<String, ValueSupplier<?>> fields = new HashMap<>(6);
-        fields.put(INSTRUMENTATIONS_FIELD, this::getInstrumentations);
-        fields.put(INSTRUMENTATIONS_COUNT_FIELD, this::getInstrumentationCount);
+        fields.put(INSTRUMENTATIONS_FIELD, cachedInstrumentations);
+        fields.put(INSTRUMENTATIONS_COUNT_FIELD, cachedInstrumentationCount);
         return fields;
     }
 
@@ -112,5 +125,7 @@ public class BeelineMetaFieldProvider implements ApplicationListener<ContextRefr
     @Override
     public void onApplicationEvent(final ContextRefreshedEvent event) {
         isInit = true;
+        cachedInstrumentations.invalidate();
+        cachedInstrumentationCount.invalidate();
     }
 }
@@ -1,16 +1,23 @@
 package io.honeycomb.beeline.spring.autoconfig;
 
 
+import io.honeycomb.beeline.spring.beans.JdbcOrphanQueryPolicy;
+import io.honeycomb.beeline.spring.beans.JdbcQueryParameterMode;
+import io.honeycomb.beeline.spring.beans.SqlNormalizer;
+import io.honeycomb.beeline.tracing.FieldValueRenderer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.core.Ordered;
 import org.springframework.lang.Nullable;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 import java.net.URI;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -61,8 +68,9 @@ public class BeelineProperties {
     private int sampleRate = 1;
 
     /**
-     * Setting this will change the Beeline's Servlet Filter order. This might be useful, for example, when your
-     * application makes use of a security filter and rejected requests should not be captured by the beeline.
+     * Setting this will change the Beeline's Servlet Filter (or reactive WebFilter) order. This might be useful, for
+     * example, when your application makes use of a security filter and rejected requests should not be captured by
+     * the beeline.
      * <p>
      * default: Ordered#HIGHEST_PRECEDENCE
      */
@@ -82,9 +90,29 @@ public class BeelineProperties {
      */
     private boolean logHoneycombResponses;
 
+    /**
+     * When set, runs of at least this many consecutive sibling spans that repeat the same call - such as N+1 queries,
+     * identified by db.query_hash, db.query or client.request.path - are coalesced into a single span, and their
+     * parent is flagged with meta.n_plus_one. Must be at least 2.
+     * <p>
+     * default: not set, so spans are not coalesced
+     */
+    @Nullable
+    @Min(2)
+    private Integer coalesceSiblingSpansThreshold;
+
     @NotNull
     private BeelineProperties.RestTemplateProperties restTemplate = new RestTemplateProperties();
 
+    @NotNull
+    private BeelineProperties.WebClientProperties webClient = new WebClientProperties();
+
+    @NotNull
+    private BeelineProperties.JdbcProperties jdbc = new JdbcProperties();
+
+    @NotNull
+    private BeelineProperties.FieldValueProperties fieldValues = new FieldValueProperties();
+
     /**
      * Allows the definition of a list of Ant-style path patterns that are used to match against the request path of
      * incoming HTTP requests. If a request path is matched against this list then the request will be instrumented
@@ -92,7 +120,8 @@ public class BeelineProperties {
      * <p>
      * If no patterns are specified then, by default, all requests are included.
      * <p>
-     * The patterns are Ant path patterns which are matched using Spring's are org.springframework.util.AntPathMatcher.
+     * The patterns are Ant path patterns, with the same semantics as Spring's org.springframework.util.AntPathMatcher.
+     * Include and exclude patterns are compiled into a single matcher.
      */
     private List<String> includePathPatterns = new ArrayList<>(0);
 
@@ -103,7 +132,8 @@ public class BeelineProperties {
      * <p>
      * If no patterns are specified then, by default, no requests are excluded.
      * <p>
-     * The patterns are Ant path patterns which are matched using Spring's are org.springframework.util.AntPathMatcher.
+     * The patterns are Ant path patterns, with the same semantics as Spring's org.springframework.util.AntPathMatcher.
+     * Include and exclude patterns are compiled into a single matcher.
      */
     private List<String> excludePathPatterns = new ArrayList<>(0);
 
@@ -170,6 +200,14 @@ public class BeelineProperties {
         this.enabled = enabled;
     }
 
+    public Integer getCoalesceSiblingSpansThreshold() {
+        return coalesceSiblingSpansThreshold;
+    }
+
+    public void setCoalesceSiblingSpansThreshold(final Integer coalesceSiblingSpansThreshold) {
+        this.coalesceSiblingSpansThreshold = coalesceSiblingSpansThreshold;
+    }
+
     public RestTemplateProperties getRestTemplate() {
         return restTemplate;
     }
@@ -178,6 +216,30 @@ public class BeelineProperties {
         this.restTemplate = restTemplate;
     }
 
+    public WebClientProperties getWebClient() {
+        return webClient;
+    }
+
+    public void setWebClient(final WebClientProperties webClient) {
+        this.webClient = webClient;
+    }
+
+    public JdbcProperties getJdbc() {
+        return jdbc;
+    }
+
+    public void setJdbc(final JdbcProperties jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public FieldValueProperties getFieldValues() {
+        return fieldValues;
+    }
+
+    public void setFieldValues(final FieldValueProperties fieldValues) {
+        this.fieldValues = fieldValues;
+    }
+
     public int getSampleRate() {
         return sampleRate;
     }
@@ -273,6 +335,253 @@ public class BeelineProperties {
         }
     }
 
+    public static class WebClientProperties {
+        /**
+         * When set to false, this will disable the configuration of beans related to WebClient instrumentation,
+         * so deactivating the generation of spans and trace propagation through WebClient http client calls.
+         */
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        @Override
+        public String toString() {
+            return "WebClientProperties{" +
+                   "enabled=" + enabled +
+                   '}';
+        }
+    }
+
+    public static class JdbcProperties {
+        /**
+         * When set to false, this will disable the configuration of beans related to JDBC instrumentation,
+         * so deactivating the generation of spans for database queries.
+         */
+        private boolean enabled = true;
+        /**
+         * When set to true, literals are stripped from queries so that db.query has a low cardinality, and a hash of
+         * the normalized query is added as db.query_hash.
+         * <p>
+         * default: false, so queries are sent as they are
+         */
+        private boolean normalizeQueries;
+        /**
+         * The maximum number of distinct queries whose normalized form is cached.
+         */
+        @PositiveOrZero
+        private int queryCacheSize = SqlNormalizer.DEFAULT_CACHE_SIZE;
+        /**
+         * Determines whether query parameters are added to spans in full, truncated to maxQueryParameters, or not at
+         * all.
+         */
+        @NotNull
+        private JdbcQueryParameterMode queryParameters = JdbcQueryParameterMode.ALL;
+        /**
+         * The maximum number of query parameters added to a span when queryParameters is TRUNCATE.
+         */
+        @PositiveOrZero
+        private int maxQueryParameters = 10;
+        /**
+         * When set, queries are timed without creating spans, and a span is only sent for queries that fail or run
+         * for at least this long. The number and total duration of queries are always accumulated on the enclosing
+         * span as db.query_count and db.total_duration_ms.
+         */
+        @Nullable
+        private Duration slowQueryThreshold;
+        /**
+         * Determines how queries that run while no span is active (e.g. connection pool validation, migrations or
+         * scheduled jobs) are instrumented: DROP ignores them, AGGREGATE periodically sends a summary event per
+         * normalized query, and TRACE starts a new trace for each of them.
+         */
+        @NotNull
+        private JdbcOrphanQueryPolicy orphanQueries = JdbcOrphanQueryPolicy.AGGREGATE;
+        /**
+         * How often summaries of orphan queries are sent, when orphanQueries is AGGREGATE.
+         */
+        @NotNull
+        private Duration orphanQuerySummaryInterval = Duration.ofMinutes(1);
+        /**
+         * The maximum number of distinct orphan queries summarized per interval, when orphanQueries is AGGREGATE.
+         */
+        @Positive
+        private int orphanQuerySummaryMaxQueries = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isNormalizeQueries() {
+            return normalizeQueries;
+        }
+
+        public void setNormalizeQueries(final boolean normalizeQueries) {
+            this.normalizeQueries = normalizeQueries;
+        }
+
+        public int getQueryCacheSize() {
+            return queryCacheSize;
+        }
+
+        public void setQueryCacheSize(final int queryCacheSize) {
+            this.queryCacheSize = queryCacheSize;
+        }
+
+        public JdbcQueryParameterMode getQueryParameters() {
+            return queryParameters;
+        }
+
+        public void setQueryParameters(final JdbcQueryParameterMode queryParameters) {
+            this.queryParameters = queryParameters;
+        }
+
+        public int getMaxQueryParameters() {
+            return maxQueryParameters;
+        }
+
+        public void setMaxQueryParameters(final int maxQueryParameters) {
+            this.maxQueryParameters = maxQueryParameters;
+        }
+
+        public Duration getSlowQueryThreshold() {
+            return slowQueryThreshold;
+        }
+
+        public void setSlowQueryThreshold(final Duration slowQueryThreshold) {
+            this.slowQueryThreshold = slowQueryThreshold;
+        }
+
+        public JdbcOrphanQueryPolicy getOrphanQueries() {
+            return orphanQueries;
+        }
+
+        public void setOrphanQueries(final JdbcOrphanQueryPolicy orphanQueries) {
+            this.orphanQueries = orphanQueries;
+        }
+
+        public Duration getOrphanQuerySummaryInterval() {
+            return orphanQuerySummaryInterval;
+        }
+
+        public void setOrphanQuerySummaryInterval(final Duration orphanQuerySummaryInterval) {
+            this.orphanQuerySummaryInterval = orphanQuerySummaryInterval;
+        }
+
+        public int getOrphanQuerySummaryMaxQueries() {
+            return orphanQuerySummaryMaxQueries;
+        }
+
+        public void setOrphanQuerySummaryMaxQueries(final int orphanQuerySummaryMaxQueries) {
+            this.orphanQuerySummaryMaxQueries = orphanQuerySummaryMaxQueries;
+        }
+
+        @Override
+        public String toString() {
+            return "JdbcProperties{" +
+                   "enabled=" + enabled +
+                   ", normalizeQueries=" + normalizeQueries +
+                   ", queryCacheSize=" + queryCacheSize +
+                   ", queryParameters=" + queryParameters +
+                   ", maxQueryParameters=" + maxQueryParameters +
+                   ", slowQueryThreshold=" + slowQueryThreshold +
+                   ", orphanQueries=" + orphanQueries +
+                   ", orphanQuerySummaryInterval=" + orphanQuerySummaryInterval +
+                   ", orphanQuerySummaryMaxQueries=" + orphanQuerySummaryMaxQueries +
+                   '}';
+        }
+    }
+
+    public static class FieldValueProperties {
+        /**
+         * The nesting depth of maps, collections and objects rendered in span fields. Deeper values are replaced with
+         * a placeholder naming their type.
+         */
+        @PositiveOrZero
+        private int maxDepth = FieldValueRenderer.DEFAULT_MAX_DEPTH;
+        /**
+         * The number of elements rendered per map, collection or array in span fields.
+         */
+        @Positive
+        private int maxCollectionLength = FieldValueRenderer.DEFAULT_MAX_COLLECTION_LENGTH;
+        /**
+         * The length at which strings in span fields are truncated.
+         */
+        @Positive
+        private int maxStringLength = FieldValueRenderer.DEFAULT_MAX_STRING_LENGTH;
+        /**
+         * The number of values rendered per span field. Further values are replaced with a placeholder naming their
+         * type.
+         */
+        @Positive
+        private int maxValues = FieldValueRenderer.DEFAULT_MAX_VALUES;
+        /**
+         * The application types whose instances in span fields, including those of subtypes, are rendered as a map of
+         * their getter properties. Instances of other application types are rendered as their truncated toString().
+         * Only list types whose getters are cheap and free of side effects such as lazy loading.
+         */
+        private List<Class<?>> renderedTypes = new ArrayList<>(0);
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public void setMaxDepth(final int maxDepth) {
+            this.maxDepth = maxDepth;
+        }
+
+        public int getMaxCollectionLength() {
+            return maxCollectionLength;
+        }
+
+        public void setMaxCollectionLength(final int maxCollectionLength) {
+            this.maxCollectionLength = maxCollectionLength;
+        }
+
+        public int getMaxStringLength() {
+            return maxStringLength;
+        }
+
+        public void setMaxStringLength(final int maxStringLength) {
+            this.maxStringLength = maxStringLength;
+        }
+
+        public int getMaxValues() {
+            return maxValues;
+        }
+
+        public void setMaxValues(final int maxValues) {
+            this.maxValues = maxValues;
+        }
+
+        public List<Class<?>> getRenderedTypes() {
+            return renderedTypes;
+        }
+
+        public void setRenderedTypes(final List<Class<?>> renderedTypes) {
+            this.renderedTypes = renderedTypes;
+        }
+
+        @Override
+        public String toString() {
+            return "FieldValueProperties{" +
+                   "maxDepth=" + maxDepth +
+                   ", maxCollectionLength=" + maxCollectionLength +
+                   ", maxStringLength=" + maxStringLength +
+                   ", maxValues=" + maxValues +
+                   ", renderedTypes=" + renderedTypes +
+                   '}';
+        }
+    }
+
     @Override
     public String toString() {
         return "BeelineProperties{" +
@@ -283,9 +592,13 @@ public class BeelineProperties {
                ", enabled=" + enabled +
                ", sampleRate=" + sampleRate +
                ", filterOrder=" + filterOrder +
+               ", coalesceSiblingSpansThreshold=" + coalesceSiblingSpansThreshold +
                ", includePathPatterns=" + includePathPatterns +
                ", excludePathPatterns=" + excludePathPatterns +
                ", restTemplate=" + restTemplate +
+               ", webClient=" + webClient +
+               ", jdbc=" + jdbc +
+               ", fieldValues=" + fieldValues +
                ", propagators=" + String.join(",", propagators) +
                ", proxyHostname='" + proxyHostname + "'" +
                ", proxyUsername='" + proxyUsername + "'" +
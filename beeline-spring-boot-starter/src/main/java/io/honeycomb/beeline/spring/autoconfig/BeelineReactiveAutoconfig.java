@@ -0,0 +1,44 @@
+package io.honeycomb.beeline.spring.autoconfig;
+
+import io.honeycomb.beeline.spring.beans.reactive.BeelineWebFilter;
+import io.honeycomb.beeline.tracing.Beeline;
+import io.honeycomb.beeline.tracing.Tracing;
+import io.honeycomb.beeline.tracing.propagation.HttpHeaderPropagationCodecFactory;
+import io.honeycomb.libhoney.LibHoney;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+
+/**
+ * The reactive counterpart of {@link BeelineAutoconfig}, which instruments Spring WebFlux applications with a
+ * {@link BeelineWebFilter} in place of the Servlet filter and handler interceptor.
+ */
+@Configuration
+@ConditionalOnClass({LibHoney.class, Tracing.class, WebFilter.class, Mono.class})
+@EnableConfigurationProperties(BeelineProperties.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(name = "honeycomb.beeline.enabled", matchIfMissing = true)
+@Import(BeelineConfig.class)
+public class BeelineReactiveAutoconfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public BeelineWebFilter defaultBeelineWebFilter(final BeelineProperties beelineProperties,
+                                                    final Beeline beeline) {
+        return new BeelineWebFilter(
+            beelineProperties.getServiceName(),
+            beelineProperties.getIncludePathPatterns(),
+            beelineProperties.getExcludePathPatterns(),
+            beeline,
+            HttpHeaderPropagationCodecFactory.create(beelineProperties.getPropagators()),
+            beelineProperties.getFilterOrder()
+        );
+    }
+}
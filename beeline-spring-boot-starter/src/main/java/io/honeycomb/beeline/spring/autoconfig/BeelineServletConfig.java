@@ -0,0 +1,55 @@
+package io.honeycomb.beeline.spring.autoconfig;
+
+import io.honeycomb.beeline.spring.beans.BeelineHandlerInterceptor;
+import io.honeycomb.beeline.spring.beans.SpringServletFilter;
+import io.honeycomb.beeline.tracing.Beeline;
+import io.honeycomb.beeline.tracing.Tracer;
+import io.honeycomb.beeline.tracing.propagation.HttpHeaderPropagationCodecFactory;
+import javax.servlet.DispatcherType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * The Servlet beans of the Beeline, kept apart from the shared {@link BeelineConfig} so that Spring WebFlux
+ * applications, which need not have the Servlet API or Spring MVC on the classpath, never load them.
+ * Only imported by {@link BeelineAutoconfig}.
+ */
+public class BeelineServletConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SpringServletFilter defaultBeelineFilter(final BeelineProperties beelineProperties,
+                                                    final Beeline beeline) {
+        return new SpringServletFilter(
+            beelineProperties.getServiceName(),
+            beelineProperties.getIncludePathPatterns(),
+            beelineProperties.getExcludePathPatterns(),
+            beeline,
+            HttpHeaderPropagationCodecFactory.create(beelineProperties.getPropagators())
+        );
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public BeelineHandlerInterceptor defaultBeelineInterceptor(final Tracer tracer) {
+        return new BeelineHandlerInterceptor(tracer);
+    }
+
+    @Bean
+    public FilterRegistrationBean<SpringServletFilter> beelineFilterRegistration(
+        final SpringServletFilter filter,
+        final BeelineProperties properties
+    ) {
+        // SpringServletContainerInitializer
+        final FilterRegistrationBean<SpringServletFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setDispatcherTypes(
+            DispatcherType.REQUEST,
+            DispatcherType.ASYNC,
+            DispatcherType.ERROR,
+            DispatcherType.FORWARD,
+            DispatcherType.INCLUDE);
+        registration.setOrder(properties.getFilterOrder());
+        return registration;
+    }
+}
@@ -0,0 +1,39 @@
+package io.honeycomb.beeline.spring.autoconfig;
+
+import io.honeycomb.beeline.spring.beans.reactive.BeelineExchangeFilterFunction;
+import io.honeycomb.beeline.tracing.Tracer;
+import io.honeycomb.beeline.tracing.propagation.HttpHeaderPropagationCodecFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Instruments Spring's reactive {@code WebClient} if it is on the classpath. WebClient may also be used in Servlet
+ * applications, so this is imported by {@link BeelineConfig} regardless of the type of web application.
+ */
+@Configuration
+@ConditionalOnClass(name = {
+    "org.springframework.web.reactive.function.client.WebClient",
+    "reactor.core.publisher.Mono"
+})
+@ConditionalOnProperty(name = "honeycomb.beeline.web-client.enabled", matchIfMissing = true)
+public class BeelineWebClientConfig {
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private BeelineProperties properties;
+
+    @Bean
+    public BeelineExchangeFilterFunction defaultBeelineExchangeFilterFunction(final Tracer tracer) {
+        return new BeelineExchangeFilterFunction(tracer,
+            HttpHeaderPropagationCodecFactory.create(properties.getPropagators()));
+    }
+
+    @Bean
+    public WebClientCustomizer defaultBeelineWebClientCustomizer(final BeelineExchangeFilterFunction filterFunction) {
+        return filterFunction.customizer();
+    }
+}
@@ -0,0 +1,110 @@
+package io.honeycomb.beeline.spring.beans;
+
+import io.honeycomb.libhoney.utils.Assert;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * A {@link DataSource} that instruments the statements of its connections with a {@link BeelineQueryListenerForJDBC}.
+ * <p>
+ * Connections and statements are wrapped by plain delegating classes rather than reflection-based proxies, and open
+ * and close spans directly around each execution. The per-statement bookkeeping (the query, its normalized form and
+ * the parameters) is kept in fields of the statement wrappers, so that executions do not allocate beyond the spans.
+ * <p>
+ * Besides the executions, the time spent acquiring connections - e.g. waiting for a connection pool - and consuming
+ * result sets (see {@link BeelineResultSet}) is accumulated on the span that is active at the time.
+ * {@link java.sql.Wrapper#unwrap(Class)} of the data source, connections and statements returns the underlying
+ * driver or pool objects.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe, provided the delegate is. As per JDBC, the connections and statements it
+ * returns are not meant to be shared across threads.
+ */
+public class BeelineDataSource implements DataSource {
+    private final DataSource delegate;
+    private final BeelineQueryListenerForJDBC listener;
+    private final AtomicLong connectionIds = new AtomicLong();
+
+    /**
+     * @param delegate to instrument - must not be null.
+     * @param listener to instrument executions with - must not be null.
+     */
+    public BeelineDataSource(final DataSource delegate, final BeelineQueryListenerForJDBC listener) {
+        Assert.notNull(delegate, "Validation failed: delegate must not be null");
+        Assert.notNull(listener, "Validation failed: listener must not be null");
+        this.delegate = delegate;
+        this.listener = listener;
+    }
+
+    /**
+     * @return the instrumented data source.
+     */
+    public DataSource getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final long startTime = System.nanoTime();
+        try {
+            return wrap(delegate.getConnection());
+        } finally {
+            listener.recordConnectionAcquisition(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        final long startTime = System.nanoTime();
+        try {
+            return wrap(delegate.getConnection(username, password));
+        } finally {
+            listener.recordConnectionAcquisition(System.nanoTime() - startTime);
+        }
+    }
+
+    private Connection wrap(final Connection connection) {
+        return new BeelineConnection(connection, listener, Long.toString(connectionIds.incrementAndGet()));
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        return iface.isInstance(delegate) ? iface.cast(delegate) : delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+        return iface.isInstance(delegate) || delegate.isWrapperFor(iface);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(final PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(final int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+}
@@ -0,0 +1,29 @@
+package io.honeycomb.beeline.spring.beans;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps {@link DataSource} beans in a {@link BeelineDataSource}, unless they are already instrumented, either by
+ * Beeline or by datasource-proxy.
+ */
+public class BeelineDataSourceBeanPostProcessor implements BeanPostProcessor {
+
+    private final BeelineQueryListenerForJDBC listener;
+
+    public BeelineDataSourceBeanPostProcessor(final BeelineQueryListenerForJDBC listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+        if (!(bean instanceof DataSource) || bean instanceof BeelineDataSource || bean instanceof ProxyDataSource) {
+            return bean;
+        }
+
+        return new BeelineDataSource((DataSource) bean, listener);
+    }
+
+}
@@ -1,6 +1,5 @@
 package io.honeycomb.beeline.spring.beans;
 
-import io.honeycomb.beeline.tracing.Span;
 import io.honeycomb.beeline.tracing.SpanBuilderFactory;
 import io.honeycomb.beeline.tracing.Tracer;
 import io.honeycomb.libhoney.utils.Assert;
@@ -29,16 +28,23 @@ import static io.honeycomb.beeline.spring.utils.MoreTraceFieldConstants.SPRING_M
  */
 public class BeelineHandlerInterceptor extends HandlerInterceptorAdapter {
     private final Tracer tracer;
-    private final SpanBuilderFactory factory;
 
-    public BeelineHandlerInterceptor(final Tracer tracer, final SpanBuilderFactory factory) {
+    public BeelineHandlerInterceptor(final Tracer tracer) {
         Assert.notNull(tracer, "Validation failed: tracer must not be null");
-        Assert.notNull(factory, "Validation failed: factory must not be null");
 
-        this.factory = factory;
         this.tracer = tracer;
     }
 
+    /**
+     * @param tracer  to get the active span from.
+     * @param factory no longer used, the active span is renamed in place.
+     * @deprecated use {@link #BeelineHandlerInterceptor(Tracer)}.
+     */
+    @Deprecated
+    public BeelineHandlerInterceptor(final Tracer tracer, final SpanBuilderFactory factory) {
+        this(tracer);
+    }
+
     @Override
     public boolean preHandle(final HttpServletRequest request,
                              final HttpServletResponse response,
@@ -63,16 +69,9 @@ public class BeelineHandlerInterceptor extends HandlerInterceptorAdapter {
     private void addHandlerMethodFields(final HandlerMethod handler) {
         final String newSpanName = deriveHandlerName(handler);
         final String handlerName = deriveHandlerMethodValue(handler);
-        setCurrentSpanName(newSpanName);
-        tracer.getActiveSpan().addField(SPRING_HANDLER_METHOD_FIELD, handlerName);
-    }
-
-    private void setCurrentSpanName(final String newSpanName) {
-        final Span detached = tracer.popSpan(tracer.getActiveSpan());
-        final Span copyWithNewName = factory.createBuilderFrom(detached)
+        tracer.getActiveSpan()
             .setSpanName(newSpanName)
-            .build();
-        tracer.pushSpan(copyWithNewName);
+            .addField(SPRING_HANDLER_METHOD_FIELD, handlerName);
     }
 
     private void addHandlerType(final Object handler) {
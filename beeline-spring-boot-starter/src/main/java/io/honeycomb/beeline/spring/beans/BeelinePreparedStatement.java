@@ -0,0 +1,516 @@
+package io.honeycomb.beeline.spring.beans;
+
+import io.honeycomb.beeline.spring.beans.BeelineQueryListenerForJDBC.ExecutionSpans;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link PreparedStatement} returned by {@link BeelineConnection}.
+ * <p>
+ * The statement caches its normalized query, so that it is computed at most once however often the statement is
+ * executed. Parameters are only recorded if the listener adds them to spans. As the recorded parameter sets are
+ * handed to spans as they are, they are copied before being modified after an execution.
+ */
+class BeelinePreparedStatement extends BeelineStatement implements PreparedStatement {
+    private static final String[] PARAMETER_KEYS = new String[32];
+
+    static {
+        for (int i = 0; i < PARAMETER_KEYS.length; i++) {
+            PARAMETER_KEYS[i] = Integer.toString(i + 1);
+        }
+    }
+
+    private final PreparedStatement delegate;
+    private final String sql;
+    private final boolean recordingParameters;
+    private SqlNormalizer.NormalizedQuery normalizedQuery;
+    private Map<String, Object> parameters = new LinkedHashMap<>();
+    private boolean parametersShared;
+    private List<Map<String, Object>> batchParameters = new ArrayList<>();
+    private int batchSize;
+
+    BeelinePreparedStatement(final PreparedStatement delegate, final BeelineConnection connection, final String sql) {
+        super(delegate, connection);
+        this.delegate = delegate;
+        this.sql = sql;
+        this.recordingParameters = getListener().isRecordingQueryParameters();
+    }
+
+    final void recordParameter(final int parameterIndex, final Object value) {
+        if (recordingParameters) {
+            recordParameter(parameterIndex > 0 && parameterIndex <= PARAMETER_KEYS.length
+                ? PARAMETER_KEYS[parameterIndex - 1]
+                : Integer.toString(parameterIndex), value);
+        }
+    }
+
+    final void recordParameter(final String parameterName, final Object value) {
+        if (!recordingParameters) {
+            return;
+        }
+        if (parametersShared) {
+            parameters = new LinkedHashMap<>(parameters);
+            parametersShared = false;
+        }
+        parameters.put(parameterName, value);
+    }
+
+    @Override
+    void resetBatch() {
+        if (batchSize > 0 && recordingParameters) {
+            batchParameters = new ArrayList<>();
+        }
+        batchSize = 0;
+    }
+
+    @Override
+    public int getQueryCount() {
+        return 1;
+    }
+
+    @Override
+    public String getQuery(final int index) {
+        return sql;
+    }
+
+    @Override
+    public SqlNormalizer.NormalizedQuery getNormalizedQuery(final int index, final SqlNormalizer sqlNormalizer) {
+        if (normalizedQuery == null) {
+            normalizedQuery = sqlNormalizer.normalize(sql);
+        }
+        return normalizedQuery;
+    }
+
+    @Override
+    public List<Map<String, Object>> getQueryArgs(final int index) {
+        if (isBatch()) {
+            return batchParameters;
+        }
+        parametersShared = true;
+        return Collections.singletonList(parameters);
+    }
+
+    @Override
+    public String getStatementType() {
+        return "PREPARED";
+    }
+
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        final ExecutionSpans spans = startExecution(false);
+        final ResultSet results;
+        try {
+            results = delegate.executeQuery();
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+        return wrapResultSet(results);
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        final ExecutionSpans spans = startExecution(false);
+        try {
+            return delegate.executeUpdate();
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        final ExecutionSpans spans = startExecution(false);
+        try {
+            return delegate.executeLargeUpdate();
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        final ExecutionSpans spans = startExecution(false);
+        try {
+            return delegate.execute();
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        delegate.addBatch();
+        batchSize++;
+        if (recordingParameters) {
+            batchParameters.add(parameters);
+            parametersShared = true;
+        }
+    }
+
+    @Override
+    public void clearParameters() throws SQLException {
+        delegate.clearParameters();
+        if (recordingParameters) {
+            parameters = new LinkedHashMap<>();
+            parametersShared = false;
+        }
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        return delegate.getMetaData();
+    }
+
+    @Override
+    public ParameterMetaData getParameterMetaData() throws SQLException {
+        return delegate.getParameterMetaData();
+    }
+
+    @Override
+    public void setNull(final int parameterIndex, final int sqlType) throws SQLException {
+        delegate.setNull(parameterIndex, sqlType);
+        recordParameter(parameterIndex, null);
+    }
+
+    @Override
+    public void setBoolean(final int parameterIndex, final boolean x) throws SQLException {
+        delegate.setBoolean(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setByte(final int parameterIndex, final byte x) throws SQLException {
+        delegate.setByte(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setShort(final int parameterIndex, final short x) throws SQLException {
+        delegate.setShort(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setInt(final int parameterIndex, final int x) throws SQLException {
+        delegate.setInt(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setLong(final int parameterIndex, final long x) throws SQLException {
+        delegate.setLong(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setFloat(final int parameterIndex, final float x) throws SQLException {
+        delegate.setFloat(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setDouble(final int parameterIndex, final double x) throws SQLException {
+        delegate.setDouble(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setBigDecimal(final int parameterIndex, final BigDecimal x) throws SQLException {
+        delegate.setBigDecimal(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setString(final int parameterIndex, final String x) throws SQLException {
+        delegate.setString(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setBytes(final int parameterIndex, final byte[] x) throws SQLException {
+        delegate.setBytes(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setDate(final int parameterIndex, final Date x) throws SQLException {
+        delegate.setDate(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setTime(final int parameterIndex, final Time x) throws SQLException {
+        delegate.setTime(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setTimestamp(final int parameterIndex, final Timestamp x) throws SQLException {
+        delegate.setTimestamp(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setAsciiStream(final int parameterIndex, final InputStream x, final int length) throws SQLException {
+        delegate.setAsciiStream(parameterIndex, x, length);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setUnicodeStream(final int parameterIndex, final InputStream x, final int length) throws SQLException {
+        delegate.setUnicodeStream(parameterIndex, x, length);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setBinaryStream(final int parameterIndex, final InputStream x, final int length) throws SQLException {
+        delegate.setBinaryStream(parameterIndex, x, length);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setObject(final int parameterIndex, final Object x, final int targetSqlType) throws SQLException {
+        delegate.setObject(parameterIndex, x, targetSqlType);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setObject(final int parameterIndex, final Object x) throws SQLException {
+        delegate.setObject(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setCharacterStream(final int parameterIndex, final Reader x, final int length) throws SQLException {
+        delegate.setCharacterStream(parameterIndex, x, length);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setRef(final int parameterIndex, final Ref x) throws SQLException {
+        delegate.setRef(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setBlob(final int parameterIndex, final Blob x) throws SQLException {
+        delegate.setBlob(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setClob(final int parameterIndex, final Clob x) throws SQLException {
+        delegate.setClob(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setArray(final int parameterIndex, final Array x) throws SQLException {
+        delegate.setArray(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setDate(final int parameterIndex, final Date x, final Calendar cal) throws SQLException {
+        delegate.setDate(parameterIndex, x, cal);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setTime(final int parameterIndex, final Time x, final Calendar cal) throws SQLException {
+        delegate.setTime(parameterIndex, x, cal);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setTimestamp(final int parameterIndex, final Timestamp x, final Calendar cal) throws SQLException {
+        delegate.setTimestamp(parameterIndex, x, cal);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setNull(final int parameterIndex, final int sqlType, final String typeName) throws SQLException {
+        delegate.setNull(parameterIndex, sqlType, typeName);
+        recordParameter(parameterIndex, null);
+    }
+
+    @Override
+    public void setURL(final int parameterIndex, final URL x) throws SQLException {
+        delegate.setURL(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setRowId(final int parameterIndex, final RowId x) throws SQLException {
+        delegate.setRowId(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setNString(final int parameterIndex, final String x) throws SQLException {
+        delegate.setNString(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setNCharacterStream(final int parameterIndex, final Reader x, final long length) throws SQLException {
+        delegate.setNCharacterStream(parameterIndex, x, length);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setNClob(final int parameterIndex, final NClob x) throws SQLException {
+        delegate.setNClob(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setClob(final int parameterIndex, final Reader x, final long length) throws SQLException {
+        delegate.setClob(parameterIndex, x, length);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setBlob(final int parameterIndex, final InputStream x, final long length) throws SQLException {
+        delegate.setBlob(parameterIndex, x, length);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setNClob(final int parameterIndex, final Reader x, final long length) throws SQLException {
+        delegate.setNClob(parameterIndex, x, length);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setSQLXML(final int parameterIndex, final SQLXML x) throws SQLException {
+        delegate.setSQLXML(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setObject(final int parameterIndex,
+                          final Object x,
+                          final int targetSqlType,
+                          final int scaleOrLength) throws SQLException {
+        delegate.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setAsciiStream(final int parameterIndex, final InputStream x, final long length) throws SQLException {
+        delegate.setAsciiStream(parameterIndex, x, length);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setBinaryStream(final int parameterIndex, final InputStream x, final long length) throws SQLException {
+        delegate.setBinaryStream(parameterIndex, x, length);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setCharacterStream(final int parameterIndex, final Reader x, final long length) throws SQLException {
+        delegate.setCharacterStream(parameterIndex, x, length);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setAsciiStream(final int parameterIndex, final InputStream x) throws SQLException {
+        delegate.setAsciiStream(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setBinaryStream(final int parameterIndex, final InputStream x) throws SQLException {
+        delegate.setBinaryStream(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setCharacterStream(final int parameterIndex, final Reader x) throws SQLException {
+        delegate.setCharacterStream(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setNCharacterStream(final int parameterIndex, final Reader x) throws SQLException {
+        delegate.setNCharacterStream(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setClob(final int parameterIndex, final Reader x) throws SQLException {
+        delegate.setClob(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setBlob(final int parameterIndex, final InputStream x) throws SQLException {
+        delegate.setBlob(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setNClob(final int parameterIndex, final Reader x) throws SQLException {
+        delegate.setNClob(parameterIndex, x);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setObject(final int parameterIndex,
+                          final Object x,
+                          final SQLType targetSqlType,
+                          final int scaleOrLength) throws SQLException {
+        delegate.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+        recordParameter(parameterIndex, x);
+    }
+
+    @Override
+    public void setObject(final int parameterIndex, final Object x, final SQLType targetSqlType) throws SQLException {
+        delegate.setObject(parameterIndex, x, targetSqlType);
+        recordParameter(parameterIndex, x);
+    }
+}
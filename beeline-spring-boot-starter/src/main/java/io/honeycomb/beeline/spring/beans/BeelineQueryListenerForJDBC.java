@@ -6,6 +6,7 @@ import io.honeycomb.beeline.tracing.Span;
 import io.honeycomb.beeline.tracing.Tracer;
 import io.honeycomb.beeline.tracing.propagation.PropagationContext;
 import io.honeycomb.beeline.tracing.utils.TraceFieldConstants;
+import io.honeycomb.libhoney.utils.Assert;
 import net.ttddyy.dsproxy.ExecutionInfo;
 import net.ttddyy.dsproxy.QueryInfo;
 import net.ttddyy.dsproxy.listener.QueryExecutionListener;
@@ -13,65 +14,208 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class BeelineQueryListenerForJDBC implements QueryExecutionListener, BeelineInstrumentation {
     final static String CHILD_SPAN_KEY = "childSpans";
     final static String ROOT_SPAN_KEY = "rootSpan";
     final static String SHOULD_REMOVE_SPAN_KEY = "shouldRemoveSpan";
+    final static String ORPHAN_KEY = "orphan";
     private static final Logger LOG = LoggerFactory.getLogger(BeelineQueryListenerForJDBC.class);
     private final static String BATCH_SPAN_NAME = "query_batch";
     private final static String QUERY_SPAN_NAME = "query";
     private final static String SERVICE_NAME = "query_listener";
 
     private final Beeline beeline;
+    private final SqlNormalizer sqlNormalizer;
+    private final JdbcQueryParameterMode queryParameterMode;
+    private final int maxQueryParameters;
+    private final Long slowQueryThresholdMs;
+    private final JdbcOrphanQueryPolicy orphanQueryPolicy;
+    private final OrphanQueryAggregator orphanQueryAggregator;
 
     public BeelineQueryListenerForJDBC(final Beeline beeline) {
-        this.beeline = beeline;
+        this(new Builder(beeline));
+    }
+
+    private BeelineQueryListenerForJDBC(final Builder builder) {
+        this.beeline = builder.beeline;
+        this.sqlNormalizer = builder.sqlNormalizer;
+        this.queryParameterMode = builder.queryParameterMode;
+        this.maxQueryParameters = builder.maxQueryParameters;
+        this.slowQueryThresholdMs = builder.slowQueryThresholdMs;
+        this.orphanQueryPolicy = builder.orphanQueryPolicy;
+        this.orphanQueryAggregator = builder.orphanQueryAggregator;
     }
 
     @Override
     public void beforeQuery(final ExecutionInfo execInfo, final List<QueryInfo> queryInfoList) {
+        final ExecutionSpans spans = startExecution(queryInfoList.size());
+        if (spans == ExecutionSpans.ORPHAN) {
+            execInfo.addCustomValue(ORPHAN_KEY, Boolean.TRUE);
+            return;
+        }
+        if (spans.shouldRemoveRootSpan) {
+            execInfo.addCustomValue(SHOULD_REMOVE_SPAN_KEY, Boolean.TRUE);
+        }
+        execInfo.addCustomValue(ROOT_SPAN_KEY, spans.rootSpan);
+        if (spans.childSpans != null) {
+            execInfo.addCustomValue(CHILD_SPAN_KEY, spans.childSpans);
+        }
+    }
+
+    @Override
+    public void afterQuery(final ExecutionInfo execInfo, final List<QueryInfo> queryInfoList) {
+        final DataSourceProxyExecution execution = new DataSourceProxyExecution(execInfo, queryInfoList);
+        if (Boolean.TRUE.equals(execInfo.getCustomValue(ORPHAN_KEY, Boolean.class))) {
+            endExecution(ExecutionSpans.ORPHAN, execution);
+            return;
+        }
+        final Span rootSpan = safelyValidateRootSpan(execInfo);
+        if (rootSpan == null) {
+            LOG.error("Root span not found");
+            return;
+        }
+        List<?> childSpans = null;
+        if (slowQueryThresholdMs == null) {
+            childSpans = safelyValidateChildSpans(execInfo);
+            if (childSpans == null) {
+                LOG.error("Child spans not found");
+                return;
+            }
+        }
+        final boolean shouldRemoveRootSpan = Boolean.TRUE.equals(execInfo.getCustomValue(SHOULD_REMOVE_SPAN_KEY, Boolean.class));
+        endExecution(new ExecutionSpans(rootSpan, childSpans, shouldRemoveRootSpan), execution);
+    }
+
+    /**
+     * Starts the instrumentation of a statement execution, using the active span as the root span, or starting a new
+     * trace if there is none, depending on the orphan query policy.
+     *
+     * @param queryCount the number of queries of the execution.
+     * @return the spans to pass to {@link #endExecution} once the execution completed.
+     */
+    ExecutionSpans startExecution(final int queryCount) {
         final Span rootSpan;
-        if (beeline.getActiveSpan().isNoop()) {
+        final boolean shouldRemoveRootSpan;
+        if (beeline.getActiveSpan().isNoop() && orphanQueryPolicy != JdbcOrphanQueryPolicy.TRACE) {
+            LOG.trace("Could not find an active span, orphan query policy is {}", orphanQueryPolicy);
+            return ExecutionSpans.ORPHAN;
+        } else if (beeline.getActiveSpan().isNoop()) {
             rootSpan = beeline.startTrace(BATCH_SPAN_NAME, PropagationContext.emptyContext(), SERVICE_NAME);
-            execInfo.addCustomValue(SHOULD_REMOVE_SPAN_KEY, Boolean.TRUE);
+            shouldRemoveRootSpan = true;
             LOG.trace("Could not find an active span, creating trace. parentId={}, traceId={} spanId={}", rootSpan.getParentSpanId(), rootSpan.getTraceId(), rootSpan.getSpanId());
         } else {
             rootSpan = beeline.getActiveSpan();
+            shouldRemoveRootSpan = false;
         }
         LOG.debug("beforeQuery root span parentId={}, traceId={} spanId={}", rootSpan.getParentSpanId(), rootSpan.getTraceId(), rootSpan.getSpanId());
+        if (slowQueryThresholdMs != null) {
+            // spans are only created after the fact, for slow or failed queries
+            return new ExecutionSpans(rootSpan, null, shouldRemoveRootSpan);
+        }
         final Tracer tracer = beeline.getTracer();
-        final List<Span> childSpans = new ArrayList<>();
-        queryInfoList.forEach(queryInfo -> {
-            final Span childSpan = tracer.startChildSpan(QUERY_SPAN_NAME);
+        final List<Span> childSpans = new ArrayList<>(queryCount);
+        for (int i = 0; i < queryCount; i++) {
+            // detached, so that the queries of a batch are siblings rather than each nested in the previous one - they
+            // are attached to the tracer one at a time when they are closed, see closeChildSpans
+            final Span childSpan = tracer.startDetachedChildSpan(QUERY_SPAN_NAME);
             childSpan.markStart();
             childSpans.add(childSpan);
             LOG.debug("beforeQuery child span parentId={}, traceId={} spanId={}", childSpan.getParentSpanId(), childSpan.getTraceId(), childSpan.getSpanId());
-        });
-        execInfo.addCustomValue(CHILD_SPAN_KEY, childSpans);
-        execInfo.addCustomValue(ROOT_SPAN_KEY, rootSpan);
+        }
+        return new ExecutionSpans(rootSpan, childSpans, shouldRemoveRootSpan);
     }
 
-    @SuppressFBWarnings({"RCN_REDUNDANT_NULLCHECK_OF_NONNULL_VALUE", "RCN_REDUNDANT_NULLCHECK_OF_NULL_VALUE", "RCN_REDUNDANT_NULLCHECK_WOULD_HAVE_BEEN_A_NPE", "NP_LOAD_OF_KNOWN_NULL_VALUE"}) // JDK 11 issue https://github.com/spotbugs/spotbugs/issues/756
-    @Override
-    public void afterQuery(final ExecutionInfo execInfo, final List<QueryInfo> queryInfoList) {
-        final Span rootSpan = safelyValidateRootSpan(execInfo);
-        final List<Span> childSpans = safelyValidateChildSpans(execInfo);
-        if (rootSpan == null) {
-            LOG.error("Root span not found");
+    /**
+     * Completes the instrumentation of a statement execution.
+     *
+     * @param spans     returned by {@link #startExecution(int)} for the execution.
+     * @param execution the completed execution.
+     */
+    void endExecution(final ExecutionSpans spans, final JdbcExecution execution) {
+        if (spans == ExecutionSpans.ORPHAN) {
+            recordOrphanQueries(execution);
             return;
         }
-        if (childSpans == null) {
-            LOG.error("Child spans not found");
+        final Span rootSpan = spans.rootSpan;
+        LOG.debug("afterQuery root span parentId={}, traceId={} spanId={}", rootSpan.getParentSpanId(), rootSpan.getTraceId(), rootSpan.getSpanId());
+        if (spans.childSpans == null) {
+            sendSlowQuerySpans(execution);
+        } else {
+            closeChildSpans(execution, spans.childSpans);
+        }
+        addQueryTotals(execution, rootSpan);
+
+        if (spans.shouldRemoveRootSpan) {
+            LOG.trace("Closing root span parentId={}, traceId={} spanId={}", rootSpan.getParentSpanId(), rootSpan.getTraceId(), rootSpan.getSpanId());
+            rootSpan.close();
+        }
+    }
+
+    /**
+     * Accumulates the number of connections acquired and the time it took on the active span, if there is one.
+     *
+     * @param durationNanos the time the acquisition took, whether it succeeded or not.
+     */
+    void recordConnectionAcquisition(final long durationNanos) {
+        final Span activeSpan = beeline.getActiveSpan();
+        if (activeSpan.isNoop()) {
             return;
         }
-        if (childSpans.size() != queryInfoList.size()) {
-            LOG.warn("Expected Child spans to match queries childSpans={} queries={}", childSpans.size(), queryInfoList.size());
+        final Map<String, Object> fields = activeSpan.getFields();
+        activeSpan.addField(TraceFieldConstants.DATABASE_CONNECTION_ACQUIRE_COUNT_FIELD,
+            longValue(fields.get(TraceFieldConstants.DATABASE_CONNECTION_ACQUIRE_COUNT_FIELD)) + 1);
+        activeSpan.addField(TraceFieldConstants.DATABASE_CONNECTION_ACQUIRE_DURATION_FIELD,
+            doubleValue(fields.get(TraceFieldConstants.DATABASE_CONNECTION_ACQUIRE_DURATION_FIELD)) + toMillis(durationNanos));
+    }
+
+    /**
+     * @return the span to record the consumption of a result set on, i.e. the active span - or null if there is none.
+     */
+    Span getResultSetSpan() {
+        final Span activeSpan = beeline.getActiveSpan();
+        return activeSpan.isNoop() ? null : activeSpan;
+    }
+
+    /**
+     * Accumulates the number of rows read from a result set and the time it took to consume it on a span.
+     *
+     * @param span          returned by {@link #getResultSetSpan()} when the result set was returned.
+     * @param rows          the number of rows read.
+     * @param durationNanos the time between the result set being returned and its consumption ending.
+     */
+    void recordResultSetConsumption(final Span span, final long rows, final long durationNanos) {
+        final Map<String, Object> fields = span.getFields();
+        span.addField(TraceFieldConstants.DATABASE_RESULT_SET_ROWS_FIELD,
+            longValue(fields.get(TraceFieldConstants.DATABASE_RESULT_SET_ROWS_FIELD)) + rows);
+        span.addField(TraceFieldConstants.DATABASE_RESULT_SET_DURATION_FIELD,
+            doubleValue(fields.get(TraceFieldConstants.DATABASE_RESULT_SET_DURATION_FIELD)) + toMillis(durationNanos));
+    }
+
+    private static double toMillis(final long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * @return whether query parameters are added to spans, so that sources of executions can skip recording them.
+     */
+    boolean isRecordingQueryParameters() {
+        return queryParameterMode != JdbcQueryParameterMode.NONE;
+    }
+
+    @SuppressFBWarnings({"RCN_REDUNDANT_NULLCHECK_OF_NONNULL_VALUE", "RCN_REDUNDANT_NULLCHECK_OF_NULL_VALUE", "RCN_REDUNDANT_NULLCHECK_WOULD_HAVE_BEEN_A_NPE", "NP_LOAD_OF_KNOWN_NULL_VALUE"}) // JDK 11 issue https://github.com/spotbugs/spotbugs/issues/756
+    private void closeChildSpans(final JdbcExecution execution, final List<?> childSpans) {
+        final int queryCount = execution.getQueryCount();
+        if (childSpans.size() != queryCount) {
+            LOG.warn("Expected Child spans to match queries childSpans={} queries={}", childSpans.size(), queryCount);
         }
 
-        LOG.debug("afterQuery root span parentId={}, traceId={} spanId={}", rootSpan.getParentSpanId(), rootSpan.getTraceId(), rootSpan.getSpanId());
-        final int length = Math.min(childSpans.size(), queryInfoList.size());
+        final Tracer tracer = beeline.getTracer();
+        final int length = Math.min(childSpans.size(), queryCount);
         for (int i = 0; i < length; i++) {
             final Object o = childSpans.get(i);
             final Class<?> oClass = o.getClass();
@@ -79,21 +223,74 @@ public class BeelineQueryListenerForJDBC implements QueryExecutionListener, Beel
                 LOG.warn("Expected span type but got class {}", oClass);
                 continue;
             }
-            try (Span span = (Span) o) {
-                final QueryInfo info = queryInfoList.get(i);
-                applyToSpan(execInfo, info, span);
+            // pushed and closed right away, so that the tracer sends it, e.g. coalescing N+1 queries, as it does for
+            // any other child span
+            try (Span span = tracer.pushSpan((Span) o)) {
+                applyToSpan(execution, i, span);
                 LOG.debug("afterQuery child span parentId={}, traceId={} spanId={}", span.getParentSpanId(), span.getTraceId(), span.getSpanId());
                 LOG.debug("afterQuery db.query={}", span.getFields().get(TraceFieldConstants.DATABASE_QUERY_FIELD));
             }
         }
+    }
 
-        final Boolean shouldRemoveRootSpanFlag = execInfo.getCustomValue(SHOULD_REMOVE_SPAN_KEY, Boolean.class);
-        if (shouldRemoveRootSpanFlag != null && shouldRemoveRootSpanFlag) {
-            LOG.trace("Closing root span parentId={}, traceId={} spanId={}", rootSpan.getParentSpanId(), rootSpan.getTraceId(), rootSpan.getSpanId());
-            rootSpan.close();
+    /**
+     * Sends a span for each query of an execution that failed or took at least {@code slowQueryThresholdMs}, with
+     * its start time backdated by the execution's elapsed time.
+     */
+    @SuppressFBWarnings({"RCN_REDUNDANT_NULLCHECK_OF_NONNULL_VALUE", "RCN_REDUNDANT_NULLCHECK_OF_NULL_VALUE", "RCN_REDUNDANT_NULLCHECK_WOULD_HAVE_BEEN_A_NPE", "NP_LOAD_OF_KNOWN_NULL_VALUE"}) // JDK 11 issue https://github.com/spotbugs/spotbugs/issues/756
+    private void sendSlowQuerySpans(final JdbcExecution execution) {
+        final long elapsedTime = execution.getElapsedTime();
+        if (elapsedTime < slowQueryThresholdMs && execution.getThrowable() == null) {
+            return;
+        }
+        final Tracer tracer = beeline.getTracer();
+        for (int i = 0; i < execution.getQueryCount(); i++) {
+            try (Span span = tracer.startChildSpan(QUERY_SPAN_NAME)) {
+                span.markStart(span.getTimestamp() - elapsedTime,
+                               span.getStartTime() - TimeUnit.MILLISECONDS.toNanos(elapsedTime));
+                applyToSpan(execution, i, span);
+                LOG.debug("afterQuery slow query span parentId={}, traceId={} spanId={}", span.getParentSpanId(), span.getTraceId(), span.getSpanId());
+            }
         }
     }
 
+    private void recordOrphanQueries(final JdbcExecution execution) {
+        if (orphanQueryPolicy != JdbcOrphanQueryPolicy.AGGREGATE) {
+            return;
+        }
+        final boolean error = execution.getThrowable() != null;
+        for (int i = 0; i < execution.getQueryCount(); i++) {
+            final String query = execution.getQuery(i);
+            if (query == null) {
+                orphanQueryAggregator.record("", null, execution.getElapsedTime(), error);
+            } else if (sqlNormalizer == null) {
+                orphanQueryAggregator.record(query, null, execution.getElapsedTime(), error);
+            } else {
+                final SqlNormalizer.NormalizedQuery normalizedQuery = execution.getNormalizedQuery(i, sqlNormalizer);
+                orphanQueryAggregator.record(normalizedQuery.getQuery(), normalizedQuery.getHash(), execution.getElapsedTime(), error);
+            }
+        }
+    }
+
+    /**
+     * Accumulates the number and total duration of queries on the span that was active when they were run.
+     */
+    private static void addQueryTotals(final JdbcExecution execution, final Span rootSpan) {
+        final Map<String, Object> fields = rootSpan.getFields();
+        rootSpan.addField(TraceFieldConstants.DATABASE_QUERY_COUNT_FIELD,
+            longValue(fields.get(TraceFieldConstants.DATABASE_QUERY_COUNT_FIELD)) + execution.getQueryCount());
+        rootSpan.addField(TraceFieldConstants.DATABASE_TOTAL_DURATION_FIELD,
+            longValue(fields.get(TraceFieldConstants.DATABASE_TOTAL_DURATION_FIELD)) + execution.getElapsedTime());
+    }
+
+    private static long longValue(final Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static double doubleValue(final Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+
     private Span safelyValidateRootSpan(ExecutionInfo executionInfo) {
         try {
             return executionInfo.getCustomValue(ROOT_SPAN_KEY, Span.class);
@@ -103,8 +300,7 @@ public class BeelineQueryListenerForJDBC implements QueryExecutionListener, Beel
         return null;
     }
 
-    @SuppressWarnings("unchecked")
-    private List<Span> safelyValidateChildSpans(ExecutionInfo executionInfo) {
+    private List<?> safelyValidateChildSpans(ExecutionInfo executionInfo) {
         try {
             return executionInfo.getCustomValue(CHILD_SPAN_KEY, List.class);
 
@@ -114,21 +310,20 @@ public class BeelineQueryListenerForJDBC implements QueryExecutionListener, Beel
         return null;
     }
 
-    private void applyToSpan(final ExecutionInfo execInfo, final QueryInfo queryInfo, final Span span) {
-        final long duration = execInfo.getElapsedTime();
-        final boolean isBatch = execInfo.isBatch();
-        final Throwable throwable = execInfo.getThrowable();
-        span.addField(TraceFieldConstants.DATABASE_QUERY_FIELD, queryInfo.getQuery());
-        span.addField(TraceFieldConstants.DATABASE_QUERY_PARAMETERS_FIELD, queryInfo.getQueryArgsList());
-        span.addField(TraceFieldConstants.DATABASE_CONNECTION_ID_FIELD, execInfo.getConnectionId());
-        span.addField(TraceFieldConstants.DATABASE_STATEMENT_TYPE_FIELD, execInfo.getStatementType().name());
-        span.addField(TraceFieldConstants.DATABASE_IS_SUCCESS, execInfo.isSuccess());
+    private void applyToSpan(final JdbcExecution execution, final int index, final Span span) {
+        final long duration = execution.getElapsedTime();
+        final boolean isBatch = execution.isBatch();
+        final Throwable throwable = execution.getThrowable();
+        addQueryFields(execution, index, span);
+        span.addField(TraceFieldConstants.DATABASE_CONNECTION_ID_FIELD, execution.getConnectionId());
+        span.addField(TraceFieldConstants.DATABASE_STATEMENT_TYPE_FIELD, execution.getStatementType());
+        span.addField(TraceFieldConstants.DATABASE_IS_SUCCESS, throwable == null);
         span.addField(TraceFieldConstants.DATABASE_IS_BATCH_FIELD, isBatch);
         if (duration > 0) {
             span.addField(TraceFieldConstants.DURATION_FIELD, duration);
         }
         if (isBatch) {
-            span.addField(TraceFieldConstants.DATABASE_BATCH_SIZE_FIELD, execInfo.getBatchSize());
+            span.addField(TraceFieldConstants.DATABASE_BATCH_SIZE_FIELD, execution.getBatchSize());
         }
         if (throwable != null) {
             span.addField(TraceFieldConstants.DATABASE_ERROR, throwable.getClass().getSimpleName());
@@ -136,8 +331,237 @@ public class BeelineQueryListenerForJDBC implements QueryExecutionListener, Beel
         }
     }
 
+    private void addQueryFields(final JdbcExecution execution, final int index, final Span span) {
+        final String query = execution.getQuery(index);
+        if (sqlNormalizer == null || query == null) {
+            span.addField(TraceFieldConstants.DATABASE_QUERY_FIELD, query);
+        } else {
+            final SqlNormalizer.NormalizedQuery normalizedQuery = execution.getNormalizedQuery(index, sqlNormalizer);
+            span.addField(TraceFieldConstants.DATABASE_QUERY_FIELD, normalizedQuery.getQuery());
+            span.addField(TraceFieldConstants.DATABASE_QUERY_HASH_FIELD, normalizedQuery.getHash());
+        }
+        switch (queryParameterMode) {
+            case ALL:
+                span.addField(TraceFieldConstants.DATABASE_QUERY_PARAMETERS_FIELD, execution.getQueryArgs(index));
+                break;
+            case TRUNCATE:
+                addTruncatedParameters(execution.getQueryArgs(index), span);
+                break;
+            case NONE:
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Copies parameter sets (one per batch entry) until {@code maxQueryParameters} parameters have been copied in total.
+     */
+    private void addTruncatedParameters(final List<Map<String, Object>> queryArgsList, final Span span) {
+        final List<Map<String, Object>> truncated = new ArrayList<>(Math.min(queryArgsList.size(), maxQueryParameters));
+        int remaining = maxQueryParameters;
+        boolean wasTruncated = false;
+        for (final Map<String, Object> queryArgs : queryArgsList) {
+            if (remaining >= queryArgs.size()) {
+                truncated.add(queryArgs);
+                remaining -= queryArgs.size();
+                continue;
+            }
+            wasTruncated = true;
+            if (remaining > 0) {
+                final Map<String, Object> partial = new LinkedHashMap<>();
+                for (final Map.Entry<String, Object> entry : queryArgs.entrySet()) {
+                    if (partial.size() == remaining) {
+                        break;
+                    }
+                    partial.put(entry.getKey(), entry.getValue());
+                }
+                truncated.add(partial);
+            }
+            break;
+        }
+        span.addField(TraceFieldConstants.DATABASE_QUERY_PARAMETERS_FIELD, truncated);
+        if (wasTruncated) {
+            span.addField(TraceFieldConstants.DATABASE_QUERY_PARAMETERS_TRUNCATED_FIELD, true);
+        }
+    }
+
     @Override
     public String getName() {
         return "spring_jdbc";
     }
+
+    /**
+     * The spans of a statement execution, between {@link #startExecution(int)} and {@link #endExecution}.
+     */
+    static final class ExecutionSpans {
+        /** Marks the execution of an orphan query, which is not traced. */
+        static final ExecutionSpans ORPHAN = new ExecutionSpans(null, null, false);
+
+        final Span rootSpan;
+        /** The spans of the individual queries - or null in threshold mode. */
+        final List<?> childSpans;
+        final boolean shouldRemoveRootSpan;
+
+        ExecutionSpans(final Span rootSpan, final List<?> childSpans, final boolean shouldRemoveRootSpan) {
+            this.rootSpan = rootSpan;
+            this.childSpans = childSpans;
+            this.shouldRemoveRootSpan = shouldRemoveRootSpan;
+        }
+    }
+
+    /**
+     * Adapts datasource-proxy's execution callbacks to {@link JdbcExecution}.
+     */
+    private static final class DataSourceProxyExecution implements JdbcExecution {
+        private final ExecutionInfo execInfo;
+        private final List<QueryInfo> queryInfoList;
+
+        DataSourceProxyExecution(final ExecutionInfo execInfo, final List<QueryInfo> queryInfoList) {
+            this.execInfo = execInfo;
+            this.queryInfoList = queryInfoList;
+        }
+
+        @Override
+        public int getQueryCount() {
+            return queryInfoList.size();
+        }
+
+        @Override
+        public String getQuery(final int index) {
+            return queryInfoList.get(index).getQuery();
+        }
+
+        @Override
+        public List<Map<String, Object>> getQueryArgs(final int index) {
+            return queryInfoList.get(index).getQueryArgsList();
+        }
+
+        @Override
+        public String getConnectionId() {
+            return execInfo.getConnectionId();
+        }
+
+        @Override
+        public String getStatementType() {
+            return execInfo.getStatementType().name();
+        }
+
+        @Override
+        public boolean isBatch() {
+            return execInfo.isBatch();
+        }
+
+        @Override
+        public int getBatchSize() {
+            return execInfo.getBatchSize();
+        }
+
+        @Override
+        public long getElapsedTime() {
+            return execInfo.getElapsedTime();
+        }
+
+        @Override
+        public Throwable getThrowable() {
+            return execInfo.getThrowable();
+        }
+    }
+
+    /**
+     * Builder for {@link BeelineQueryListenerForJDBC}.
+     * <p>
+     * By default, queries are sent as they are, without normalization, and all query parameters are added to spans.
+     */
+    public static class Builder {
+        private final Beeline beeline;
+        private SqlNormalizer sqlNormalizer;
+        private JdbcQueryParameterMode queryParameterMode = JdbcQueryParameterMode.ALL;
+        private int maxQueryParameters = 10;
+        private Long slowQueryThresholdMs;
+        private JdbcOrphanQueryPolicy orphanQueryPolicy = JdbcOrphanQueryPolicy.TRACE;
+        private OrphanQueryAggregator orphanQueryAggregator;
+
+        /**
+         * @param beeline to create spans with - must not be null.
+         */
+        public Builder(final Beeline beeline) {
+            Assert.notNull(beeline, "Validation failed: beeline must not be null");
+            this.beeline = beeline;
+        }
+
+        /**
+         * @param sqlNormalizer to normalize queries with, or null to send queries as they are.
+         * @return this builder.
+         */
+        public Builder setSqlNormalizer(final SqlNormalizer sqlNormalizer) {
+            this.sqlNormalizer = sqlNormalizer;
+            return this;
+        }
+
+        /**
+         * @param queryParameterMode how query parameters are added to spans - must not be null.
+         * @return this builder.
+         */
+        public Builder setQueryParameterMode(final JdbcQueryParameterMode queryParameterMode) {
+            Assert.notNull(queryParameterMode, "Validation failed: queryParameterMode must not be null");
+            this.queryParameterMode = queryParameterMode;
+            return this;
+        }
+
+        /**
+         * @param maxQueryParameters the maximum number of parameters added to a span, across all entries of a batch,
+         *                           when using {@link JdbcQueryParameterMode#TRUNCATE} - must not be negative.
+         * @return this builder.
+         */
+        public Builder setMaxQueryParameters(final int maxQueryParameters) {
+            Assert.isTrue(maxQueryParameters >= 0, "Validation failed: maxQueryParameters must not be negative");
+            this.maxQueryParameters = maxQueryParameters;
+            return this;
+        }
+
+        /**
+         * Switches to threshold-based instrumentation: queries are timed without creating spans, and a span is only
+         * sent for a query that fails or runs for at least the given threshold. In either mode, the number and total
+         * duration of queries are accumulated on the span that is active when they run.
+         *
+         * @param slowQueryThresholdMs the minimum duration (ms) of a query to send a span for - or null to send a
+         *                             span for every query (the default).
+         * @return this builder.
+         */
+        public Builder setSlowQueryThresholdMs(final Long slowQueryThresholdMs) {
+            Assert.isTrue(slowQueryThresholdMs == null || slowQueryThresholdMs >= 0,
+                "Validation failed: slowQueryThresholdMs must not be negative");
+            this.slowQueryThresholdMs = slowQueryThresholdMs;
+            return this;
+        }
+
+        /**
+         * Sets how queries that run while no span is active are instrumented. For
+         * {@link JdbcOrphanQueryPolicy#AGGREGATE} an {@link #setOrphanQueryAggregator aggregator} must also be set.
+         *
+         * @param orphanQueryPolicy the policy - must not be null. Defaults to {@link JdbcOrphanQueryPolicy#TRACE}.
+         * @return this builder.
+         */
+        public Builder setOrphanQueryPolicy(final JdbcOrphanQueryPolicy orphanQueryPolicy) {
+            Assert.notNull(orphanQueryPolicy, "Validation failed: orphanQueryPolicy must not be null");
+            this.orphanQueryPolicy = orphanQueryPolicy;
+            return this;
+        }
+
+        /**
+         * @param orphanQueryAggregator to accumulate orphan queries with, when using
+         *                              {@link JdbcOrphanQueryPolicy#AGGREGATE}.
+         * @return this builder.
+         */
+        public Builder setOrphanQueryAggregator(final OrphanQueryAggregator orphanQueryAggregator) {
+            this.orphanQueryAggregator = orphanQueryAggregator;
+            return this;
+        }
+
+        public BeelineQueryListenerForJDBC build() {
+            Assert.isFalse(orphanQueryPolicy == JdbcOrphanQueryPolicy.AGGREGATE && orphanQueryAggregator == null,
+                "Validation failed: orphanQueryAggregator must not be null when aggregating orphan queries");
+            return new BeelineQueryListenerForJDBC(this);
+        }
+    }
 }
@@ -3,11 +3,13 @@ package io.honeycomb.beeline.spring.beans;
 import io.honeycomb.beeline.tracing.Span;
 import io.honeycomb.beeline.tracing.Tracer;
 import io.honeycomb.beeline.tracing.propagation.HttpClientPropagator;
+import io.honeycomb.beeline.tracing.propagation.HttpHeaderCarrier;
 import io.honeycomb.beeline.tracing.propagation.HttpHeaderV1PropagationCodec;
 import io.honeycomb.beeline.tracing.propagation.Propagation;
 import io.honeycomb.beeline.tracing.propagation.PropagationCodec;
 import io.honeycomb.libhoney.utils.Assert;
 import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
@@ -101,7 +103,8 @@ public class BeelineRestTemplateInterceptor implements ClientHttpRequestIntercep
 
         @Override
         public Map<String, String> getHeaders() {
-            return request.getHeaders().toSingleValueMap();
+            final HttpHeaders headers = request.getHeaders();
+            return new HttpHeaderCarrier(headers::getFirst, headers::toSingleValueMap);
         }
     }
 
@@ -0,0 +1,543 @@
+package io.honeycomb.beeline.spring.beans;
+
+import io.honeycomb.beeline.spring.beans.BeelineQueryListenerForJDBC.ExecutionSpans;
+import io.honeycomb.beeline.tracing.Span;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Statement} returned by {@link BeelineConnection}, which reports its executions to the
+ * {@link BeelineQueryListenerForJDBC}.
+ * <p>
+ * The statement itself serves as the {@link JdbcExecution} passed to the listener, so its fields hold the state of
+ * the current execution. This relies on statements not being used concurrently, as per JDBC.
+ */
+class BeelineStatement implements Statement, JdbcExecution {
+    private final Statement delegate;
+    private final BeelineConnection connection;
+    private final BeelineQueryListenerForJDBC listener;
+    private final List<String> batchQueries = new ArrayList<>();
+    private BeelineResultSet resultSet;
+
+    // state of the current execution
+    private String query;
+    private boolean batch;
+    private long startTime;
+    private long elapsedTime;
+    Throwable throwable;
+
+    BeelineStatement(final Statement delegate, final BeelineConnection connection) {
+        this.delegate = delegate;
+        this.connection = connection;
+        this.listener = connection.getListener();
+    }
+
+    BeelineQueryListenerForJDBC getListener() {
+        return listener;
+    }
+
+    final ExecutionSpans beforeExecution(final String sql) {
+        this.query = sql;
+        return startExecution(false);
+    }
+
+    final ExecutionSpans beforeBatchExecution() {
+        return startExecution(true);
+    }
+
+    final ExecutionSpans startExecution(final boolean isBatch) {
+        // executing a statement closes its current result set
+        finishResultSet();
+        this.batch = isBatch;
+        this.throwable = null;
+        final ExecutionSpans spans = listener.startExecution(getQueryCount());
+        this.startTime = System.nanoTime();
+        return spans;
+    }
+
+    final void afterExecution(final ExecutionSpans spans) {
+        elapsedTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        listener.endExecution(spans, this);
+        if (batch) {
+            // JDBC resets the batch once it has been executed
+            resetBatch();
+        }
+        throwable = null;
+    }
+
+    /**
+     * Wraps a result set of this statement to measure its consumption, if there is a span to record it on.
+     */
+    final ResultSet wrapResultSet(final ResultSet results) {
+        if (results == null) {
+            return null;
+        }
+        if (resultSet != null && resultSet.getDelegate() == results) {
+            return resultSet;
+        }
+        finishResultSet();
+        final Span span = listener.getResultSetSpan();
+        if (span == null) {
+            return results;
+        }
+        resultSet = new BeelineResultSet(results, this, span);
+        return resultSet;
+    }
+
+    final void finishResultSet() {
+        if (resultSet != null) {
+            resultSet.finish();
+            resultSet = null;
+        }
+    }
+
+    void resetBatch() {
+        batchQueries.clear();
+    }
+
+    @Override
+    public int getQueryCount() {
+        return batch ? batchQueries.size() : 1;
+    }
+
+    @Override
+    public String getQuery(final int index) {
+        return batch ? batchQueries.get(index) : query;
+    }
+
+    @Override
+    public List<Map<String, Object>> getQueryArgs(final int index) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getConnectionId() {
+        return connection.getConnectionId();
+    }
+
+    @Override
+    public String getStatementType() {
+        return "STATEMENT";
+    }
+
+    @Override
+    public boolean isBatch() {
+        return batch;
+    }
+
+    @Override
+    public int getBatchSize() {
+        return getQueryCount();
+    }
+
+    @Override
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    @Override
+    public Throwable getThrowable() {
+        return throwable;
+    }
+
+    @Override
+    public ResultSet executeQuery(final String sql) throws SQLException {
+        final ExecutionSpans spans = beforeExecution(sql);
+        final ResultSet results;
+        try {
+            results = delegate.executeQuery(sql);
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+        return wrapResultSet(results);
+    }
+
+    @Override
+    public int executeUpdate(final String sql) throws SQLException {
+        final ExecutionSpans spans = beforeExecution(sql);
+        try {
+            return delegate.executeUpdate(sql);
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public int executeUpdate(final String sql, final int autoGeneratedKeys) throws SQLException {
+        final ExecutionSpans spans = beforeExecution(sql);
+        try {
+            return delegate.executeUpdate(sql, autoGeneratedKeys);
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public int executeUpdate(final String sql, final int[] columnIndexes) throws SQLException {
+        final ExecutionSpans spans = beforeExecution(sql);
+        try {
+            return delegate.executeUpdate(sql, columnIndexes);
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public int executeUpdate(final String sql, final String[] columnNames) throws SQLException {
+        final ExecutionSpans spans = beforeExecution(sql);
+        try {
+            return delegate.executeUpdate(sql, columnNames);
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public boolean execute(final String sql) throws SQLException {
+        final ExecutionSpans spans = beforeExecution(sql);
+        try {
+            return delegate.execute(sql);
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public boolean execute(final String sql, final int autoGeneratedKeys) throws SQLException {
+        final ExecutionSpans spans = beforeExecution(sql);
+        try {
+            return delegate.execute(sql, autoGeneratedKeys);
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public boolean execute(final String sql, final int[] columnIndexes) throws SQLException {
+        final ExecutionSpans spans = beforeExecution(sql);
+        try {
+            return delegate.execute(sql, columnIndexes);
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public boolean execute(final String sql, final String[] columnNames) throws SQLException {
+        final ExecutionSpans spans = beforeExecution(sql);
+        try {
+            return delegate.execute(sql, columnNames);
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(final String sql) throws SQLException {
+        final ExecutionSpans spans = beforeExecution(sql);
+        try {
+            return delegate.executeLargeUpdate(sql);
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(final String sql, final int autoGeneratedKeys) throws SQLException {
+        final ExecutionSpans spans = beforeExecution(sql);
+        try {
+            return delegate.executeLargeUpdate(sql, autoGeneratedKeys);
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(final String sql, final int[] columnIndexes) throws SQLException {
+        final ExecutionSpans spans = beforeExecution(sql);
+        try {
+            return delegate.executeLargeUpdate(sql, columnIndexes);
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(final String sql, final String[] columnNames) throws SQLException {
+        final ExecutionSpans spans = beforeExecution(sql);
+        try {
+            return delegate.executeLargeUpdate(sql, columnNames);
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        final ExecutionSpans spans = beforeBatchExecution();
+        try {
+            return delegate.executeBatch();
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        final ExecutionSpans spans = beforeBatchExecution();
+        try {
+            return delegate.executeLargeBatch();
+        } catch (final Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            afterExecution(spans);
+        }
+    }
+
+    @Override
+    public void addBatch(final String sql) throws SQLException {
+        delegate.addBatch(sql);
+        batchQueries.add(sql);
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        delegate.clearBatch();
+        resetBatch();
+    }
+
+    @Override
+    public Connection getConnection() {
+        return connection;
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        return wrapResultSet(delegate.getResultSet());
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        return delegate.getGeneratedKeys();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            delegate.close();
+        } finally {
+            finishResultSet();
+        }
+    }
+
+    @Override
+    public int getMaxFieldSize() throws SQLException {
+        return delegate.getMaxFieldSize();
+    }
+
+    @Override
+    public void setMaxFieldSize(final int max) throws SQLException {
+        delegate.setMaxFieldSize(max);
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        return delegate.getMaxRows();
+    }
+
+    @Override
+    public void setMaxRows(final int max) throws SQLException {
+        delegate.setMaxRows(max);
+    }
+
+    @Override
+    public long getLargeMaxRows() throws SQLException {
+        return delegate.getLargeMaxRows();
+    }
+
+    @Override
+    public void setLargeMaxRows(final long max) throws SQLException {
+        delegate.setLargeMaxRows(max);
+    }
+
+    @Override
+    public void setEscapeProcessing(final boolean enable) throws SQLException {
+        delegate.setEscapeProcessing(enable);
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        return delegate.getQueryTimeout();
+    }
+
+    @Override
+    public void setQueryTimeout(final int seconds) throws SQLException {
+        delegate.setQueryTimeout(seconds);
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+        delegate.cancel();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return delegate.getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        delegate.clearWarnings();
+    }
+
+    @Override
+    public void setCursorName(final String name) throws SQLException {
+        delegate.setCursorName(name);
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        return delegate.getUpdateCount();
+    }
+
+    @Override
+    public long getLargeUpdateCount() throws SQLException {
+        return delegate.getLargeUpdateCount();
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        finishResultSet();
+        return delegate.getMoreResults();
+    }
+
+    @Override
+    public boolean getMoreResults(final int current) throws SQLException {
+        if (current == CLOSE_CURRENT_RESULT) {
+            finishResultSet();
+        }
+        return delegate.getMoreResults(current);
+    }
+
+    @Override
+    public void setFetchDirection(final int direction) throws SQLException {
+        delegate.setFetchDirection(direction);
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        return delegate.getFetchDirection();
+    }
+
+    @Override
+    public void setFetchSize(final int rows) throws SQLException {
+        delegate.setFetchSize(rows);
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return delegate.getFetchSize();
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws SQLException {
+        return delegate.getResultSetConcurrency();
+    }
+
+    @Override
+    public int getResultSetType() throws SQLException {
+        return delegate.getResultSetType();
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        return delegate.getResultSetHoldability();
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return delegate.isClosed();
+    }
+
+    @Override
+    public void setPoolable(final boolean poolable) throws SQLException {
+        delegate.setPoolable(poolable);
+    }
+
+    @Override
+    public boolean isPoolable() throws SQLException {
+        return delegate.isPoolable();
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        delegate.closeOnCompletion();
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        return delegate.isCloseOnCompletion();
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        return iface.isInstance(delegate) ? iface.cast(delegate) : delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+        return iface.isInstance(delegate) || delegate.isWrapperFor(iface);
+    }
+}
@@ -6,6 +6,13 @@ import org.springframework.beans.factory.config.BeanPostProcessor;
 
 import javax.sql.DataSource;
 
+/**
+ * Wraps {@link DataSource} beans in a datasource-proxy {@link ProxyDataSource}.
+ *
+ * @deprecated the Beeline auto-configuration uses the {@link BeelineDataSourceBeanPostProcessor}, whose wrappers
+ * avoid datasource-proxy's reflection-based proxies and per-execution allocations.
+ */
+@Deprecated
 public class DataSourceProxyBeanPostProcessor implements BeanPostProcessor {
 
     private final BeelineQueryListenerForJDBC listener;
@@ -0,0 +1,31 @@
+package io.honeycomb.beeline.spring.beans;
+
+import io.honeycomb.beeline.tracing.GlobalTracer;
+import io.honeycomb.beeline.tracing.Tracer;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+
+/**
+ * Registers {@link Tracer} beans with the {@link GlobalTracer} as soon as they are initialized, so that methods woven
+ * by the beeline-agent are traced even when they are called while the remaining beans are being initialized.
+ * <p>
+ * It is {@link PriorityOrdered}, so that it is registered before other bean post processors are created, which may
+ * themselves depend on the {@link Tracer}.
+ */
+public class GlobalTracerBeanPostProcessor implements BeanPostProcessor, PriorityOrdered {
+
+    @Override
+    public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+        if (bean instanceof Tracer) {
+            GlobalTracer.register((Tracer) bean);
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+}
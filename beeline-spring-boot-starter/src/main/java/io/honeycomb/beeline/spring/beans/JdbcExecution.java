@@ -0,0 +1,64 @@
+package io.honeycomb.beeline.spring.beans;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A completed execution of a JDBC statement, consisting of one or more queries, as reported to
+ * {@link BeelineQueryListenerForJDBC#endExecution(BeelineQueryListenerForJDBC.ExecutionSpans, JdbcExecution)}.
+ * <p>
+ * This decouples the listener from the source of the executions, which may be the Beeline JDBC wrappers (see
+ * {@link BeelineDataSource}) or datasource-proxy.
+ */
+interface JdbcExecution {
+    /**
+     * @return the number of queries of the execution, which is greater than 1 for batches of plain statements.
+     */
+    int getQueryCount();
+
+    /**
+     * @param index of the query.
+     * @return the query - may be null.
+     */
+    String getQuery(int index);
+
+    /**
+     * Implementations may cache the result, e.g. for the lifetime of a prepared statement.
+     *
+     * @param index         of the query - its query must not be null.
+     * @param sqlNormalizer to normalize the query with.
+     * @return the normalized query.
+     */
+    default SqlNormalizer.NormalizedQuery getNormalizedQuery(final int index, final SqlNormalizer sqlNormalizer) {
+        return sqlNormalizer.normalize(getQuery(index));
+    }
+
+    /**
+     * The returned list is added to spans as it is, so it must not be modified afterwards.
+     *
+     * @param index of the query.
+     * @return the parameter sets of the query, one per batch entry, keyed by parameter index or name.
+     */
+    List<Map<String, Object>> getQueryArgs(int index);
+
+    String getConnectionId();
+
+    /**
+     * @return the type of statement that was executed, i.e. STATEMENT, PREPARED or CALLABLE.
+     */
+    String getStatementType();
+
+    boolean isBatch();
+
+    int getBatchSize();
+
+    /**
+     * @return the time the execution took, in milliseconds.
+     */
+    long getElapsedTime();
+
+    /**
+     * @return the error the execution failed with - or null if it succeeded.
+     */
+    Throwable getThrowable();
+}
@@ -0,0 +1,14 @@
+package io.honeycomb.beeline.spring.beans;
+
+/**
+ * Determines how JDBC queries that run while no span is active are instrumented - for example connection pool
+ * validation queries, schema migrations or scheduled jobs.
+ */
+public enum JdbcOrphanQueryPolicy {
+    /** Do not instrument orphan queries. */
+    DROP,
+    /** Accumulate orphan queries and periodically send a summary event per normalized query. */
+    AGGREGATE,
+    /** Start a new trace for each orphan query (or batch of queries). */
+    TRACE
+}
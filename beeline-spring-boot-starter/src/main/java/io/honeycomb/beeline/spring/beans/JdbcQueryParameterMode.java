@@ -0,0 +1,13 @@
+package io.honeycomb.beeline.spring.beans;
+
+/**
+ * Determines how the parameters of JDBC statements are added to query spans.
+ */
+public enum JdbcQueryParameterMode {
+    /** Add all parameters. */
+    ALL,
+    /** Add parameters up to a maximum count, and flag the span if any were dropped. */
+    TRUNCATE,
+    /** Do not add parameters. */
+    NONE
+}
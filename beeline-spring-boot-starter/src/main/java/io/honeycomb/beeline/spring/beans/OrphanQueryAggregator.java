@@ -0,0 +1,171 @@
+package io.honeycomb.beeline.spring.beans;
+
+import io.honeycomb.beeline.tracing.Beeline;
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.beeline.tracing.propagation.PropagationContext;
+import io.honeycomb.beeline.tracing.utils.TraceFieldConstants;
+import io.honeycomb.libhoney.utils.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Accumulates JDBC queries that ran outside of a trace and periodically sends one summary event per distinct query,
+ * with the number of executions, their total duration and the number of errors in the interval.
+ * <p>
+ * The number of distinct queries tracked per interval is bounded; executions of any further queries are accumulated
+ * under a single {@value #OTHER_QUERIES} entry.
+ * <p>
+ * Executions are recorded under the read lock of a read-write lock, so that they don't block each other, while the
+ * interval is swapped under the write lock. A summary is therefore only sent once no execution is being recorded into
+ * its interval anymore, and none are lost.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe and can be shared.
+ */
+public class OrphanQueryAggregator implements AutoCloseable {
+    /** The name of summary events. */
+    public static final String SUMMARY_SPAN_NAME = "orphan_queries";
+    /** The query under which executions are accumulated once the maximum number of distinct queries is reached. */
+    public static final String OTHER_QUERIES = "other";
+    /** The number of errors among the summarized executions. */
+    public static final String ERROR_COUNT_FIELD = "db.error_count";
+    /** The length (ms) of the interval summarized by the event. */
+    public static final String INTERVAL_FIELD = "db.summary_interval_ms";
+
+    private static final Logger LOG = LoggerFactory.getLogger(OrphanQueryAggregator.class);
+
+    private final Beeline beeline;
+    private final int maxQueries;
+    private final ScheduledExecutorService executor;
+    private final ReadWriteLock intervalLock = new ReentrantReadWriteLock();
+    /** Guarded by the intervalLock: read to record executions, written to swap it. */
+    private Interval interval = new Interval();
+
+    /**
+     * @param beeline    to send summary events with - must not be null.
+     * @param intervalMs how often to send summary events - must be positive.
+     * @param maxQueries the maximum number of distinct queries to send summaries for per interval - must be positive.
+     */
+    public OrphanQueryAggregator(final Beeline beeline, final long intervalMs, final int maxQueries) {
+        Assert.notNull(beeline, "Validation failed: beeline must not be null");
+        Assert.isTrue(intervalMs > 0, "Validation failed: intervalMs must be positive");
+        Assert.isTrue(maxQueries > 0, "Validation failed: maxQueries must be positive");
+        this.beeline = beeline;
+        this.maxQueries = maxQueries;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "beeline-orphan-query-aggregator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::flush, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param query           the (normalized) query - must not be null.
+     * @param queryHash       a hash of the query - may be null.
+     * @param elapsedTimeMs   of the execution.
+     * @param error           whether the execution failed.
+     */
+    public void record(final String query, final String queryHash, final long elapsedTimeMs, final boolean error) {
+        final Lock readLock = intervalLock.readLock();
+        readLock.lock();
+        try {
+            interval.statsFor(query, queryHash, maxQueries).record(elapsedTimeMs, error);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Sends summary events for the current interval and starts a new one.
+     */
+    public void flush() {
+        final Interval finished;
+        final Lock writeLock = intervalLock.writeLock();
+        writeLock.lock();
+        try {
+            finished = interval;
+            interval = new Interval();
+        } finally {
+            writeLock.unlock();
+        }
+        final long intervalMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - finished.startNanos);
+        try {
+            finished.stats.forEach((query, stats) -> send(query, stats, intervalMs));
+        } catch (final RuntimeException e) {
+            LOG.warn("Failed to send orphan query summaries", e);
+        }
+    }
+
+    private void send(final String query, final QueryStats stats, final long intervalMs) {
+        final Span span = beeline.getSpanBuilderFactory().createBuilder()
+            .setSpanName(SUMMARY_SPAN_NAME)
+            .setServiceName(beeline.getServiceName())
+            .setParentContext(PropagationContext.emptyContext())
+            .setRoot()
+            .build();
+        span.addField(TraceFieldConstants.DATABASE_QUERY_FIELD, query)
+            .addField(TraceFieldConstants.DATABASE_QUERY_COUNT_FIELD, stats.count.sum())
+            .addField(TraceFieldConstants.DATABASE_TOTAL_DURATION_FIELD, stats.totalDurationMs.sum())
+            .addField(ERROR_COUNT_FIELD, stats.errors.sum())
+            .addField(INTERVAL_FIELD, intervalMs);
+        if (stats.queryHash != null) {
+            span.addField(TraceFieldConstants.DATABASE_QUERY_HASH_FIELD, stats.queryHash);
+        }
+        span.close();
+    }
+
+    /**
+     * Stops the periodic summaries and sends the summary of the current interval.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        flush();
+    }
+
+    private static final class Interval {
+        private final long startNanos = System.nanoTime();
+        private final Map<String, QueryStats> stats = new ConcurrentHashMap<>();
+
+        private QueryStats statsFor(final String query, final String queryHash, final int maxQueries) {
+            final QueryStats existing = stats.get(query);
+            if (existing != null) {
+                return existing;
+            }
+            if (stats.size() >= maxQueries) {
+                return stats.computeIfAbsent(OTHER_QUERIES, key -> new QueryStats(null));
+            }
+            return stats.computeIfAbsent(query, key -> new QueryStats(queryHash));
+        }
+    }
+
+    private static final class QueryStats {
+        private final String queryHash;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalDurationMs = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        private QueryStats(final String queryHash) {
+            this.queryHash = queryHash;
+        }
+
+        private void record(final long elapsedTimeMs, final boolean error) {
+            count.increment();
+            totalDurationMs.add(elapsedTimeMs);
+            if (error) {
+                errors.increment();
+            }
+        }
+    }
+}
@@ -4,7 +4,7 @@ import io.honeycomb.beeline.tracing.Beeline;
 import io.honeycomb.beeline.tracing.propagation.BeelineServletFilter;
 import io.honeycomb.beeline.tracing.propagation.Propagation;
 import io.honeycomb.beeline.tracing.propagation.PropagationCodec;
-import io.honeycomb.beeline.tracing.utils.PathMatcher;
+import io.honeycomb.beeline.tracing.utils.CompiledPathMatcher;
 
 import javax.servlet.FilterConfig;
 import java.util.List;
@@ -27,7 +27,7 @@ public class SpringServletFilter extends BeelineServletFilter implements Beeline
         super(serviceName, beeline, includePaths, excludePaths,
             BeelineServletFilter.DEFAULT_REDISPATCH_SPAN_NAMING_FUNCTION,
             BeelineServletFilter.DEFAULT_REQUEST_SPAN_NAMING_FUNCTION,
-            new SpringPathMatcherAdapter(),
+            new CompiledPathMatcher(),
             propagationCodec);
     }
 
@@ -65,17 +65,4 @@ public class SpringServletFilter extends BeelineServletFilter implements Beeline
     public void destroy() {
         // no destroy needed
     }
-
-    /**
-     * Use Spring's actual {@link org.springframework.util.AntPathMatcher} as it will be available on the
-     * classpath.
-     */
-    private static class SpringPathMatcherAdapter implements PathMatcher {
-        private final org.springframework.util.PathMatcher delegate = new org.springframework.util.AntPathMatcher();
-
-        @Override
-        public boolean match(String pattern, String path) {
-            return delegate.match(pattern, path);
-        }
-    }
 }
@@ -0,0 +1,255 @@
+package io.honeycomb.beeline.spring.beans;
+
+import io.honeycomb.libhoney.utils.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes SQL statements into a stable, low-cardinality fingerprint, so that statements which only differ in their
+ * literal values are reported as the same query.
+ * <p>
+ * Normalization:
+ * <ul>
+ * <li>replaces string and numeric literals with {@code ?},</li>
+ * <li>collapses {@code IN} lists and multi-row {@code VALUES} lists of placeholders into a single entry,</li>
+ * <li>removes comments and collapses whitespace.</li>
+ * </ul>
+ * Quoted identifiers and the case of the statement are left untouched.
+ * <p>
+ * Results are memoized by statement text, so each distinct statement is only normalized once. The cache is bounded;
+ * once it is full, it is cleared, so that it keeps up with the statements that are currently issued. Applications
+ * typically issue a bounded set of distinct statements (particularly when using prepared statements), so the cache
+ * should rarely fill up unless literals are inlined.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe and can be shared.
+ */
+public class SqlNormalizer {
+    /** The maximum number of cached statements used by {@link #SqlNormalizer()}. */
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    private static final String PLACEHOLDER_LIST = "\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)";
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\b(IN)\\s*" + PLACEHOLDER_LIST);
+    private static final Pattern VALUES_LIST = Pattern.compile(
+        "(" + PLACEHOLDER_LIST + ")(?:\\s*,\\s*" + PLACEHOLDER_LIST + ")+");
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final ConcurrentMap<String, NormalizedQuery> cache = new ConcurrentHashMap<>();
+    private final int maxCacheSize;
+
+    public SqlNormalizer() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param maxCacheSize the maximum number of statements to memoize - 0 disables caching. When the limit is reached
+     *                     the cache is cleared. Must not be negative.
+     */
+    public SqlNormalizer(final int maxCacheSize) {
+        Assert.isTrue(maxCacheSize >= 0, "Validation failed: maxCacheSize must not be negative");
+        this.maxCacheSize = maxCacheSize;
+    }
+
+    /**
+     * @param sql to normalize - must not be null.
+     * @return the normalized statement and its hash.
+     */
+    public NormalizedQuery normalize(final String sql) {
+        Assert.notNull(sql, "Validation failed: sql must not be null");
+        final NormalizedQuery cached = cache.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        final String fingerprint = fingerprint(sql);
+        final NormalizedQuery normalized = new NormalizedQuery(fingerprint, hash(fingerprint));
+        if (maxCacheSize == 0) {
+            return normalized;
+        }
+        if (cache.size() >= maxCacheSize) {
+            cache.clear();
+        }
+        final NormalizedQuery raced = cache.putIfAbsent(sql, normalized);
+        return raced == null ? normalized : raced;
+    }
+
+    int cacheSize() {
+        return cache.size();
+    }
+
+    static String fingerprint(final String sql) {
+        final int length = sql.length();
+        final StringBuilder builder = new StringBuilder(length);
+        boolean pendingSpace = false;
+        int i = 0;
+        while (i < length) {
+            final char c = sql.charAt(i);
+            final int next;
+            final String token;
+            if (Character.isWhitespace(c)) {
+                pendingSpace = builder.length() > 0;
+                i++;
+                continue;
+            } else if (c == '-' && startsWith(sql, i, "--")) {
+                next = skipLineComment(sql, i);
+                pendingSpace = builder.length() > 0;
+                i = next;
+                continue;
+            } else if (c == '/' && startsWith(sql, i, "/*")) {
+                next = skipBlockComment(sql, i);
+                pendingSpace = builder.length() > 0;
+                i = next;
+                continue;
+            } else if (c == '\'') {
+                next = skipQuoted(sql, i, '\'');
+                token = "?";
+            } else if (c == '"' || c == '`') {
+                next = skipQuoted(sql, i, c);
+                token = sql.substring(i, next);
+            } else if (isNumberStart(sql, i)) {
+                next = skipNumber(sql, i);
+                token = "?";
+            } else if (isIdentifierPart(c)) {
+                next = skipIdentifier(sql, i);
+                token = sql.substring(i, next);
+            } else {
+                next = i + 1;
+                token = String.valueOf(c);
+            }
+            if (pendingSpace) {
+                builder.append(' ');
+                pendingSpace = false;
+            }
+            builder.append(token);
+            i = next;
+        }
+        final String collapsedIn = IN_LIST.matcher(builder).replaceAll("$1 (?)");
+        return VALUES_LIST.matcher(collapsedIn).replaceAll("$1");
+    }
+
+    private static boolean startsWith(final String sql, final int index, final String prefix) {
+        return sql.startsWith(prefix, index);
+    }
+
+    private static int skipLineComment(final String sql, final int start) {
+        final int end = sql.indexOf('\n', start);
+        return end < 0 ? sql.length() : end + 1;
+    }
+
+    private static int skipBlockComment(final String sql, final int start) {
+        final int end = sql.indexOf("*/", start + 2);
+        return end < 0 ? sql.length() : end + 2;
+    }
+
+    /**
+     * Skips a quoted literal or identifier, where the quote is escaped by doubling it.
+     */
+    private static int skipQuoted(final String sql, final int start, final char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isNumberStart(final String sql, final int index) {
+        final char c = sql.charAt(index);
+        final boolean digit = Character.isDigit(c)
+                              || c == '.' && index + 1 < sql.length() && Character.isDigit(sql.charAt(index + 1));
+        // digits that are part of an identifier (e.g. "table1") are not literals
+        return digit && (index == 0 || !isIdentifierPart(sql.charAt(index - 1)));
+    }
+
+    private static int skipNumber(final String sql, final int start) {
+        int i = start;
+        if (startsWith(sql, i, "0x") || startsWith(sql, i, "0X")) {
+            i += 2;
+            while (i < sql.length() && Character.digit(sql.charAt(i), 16) >= 0) {
+                i++;
+            }
+            return i;
+        }
+        while (i < sql.length()) {
+            final char c = sql.charAt(i);
+            if (Character.isDigit(c) || c == '.') {
+                i++;
+            } else if ((c == 'e' || c == 'E') && i + 1 < sql.length()
+                       && (Character.isDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '-' || sql.charAt(i + 1) == '+')) {
+                i += 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static int skipIdentifier(final String sql, final int start) {
+        int i = start;
+        while (i < sql.length() && isIdentifierPart(sql.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isIdentifierPart(final char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#' || c == '@';
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the UTF-8 encoded fingerprint, which is cheap to compute and stable across processes.
+     */
+    static String hash(final String fingerprint) {
+        long hash = FNV_OFFSET_BASIS;
+        for (final byte b : fingerprint.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return String.format("%016x", hash);
+    }
+
+    /**
+     * The result of normalizing a statement.
+     */
+    public static final class NormalizedQuery {
+        private final String query;
+        private final String hash;
+
+        NormalizedQuery(final String query, final String hash) {
+            this.query = query;
+            this.hash = hash;
+        }
+
+        /**
+         * @return the normalized statement.
+         */
+        public String getQuery() {
+            return query;
+        }
+
+        /**
+         * @return a hex-encoded hash of the normalized statement.
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return "NormalizedQuery{" +
+                   "query='" + query + '\'' +
+                   ", hash='" + hash + '\'' +
+                   '}';
+        }
+    }
+}
@@ -15,6 +15,10 @@ import org.springframework.util.StringUtils;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static io.honeycomb.beeline.spring.utils.InstrumentationConstants.ANNOTATED_METHOD_TYPE;
 import static io.honeycomb.beeline.spring.utils.InstrumentationConstants.AOP_INSTRUMENTATION_NAME;
@@ -28,11 +32,16 @@ import static io.honeycomb.beeline.tracing.utils.TraceFieldConstants.TYPE_FIELD;
  * {@link SpanField} annotations on parameters.
  * <p>
  * More details on the javadoc of each annotation.
+ * <p>
+ * The join point name and the {@link SpanField}-annotated parameters are looked up once per method and cached. The
+ * {@code determine*} methods are still called on every invocation, so subclasses may override them with names that
+ * vary between invocations.
  */
 @Aspect
 public class SpanAspect implements BeelineInstrumentation {
 
     private final Tracer tracer;
+    private final ConcurrentMap<Method, AdvicePlan> plans = new ConcurrentHashMap<>();
 
     public SpanAspect(final Tracer tracer) {
         Assert.notNull(tracer, "Validation failed: tracer must not be null");
@@ -47,16 +56,15 @@ public class SpanAspect implements BeelineInstrumentation {
 
     @Around("@annotation(span)")
     public Object around(final ProceedingJoinPoint joinPoint, final ChildSpan span) throws Throwable {
-        final String spanName = determineSpanName(joinPoint, span);
-        final Span child = tracer.startChildSpan(spanName);
+        final AdvicePlan plan = getPlan(joinPoint, span);
+        final Span child = tracer.startChildSpan(determineSpanName(joinPoint, span));
         try {
             child
                 .addField(TYPE_FIELD, ANNOTATED_METHOD_TYPE)
-                .addField(JOIN_POINT_FIELD, joinPoint.getSignature().toShortString());
-            addParameterFields(joinPoint, child);
+                .addField(JOIN_POINT_FIELD, plan.joinPointName);
+            addParameterFields(plan, joinPoint, child);
             final Object result = joinPoint.proceed();
-            final Class<?> returnType = ((MethodSignature) joinPoint.getSignature()).getReturnType();
-            if (span.addResult() && returnType != void.class) {
+            if (plan.addResult) {
                 child.addField(JOIN_POINT_RESULT_FIELD, result);
             }
             return result;
@@ -69,6 +77,43 @@ public class SpanAspect implements BeelineInstrumentation {
         }
     }
 
+    private AdvicePlan getPlan(final ProceedingJoinPoint joinPoint, final ChildSpan span) {
+        final Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        final AdvicePlan cached = plans.get(method);
+        if (cached != null) {
+            return cached;
+        }
+        final AdvicePlan plan = createPlan(joinPoint, method, span);
+        final AdvicePlan raced = plans.putIfAbsent(method, plan);
+        return raced == null ? plan : raced;
+    }
+
+    private AdvicePlan createPlan(final ProceedingJoinPoint joinPoint, final Method method, final ChildSpan span) {
+        final Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        final Parameter[] params = method.getParameters();
+        final List<Integer> indices = new ArrayList<>();
+        final List<Parameter> parameters = new ArrayList<>();
+        final List<SpanField> annotations = new ArrayList<>();
+        for (int i = 0; i < params.length; i++) {
+            for (final Annotation paramAnnotation : parameterAnnotations[i]) {
+                if (paramAnnotation instanceof SpanField) {
+                    indices.add(i);
+                    parameters.add(params[i]);
+                    annotations.add((SpanField) paramAnnotation);
+                }
+            }
+        }
+        final int[] fieldParameterIndices = new int[indices.size()];
+        for (int i = 0; i < fieldParameterIndices.length; i++) {
+            fieldParameterIndices[i] = indices.get(i);
+        }
+        return new AdvicePlan(joinPoint.getSignature().toShortString(),
+                              fieldParameterIndices,
+                              parameters.toArray(new Parameter[0]),
+                              annotations.toArray(new SpanField[0]),
+                              span.addResult() && method.getReturnType() != void.class);
+    }
+
     protected String determineSpanName(final ProceedingJoinPoint joinPoint, final ChildSpan span) {
         final String spanName;
         if (!StringUtils.isEmpty(span.value())) {
@@ -115,27 +160,44 @@ public class SpanAspect implements BeelineInstrumentation {
         return fieldName;
     }
 
-    private void addParameterFields(final ProceedingJoinPoint joinPoint, final Span child) {
-        final Object[] args = joinPoint.getArgs();
-        if (args == null || args.length == 0) {
+    private void addParameterFields(final AdvicePlan plan,
+                                    final ProceedingJoinPoint joinPoint,
+                                    final Span child) {
+        if (plan.fieldParameterIndices.length == 0) {
             return;
         }
+        final Object[] args = joinPoint.getArgs();
+        for (int i = 0; i < plan.fieldParameterIndices.length; i++) {
+            final int index = plan.fieldParameterIndices[i];
+            final String fieldName =
+                determineParameterFieldName(plan.fieldParameters[i], index, plan.fieldAnnotations[i]);
+            child.addField(fieldName, args[index]);
+        }
+    }
 
-        final Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
-        final Annotation[][] parameterAnnotations = method.getParameterAnnotations();
-        final Parameter[] params = method.getParameters();
-
-        for (int i = 0; i < params.length; i++) {
-            for (final Annotation paramAnnotation : parameterAnnotations[i]) {
-                if (paramAnnotation instanceof SpanField) {
-                    final SpanField fieldAnnotation = (SpanField) paramAnnotation;
-                    final Parameter param = params[i];
-                    final String name = determineParameterFieldName(param, i, fieldAnnotation);
-                    final Object arg = args[i];
+    /**
+     * What the advice does for a given method, derived from its annotations once rather than on every invocation.
+     */
+    private static final class AdvicePlan {
+        private final String joinPointName;
+        /** The indices of the parameters annotated with {@link SpanField}. */
+        private final int[] fieldParameterIndices;
+        /** The parameters at the corresponding {@link #fieldParameterIndices}. */
+        private final Parameter[] fieldParameters;
+        /** The {@link SpanField} annotations of the corresponding {@link #fieldParameters}. */
+        private final SpanField[] fieldAnnotations;
+        private final boolean addResult;
 
-                    child.addField(name, arg);
-                }
-            }
+        private AdvicePlan(final String joinPointName,
+                           final int[] fieldParameterIndices,
+                           final Parameter[] fieldParameters,
+                           final SpanField[] fieldAnnotations,
+                           final boolean addResult) {
+            this.joinPointName = joinPointName;
+            this.fieldParameterIndices = fieldParameterIndices;
+            this.fieldParameters = fieldParameters;
+            this.fieldAnnotations = fieldAnnotations;
+            this.addResult = addResult;
         }
     }
 }
@@ -0,0 +1,171 @@
+package io.honeycomb.beeline.spring.beans.reactive;
+
+import io.honeycomb.beeline.spring.beans.BeelineInstrumentation;
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.beeline.tracing.Tracer;
+import io.honeycomb.beeline.tracing.propagation.HttpClientPropagator;
+import io.honeycomb.beeline.tracing.propagation.HttpHeaderCarrier;
+import io.honeycomb.beeline.tracing.propagation.Propagation;
+import io.honeycomb.beeline.tracing.propagation.PropagationCodec;
+import io.honeycomb.libhoney.utils.Assert;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static io.honeycomb.beeline.spring.utils.InstrumentationConstants.HTTP_CLIENT_SPAN_NAME;
+import static io.honeycomb.beeline.spring.utils.InstrumentationConstants.WEB_CLIENT_INSTRUMENTATION_NAME;
+
+/**
+ * An {@link ExchangeFilterFunction} that traces requests made with Spring's {@code WebClient}, using
+ * {@link HttpClientPropagator} to create a child span for each request, add the standard client fields and propagate
+ * the trace context via request headers.
+ * <p>
+ * The parent of the child span is taken from the Reactor subscriber context (see {@link ReactorSpanContext}), as set up
+ * by the {@link BeelineWebFilter}. If the context holds no Span, then the span active on the subscribing thread's
+ * {@link Tracer} is used instead, so that WebClient calls made while handling a traced Servlet request are also
+ * captured. The child span is detached from the Tracer before the request is sent, so it never pins the thread-local
+ * stack while the response is awaited.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe and can be shared.
+ */
+public class BeelineExchangeFilterFunction implements ExchangeFilterFunction, BeelineInstrumentation {
+    private final Tracer tracer;
+    private final HttpClientPropagator httpClientPropagator;
+
+    public BeelineExchangeFilterFunction(final Tracer tracer) {
+        this(tracer, Propagation.honeycombHeaderV1());
+    }
+
+    public BeelineExchangeFilterFunction(final Tracer tracer,
+                                         final PropagationCodec<Map<String, String>> propagationCodec) {
+        Assert.notNull(tracer, "Validation failed: tracer must not be null");
+        Assert.notNull(propagationCodec, "Validation failed: propagationCodec must not be null");
+        this.tracer = tracer;
+        this.httpClientPropagator = new HttpClientPropagator.Builder(tracer, r -> HTTP_CLIENT_SPAN_NAME)
+            .setPropagationCodec(propagationCodec)
+            .build();
+    }
+
+    @Override
+    public String getName() {
+        return WEB_CLIENT_INSTRUMENTATION_NAME;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(final ClientRequest request, final ExchangeFunction next) {
+        return Mono.subscriberContext().flatMap(context -> {
+            final Span parentSpan = ReactorSpanContext.getSpan(context);
+            if (parentSpan != null && parentSpan.isNoop()) {
+                return next.exchange(request);
+            }
+            final HttpClientRequestAdapter requestAdapter = new HttpClientRequestAdapter(request);
+            final Span childSpan = startSpan(requestAdapter, parentSpan);
+            return next.exchange(requestAdapter.build())
+                .doOnSuccess(response -> httpClientPropagator.endPropagation(
+                    response == null ? null : new HttpClientResponseAdapter(response), null, childSpan))
+                .doOnError(error -> httpClientPropagator.endPropagation(null, error, childSpan))
+                .doOnCancel(() -> httpClientPropagator.endPropagation(null, null, childSpan));
+        });
+    }
+
+    public WebClientCustomizer customizer() {
+        return builder -> builder.filter(this);
+    }
+
+    /**
+     * {@link HttpClientPropagator} creates the child span from the Tracer's active span, so the parent from the
+     * subscriber context is pushed temporarily. The child is then popped off, leaving the thread's context unchanged.
+     */
+    private Span startSpan(final HttpClientRequestAdapter requestAdapter, final Span parentSpan) {
+        if (parentSpan == null) {
+            return tracer.popSpan(httpClientPropagator.startPropagation(requestAdapter));
+        }
+        tracer.pushSpan(parentSpan);
+        try {
+            return tracer.popSpan(httpClientPropagator.startPropagation(requestAdapter));
+        } finally {
+            tracer.popSpan(parentSpan);
+        }
+    }
+
+    static final class HttpClientRequestAdapter
+        implements io.honeycomb.beeline.tracing.propagation.HttpClientRequestAdapter {
+        private final ClientRequest request;
+        private ClientRequest.Builder builder;
+
+        HttpClientRequestAdapter(final ClientRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public String getMethod() {
+            return request.method().name();
+        }
+
+        @Override
+        public Optional<String> getPath() {
+            return Optional.ofNullable(request.url().getPath());
+        }
+
+        @Override
+        public int getContentLength() {
+            return (int) request.headers().getContentLength();
+        }
+
+        /**
+         * {@link ClientRequest} is immutable, so added headers are collected into a copy, see {@link #build()}.
+         */
+        @Override
+        public void addHeader(final String name, final String value) {
+            if (builder == null) {
+                builder = ClientRequest.from(request);
+            }
+            builder.header(name, value);
+        }
+
+        @Override
+        public Optional<String> getFirstHeader(final String name) {
+            return Optional.ofNullable(request.headers().getFirst(name));
+        }
+
+        @Override
+        public Map<String, String> getHeaders() {
+            final HttpHeaders headers = request.headers();
+            return new HttpHeaderCarrier(headers::getFirst, headers::toSingleValueMap);
+        }
+
+        /**
+         * @return the request including any added headers.
+         */
+        ClientRequest build() {
+            return builder == null ? request : builder.build();
+        }
+    }
+
+    static final class HttpClientResponseAdapter
+        implements io.honeycomb.beeline.tracing.propagation.HttpClientResponseAdapter {
+        private final ClientResponse response;
+
+        HttpClientResponseAdapter(final ClientResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getStatus() {
+            return response.rawStatusCode();
+        }
+
+        @Override
+        public Optional<String> getFirstHeader(final String name) {
+            return Optional.ofNullable(response.headers().asHttpHeaders().getFirst(name));
+        }
+    }
+}
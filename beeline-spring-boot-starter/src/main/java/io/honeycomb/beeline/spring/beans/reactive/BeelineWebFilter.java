@@ -0,0 +1,221 @@
+package io.honeycomb.beeline.spring.beans.reactive;
+
+import io.honeycomb.beeline.spring.beans.BeelineInstrumentation;
+import io.honeycomb.beeline.tracing.Beeline;
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.beeline.tracing.propagation.HttpHeaderCarrier;
+import io.honeycomb.beeline.tracing.propagation.HttpServerPropagator;
+import io.honeycomb.beeline.tracing.propagation.Propagation;
+import io.honeycomb.beeline.tracing.propagation.PropagationCodec;
+import io.honeycomb.beeline.tracing.utils.CompiledPathMatcher;
+import io.honeycomb.libhoney.utils.Assert;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.honeycomb.beeline.spring.utils.InstrumentationConstants.FILTER_SPAN_NAME_PREFIX;
+import static io.honeycomb.beeline.spring.utils.InstrumentationConstants.WEBFLUX_INSTRUMENTATION_NAME;
+import static io.honeycomb.beeline.spring.utils.MoreTraceFieldConstants.SPRING_MATCHED_PATTERN_FIELD;
+
+/**
+ * A {@link WebFilter} that traces requests received by a Spring WebFlux server, using {@link HttpServerPropagator}
+ * to start a trace for each request and to add the standard request and response fields.
+ * <p>
+ * Unlike the Servlet instrumentation, the request's Span is not left on the {@link io.honeycomb.beeline.tracing.Tracer}'s
+ * thread-local stack, since reactive request processing is not bound to a single thread. Instead it is detached from
+ * the Tracer immediately and stored in the Reactor subscriber context, where it can be retrieved via
+ * {@link ReactorSpanContext#currentSpan()} and where the {@link BeelineExchangeFilterFunction} picks it up as the
+ * parent of outgoing WebClient requests. The Span is closed when the filter chain completes, errors or is cancelled.
+ * <p>
+ * Optionally, the filter can be parameterized with an allowlist and/or a denylist of Ant-style request path patterns,
+ * with the same semantics as those of the {@link io.honeycomb.beeline.spring.beans.SpringServletFilter}.
+ *
+ * <p>Thread-safety</p>
+ * Instances of this class are thread-safe and can be shared.
+ */
+public class BeelineWebFilter implements WebFilter, Ordered, BeelineInstrumentation {
+    private final Beeline beeline;
+    private final HttpServerPropagator serverPropagator;
+    private final CompiledPathMatcher.PathPatterns pathPatterns;
+    private final int order;
+
+    public BeelineWebFilter(final String serviceName,
+                            final List<String> includePaths,
+                            final List<String> excludePaths,
+                            final Beeline beeline) {
+        this(serviceName, includePaths, excludePaths, beeline, Propagation.honeycombHeaderV1(),
+            Ordered.HIGHEST_PRECEDENCE);
+    }
+
+    public BeelineWebFilter(final String serviceName,
+                            final List<String> includePaths,
+                            final List<String> excludePaths,
+                            final Beeline beeline,
+                            final PropagationCodec<Map<String, String>> propagationCodec,
+                            final int order) {
+        Assert.notNull(serviceName, "Validation failed: serviceName must not be null");
+        Assert.notNull(includePaths, "Validation failed: includePaths must not be null");
+        Assert.notNull(excludePaths, "Validation failed: excludePaths must not be null");
+        Assert.notNull(beeline, "Validation failed: beeline must not be null");
+        Assert.notNull(propagationCodec, "Validation failed: propagationCodec must not be null");
+
+        this.beeline = beeline;
+        this.serverPropagator = new HttpServerPropagator.Builder(beeline, serviceName,
+            r -> FILTER_SPAN_NAME_PREFIX + r.getMethod().toLowerCase(Locale.ENGLISH))
+            .setPropagationCodec(propagationCodec)
+            .build();
+        this.pathPatterns = new CompiledPathMatcher().compile(includePaths, excludePaths);
+        this.order = order;
+    }
+
+    @Override
+    public String getName() {
+        return WEBFLUX_INSTRUMENTATION_NAME;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+        final ServerHttpRequest request = exchange.getRequest();
+        if (!pathPatterns.isIncluded(request.getPath().pathWithinApplication().value())) {
+            return chain.filter(exchange);
+        }
+        final Span span = startSpan(request);
+        return chain.filter(exchange)
+            .doOnSuccess(v -> endSpan(exchange, null, span))
+            .doOnError(error -> endSpan(exchange, error, span))
+            .doOnCancel(() -> endSpan(exchange, null, span))
+            .subscriberContext(context -> ReactorSpanContext.withSpan(context, span));
+    }
+
+    private Span startSpan(final ServerHttpRequest request) {
+        final Span rootSpan = serverPropagator.startPropagation(new HttpServerRequestAdapter(request));
+        // the rest of the request may run on any thread, so detach the span from this thread's tracing context
+        return beeline.getTracer().popSpan(rootSpan);
+    }
+
+    private void endSpan(final ServerWebExchange exchange, final Throwable error, final Span span) {
+        if (!span.isNoop()) {
+            final Object matchedPattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (matchedPattern != null) {
+                span.addField(SPRING_MATCHED_PATTERN_FIELD, matchedPattern.toString());
+            }
+        }
+        serverPropagator.endPropagation(new HttpServerResponseAdapter(exchange.getResponse()), error, span);
+    }
+
+    static final class HttpServerRequestAdapter
+        implements io.honeycomb.beeline.tracing.propagation.HttpServerRequestAdapter {
+        private final ServerHttpRequest request;
+
+        HttpServerRequestAdapter(final ServerHttpRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public String getMethod() {
+            return request.getMethodValue();
+        }
+
+        @Override
+        public Optional<String> getPath() {
+            return Optional.ofNullable(request.getURI().getPath());
+        }
+
+        @Override
+        public Optional<String> getFirstHeader(final String name) {
+            return Optional.ofNullable(request.getHeaders().getFirst(name));
+        }
+
+        @Override
+        public Optional<String> getScheme() {
+            return Optional.ofNullable(request.getURI().getScheme());
+        }
+
+        @Override
+        public Optional<String> getHost() {
+            return Optional.ofNullable(request.getURI().getHost());
+        }
+
+        /**
+         * {@link ServerHttpRequest} does not expose the protocol version, so this is always null.
+         */
+        @Override
+        public String getHttpVersion() {
+            return null;
+        }
+
+        @Override
+        public boolean isSecure() {
+            final URI uri = request.getURI();
+            return request.getSslInfo() != null || "https".equalsIgnoreCase(uri.getScheme());
+        }
+
+        @Override
+        public String getRemoteAddress() {
+            final InetSocketAddress remoteAddress = request.getRemoteAddress();
+            if (remoteAddress == null) {
+                return null;
+            }
+            return remoteAddress.getAddress() == null ?
+                remoteAddress.getHostString() : remoteAddress.getAddress().getHostAddress();
+        }
+
+        @Override
+        public Map<String, List<String>> getQueryParams() {
+            return request.getQueryParams();
+        }
+
+        @Override
+        public int getContentLength() {
+            return (int) request.getHeaders().getContentLength();
+        }
+
+        @Override
+        public Map<String, String> getHeaders() {
+            final HttpHeaders headers = request.getHeaders();
+            return new HttpHeaderCarrier(headers::getFirst, headers::toSingleValueMap);
+        }
+    }
+
+    static final class HttpServerResponseAdapter
+        implements io.honeycomb.beeline.tracing.propagation.HttpServerResponseAdapter {
+        private final ServerHttpResponse response;
+
+        HttpServerResponseAdapter(final ServerHttpResponse response) {
+            this.response = response;
+        }
+
+        /**
+         * Reactive servers respond with 200 if the status has not been set explicitly.
+         */
+        @Override
+        public int getStatus() {
+            final HttpStatus status = response.getStatusCode();
+            return status == null ? HttpStatus.OK.value() : status.value();
+        }
+
+        @Override
+        public Optional<String> getFirstHeader(final String name) {
+            return Optional.ofNullable(response.getHeaders().getFirst(name));
+        }
+    }
+}
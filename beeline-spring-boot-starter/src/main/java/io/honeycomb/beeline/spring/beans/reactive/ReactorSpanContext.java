@@ -0,0 +1,67 @@
+package io.honeycomb.beeline.spring.beans.reactive;
+
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.libhoney.utils.Assert;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Accessors for the Span that the reactive instrumentation stores in the Reactor {@link Context}.
+ * <p>
+ * The {@link io.honeycomb.beeline.tracing.Tracer} keeps its Spans in a thread-local stack, which does not work with
+ * reactive pipelines since they may hop threads between operators. The {@link BeelineWebFilter} therefore stores the
+ * request's Span in the subscriber context, which Reactor propagates along the pipeline regardless of threading.
+ *
+ * <p>Example</p>
+ * <pre>
+ * return ReactorSpanContext.currentSpan()
+ *     .doOnNext(span{@code ->} span.addField("customer-id", customerId))
+ *     .then(customerRepository.findById(customerId));
+ * </pre>
+ */
+public final class ReactorSpanContext {
+    /**
+     * Key under which the active Span is stored in the Reactor {@link Context}.
+     */
+    public static final String SPAN_CONTEXT_KEY = ReactorSpanContext.class.getName() + ".span";
+
+    private ReactorSpanContext() {
+        // utils class
+    }
+
+    /**
+     * @return a Mono that emits the Span in the subscriber context, or a "noop" Span if there is none.
+     */
+    public static Mono<Span> currentSpan() {
+        return Mono.subscriberContext().map(ReactorSpanContext::getSpanOrNoop);
+    }
+
+    /**
+     * @param context to read from - must not be null.
+     * @return the Span in the context, or a "noop" Span if there is none.
+     */
+    public static Span getSpanOrNoop(final Context context) {
+        final Span span = getSpan(context);
+        return span == null ? Span.getNoopInstance() : span;
+    }
+
+    /**
+     * @param context to read from - must not be null.
+     * @return the Span in the context - null if there is none.
+     */
+    public static Span getSpan(final Context context) {
+        Assert.notNull(context, "Validation failed: context must not be null");
+        return context.getOrDefault(SPAN_CONTEXT_KEY, null);
+    }
+
+    /**
+     * @param context to add the Span to - must not be null.
+     * @param span    to store - must not be null.
+     * @return a new context containing the Span.
+     */
+    public static Context withSpan(final Context context, final Span span) {
+        Assert.notNull(context, "Validation failed: context must not be null");
+        Assert.notNull(span, "Validation failed: span must not be null");
+        return context.put(SPAN_CONTEXT_KEY, span);
+    }
+}
@@ -16,11 +16,15 @@ public final class InstrumentationConstants {
     public static final String FILTER_SPAN_NAME_PREFIX          = "http_";
     /** Name of the Spring MVC web server instrumentation. */
     public static final String WEBMVC_INSTRUMENTATION_NAME      = "spring_mvc";
+    /** Name of the Spring WebFlux web server instrumentation. */
+    public static final String WEBFLUX_INSTRUMENTATION_NAME     = "spring_webflux";
     /** Name of the Rest Template (Spring's http client) instrumentation. */
     public static final String REST_TEMPLATE_INSTRUMENTATION_NAME = "spring_rest_template";
+    /** Name of the WebClient (Spring's reactive http client) instrumentation. */
+    public static final String WEB_CLIENT_INSTRUMENTATION_NAME    = "spring_web_client";
     /** Name of the annotation-driven (via Spring AOP) instrumentation. */
     public static final String AOP_INSTRUMENTATION_NAME           = "spring_aop";
-    /** Name of the http client span created by the rest template instrumentation. */
+    /** Name of the http client span created by the rest template and web client instrumentations. */
     public static final String HTTP_CLIENT_SPAN_NAME            = "http_client_request";
     /** @deprecated Use {@link io.honeycomb.beeline.tracing.propagation.HttpClientPropagator#HTTP_CLIENT_SPAN_TYPE} */
     public static final String HTTP_CLIENT_SPAN_TYPE            = "http_client";
@@ -1,35 +1,54 @@
 package io.honeycomb.beeline.spring.autoconfig;
 
+import io.honeycomb.beeline.spring.beans.BeelineDataSourceBeanPostProcessor;
 import io.honeycomb.beeline.spring.beans.BeelineHandlerInterceptor;
 import io.honeycomb.beeline.spring.beans.BeelineQueryListenerForJDBC;
 import io.honeycomb.beeline.spring.beans.BeelineRestTemplateInterceptor;
-import io.honeycomb.beeline.spring.beans.DataSourceProxyBeanPostProcessor;
 import io.honeycomb.beeline.spring.beans.DebugResponseObserver;
+import io.honeycomb.beeline.spring.beans.OrphanQueryAggregator;
 import io.honeycomb.beeline.spring.beans.SpringServletFilter;
+import io.honeycomb.beeline.spring.beans.SqlNormalizer;
+import io.honeycomb.beeline.spring.beans.aspects.SpanAspect;
+import io.honeycomb.beeline.spring.beans.reactive.BeelineExchangeFilterFunction;
+import io.honeycomb.beeline.spring.beans.reactive.BeelineWebFilter;
 import io.honeycomb.beeline.tracing.Beeline;
+import io.honeycomb.beeline.tracing.FieldValueRenderer;
+import io.honeycomb.beeline.tracing.GlobalTracer;
 import io.honeycomb.beeline.tracing.Span;
 import io.honeycomb.beeline.tracing.SpanPostProcessor;
 import io.honeycomb.beeline.tracing.Tracer;
 import io.honeycomb.beeline.tracing.Tracing;
+import io.honeycomb.beeline.tracing.propagation.PropagationContext;
 import io.honeycomb.beeline.tracing.sampling.TraceSampler;
+import io.honeycomb.beeline.tracing.utils.TraceFieldConstants;
 import io.honeycomb.libhoney.HoneyClient;
 import io.honeycomb.libhoney.LibHoney;
 import io.honeycomb.libhoney.ResponseObserver;
 import io.honeycomb.libhoney.transport.impl.BatchingHttpTransport;
 import org.junit.Test;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.boot.context.annotation.UserConfigurations;
 import org.springframework.boot.test.context.FilteredClassLoader;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
 import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -37,6 +56,7 @@ import java.util.Map;
 import java.util.Objects;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
 
 
@@ -53,6 +73,7 @@ public class BeelineAutoconfigTest {
 
     private ApplicationContextRunner contextRunner = new ApplicationContextRunner();
     private WebApplicationContextRunner webApplicationContextRunner = new WebApplicationContextRunner();
+    private ReactiveWebApplicationContextRunner reactiveWebApplicationContextRunner = new ReactiveWebApplicationContextRunner();
 
     private final List<Class<?>> coreBeans = Arrays.asList(
         HoneyClient.class,
@@ -64,7 +85,7 @@ public class BeelineAutoconfigTest {
         BeelineHandlerInterceptor.class,
         BeelineRestTemplateInterceptor.class,
         BatchingHttpTransport.class,
-        DataSourceProxyBeanPostProcessor.class,
+        BeelineDataSourceBeanPostProcessor.class,
         BeelineQueryListenerForJDBC.class
     );
 
@@ -371,16 +392,152 @@ public class BeelineAutoconfigTest {
     }
 
     @Test
-    public void GIVEN_jdbcDisabled_EXPECT_DataSourceProxyBeanPostProcessorToNotBeLoaded() {
+    public void GIVEN_jdbcDisabled_EXPECT_BeelineDataSourceBeanPostProcessorToNotBeLoaded() {
         webApplicationContextRunner
             .withConfiguration(AutoConfigurations.of(BeelineAutoconfig.class))
             .withPropertyValues(defaultProps)
             .withPropertyValues("honeycomb.beeline.jdbc.enabled=false")
             .run(context -> assertThat(context)
-                .doesNotHaveBean(DataSourceProxyBeanPostProcessor.class)
+                .doesNotHaveBean(BeelineDataSourceBeanPostProcessor.class)
                 .doesNotHaveBean(BeelineQueryListenerForJDBC.class));
     }
 
+    @Test
+    public void GIVEN_defaultProperties_EXPECT_SpanAspectToBeLoaded() {
+        webApplicationContextRunner
+            .withConfiguration(AutoConfigurations.of(BeelineAutoconfig.class))
+            .withPropertyValues(defaultProps)
+            .run(context -> assertThat(context).hasSingleBean(SpanAspect.class));
+    }
+
+    @Test
+    public void GIVEN_beelineAgentInstalled_EXPECT_SpanAspectToNotBeLoadedAndTracerToBeRegistered() {
+        try {
+            webApplicationContextRunner
+                .withConfiguration(AutoConfigurations.of(BeelineAutoconfig.class))
+                .withPropertyValues(defaultProps)
+                .withPropertyValues("honeycomb.beeline.agent.installed=true")
+                .run(context -> {
+                    assertThat(context).doesNotHaveBean(SpanAspect.class);
+                    assertThat(GlobalTracer.get()).isSameAs(context.getBean(Tracer.class));
+                });
+        } finally {
+            GlobalTracer.clear();
+        }
+    }
+
+    @Configuration
+    public static class TracedOnInitConfig {
+        @Bean
+        public Tracer[] tracerOnInit(final Beeline beeline) {
+            // as seen by a woven @ChildSpan method called while this bean is initialized
+            return new Tracer[]{GlobalTracer.get()};
+        }
+    }
+
+    @Test
+    public void GIVEN_beelineAgentInstalled_EXPECT_TracerToBeRegisteredBeforeBeansUsingItAreInitialized() {
+        try {
+            webApplicationContextRunner
+                .withConfiguration(AutoConfigurations.of(BeelineAutoconfig.class))
+                .withUserConfiguration(TracedOnInitConfig.class)
+                .withPropertyValues(defaultProps)
+                .withPropertyValues("honeycomb.beeline.agent.installed=true")
+                .run(context -> assertThat(context.getBean("tracerOnInit", Tracer[].class))
+                    .containsExactly(context.getBean(Tracer.class)));
+        } finally {
+            GlobalTracer.clear();
+        }
+    }
+
+    @Test
+    public void GIVEN_defaultOrphanQueryPolicy_EXPECT_OrphanQueryAggregatorToBeLoaded() {
+        webApplicationContextRunner
+            .withConfiguration(AutoConfigurations.of(BeelineAutoconfig.class))
+            .withPropertyValues(defaultProps)
+            .run(context -> assertThat(context).hasSingleBean(OrphanQueryAggregator.class));
+    }
+
+    @Test
+    public void GIVEN_orphanQueriesTraced_EXPECT_OrphanQueryAggregatorToNotBeLoaded() {
+        webApplicationContextRunner
+            .withConfiguration(AutoConfigurations.of(BeelineAutoconfig.class))
+            .withPropertyValues(defaultProps)
+            .withPropertyValues("honeycomb.beeline.jdbc.orphan-queries=trace")
+            .run(context -> assertThat(context)
+                .hasSingleBean(BeelineQueryListenerForJDBC.class)
+                .doesNotHaveBean(OrphanQueryAggregator.class));
+    }
+
+    @Test
+    public void GIVEN_coalesceThreshold_EXPECT_repeatedSiblingSpansCoalesced() {
+        webApplicationContextRunner
+            .withConfiguration(AutoConfigurations.of(BeelineAutoconfig.class))
+            .withPropertyValues(defaultProps)
+            .withPropertyValues("honeycomb.beeline.coalesce-sibling-spans-threshold=2")
+            .run(context -> assertThat(runRepeatedQueries(context.getBean(Beeline.class)).getFields())
+                .containsEntry(TraceFieldConstants.N_PLUS_ONE_FIELD, true));
+    }
+
+    @Test
+    public void GIVEN_normalizeQueriesEnabled_EXPECT_listenerToNormalizeQueriesOnlyThen() {
+        webApplicationContextRunner
+            .withConfiguration(AutoConfigurations.of(BeelineAutoconfig.class))
+            .withPropertyValues(defaultProps)
+            .run(context -> assertThat(ReflectionTestUtils.getField(
+                context.getBean(BeelineQueryListenerForJDBC.class), "sqlNormalizer")).isNull());
+        webApplicationContextRunner
+            .withConfiguration(AutoConfigurations.of(BeelineAutoconfig.class))
+            .withPropertyValues(defaultProps)
+            .withPropertyValues("honeycomb.beeline.jdbc.normalize-queries=true")
+            .run(context -> assertThat(ReflectionTestUtils.getField(
+                context.getBean(BeelineQueryListenerForJDBC.class), "sqlNormalizer")).isInstanceOf(SqlNormalizer.class));
+    }
+
+    public static class RenderedValue {
+        public String getName() {
+            return "a name longer than the limit";
+        }
+    }
+
+    @Test
+    public void GIVEN_fieldValueProperties_EXPECT_rendererToBeConfiguredWithThem() {
+        webApplicationContextRunner
+            .withConfiguration(AutoConfigurations.of(BeelineAutoconfig.class))
+            .withPropertyValues(defaultProps)
+            .withPropertyValues(
+                "honeycomb.beeline.field-values.max-string-length=6",
+                "honeycomb.beeline.field-values.rendered-types=" + RenderedValue.class.getName())
+            .run(context -> {
+                final FieldValueRenderer renderer = context.getBean(FieldValueRenderer.class);
+
+                assertThat(renderer.render(new RenderedValue())).isEqualTo(Collections.singletonMap("name", "a name..."));
+                assertThat(renderer.render("a string longer than the limit")).isEqualTo("a stri...");
+            });
+    }
+
+    @Test
+    public void GIVEN_noCoalesceThreshold_EXPECT_siblingSpansNotCoalesced() {
+        webApplicationContextRunner
+            .withConfiguration(AutoConfigurations.of(BeelineAutoconfig.class))
+            .withPropertyValues(defaultProps)
+            .run(context -> assertThat(runRepeatedQueries(context.getBean(Beeline.class)).getFields())
+                .doesNotContainKey(TraceFieldConstants.N_PLUS_ONE_FIELD));
+    }
+
+    /**
+     * @return the root span of the trace, which is left open so that no spans are sent.
+     */
+    private static Span runRepeatedQueries(final Beeline beeline) {
+        final Span root = beeline.startTrace("root", PropagationContext.emptyContext(), "someService");
+        for (int i = 0; i < 2; i++) {
+            try (Span span = beeline.startChildSpan("query")) {
+                span.addField(TraceFieldConstants.DATABASE_QUERY_FIELD, "SELECT 1");
+            }
+        }
+        return root;
+    }
+
     @Test
     public void GIVEN_missingPropagators_EXPECT_defaultPropagators() {
         webApplicationContextRunner
@@ -419,4 +576,96 @@ public class BeelineAutoconfigTest {
                 assertThat(context.getBean(BeelineProperties.class).getProxyPassword()).isEqualTo(password);
             });
     }
+
+    @Test
+    public void GIVEN_aReactiveWebApplicationContext_EXPECT_ReactiveBeansAndNoServletBeansToBeLoaded() {
+        reactiveWebApplicationContextRunner
+            .withConfiguration(AutoConfigurations.of(BeelineAutoconfig.class, BeelineReactiveAutoconfig.class))
+            .withPropertyValues(defaultProps)
+
+            .run(context -> {
+                assertThat(context).hasSingleBean(BeelineWebFilter.class);
+                assertThat(context).hasSingleBean(BeelineExchangeFilterFunction.class);
+                assertThat(context).hasSingleBean(WebClientCustomizer.class);
+                assertThat(context).hasSingleBean(Beeline.class);
+                assertThat(context).doesNotHaveBean(SpringServletFilter.class);
+                assertThat(context).doesNotHaveBean(BeelineHandlerInterceptor.class);
+            });
+    }
+
+    @Test
+    public void GIVEN_aServletWebApplicationContext_EXPECT_NoWebFilterToBeLoaded() {
+        webApplicationContextRunner
+            .withConfiguration(AutoConfigurations.of(BeelineAutoconfig.class, BeelineReactiveAutoconfig.class))
+            .withPropertyValues(defaultProps)
+
+            .run(context -> {
+                assertThat(context).doesNotHaveBean(BeelineWebFilter.class);
+                assertThat(context).hasSingleBean(BeelineExchangeFilterFunction.class);
+            });
+    }
+
+    @Test
+    public void GIVEN_webClientIsDisabled_EXPECT_ExchangeFilterFunctionToNotBeLoaded() {
+        reactiveWebApplicationContextRunner
+            .withConfiguration(AutoConfigurations.of(BeelineReactiveAutoconfig.class))
+            .withPropertyValues(defaultProps)
+            .withPropertyValues("honeycomb.beeline.web-client.enabled=false")
+
+            .run(context -> {
+                assertThat(context).hasSingleBean(BeelineWebFilter.class);
+                assertThat(context).doesNotHaveBean(BeelineExchangeFilterFunction.class);
+                assertThat(context).doesNotHaveBean(WebClientCustomizer.class);
+            });
+    }
+
+    @Test
+    public void GIVEN_onlyWebFluxOnTheClasspath_EXPECT_AReactiveApplicationWithTheWebFilter() throws Exception {
+        // boots a real application from a class loader without the Servlet API, Tomcat, or Spring MVC,
+        // as an application depending on spring-boot-starter-webflux (and not spring-boot-starter-web) would;
+        // the test-scoped Jetty is dropped too, so the application runs on Reactor Netty
+        final URL[] webFluxOnlyClasspath = Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+            .filter(entry -> !entry.contains("tomcat") && !entry.contains("servlet") && !entry.contains("spring-webmvc")
+                && !entry.contains("jetty"))
+            .map(BeelineAutoconfigTest::toUrl)
+            .toArray(URL[]::new);
+        final Thread currentThread = Thread.currentThread();
+        final ClassLoader contextClassLoader = currentThread.getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(webFluxOnlyClasspath, ClassLoader.getSystemClassLoader().getParent())) {
+            currentThread.setContextClassLoader(classLoader);
+            assertThatThrownBy(() -> classLoader.loadClass("javax.servlet.Filter")).isInstanceOf(ClassNotFoundException.class);
+
+            @SuppressWarnings("unchecked")
+            final List<String> beanNames = (List<String>) classLoader
+                .loadClass(WebFluxOnlyApplication.class.getName())
+                .getMethod("run", String[].class)
+                .invoke(null, (Object) defaultProps);
+
+            assertThat(beanNames).contains("defaultBeelineWebFilter", "defaultBeelineExchangeFilterFunction");
+            assertThat(beanNames).doesNotContain("defaultBeelineFilter", "defaultBeelineInterceptor");
+        } finally {
+            currentThread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    private static URL toUrl(final String classpathEntry) {
+        try {
+            return new File(classpathEntry).toURI().toURL();
+        } catch (final MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    public static class WebFluxOnlyApplication {
+        public static List<String> run(final String... properties) {
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(WebFluxOnlyApplication.class)
+                .properties(properties)
+                .properties("server.port=0")
+                .run()) {
+                return Arrays.asList(context.getBeanDefinitionNames());
+            }
+        }
+    }
 }
@@ -14,6 +14,8 @@ import java.util.stream.Collectors;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SuppressWarnings("unchecked")
@@ -69,6 +71,20 @@ public class BeelineMetaFieldProviderTest {
         assertThat(resolved2).contains(entry("meta.instrumentation_count", 2));
     }
 
+    @Test
+    public void GIVEN_refreshedContext_WHEN_resolvingDynamicFieldsRepeatedly_EXPECT_instrumentationsToBeComputedOnce() {
+        final BeelineInstrumentation mock1 = mock(BeelineInstrumentation.class);
+        when(mock1.getName()).thenReturn("mockmvc");
+        final BeelineMetaFieldProvider beelineMetaFieldProvider = new BeelineMetaFieldProvider("package", "v1", "v2", "local", Collections.singletonList(mock1));
+        beelineMetaFieldProvider.onApplicationEvent(mock(ContextRefreshedEvent.class));
+
+        final Object first = resolveDynamicFields(beelineMetaFieldProvider).get("meta.instrumentations");
+        final Object second = resolveDynamicFields(beelineMetaFieldProvider).get("meta.instrumentations");
+
+        assertThat(second).isSameAs(first);
+        verify(mock1, times(1)).getName();
+    }
+
     private Map<String, Object> resolveDynamicFields(final BeelineMetaFieldProvider provider) {
         final Map<String, ValueSupplier<?>> dynamicFields = provider.getDynamicFields();
         return dynamicFields.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, o -> o.getValue().supply()));
@@ -0,0 +1,48 @@
+package io.honeycomb.beeline.spring.beans;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class BeelineDataSourceBeanPostProcessorTest {
+    private BeelineDataSourceBeanPostProcessor processor;
+
+    @Before
+    public void setUp() {
+        processor = new BeelineDataSourceBeanPostProcessor(mock(BeelineQueryListenerForJDBC.class));
+    }
+
+    @Test
+    public void GIVEN_DataSource_EXPECT_BeelineDataSource() {
+        final DataSource dataSource = mock(DataSource.class);
+        final Object o = processor.postProcessAfterInitialization(dataSource, "name");
+        assertThat(o).isInstanceOf(BeelineDataSource.class);
+        assertThat(((BeelineDataSource) o).getDelegate()).isSameAs(dataSource);
+    }
+
+    @Test
+    public void GIVEN_BeelineDataSource_EXPECT_objectIsSameObject() {
+        final DataSource dataSource = mock(BeelineDataSource.class);
+        final Object o = processor.postProcessAfterInitialization(dataSource, "name");
+        assertThat(o).isSameAs(dataSource);
+    }
+
+    @Test
+    public void GIVEN_ProxiedDataSource_EXPECT_objectIsSameObject() {
+        final DataSource dataSource = mock(ProxyDataSource.class);
+        final Object o = processor.postProcessAfterInitialization(dataSource, "name");
+        assertThat(o).isSameAs(dataSource);
+    }
+
+    @Test
+    public void GIVEN_otherObject_EXPECT_objectIsSameObject() {
+        final String sourceObj = "object";
+        final Object o = processor.postProcessAfterInitialization(sourceObj, "name");
+        assertThat(o).isSameAs(sourceObj);
+    }
+}
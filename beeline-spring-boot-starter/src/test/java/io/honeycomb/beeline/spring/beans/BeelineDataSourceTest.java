@@ -0,0 +1,295 @@
+package io.honeycomb.beeline.spring.beans;
+
+import io.honeycomb.beeline.tracing.Beeline;
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.beeline.tracing.SpanBuilderFactory;
+import io.honeycomb.beeline.tracing.SpanPostProcessor;
+import io.honeycomb.beeline.tracing.Tracing;
+import io.honeycomb.beeline.tracing.propagation.PropagationContext;
+import io.honeycomb.beeline.tracing.sampling.Sampling;
+import io.honeycomb.beeline.tracing.utils.TraceFieldConstants;
+import io.honeycomb.libhoney.Event;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class BeelineDataSourceTest {
+    private static final String QUERY = "SELECT * FROM orders WHERE status = 'open' AND id = ?";
+
+    @Mock
+    private SpanPostProcessor mockProcessor;
+    @Mock
+    private Event mockEvent;
+    @Mock
+    private DataSource mockDataSource;
+    @Mock
+    private Connection mockConnection;
+    @Mock
+    private PreparedStatement mockPreparedStatement;
+    @Mock
+    private Statement mockStatement;
+    @Mock
+    private ResultSet mockResultSet;
+
+    private Beeline beeline;
+    private SqlNormalizer sqlNormalizer;
+    private Span rootSpan;
+
+    @Before
+    public void setUp() throws SQLException {
+        when(mockProcessor.runSamplerHook(any())).thenReturn(1);
+        when(mockProcessor.generateEvent(any())).thenReturn(mockEvent);
+        final SpanBuilderFactory factory = Tracing.createSpanBuilderFactory(mockProcessor, Sampling.alwaysSampler());
+        beeline = Tracing.createBeeline(Tracing.createTracer(factory), factory, "service");
+        sqlNormalizer = spy(new SqlNormalizer());
+        when(mockDataSource.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockConnection.createStatement()).thenReturn(mockStatement);
+        rootSpan = beeline.startTrace("root", PropagationContext.emptyContext(), "service");
+    }
+
+    @After
+    public void tearDown() {
+        beeline.getTracer().endTrace();
+    }
+
+    private DataSource dataSource(final JdbcQueryParameterMode queryParameterMode) {
+        return new BeelineDataSource(mockDataSource, new BeelineQueryListenerForJDBC.Builder(beeline)
+            .setSqlNormalizer(sqlNormalizer)
+            .setQueryParameterMode(queryParameterMode)
+            .build());
+    }
+
+    private List<Span> sentSpans() {
+        final ArgumentCaptor<Span> captor = ArgumentCaptor.forClass(Span.class);
+        verify(mockProcessor, atLeastOnce()).generateEvent(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    public void GIVEN_anActiveSpan_WHEN_executingAPreparedStatement_EXPECT_querySpanWithNormalizedQueryAndParameters() throws SQLException {
+        final Connection connection = dataSource(JdbcQueryParameterMode.ALL).getConnection();
+        final PreparedStatement statement = connection.prepareStatement(QUERY);
+        statement.setLong(1, 42L);
+
+        statement.executeQuery();
+
+        final Span span = sentSpans().get(0);
+        assertThat(span.getParentSpanId()).isEqualTo(rootSpan.getSpanId());
+        assertThat(span.getFields())
+            .containsEntry(TraceFieldConstants.DATABASE_QUERY_FIELD, "SELECT * FROM orders WHERE status = ? AND id = ?")
+            .containsEntry(TraceFieldConstants.DATABASE_QUERY_PARAMETERS_FIELD, Collections.singletonList(Collections.singletonMap("1", 42L)))
+            .containsEntry(TraceFieldConstants.DATABASE_STATEMENT_TYPE_FIELD, "PREPARED")
+            .containsEntry(TraceFieldConstants.DATABASE_CONNECTION_ID_FIELD, "1")
+            .containsEntry(TraceFieldConstants.DATABASE_IS_SUCCESS, true)
+            .containsEntry(TraceFieldConstants.DATABASE_IS_BATCH_FIELD, false);
+        assertThat(rootSpan.getFields()).containsEntry(TraceFieldConstants.DATABASE_QUERY_COUNT_FIELD, 1L);
+        assertThat(statement.getConnection()).isSameAs(connection);
+    }
+
+    @Test
+    public void GIVEN_aPreparedStatement_WHEN_executingRepeatedly_EXPECT_queryNormalizedOnceAndParametersPerExecution() throws SQLException {
+        final PreparedStatement statement = dataSource(JdbcQueryParameterMode.ALL).getConnection().prepareStatement(QUERY);
+
+        statement.setLong(1, 1L);
+        statement.executeUpdate();
+        statement.setLong(1, 2L);
+        statement.executeUpdate();
+
+        verify(sqlNormalizer, times(1)).normalize(QUERY);
+        final List<Span> spans = sentSpans();
+        assertThat(spans).hasSize(2);
+        assertThat(spans.get(0).getFields().get(TraceFieldConstants.DATABASE_QUERY_PARAMETERS_FIELD))
+            .isEqualTo(Collections.singletonList(Collections.singletonMap("1", 1L)));
+        assertThat(spans.get(1).getFields().get(TraceFieldConstants.DATABASE_QUERY_PARAMETERS_FIELD))
+            .isEqualTo(Collections.singletonList(Collections.singletonMap("1", 2L)));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void GIVEN_aPreparedStatementBatch_WHEN_executing_EXPECT_singleSpanWithAllParameterSets() throws SQLException {
+        final PreparedStatement statement = dataSource(JdbcQueryParameterMode.ALL).getConnection().prepareStatement(QUERY);
+        statement.setLong(1, 1L);
+        statement.addBatch();
+        statement.setLong(1, 2L);
+        statement.addBatch();
+
+        statement.executeBatch();
+
+        final Map<String, Object> fields = sentSpans().get(0).getFields();
+        assertThat(fields)
+            .containsEntry(TraceFieldConstants.DATABASE_IS_BATCH_FIELD, true)
+            .containsEntry(TraceFieldConstants.DATABASE_BATCH_SIZE_FIELD, 2);
+        assertThat((List<Object>) fields.get(TraceFieldConstants.DATABASE_QUERY_PARAMETERS_FIELD))
+            .containsExactly(Collections.singletonMap("1", 1L), Collections.singletonMap("1", 2L));
+    }
+
+    @Test
+    public void GIVEN_noQueryParameters_WHEN_executingAPreparedStatement_EXPECT_parametersNotRecorded() throws SQLException {
+        final PreparedStatement statement = dataSource(JdbcQueryParameterMode.NONE).getConnection().prepareStatement(QUERY);
+        statement.setLong(1, 42L);
+
+        statement.execute();
+
+        assertThat(sentSpans().get(0).getFields()).doesNotContainKey(TraceFieldConstants.DATABASE_QUERY_PARAMETERS_FIELD);
+    }
+
+    @Test
+    public void GIVEN_aStatementBatch_WHEN_executing_EXPECT_spanPerQuery() throws SQLException {
+        final Statement statement = dataSource(JdbcQueryParameterMode.ALL).getConnection().createStatement();
+        statement.addBatch("DELETE FROM orders WHERE id = 1");
+        statement.addBatch("DELETE FROM items WHERE id = 2");
+
+        statement.executeBatch();
+
+        final List<Span> spans = sentSpans();
+        assertThat(spans)
+            .extracting(span -> span.getFields().get(TraceFieldConstants.DATABASE_QUERY_FIELD))
+            .containsExactly("DELETE FROM orders WHERE id = ?", "DELETE FROM items WHERE id = ?");
+        assertThat(spans).extracting(Span::getParentSpanId).containsOnly(rootSpan.getSpanId());
+        assertThat(beeline.getActiveSpan().getSpanId()).isEqualTo(rootSpan.getSpanId());
+        assertThat(rootSpan.getFields()).containsEntry(TraceFieldConstants.DATABASE_QUERY_COUNT_FIELD, 2L);
+    }
+
+    @Test
+    public void GIVEN_aCoalescingTracer_WHEN_executingTheSameQueryRepeatedly_EXPECT_oneCoalescedSpanAndParentFlagged() throws SQLException {
+        beeline.getTracer().popSpan(rootSpan); // replaced by the coalescing tracer's trace, without sending it
+        final SpanBuilderFactory factory = Tracing.createSpanBuilderFactory(mockProcessor, Sampling.alwaysSampler());
+        beeline = Tracing.createBeeline(Tracing.createTracer(factory, 3), factory, "service");
+        final Span parent = beeline.startTrace("parent", PropagationContext.emptyContext(), "service");
+        final PreparedStatement statement = dataSource(JdbcQueryParameterMode.ALL).getConnection().prepareStatement(QUERY);
+
+        for (long id = 0; id < 5; id++) {
+            statement.setLong(1, id);
+            statement.executeQuery();
+        }
+        parent.close();
+
+        final List<Span> spans = sentSpans();
+        assertThat(spans).extracting(Span::getSpanName).containsExactly("query", "parent");
+        assertThat(spans.get(0).getFields())
+            .containsEntry(TraceFieldConstants.COALESCED_COUNT_FIELD, 5)
+            .containsKey(TraceFieldConstants.DATABASE_QUERY_HASH_FIELD);
+        assertThat(spans.get(1).getFields())
+            .containsEntry(TraceFieldConstants.N_PLUS_ONE_FIELD, true)
+            .containsEntry(TraceFieldConstants.DATABASE_QUERY_COUNT_FIELD, 5L);
+    }
+
+    @Test
+    public void GIVEN_aFailingStatement_WHEN_executing_EXPECT_errorRethrownAndAddedToSpan() throws SQLException {
+        final SQLException error = new SQLException("syntax error");
+        when(mockStatement.executeUpdate("DELETE FROM")).thenThrow(error);
+        final Statement statement = dataSource(JdbcQueryParameterMode.ALL).getConnection().createStatement();
+
+        assertThatThrownBy(() -> statement.executeUpdate("DELETE FROM")).isSameAs(error);
+
+        assertThat(sentSpans().get(0).getFields())
+            .containsEntry(TraceFieldConstants.DATABASE_IS_SUCCESS, false)
+            .containsEntry(TraceFieldConstants.DATABASE_ERROR, "SQLException")
+            .containsEntry(TraceFieldConstants.DATABASE_ERROR_DETAILS, "syntax error")
+            .containsEntry(TraceFieldConstants.DATABASE_STATEMENT_TYPE_FIELD, "STATEMENT");
+    }
+
+    @Test
+    public void GIVEN_anActiveSpan_WHEN_acquiringConnections_EXPECT_acquisitionTotalsOnActiveSpan() throws SQLException {
+        final DataSource dataSource = dataSource(JdbcQueryParameterMode.NONE);
+
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertThat(rootSpan.getFields())
+            .containsEntry(TraceFieldConstants.DATABASE_CONNECTION_ACQUIRE_COUNT_FIELD, 2L)
+            .containsKey(TraceFieldConstants.DATABASE_CONNECTION_ACQUIRE_DURATION_FIELD);
+        assertThat((Double) rootSpan.getFields().get(TraceFieldConstants.DATABASE_CONNECTION_ACQUIRE_DURATION_FIELD))
+            .isGreaterThanOrEqualTo(0.0);
+    }
+
+    @Test
+    public void GIVEN_aFailingConnectionAcquisition_EXPECT_acquisitionStillRecorded() throws SQLException {
+        final SQLException error = new SQLException("pool exhausted");
+        when(mockDataSource.getConnection()).thenThrow(error);
+        final DataSource dataSource = dataSource(JdbcQueryParameterMode.NONE);
+
+        assertThatThrownBy(dataSource::getConnection).isSameAs(error);
+
+        assertThat(rootSpan.getFields()).containsEntry(TraceFieldConstants.DATABASE_CONNECTION_ACQUIRE_COUNT_FIELD, 1L);
+    }
+
+    @Test
+    public void GIVEN_aQueryResultSet_WHEN_iteratedToTheEnd_EXPECT_rowsAndDurationOnActiveSpan() throws SQLException {
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true, true, true, false);
+        final PreparedStatement statement = dataSource(JdbcQueryParameterMode.NONE).getConnection().prepareStatement(QUERY);
+
+        final ResultSet resultSet = statement.executeQuery();
+        while (resultSet.next()) {
+            resultSet.getLong(1);
+        }
+        resultSet.close();
+
+        assertThat(resultSet.getStatement()).isSameAs(statement);
+        assertThat(resultSet.unwrap(ResultSet.class)).isSameAs(mockResultSet);
+        assertThat(rootSpan.getFields())
+            .containsEntry(TraceFieldConstants.DATABASE_RESULT_SET_ROWS_FIELD, 3L)
+            .containsKey(TraceFieldConstants.DATABASE_RESULT_SET_DURATION_FIELD);
+    }
+
+    @Test
+    public void GIVEN_anUnconsumedResultSet_WHEN_closingItsStatement_EXPECT_rowsReadSoFarRecordedOnce() throws SQLException {
+        when(mockStatement.executeQuery(anyString())).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true);
+        final Statement statement = dataSource(JdbcQueryParameterMode.NONE).getConnection().createStatement();
+
+        final ResultSet resultSet = statement.executeQuery("SELECT * FROM orders");
+        resultSet.next();
+        statement.close();
+        resultSet.close();
+
+        assertThat(rootSpan.getFields()).containsEntry(TraceFieldConstants.DATABASE_RESULT_SET_ROWS_FIELD, 1L);
+    }
+
+    @Test
+    public void GIVEN_noActiveSpan_WHEN_executingAQuery_EXPECT_resultSetNotWrapped() throws SQLException {
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        beeline.getTracer().endTrace();
+
+        final ResultSet resultSet = dataSource(JdbcQueryParameterMode.NONE).getConnection().prepareStatement(QUERY).executeQuery();
+
+        assertThat(resultSet).isSameAs(mockResultSet);
+    }
+
+    @Test
+    public void GIVEN_wrappers_WHEN_unwrapping_EXPECT_delegates() throws SQLException {
+        final DataSource dataSource = dataSource(JdbcQueryParameterMode.ALL);
+        final Connection connection = dataSource.getConnection();
+
+        assertThat(dataSource.unwrap(DataSource.class)).isSameAs(mockDataSource);
+        assertThat(connection.unwrap(Connection.class)).isSameAs(mockConnection);
+        assertThat(connection.prepareStatement(QUERY).unwrap(PreparedStatement.class)).isSameAs(mockPreparedStatement);
+    }
+}
@@ -3,6 +3,7 @@ package io.honeycomb.beeline.spring.beans;
 import io.honeycomb.beeline.tracing.Beeline;
 import io.honeycomb.beeline.tracing.Span;
 import io.honeycomb.beeline.tracing.Tracer;
+import io.honeycomb.beeline.tracing.TracerSpan;
 import io.honeycomb.beeline.tracing.propagation.PropagationContext;
 import io.honeycomb.beeline.tracing.utils.TraceFieldConstants;
 import net.ttddyy.dsproxy.ExecutionInfo;
@@ -11,12 +12,15 @@ import net.ttddyy.dsproxy.StatementType;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static io.honeycomb.beeline.spring.beans.BeelineQueryListenerForJDBC.CHILD_SPAN_KEY;
 import static io.honeycomb.beeline.spring.beans.BeelineQueryListenerForJDBC.ROOT_SPAN_KEY;
@@ -43,7 +47,7 @@ public class BeelineQueryListenerForJDBCTest {
     @Mock
     Span activeSpan;
     @Mock
-    Span childSpan;
+    TracerSpan childSpan;
     @Mock
     Tracer tracer;
     BeelineQueryListenerForJDBC listener;
@@ -55,7 +59,8 @@ public class BeelineQueryListenerForJDBCTest {
         when(beeline.getActiveSpan()).thenReturn(activeSpan);
         when(activeSpan.isNoop()).thenReturn(false);
         when(beeline.getTracer()).thenReturn(tracer);
-        when(tracer.startChildSpan(anyString())).thenReturn(childSpan);
+        when(tracer.startDetachedChildSpan(anyString())).thenReturn(childSpan);
+        when(tracer.pushSpan(any(Span.class))).thenAnswer(invocation -> invocation.getArgument(0));
         when(beeline.startTrace(anyString(), any(PropagationContext.class), anyString())).thenReturn(activeSpan);
         executionInfo = new ExecutionInfo();
         executionInfo.setStatementType(StatementType.STATEMENT);
@@ -334,6 +339,171 @@ public class BeelineQueryListenerForJDBCTest {
         verifyNoInteractions(activeSpan, childSpan);
     }
 
+    @Test
+    public void GIVEN_aQueryWithLiterals_WHEN_afterQuery_EXPECT_normalizedQueryAndHashOnSpan() {
+        listener = new BeelineQueryListenerForJDBC.Builder(beeline).setSqlNormalizer(new SqlNormalizer()).build();
+        final List<QueryInfo> queryInfoList = Collections.singletonList(new QueryInfo("SELECT * FROM a WHERE id IN (1, 2)"));
+        executionInfo.addCustomValue(CHILD_SPAN_KEY, Collections.singletonList(childSpan));
+        executionInfo.addCustomValue(ROOT_SPAN_KEY, activeSpan);
+
+        listener.afterQuery(executionInfo, queryInfoList);
+
+        verify(childSpan).addField(TraceFieldConstants.DATABASE_QUERY_FIELD, "SELECT * FROM a WHERE id IN (?)");
+        verify(childSpan).addField(eq(TraceFieldConstants.DATABASE_QUERY_HASH_FIELD), anyString());
+    }
+
+    @Test
+    public void GIVEN_noNormalizer_WHEN_afterQuery_EXPECT_rawQueryOnSpan() {
+        final List<QueryInfo> queryInfoList = Collections.singletonList(new QueryInfo("SELECT * FROM a WHERE id = 1"));
+        executionInfo.addCustomValue(CHILD_SPAN_KEY, Collections.singletonList(childSpan));
+        executionInfo.addCustomValue(ROOT_SPAN_KEY, activeSpan);
+
+        listener.afterQuery(executionInfo, queryInfoList);
+
+        verify(childSpan).addField(TraceFieldConstants.DATABASE_QUERY_FIELD, "SELECT * FROM a WHERE id = 1");
+        verify(childSpan, never()).addField(eq(TraceFieldConstants.DATABASE_QUERY_HASH_FIELD), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void GIVEN_truncatedParameters_WHEN_afterQueryBatch_EXPECT_parametersCappedAndFlagged() {
+        listener = new BeelineQueryListenerForJDBC.Builder(beeline)
+            .setQueryParameterMode(JdbcQueryParameterMode.TRUNCATE)
+            .setMaxQueryParameters(3)
+            .build();
+        final QueryInfo queryInfo = mock(QueryInfo.class);
+        final Map<String, Object> args = new LinkedHashMap<>();
+        args.put("1", "a");
+        args.put("2", "b");
+        when(queryInfo.getQuery()).thenReturn("INSERT INTO t VALUES (?, ?)");
+        when(queryInfo.getQueryArgsList()).thenReturn(Arrays.asList(args, args, args));
+        executionInfo.addCustomValue(CHILD_SPAN_KEY, Collections.singletonList(childSpan));
+        executionInfo.addCustomValue(ROOT_SPAN_KEY, activeSpan);
+
+        listener.afterQuery(executionInfo, Collections.singletonList(queryInfo));
+
+        final ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(childSpan).addField(eq(TraceFieldConstants.DATABASE_QUERY_PARAMETERS_FIELD), captor.capture());
+        assertThat((List<Map<String, Object>>) captor.getValue())
+            .containsExactly(args, Collections.singletonMap("1", "a"));
+        verify(childSpan).addField(TraceFieldConstants.DATABASE_QUERY_PARAMETERS_TRUNCATED_FIELD, true);
+    }
+
+    @Test
+    public void GIVEN_noParameters_WHEN_afterQuery_EXPECT_parametersMissingFromSpan() {
+        listener = new BeelineQueryListenerForJDBC.Builder(beeline).setQueryParameterMode(JdbcQueryParameterMode.NONE).build();
+        final List<QueryInfo> queryInfoList = Collections.singletonList(new QueryInfo("query1"));
+        executionInfo.addCustomValue(CHILD_SPAN_KEY, Collections.singletonList(childSpan));
+        executionInfo.addCustomValue(ROOT_SPAN_KEY, activeSpan);
+
+        listener.afterQuery(executionInfo, queryInfoList);
+
+        verify(childSpan, never()).addField(eq(TraceFieldConstants.DATABASE_QUERY_PARAMETERS_FIELD), any());
+    }
+
+    @Test
+    public void GIVEN_afterQuery_EXPECT_queryTotalsAccumulatedOnRootSpan() {
+        when(activeSpan.getFields()).thenReturn(Collections.singletonMap(TraceFieldConstants.DATABASE_QUERY_COUNT_FIELD, 3L));
+        executionInfo.setElapsedTime(20);
+        final List<QueryInfo> queryInfoList = Collections.singletonList(new QueryInfo("query1"));
+        executionInfo.addCustomValue(CHILD_SPAN_KEY, Collections.singletonList(childSpan));
+        executionInfo.addCustomValue(ROOT_SPAN_KEY, activeSpan);
+
+        listener.afterQuery(executionInfo, queryInfoList);
+
+        verify(activeSpan).addField(TraceFieldConstants.DATABASE_QUERY_COUNT_FIELD, 4L);
+        verify(activeSpan).addField(TraceFieldConstants.DATABASE_TOTAL_DURATION_FIELD, 20L);
+    }
+
+    @Test
+    public void GIVEN_slowQueryThreshold_WHEN_beforeQuery_EXPECT_noChildSpans() {
+        listener = new BeelineQueryListenerForJDBC.Builder(beeline).setSlowQueryThresholdMs(50L).build();
+
+        listener.beforeQuery(executionInfo, Collections.singletonList(new QueryInfo("query1")));
+
+        assertThat(executionInfo.getCustomValue(ROOT_SPAN_KEY, Span.class)).isSameAs(activeSpan);
+        assertThat(executionInfo.getCustomValue(CHILD_SPAN_KEY, List.class)).isNull();
+        verifyNoInteractions(tracer);
+    }
+
+    @Test
+    public void GIVEN_slowQueryThreshold_WHEN_afterFastQuery_EXPECT_onlyTotalsOnRootSpan() {
+        listener = new BeelineQueryListenerForJDBC.Builder(beeline).setSlowQueryThresholdMs(50L).build();
+        executionInfo.setElapsedTime(10);
+        executionInfo.addCustomValue(ROOT_SPAN_KEY, activeSpan);
+
+        listener.afterQuery(executionInfo, Arrays.asList(new QueryInfo("query1"), new QueryInfo("query2")));
+
+        verifyNoInteractions(tracer, childSpan);
+        verify(activeSpan).addField(TraceFieldConstants.DATABASE_QUERY_COUNT_FIELD, 2L);
+        verify(activeSpan).addField(TraceFieldConstants.DATABASE_TOTAL_DURATION_FIELD, 10L);
+    }
+
+    @Test
+    public void GIVEN_slowQueryThreshold_WHEN_afterSlowQuery_EXPECT_backdatedSpanSent() {
+        listener = new BeelineQueryListenerForJDBC.Builder(beeline).setSlowQueryThresholdMs(50L).build();
+        when(tracer.startChildSpan(anyString())).thenReturn(childSpan);
+        when(childSpan.getTimestamp()).thenReturn(1_000L);
+        when(childSpan.getStartTime()).thenReturn(900_000_000L);
+        executionInfo.setElapsedTime(100);
+        executionInfo.addCustomValue(ROOT_SPAN_KEY, activeSpan);
+
+        listener.afterQuery(executionInfo, Collections.singletonList(new QueryInfo("query1")));
+
+        verify(childSpan).markStart(900L, 800_000_000L);
+        verifyAddedFieldsToSpan(1);
+        verify(childSpan).close();
+    }
+
+    @Test
+    public void GIVEN_slowQueryThreshold_WHEN_afterFailedFastQuery_EXPECT_spanSent() {
+        listener = new BeelineQueryListenerForJDBC.Builder(beeline).setSlowQueryThresholdMs(50L).build();
+        when(tracer.startChildSpan(anyString())).thenReturn(childSpan);
+        executionInfo.setElapsedTime(1);
+        executionInfo.setThrowable(new IllegalStateException("boom"));
+        executionInfo.addCustomValue(ROOT_SPAN_KEY, activeSpan);
+
+        listener.afterQuery(executionInfo, Collections.singletonList(new QueryInfo("query1")));
+
+        verify(childSpan).addField(TraceFieldConstants.DATABASE_ERROR, "IllegalStateException");
+        verify(childSpan).close();
+    }
+
+    @Test
+    public void GIVEN_orphanQueriesDropped_WHEN_queryingWithoutActiveSpan_EXPECT_noTraceAndNoSpans() {
+        listener = new BeelineQueryListenerForJDBC.Builder(beeline).setOrphanQueryPolicy(JdbcOrphanQueryPolicy.DROP).build();
+        reset(activeSpan);
+        when(activeSpan.isNoop()).thenReturn(true);
+        final List<QueryInfo> queryInfoList = Collections.singletonList(new QueryInfo("query1"));
+
+        listener.beforeQuery(executionInfo, queryInfoList);
+        listener.afterQuery(executionInfo, queryInfoList);
+
+        verify(beeline, never()).startTrace(anyString(), any(PropagationContext.class), anyString());
+        verifyNoInteractions(tracer, childSpan);
+    }
+
+    @Test
+    public void GIVEN_orphanQueriesAggregated_WHEN_queryingWithoutActiveSpan_EXPECT_normalizedQueriesRecorded() {
+        final OrphanQueryAggregator aggregator = mock(OrphanQueryAggregator.class);
+        listener = new BeelineQueryListenerForJDBC.Builder(beeline)
+            .setSqlNormalizer(new SqlNormalizer())
+            .setOrphanQueryPolicy(JdbcOrphanQueryPolicy.AGGREGATE)
+            .setOrphanQueryAggregator(aggregator)
+            .build();
+        reset(activeSpan);
+        when(activeSpan.isNoop()).thenReturn(true);
+        executionInfo.setElapsedTime(7);
+        final List<QueryInfo> queryInfoList = Collections.singletonList(new QueryInfo("SELECT 1"));
+
+        listener.beforeQuery(executionInfo, queryInfoList);
+        listener.afterQuery(executionInfo, queryInfoList);
+
+        verify(aggregator).record(eq("SELECT ?"), anyString(), eq(7L), eq(false));
+        verify(beeline, never()).startTrace(anyString(), any(PropagationContext.class), anyString());
+        verifyNoInteractions(tracer);
+    }
+
     @Test
     public void EXPECT_instrumentationName() {
         assertThat(listener.getName()).isNotNull().isEqualTo("spring_jdbc");
@@ -0,0 +1,133 @@
+package io.honeycomb.beeline.spring.beans;
+
+import io.honeycomb.beeline.tracing.Beeline;
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.beeline.tracing.SpanBuilderFactory;
+import io.honeycomb.beeline.tracing.SpanPostProcessor;
+import io.honeycomb.beeline.tracing.Tracing;
+import io.honeycomb.beeline.tracing.sampling.Sampling;
+import io.honeycomb.beeline.tracing.utils.TraceFieldConstants;
+import io.honeycomb.libhoney.Event;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OrphanQueryAggregatorTest {
+
+    @Mock
+    private SpanPostProcessor mockProcessor;
+    @Mock
+    private Event mockEvent;
+
+    private OrphanQueryAggregator aggregator;
+
+    @Before
+    public void setUp() {
+        when(mockProcessor.runSamplerHook(any())).thenReturn(1);
+        when(mockProcessor.generateEvent(any())).thenReturn(mockEvent);
+        final SpanBuilderFactory factory = Tracing.createSpanBuilderFactory(mockProcessor, Sampling.alwaysSampler());
+        final Beeline beeline = Tracing.createBeeline(Tracing.createTracer(factory), factory, "service");
+        aggregator = new OrphanQueryAggregator(beeline, TimeUnit.HOURS.toMillis(1), 2);
+    }
+
+    @After
+    public void tearDown() {
+        aggregator.close();
+    }
+
+    private List<Span> sentSpans(final int count) {
+        final ArgumentCaptor<Span> captor = ArgumentCaptor.forClass(Span.class);
+        verify(mockProcessor, times(count)).generateEvent(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    public void GIVEN_recordedQueries_WHEN_flushing_EXPECT_oneSummaryPerQuery() {
+        aggregator.record("SELECT ?", "abc", 5, false);
+        aggregator.record("SELECT ?", "abc", 7, true);
+
+        aggregator.flush();
+
+        final Span summary = sentSpans(1).get(0);
+        assertThat(summary.getSpanName()).isEqualTo(OrphanQueryAggregator.SUMMARY_SPAN_NAME);
+        assertThat(summary.getFields())
+            .containsEntry(TraceFieldConstants.DATABASE_QUERY_FIELD, "SELECT ?")
+            .containsEntry(TraceFieldConstants.DATABASE_QUERY_HASH_FIELD, "abc")
+            .containsEntry(TraceFieldConstants.DATABASE_QUERY_COUNT_FIELD, 2L)
+            .containsEntry(TraceFieldConstants.DATABASE_TOTAL_DURATION_FIELD, 12L)
+            .containsEntry(OrphanQueryAggregator.ERROR_COUNT_FIELD, 1L);
+    }
+
+    @Test
+    public void GIVEN_moreDistinctQueriesThanTheMaximum_WHEN_flushing_EXPECT_excessAccumulatedAsOther() {
+        aggregator.record("SELECT 1", null, 1, false);
+        aggregator.record("SELECT 2", null, 1, false);
+        aggregator.record("SELECT 3", null, 1, false);
+        aggregator.record("SELECT 4", null, 1, false);
+
+        aggregator.flush();
+
+        assertThat(sentSpans(3))
+            .extracting(span -> span.getFields().get(TraceFieldConstants.DATABASE_QUERY_FIELD))
+            .containsExactlyInAnyOrder("SELECT 1", "SELECT 2", OrphanQueryAggregator.OTHER_QUERIES);
+    }
+
+    @Test
+    public void GIVEN_noRecordedQueries_WHEN_flushing_EXPECT_nothingSent() {
+        aggregator.flush();
+
+        verify(mockProcessor, never()).generateEvent(any());
+    }
+
+    @Test
+    public void GIVEN_queriesRecordedWhileFlushing_EXPECT_noExecutionsLost() throws Exception {
+        final int threads = 4;
+        final int recordsPerThread = 20_000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<?>> recorders = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            recorders.add(executor.submit(() -> {
+                for (int j = 0; j < recordsPerThread; j++) {
+                    aggregator.record("SELECT ?", null, 1, false);
+                }
+            }));
+        }
+        try {
+            while (!recorders.stream().allMatch(Future::isDone)) {
+                aggregator.flush();
+            }
+            for (final Future<?> recorder : recorders) {
+                recorder.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        aggregator.flush();
+
+        final ArgumentCaptor<Span> captor = ArgumentCaptor.forClass(Span.class);
+        verify(mockProcessor, atLeastOnce()).generateEvent(captor.capture());
+        assertThat(captor.getAllValues().stream()
+            .mapToLong(span -> (Long) span.getFields().get(TraceFieldConstants.DATABASE_QUERY_COUNT_FIELD))
+            .sum()).isEqualTo((long) threads * recordsPerThread);
+    }
+}
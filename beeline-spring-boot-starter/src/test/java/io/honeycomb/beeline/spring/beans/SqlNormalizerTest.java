@@ -0,0 +1,68 @@
+package io.honeycomb.beeline.spring.beans;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SqlNormalizerTest {
+
+    private final SqlNormalizer normalizer = new SqlNormalizer(2);
+
+    @Test
+    public void GIVEN_literals_WHEN_normalizing_EXPECT_literalsReplacedWithPlaceholders() {
+        assertThat(SqlNormalizer.fingerprint("SELECT * FROM users WHERE name = 'O''Brien' AND age > 42.5 AND flags = 0xFF"))
+            .isEqualTo("SELECT * FROM users WHERE name = ? AND age > ? AND flags = ?");
+    }
+
+    @Test
+    public void GIVEN_identifiersWithDigits_WHEN_normalizing_EXPECT_identifiersKept() {
+        assertThat(SqlNormalizer.fingerprint("select t1.col2 from \"Table 3\" t1 where t1.id = 7"))
+            .isEqualTo("select t1.col2 from \"Table 3\" t1 where t1.id = ?");
+    }
+
+    @Test
+    public void GIVEN_inAndValuesLists_WHEN_normalizing_EXPECT_listsCollapsed() {
+        assertThat(SqlNormalizer.fingerprint("SELECT id FROM orders WHERE id IN (1, 2, 3) OR status in ('a','b')"))
+            .isEqualTo("SELECT id FROM orders WHERE id IN (?) OR status in (?)");
+        assertThat(SqlNormalizer.fingerprint("INSERT INTO t (a, b) VALUES (?, ?), (?, ?), (1, 'x')"))
+            .isEqualTo("INSERT INTO t (a, b) VALUES (?, ?)");
+    }
+
+    @Test
+    public void GIVEN_commentsAndWhitespace_WHEN_normalizing_EXPECT_removedAndCollapsed() {
+        assertThat(SqlNormalizer.fingerprint("  SELECT /* hint */ a\n\t FROM b -- trailing\n WHERE c = ?  "))
+            .isEqualTo("SELECT a FROM b WHERE c = ?");
+    }
+
+    @Test
+    public void GIVEN_queriesDifferingOnlyInLiterals_WHEN_normalizing_EXPECT_sameQueryAndHash() {
+        final SqlNormalizer.NormalizedQuery first = normalizer.normalize("SELECT * FROM a WHERE id = 1");
+        final SqlNormalizer.NormalizedQuery second = normalizer.normalize("SELECT * FROM a WHERE id = 2");
+        final SqlNormalizer.NormalizedQuery other = normalizer.normalize("SELECT * FROM b WHERE id = 2");
+
+        assertThat(second.getQuery()).isEqualTo(first.getQuery());
+        assertThat(second.getHash()).isEqualTo(first.getHash()).hasSize(16);
+        assertThat(other.getHash()).isNotEqualTo(first.getHash());
+    }
+
+    @Test
+    public void GIVEN_aFullCache_WHEN_normalizing_EXPECT_cacheClearedToAdmitNewStatements() {
+        final SqlNormalizer.NormalizedQuery first = normalizer.normalize("SELECT 1");
+
+        assertThat(normalizer.normalize("SELECT 1")).isSameAs(first);
+        normalizer.normalize("SELECT 2");
+        final SqlNormalizer.NormalizedQuery third = normalizer.normalize("SELECT 3");
+
+        assertThat(normalizer.cacheSize()).isEqualTo(1);
+        assertThat(normalizer.normalize("SELECT 3")).isSameAs(third);
+        assertThat(third.getQuery()).isEqualTo("SELECT ?");
+    }
+
+    @Test
+    public void GIVEN_noCache_WHEN_normalizing_EXPECT_nothingCached() {
+        final SqlNormalizer uncached = new SqlNormalizer(0);
+
+        assertThat(uncached.normalize("SELECT 1").getQuery()).isEqualTo("SELECT ?");
+        assertThat(uncached.cacheSize()).isZero();
+    }
+}
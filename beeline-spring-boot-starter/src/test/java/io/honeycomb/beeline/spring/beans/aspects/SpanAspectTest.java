@@ -230,6 +230,22 @@ public class SpanAspectTest {
         verifyNoMoreInteractions(mockSpan, tracer);
     }
 
+    @Test
+    public void GIVEN_annotatedMethodCalledRepeatedly_WHEN_callingMethod_EXPECT_fieldsFromEachCallsArguments() {
+        annotationTester.methodWithNamedParameter("paramZero", "paramOne", "paramTwo");
+        annotationTester.methodWithNamedParameter("otherZero", "otherOne", "otherTwo");
+
+        verify(tracer, times(2)).startChildSpan("MethodWithNamedParameter");
+        verify(mockSpan, times(2)).addField("type", "annotated_method");
+        verify(mockSpan, times(2)).addField("spring.method.name", "AnnotationTester.methodWithNamedParameter(..)");
+        verify(mockSpan).addField(matches("spring\\.method\\.param\\.(1|param1)"), eq("paramOne"));
+        verify(mockSpan).addField("Third-Parameter", "paramTwo");
+        verify(mockSpan).addField(matches("spring\\.method\\.param\\.(1|param1)"), eq("otherOne"));
+        verify(mockSpan).addField("Third-Parameter", "otherTwo");
+        verify(mockSpan, times(2)).close();
+        verifyNoMoreInteractions(mockSpan, tracer);
+    }
+
     @Test
     public void GIVEN_annotatedMethodThatThrowsException_WHEN_callingMethod_EXPECT_errorParametersToBeAdded() {
         assertThatThrownBy(() -> annotationTester.methodThrowingException("paramZero", "paramOne", "paramTwo"))
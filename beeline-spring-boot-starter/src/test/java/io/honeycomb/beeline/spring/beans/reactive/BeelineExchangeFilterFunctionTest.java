@@ -0,0 +1,140 @@
+package io.honeycomb.beeline.spring.beans.reactive;
+
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.beeline.tracing.SpanBuilderFactory;
+import io.honeycomb.beeline.tracing.SpanPostProcessor;
+import io.honeycomb.beeline.tracing.Tracer;
+import io.honeycomb.beeline.tracing.Tracing;
+import io.honeycomb.beeline.tracing.propagation.PropagationContext;
+import io.honeycomb.beeline.tracing.sampling.Sampling;
+import io.honeycomb.libhoney.Event;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class BeelineExchangeFilterFunctionTest {
+
+    @Mock
+    private SpanPostProcessor mockProcessor;
+    @Mock
+    private Event mockEvent;
+
+    private Tracer tracer;
+    private SpanBuilderFactory factory;
+    private BeelineExchangeFilterFunction filterFunction;
+    private final AtomicReference<ClientRequest> sentRequest = new AtomicReference<>();
+    private final ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://example.com/orders")).build();
+
+    @Before
+    public void setUp() {
+        when(mockProcessor.runSamplerHook(any())).thenReturn(1);
+        when(mockProcessor.generateEvent(any())).thenReturn(mockEvent);
+        factory = Tracing.createSpanBuilderFactory(mockProcessor, Sampling.alwaysSampler());
+        tracer = Tracing.createTracer(factory);
+        filterFunction = new BeelineExchangeFilterFunction(tracer);
+    }
+
+    private ExchangeFunction respondWith(final HttpStatus status) {
+        return clientRequest -> {
+            sentRequest.set(clientRequest);
+            return Mono.just(ClientResponse.create(status).header("content-type", "text/plain").build());
+        };
+    }
+
+    private Span createParentSpan() {
+        return factory.createBuilder()
+            .setSpanName("parent")
+            .setServiceName("service")
+            .setParentContext(new PropagationContext("abc", "123", null, Collections.emptyMap()))
+            .build();
+    }
+
+    private Span verifySentSpan() {
+        final ArgumentCaptor<Span> captor = ArgumentCaptor.forClass(Span.class);
+        verify(mockProcessor).generateEvent(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    public void GIVEN_aSpanInTheReactorContext_WHEN_exchanging_EXPECT_childSpanSentAndTraceHeaderPropagated() {
+        final Span parentSpan = createParentSpan();
+
+        filterFunction.filter(request, respondWith(HttpStatus.ACCEPTED))
+            .subscriberContext(context -> ReactorSpanContext.withSpan(context, parentSpan))
+            .block(Duration.ofSeconds(5));
+
+        final Span sent = verifySentSpan();
+        assertThat(sent.getSpanName()).isEqualTo("http_client_request");
+        assertThat(sent.getTraceId()).isEqualTo("abc");
+        assertThat(sent.getParentSpanId()).isEqualTo(parentSpan.getSpanId());
+        assertThat(sent.getFields())
+            .containsEntry("type", "http_client")
+            .containsEntry("client.request.path", "/orders")
+            .containsEntry("client.request.method", "GET")
+            .containsEntry("client.response.status_code", 202)
+            .containsEntry("client.response.content_type", "text/plain");
+        assertThat(sentRequest.get().headers().getFirst("X-Honeycomb-Trace"))
+            .contains("trace_id=abc")
+            .contains("parent_id=" + sent.getSpanId());
+        assertThat(tracer.getActiveSpan().isNoop()).isTrue();
+    }
+
+    @Test
+    public void GIVEN_aSpanActiveOnTheTracer_WHEN_exchanging_EXPECT_tracerSpanUsedAsParentAndLeftActive() {
+        final Span parentSpan = tracer.startTrace(createParentSpan());
+
+        filterFunction.filter(request, respondWith(HttpStatus.OK)).block(Duration.ofSeconds(5));
+
+        final Span sent = verifySentSpan();
+        assertThat(sent.getParentSpanId()).isEqualTo(parentSpan.getSpanId());
+        assertThat(tracer.getActiveSpan().getSpanId()).isEqualTo(parentSpan.getSpanId());
+    }
+
+    @Test
+    public void GIVEN_noParentSpan_WHEN_exchanging_EXPECT_noSpanAndRequestUnchanged() {
+        filterFunction.filter(request, respondWith(HttpStatus.OK)).block(Duration.ofSeconds(5));
+
+        verify(mockProcessor, never()).generateEvent(any());
+        assertThat(sentRequest.get()).isSameAs(request);
+    }
+
+    @Test
+    public void GIVEN_aFailingExchange_WHEN_exchanging_EXPECT_errorFieldsAndSpanClosed() {
+        final Span parentSpan = createParentSpan();
+
+        assertThatThrownBy(() -> filterFunction
+            .filter(request, clientRequest -> Mono.error(new IllegalStateException("refused")))
+            .subscriberContext(context -> ReactorSpanContext.withSpan(context, parentSpan))
+            .block(Duration.ofSeconds(5)))
+            .isInstanceOf(IllegalStateException.class);
+
+        final Span sent = verifySentSpan();
+        assertThat(sent.getFields())
+            .containsEntry("client.request.error", "IllegalStateException")
+            .containsEntry("client.request.error_detail", "refused");
+        verify(mockProcessor, times(1)).generateEvent(any());
+    }
+}
@@ -0,0 +1,133 @@
+package io.honeycomb.beeline.spring.beans.reactive;
+
+import io.honeycomb.beeline.tracing.Beeline;
+import io.honeycomb.beeline.tracing.Span;
+import io.honeycomb.beeline.tracing.SpanBuilderFactory;
+import io.honeycomb.beeline.tracing.SpanPostProcessor;
+import io.honeycomb.beeline.tracing.Tracer;
+import io.honeycomb.beeline.tracing.Tracing;
+import io.honeycomb.beeline.tracing.sampling.Sampling;
+import io.honeycomb.libhoney.Event;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class BeelineWebFilterTest {
+
+    @Mock
+    private SpanPostProcessor mockProcessor;
+    @Mock
+    private Event mockEvent;
+
+    private Tracer tracer;
+    private BeelineWebFilter filter;
+
+    @Before
+    public void setUp() {
+        when(mockProcessor.runSamplerHook(any())).thenReturn(1);
+        when(mockProcessor.generateEvent(any())).thenReturn(mockEvent);
+        final SpanBuilderFactory factory = Tracing.createSpanBuilderFactory(mockProcessor, Sampling.alwaysSampler());
+        tracer = Tracing.createTracer(factory);
+        final Beeline beeline = Tracing.createBeeline(tracer, factory);
+        filter = new BeelineWebFilter("service", Collections.emptyList(), Collections.singletonList("/health"), beeline);
+    }
+
+    private Span verifySentSpan() {
+        final ArgumentCaptor<Span> captor = ArgumentCaptor.forClass(Span.class);
+        verify(mockProcessor).generateEvent(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    public void GIVEN_aRequest_WHEN_filtering_EXPECT_spanInReactorContextAndNotOnTracer() {
+        final MockServerWebExchange exchange = MockServerWebExchange.from(
+            MockServerHttpRequest.get("http://example.com/orders?id=1").header("X-Honeycomb-Trace", "1;trace_id=abc,parent_id=123"));
+        final AtomicReference<Span> spanInContext = new AtomicReference<>();
+        final AtomicReference<Span> spanOnTracer = new AtomicReference<>();
+        final WebFilterChain chain = ex -> ReactorSpanContext.currentSpan()
+            .publishOn(Schedulers.parallel())
+            .doOnNext(span -> {
+                spanInContext.set(span);
+                spanOnTracer.set(tracer.getActiveSpan());
+                ex.getAttributes().put(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/orders");
+                ex.getResponse().setStatusCode(HttpStatus.CREATED);
+            })
+            .then();
+
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+
+        final Span sent = verifySentSpan();
+        assertThat(spanInContext.get()).isSameAs(sent);
+        assertThat(spanOnTracer.get().isNoop()).isTrue();
+        assertThat(tracer.getActiveSpan().isNoop()).isTrue();
+        assertThat(sent.getSpanName()).isEqualTo("http_get");
+        assertThat(sent.getTraceId()).isEqualTo("abc");
+        assertThat(sent.getParentSpanId()).isEqualTo("123");
+        assertThat(sent.getFields())
+            .containsEntry("type", "http_server")
+            .containsEntry("request.path", "/orders")
+            .containsEntry("request.host", "example.com")
+            .containsEntry("response.status_code", 201)
+            .containsEntry("spring.request.matched_pattern", "/orders");
+    }
+
+    @Test
+    public void GIVEN_aFailingChain_WHEN_filtering_EXPECT_errorFieldsAndSpanClosed() {
+        final MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/orders"));
+        final WebFilterChain chain = ex -> Mono.error(new IllegalStateException("boom"));
+
+        assertThatThrownBy(() -> filter.filter(exchange, chain).block(Duration.ofSeconds(5)))
+            .isInstanceOf(IllegalStateException.class);
+
+        final Span sent = verifySentSpan();
+        assertThat(sent.getSpanName()).isEqualTo("http_post");
+        assertThat(sent.getFields())
+            .containsEntry("request.error", "IllegalStateException")
+            .containsEntry("request.error_detail", "boom");
+    }
+
+    @Test
+    public void GIVEN_anExcludedPath_WHEN_filtering_EXPECT_noSpan() {
+        final MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/health"));
+        final AtomicReference<Span> spanInContext = new AtomicReference<>();
+        final WebFilterChain chain = ex -> ReactorSpanContext.currentSpan().doOnNext(spanInContext::set).then();
+
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+
+        assertThat(spanInContext.get().isNoop()).isTrue();
+        verify(mockProcessor, never()).generateEvent(any());
+    }
+
+    @Test
+    public void GIVEN_aCancelledChain_WHEN_filtering_EXPECT_spanClosed() {
+        final MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/slow"));
+        final WebFilterChain chain = ex -> Mono.never();
+
+        filter.filter(exchange, chain).subscribe().dispose();
+
+        verify(mockProcessor, times(1)).generateEvent(any());
+    }
+}